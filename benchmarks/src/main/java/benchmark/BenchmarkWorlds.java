@@ -0,0 +1,30 @@
+package benchmark;
+
+import helper.WorldGenerator;
+import world.ParticleStore;
+
+/**
+ * Generates the worlds the benchmarks run on. The generator is seeded with
+ * a fixed seed and its output does not depend on the number of threads, so
+ * every run of a benchmark sees exactly the same particles.
+ * @author Matthew Zane
+ *
+ */
+public class BenchmarkWorlds {
+	public static final long SEED = 20240917L;
+
+	/**
+	 * Generates a world of particles at rest spread over a sphere, the
+	 * default model of the generator
+	 * @param count number of particles
+	 * @return
+	 * @throws Exception if the particles do not fit
+	 */
+	public static ParticleStore generate(int count) throws Exception {
+		WorldGenerator generator = new WorldGenerator();
+		generator.setCount(count);
+		generator.setSeed(SEED);
+		generator.setThreads(Runtime.getRuntime().availableProcessors());
+		return generator.generate();
+	}
+}
@@ -0,0 +1,77 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import collision.BroadPhase;
+import collision.PairHandler;
+import runner.SimulationOptions;
+import world.ParticleStore;
+
+/**
+ * Time of finding the touching particles, the broad phase followed by the
+ * exact overlap check the World does on each pair it finds
+ * @author Matthew Zane
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CollisionBenchmark {
+	@Param({"100", "1000", "10000", "100000"})
+	private int count;
+
+	@Param({"spatial-hash", "sweep-and-prune", "all-pairs"})
+	private String broadPhaseName;
+
+	private ParticleStore store;
+	private BroadPhase broadPhase;
+	private OverlapCounter counter = new OverlapCounter();
+
+	@Setup
+	public void setUp() throws Exception {
+		store = BenchmarkWorlds.generate(count);
+		SimulationOptions options = new SimulationOptions();
+		options.setBroadPhaseName(broadPhaseName);
+		broadPhase = options.createBroadPhase();
+	}
+
+	@Benchmark
+	public int findCollisions() {
+		counter.overlaps = 0;
+		broadPhase.findPairs(store, counter);
+		return counter.overlaps;
+	}
+
+	/**
+	 * Counts the pairs whose particles are touching, with the same test as
+	 * the narrow phase of the World
+	 */
+	private class OverlapCounter implements PairHandler {
+		private int overlaps;
+
+		public void handlePair(int particle1, int particle2) {
+			double dx = store.positionX[particle2] - store.positionX[particle1];
+			double dy = store.positionY[particle2] - store.positionY[particle1];
+			double dz = store.positionZ[particle2] - store.positionZ[particle1];
+			double radiiSum = store.radius[particle1] + store.radius[particle2];
+			if (radiiSum - Math.sqrt(dx * dx + dy * dy + dz * dz) >= 0) {
+				overlaps++;
+			}
+		}
+	}
+}
@@ -0,0 +1,62 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import runner.SimulationOptions;
+import solver.ForceSolver;
+import world.ParticleStore;
+
+/**
+ * Time of one calculation of the net force of every particle, the part of
+ * a cycle that grows fastest with the number of particles. The solver and
+ * the kernel of the direct solvers are chosen by the names of
+ * SimulationOptions, so -p kernel=vector measures the Vector API kernel.
+ * @author Matthew Zane
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class ForceBenchmark {
+	@Param({"100", "1000", "10000", "100000"})
+	private int count;
+
+	@Param({"direct", "parallel-direct", "barnes-hut"})
+	private String solver;
+
+	@Param({"cartesian"})
+	private String kernel;
+
+	private ParticleStore store;
+	private ForceSolver forceSolver;
+
+	@Setup
+	public void setUp() throws Exception {
+		store = BenchmarkWorlds.generate(count);
+		SimulationOptions options = new SimulationOptions();
+		options.setSolverName(solver);
+		options.setKernelName(kernel);
+		forceSolver = options.createForceSolver();
+	}
+
+	@Benchmark
+	public double[] calculateForces() {
+		forceSolver.calculateForces(store);
+		return store.forceX;
+	}
+}
@@ -0,0 +1,69 @@
+package benchmark;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import helper.CsvParticleParser;
+import helper.ParticleFileParser;
+import helper.Recorder;
+import world.ParticleStore;
+
+/**
+ * Time of parsing the particle lines of one frame of a recording, line by
+ * line with ParticleFileParser.parseParticle and all at once with the
+ * CsvParticleParser that loads large files
+ * @author Matthew Zane
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+	@Param({"100", "1000", "10000", "100000"})
+	private int count;
+
+	private String[] lines;
+	private ByteBuffer buffer;
+	private ParticleStore store;
+	private CsvParticleParser parser = new CsvParticleParser(1);
+
+	@Setup
+	public void setUp() throws Exception {
+		ParticleStore generated = BenchmarkWorlds.generate(count);
+		StringBuilder builder = new StringBuilder();
+		Recorder.appendParticles(builder, generated, 0, count);
+		lines = builder.toString().split("\n");
+		buffer = ByteBuffer.wrap(builder.toString().getBytes(StandardCharsets.US_ASCII));
+		store = new ParticleStore(count);
+	}
+
+	@Benchmark
+	public ParticleStore parseParticle() {
+		store.clear();
+		for (String line : lines) {
+			ParticleFileParser.parseParticle(line, store);
+		}
+		return store;
+	}
+
+	@Benchmark
+	public ParticleStore parseCsv() {
+		return parser.parse(buffer, 0, buffer.limit());
+	}
+}
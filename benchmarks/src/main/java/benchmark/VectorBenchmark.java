@@ -0,0 +1,104 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import data.XYZVector;
+import world.ParticleStore;
+
+/**
+ * Time of the XYZVector operations the Particle views, the display and the
+ * energy of a pair of particles are built on, over the positions and
+ * velocities of a generated world
+ * @author Matthew Zane
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VectorBenchmark {
+	/**
+	 * Simulated time the velocities are scaled by, in seconds (s)
+	 */
+	private static final double TIME_STEP = 100;
+
+	@Param({"100", "1000", "10000", "100000"})
+	private int count;
+
+	private XYZVector[] positions;
+	private XYZVector[] velocities;
+
+	@Setup
+	public void setUp() throws Exception {
+		ParticleStore store = BenchmarkWorlds.generate(count);
+		positions = new XYZVector[count];
+		velocities = new XYZVector[count];
+		for (int i = 0; i < count; i++) {
+			positions[i] = new XYZVector(store.positionX[i], store.positionY[i], store.positionZ[i]);
+			//the particles are at rest, so use the positions turned around as velocities
+			velocities[i] = new XYZVector(store.positionY[i], store.positionZ[i], store.positionX[i]);
+		}
+	}
+
+	/**
+	 * Distance of each particle to the next one
+	 * @return
+	 */
+	@Benchmark
+	public double subtractMagnitude() {
+		double sum = 0;
+		for (int i = 0; i < count; i++) {
+			sum += XYZVector.subtract(positions[(i + 1) % count], positions[i]).getMagnitude();
+		}
+		return sum;
+	}
+
+	/**
+	 * Moves a copy of each position along its velocity
+	 * @return
+	 */
+	@Benchmark
+	public double copyScaleAdd() {
+		double sum = 0;
+		for (int i = 0; i < count; i++) {
+			XYZVector displacement = velocities[i].copy();
+			displacement.scale(TIME_STEP);
+			XYZVector position = positions[i].copy();
+			position.add(displacement);
+			sum += position.getX();
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public double dotProduct() {
+		double sum = 0;
+		for (int i = 0; i < count; i++) {
+			sum += positions[i].dotProduct(velocities[i]);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public double angle() {
+		double sum = 0;
+		for (int i = 0; i < count; i++) {
+			sum += positions[i].getAngle().getY();
+		}
+		return sum;
+	}
+}
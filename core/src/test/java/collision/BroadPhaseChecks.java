@@ -0,0 +1,82 @@
+package collision;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import world.ParticleStore;
+
+/**
+ * Worlds and pair sets shared by the tests of the broad phases
+ * @author Matthew Zane
+ *
+ */
+class BroadPhaseChecks {
+	private BroadPhaseChecks() {
+	}
+
+	/**
+	 * Creates particles with radii from .1 to 10 in a box small enough that
+	 * many of them touch
+	 * @param random
+	 * @param count
+	 * @return
+	 */
+	static ParticleStore createMixedWorld(Random random, int count) {
+		double extent = 8 * Math.cbrt(count);
+		ParticleStore store = new ParticleStore(count);
+		for (int i = 0; i < count; i++) {
+			double radius = random.nextInt(10) == 0 ? 1 + 9 * random.nextDouble()
+					: .1 + .9 * random.nextDouble();
+			store.add(1, radius, 0, 0, 0, extent * (random.nextDouble() - .5),
+					extent * (random.nextDouble() - .5), extent * (random.nextDouble() - .5));
+		}
+		return store;
+	}
+
+	/**
+	 * Returns the pairs passed by the broad phase whose spheres touch, as
+	 * particle1 * size + particle2. Fails if a pair is passed twice or the
+	 * first particle is not the smaller index.
+	 * @param broadPhase
+	 * @param store
+	 * @return
+	 */
+	static Set<Long> findTouchingPairs(BroadPhase broadPhase, ParticleStore store) {
+		Set<Long> passed = new HashSet<Long>();
+		Set<Long> touching = new HashSet<Long>();
+		broadPhase.findPairs(store, (particle1, particle2) -> {
+			assertTrue(particle1 < particle2, "pair " + particle1 + ", " + particle2);
+			long key = (long) particle1 * store.size() + particle2;
+			assertTrue(passed.add(key), "pair " + particle1 + ", " + particle2 + " passed twice");
+			if (isTouching(store, particle1, particle2)) {
+				touching.add(key);
+			}
+		});
+		return touching;
+	}
+
+	/**
+	 * Checks that the broad phase finds the same touching pairs as the
+	 * all-pairs broad phase, and that there are some
+	 * @param broadPhase
+	 * @param store
+	 */
+	static void assertSamePairs(BroadPhase broadPhase, ParticleStore store) {
+		Set<Long> expected = findTouchingPairs(new AllPairsBroadPhase(), store);
+		assertTrue(expected.size() > 0);
+		assertEquals(expected, findTouchingPairs(broadPhase, store));
+	}
+
+	private static boolean isTouching(ParticleStore store, int particle1, int particle2) {
+		double distanceX = store.positionX[particle2] - store.positionX[particle1];
+		double distanceY = store.positionY[particle2] - store.positionY[particle1];
+		double distanceZ = store.positionZ[particle2] - store.positionZ[particle1];
+		double radiiSum = store.radius[particle1] + store.radius[particle2];
+		return distanceX * distanceX + distanceY * distanceY + distanceZ * distanceZ
+				<= radiiSum * radiiSum;
+	}
+}
@@ -0,0 +1,55 @@
+package collision;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import world.ParticleStore;
+
+/**
+ * Checks that the spatial hash finds exactly the touching pairs that
+ * checking every pair finds
+ * @author Matthew Zane
+ *
+ */
+public class SpatialHashBroadPhaseTest {
+	@Test
+	public void mixedRadii() {
+		Random random = new Random(1);
+		SpatialHashBroadPhase broadPhase = new SpatialHashBroadPhase();
+		for (int world = 0; world < 20; world++) {
+			BroadPhaseChecks.assertSamePairs(broadPhase,
+					BroadPhaseChecks.createMixedWorld(random, 50 + random.nextInt(500)));
+		}
+	}
+
+	@Test
+	public void particlesOnCellBoundaries() {
+		//cells are as wide as the largest particle, here 2
+		ParticleStore store = new ParticleStore();
+		for (int x = -3; x <= 3; x++) {
+			for (int y = -3; y <= 3; y++) {
+				//touching the particles next to it along every axis
+				store.add(1, 1, 0, 0, 0, 2 * x, 2 * y, 0);
+				//smaller particles exactly on the corners of the cells
+				store.add(1, .5, 0, 0, 0, 2 * x + 1, 2 * y + 1, 2);
+			}
+		}
+		BroadPhaseChecks.assertSamePairs(new SpatialHashBroadPhase(), store);
+	}
+
+	@Test
+	public void movingParticles() {
+		Random random = new Random(2);
+		ParticleStore store = BroadPhaseChecks.createMixedWorld(random, 300);
+		SpatialHashBroadPhase broadPhase = new SpatialHashBroadPhase();
+		for (int step = 0; step < 10; step++) {
+			BroadPhaseChecks.assertSamePairs(broadPhase, store);
+			for (int i = 0; i < store.size(); i++) {
+				store.positionX[i] += random.nextGaussian();
+				store.positionY[i] += random.nextGaussian();
+				store.positionZ[i] += random.nextGaussian();
+			}
+		}
+	}
+}
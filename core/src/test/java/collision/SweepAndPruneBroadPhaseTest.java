@@ -0,0 +1,133 @@
+package collision;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import world.ParticleStore;
+
+/**
+ * Checks that sweep and prune finds exactly the touching pairs that
+ * checking every pair finds, also after its order is restored from a
+ * checkpoint
+ * @author Matthew Zane
+ *
+ */
+public class SweepAndPruneBroadPhaseTest {
+	@Test
+	public void mixedRadii() {
+		Random random = new Random(1);
+		for (int world = 0; world < 20; world++) {
+			BroadPhaseChecks.assertSamePairs(new SweepAndPruneBroadPhase(),
+					BroadPhaseChecks.createMixedWorld(random, 50 + random.nextInt(500)));
+		}
+	}
+
+	@Test
+	public void touchingBoxes() {
+		//each particle ends exactly where the next one starts
+		ParticleStore store = new ParticleStore();
+		double x = 0;
+		for (int i = 0; i < 20; i++) {
+			double radius = 1 + i % 3;
+			store.add(1, radius, 0, 0, 0, x + radius, 0, 0);
+			x += 2 * radius;
+		}
+		BroadPhaseChecks.assertSamePairs(new SweepAndPruneBroadPhase(), store);
+	}
+
+	@Test
+	public void orderFlips() {
+		Random random = new Random(2);
+		ParticleStore store = BroadPhaseChecks.createMixedWorld(random, 300);
+		SweepAndPruneBroadPhase broadPhase = new SweepAndPruneBroadPhase();
+		BroadPhaseChecks.assertSamePairs(broadPhase, store);
+
+		//mirror the world, so the kept order is exactly backwards
+		for (int i = 0; i < store.size(); i++) {
+			store.positionX[i] = -store.positionX[i];
+			store.positionY[i] = -store.positionY[i];
+			store.positionZ[i] = -store.positionZ[i];
+		}
+		BroadPhaseChecks.assertSamePairs(broadPhase, store);
+
+		//then let the particles pass each other a little at a time
+		for (int step = 0; step < 10; step++) {
+			for (int i = 0; i < store.size(); i++) {
+				store.positionX[i] += 2 * random.nextGaussian();
+				store.positionY[i] += 2 * random.nextGaussian();
+				store.positionZ[i] += 2 * random.nextGaussian();
+			}
+			BroadPhaseChecks.assertSamePairs(broadPhase, store);
+		}
+	}
+
+	@Test
+	public void restoredOrderGivesSamePairs() throws IOException {
+		Random random = new Random(3);
+		ParticleStore store = BroadPhaseChecks.createMixedWorld(random, 400);
+		SweepAndPruneBroadPhase original = new SweepAndPruneBroadPhase();
+		original.findPairs(store, (particle1, particle2) -> { });
+		byte[] state = writeState(original, store);
+
+		SweepAndPruneBroadPhase restored = new SweepAndPruneBroadPhase();
+		restored.readState(new DataInputStream(new ByteArrayInputStream(state)), store);
+		for (int step = 0; step < 5; step++) {
+			for (int i = 0; i < store.size(); i++) {
+				store.positionX[i] += random.nextGaussian();
+				store.positionY[i] += random.nextGaussian();
+				store.positionZ[i] += random.nextGaussian();
+			}
+			List<Long> expected = findPairs(original, store);
+			assertEquals(expected, findPairs(restored, store));
+			BroadPhaseChecks.assertSamePairs(restored, store);
+		}
+	}
+
+	@Test
+	public void orderThatIsNoPermutationIsRejected() throws IOException {
+		ParticleStore store = BroadPhaseChecks.createMixedWorld(new Random(4), 10);
+		SweepAndPruneBroadPhase broadPhase = new SweepAndPruneBroadPhase();
+		broadPhase.findPairs(store, (particle1, particle2) -> { });
+		byte[] state = writeState(broadPhase, store);
+
+		//flag, axis and size come before the order
+		ByteBuffer buffer = ByteBuffer.wrap(state);
+		buffer.putInt(1 + 8 + 4, buffer.getInt(1 + 8));
+		assertThrows(IOException.class, () -> new SweepAndPruneBroadPhase().readState(
+				new DataInputStream(new ByteArrayInputStream(state)), store));
+	}
+
+	private static byte[] writeState(SweepAndPruneBroadPhase broadPhase, ParticleStore store)
+			throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		broadPhase.writeState(out, store);
+		out.flush();
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Returns every pair passed, in the order it was passed
+	 * @param broadPhase
+	 * @param store
+	 * @return
+	 */
+	private static List<Long> findPairs(BroadPhase broadPhase, ParticleStore store) {
+		List<Long> pairs = new ArrayList<Long>();
+		broadPhase.findPairs(store, (particle1, particle2) ->
+				pairs.add((long) particle1 * store.size() + particle2));
+		return pairs;
+	}
+}
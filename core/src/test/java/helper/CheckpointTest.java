@@ -0,0 +1,186 @@
+package helper;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import collision.SweepAndPruneBroadPhase;
+import integrator.BlockTimestepIntegrator;
+import integrator.EulerIntegrator;
+import integrator.Integrator;
+import integrator.LeapfrogIntegrator;
+import integrator.YoshidaIntegrator;
+import solver.DirectForceSolver;
+import world.ParticleStore;
+import world.World;
+
+/**
+ * Checks that a run continued from a checkpoint ends in exactly the state
+ * of the run that was never stopped, with each integrator, and that damaged
+ * checkpoints are rejected before anything of the World is changed
+ * @author Matthew Zane
+ *
+ */
+public class CheckpointTest {
+	private static final int STEPS = 40;
+
+	@TempDir
+	Path directory;
+
+	@Test
+	public void restartWithEuler() throws Exception {
+		assertRestartIsExact(new EulerIntegrator(), new EulerIntegrator());
+	}
+
+	@Test
+	public void restartWithLeapfrog() throws Exception {
+		assertRestartIsExact(new LeapfrogIntegrator(), new LeapfrogIntegrator());
+	}
+
+	@Test
+	public void restartWithYoshida() throws Exception {
+		assertRestartIsExact(new YoshidaIntegrator(), new YoshidaIntegrator());
+	}
+
+	@Test
+	public void restartWithBlockTimesteps() throws Exception {
+		BlockTimestepIntegrator block = new BlockTimestepIntegrator();
+		assertRestartIsExact(block, new BlockTimestepIntegrator());
+		//some particles left level 0, so the restored levels took part
+		int deepest = 0;
+		for (int i = 0; i < 60; i++) {
+			deepest = Math.max(deepest, block.getLevel(i));
+		}
+		assertTrue(deepest > 0);
+	}
+
+	@Test
+	public void corruptCheckpointIsRejected() throws Exception {
+		String pathname = saveCheckpoint("corrupt");
+		byte[] bytes = Files.readAllBytes(Paths.get(pathname));
+		bytes[bytes.length / 2] ^= 1;
+		Files.write(Paths.get(pathname), bytes);
+		assertRejected(pathname);
+	}
+
+	@Test
+	public void truncatedCheckpointIsRejected() throws Exception {
+		String pathname = saveCheckpoint("truncated");
+		byte[] bytes = Files.readAllBytes(Paths.get(pathname));
+		Files.write(Paths.get(pathname), Arrays.copyOf(bytes, bytes.length - 100));
+		assertRejected(pathname);
+
+		//not even the header is left
+		Files.write(Paths.get(pathname), Arrays.copyOf(bytes, 20));
+		assertRejected(pathname);
+	}
+
+	/**
+	 * Runs one World for all steps and another for half of them, restores a
+	 * third from the checkpoint of the second and runs it for the other half.
+	 * The checkpoints of the first and third World must be the same bytes.
+	 * @param integrator
+	 * @param restoredIntegrator another integrator of the same kind
+	 * @throws Exception
+	 */
+	private void assertRestartIsExact(Integrator integrator, Integrator restoredIntegrator)
+			throws Exception {
+		String name = integrator.getName();
+		World straight = createWorld(integrator);
+		run(straight, STEPS);
+		String straightPathname = save(straight, name + "-straight");
+
+		World stopped = createWorld(restoredIntegrator);
+		run(stopped, STEPS / 2);
+		String halfPathname = save(stopped, name + "-half");
+
+		World continued = createWorld(restoredIntegrator);
+		Checkpoint.restore(halfPathname, continued);
+		assertEquals(STEPS / 2, continued.getStepCount());
+		run(continued, STEPS / 2);
+		String continuedPathname = save(continued, name + "-continued");
+
+		assertArrayEquals(Files.readAllBytes(Paths.get(straightPathname)),
+				Files.readAllBytes(Paths.get(continuedPathname)), name);
+		assertTrue(straight.getPairsResolved() > 0, "no collisions with " + name);
+	}
+
+	/**
+	 * Checks that restoring fails and leaves the World as it was
+	 * @param pathname
+	 */
+	private static void assertRejected(String pathname) {
+		World world = createWorld(new LeapfrogIntegrator());
+		ParticleStore store = world.getStore();
+		assertThrows(Exception.class, () -> Checkpoint.restore(pathname, world));
+		assertSame(store, world.getStore());
+		assertEquals(0, world.getStepCount());
+		assertEquals(0, world.getTime());
+	}
+
+	private String saveCheckpoint(String name) throws IOException {
+		World world = createWorld(new LeapfrogIntegrator());
+		run(world, 5);
+		return save(world, name);
+	}
+
+	/**
+	 * Writes the checkpoint of the World and waits until it is written
+	 * @param world
+	 * @param name
+	 * @return pathname of the checkpoint
+	 * @throws IOException
+	 */
+	private String save(World world, String name) throws IOException {
+		String pathname = directory.resolve(name + Checkpoint.EXTENSION).toString();
+		new Checkpoint(pathname, Checkpoint.DEFAULT_INTERVAL).close(world);
+		return pathname;
+	}
+
+	private static void run(World world, int steps) {
+		for (int step = 0; step < steps; step++) {
+			world.step();
+		}
+	}
+
+	/**
+	 * A small crowded cluster of uncharged particles, close enough to
+	 * collide within a few cycles, with sweep and prune so its order is
+	 * part of the checkpoint. The cluster is widest along the x-axis at
+	 * first but spreads fastest along the y-axis, so a sweep that was not
+	 * restored would be rebuilt along another axis than the one kept.
+	 * @param integrator
+	 * @return
+	 */
+	private static World createWorld(Integrator integrator) {
+		Random random = new Random(7);
+		ParticleStore store = new ParticleStore();
+		for (int i = 0; i < 60; i++) {
+			int index = store.add(1e8 * (1 + random.nextDouble()), 1 + random.nextDouble(),
+					random.nextGaussian(), 3 * random.nextGaussian(), random.nextGaussian(),
+					40 * random.nextDouble(), 30 * random.nextDouble(), 30 * random.nextDouble());
+			store.charge[index] = 0;
+		}
+
+		World world = new World();
+		world.setRecording(false);
+		world.setForceSolver(new DirectForceSolver());
+		world.setIntegrator(integrator);
+		world.setBroadPhase(new SweepAndPruneBroadPhase());
+		world.setTimeStep(.5);
+		world.setStore(store);
+		return world;
+	}
+}
@@ -0,0 +1,224 @@
+package helper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import world.ParticleStore;
+
+/**
+ * Checks that the byte level parser gives exactly the doubles of
+ * Double.parseDouble, counts the lines it skips, and that parsing a large
+ * file in parallel chunks gives the same store as parsing it at once
+ * @author Matthew Zane
+ *
+ */
+public class CsvParticleParserTest {
+	@TempDir
+	Path directory;
+
+	@Test
+	public void hardNumbers() {
+		String[] numbers = {
+			//halfway between two doubles, rounded to even
+			"9007199254740993", "9007199254740995", "9007199254740993.0", "4503599627370496.5",
+			"4503599627370497.5", "9007199254740993e3", "1.00000000000000011102230246251565404236316680908203125",
+			"1.0000000000000001110223024625156540423631668090820312500001", "2.5e-324",
+			//19 and 20 digits
+			"1234567890123456789", "12345678901234567890", "9999999999999999999",
+			"9223372036854775807", "9223372036854775808", "18446744073709551615",
+			"18446744073709551616", "0.1234567890123456789", "1.2345678901234567890e100",
+			"7.2057594037927933e16", "6.6740800000000000001e-11",
+			//powers of ten the exact path can not take
+			"1e22", "1e23", "8e23", "1e-23", "1e308", "1e-307", "123456789e-30", "9.109e-31",
+			//subnormal numbers and underflow
+			"2.2250738585072014e-308", "2.2250738585072011e-308", "2.2250738585072012e-308",
+			"4.9e-324", "2.4703282292062328e-324", "1e-320", "1e-400",
+			//largest double and overflow
+			"1.7976931348623157e308", "1.7976931348623158e308", "1.7976931348623159e308",
+			"2e308", "1e309", "1e99999",
+			//signs, leading and trailing points and spaces
+			"+1", "+.5", ".5", "5.", "-.5", "-5.", "+5.e3", " 12.5 ", "\t-3\r", "1E5", "1e+5", "1e-5",
+			"0", "-0", "+0.0", "0.0e10", "-0e-400", "00012", "0.000000000000000000000000000001",
+			"0.30000000000000004", "6.67408E-11", "-12.5", "3",
+			//handed to Double.parseDouble
+			"NaN", "-Infinity", "1d", "0x1p3"
+		};
+		for (String number : numbers) {
+			assertSameDouble(number);
+		}
+	}
+
+	@Test
+	public void halfwayNumbers() {
+		Random random = new Random(1);
+		int tested = 0;
+		for (int i = 0; i < 20000; i++) {
+			//exactly between a double of 53 bits and the next one
+			long significand = (1L << 52) | (random.nextLong() >>> 12);
+			int binaryExponent = random.nextInt(30) - 10;
+			BigDecimal halfway = new BigDecimal(2 * significand + 1);
+			int power = binaryExponent - 1;
+			if (power >= 0) {
+				halfway = halfway.multiply(BigDecimal.valueOf(2).pow(power));
+			}
+			else {
+				halfway = halfway.divide(BigDecimal.valueOf(2).pow(-power));
+			}
+			halfway = halfway.stripTrailingZeros();
+			if (halfway.precision() > 20) {
+				continue;
+			}
+			assertSameDouble(halfway.toPlainString());
+			assertSameDouble(halfway.toString());
+			assertSameDouble(halfway.unscaledValue() + "e" + -halfway.scale());
+			//and the numbers just above and below it
+			BigDecimal step = BigDecimal.ONE.movePointLeft(halfway.scale());
+			assertSameDouble(halfway.add(step).toString());
+			assertSameDouble(halfway.subtract(step).toString());
+			tested++;
+		}
+		assertTrue(tested > 1000, tested + " halfway numbers");
+	}
+
+	@Test
+	public void randomNumbers() {
+		Random random = new Random(2);
+		for (int i = 0; i < 100000; i++) {
+			assertSameDouble(Double.toString(Double.longBitsToDouble(random.nextLong())));
+
+			//up to 20 digits with a point anywhere and any exponent
+			StringBuilder builder = new StringBuilder();
+			if (random.nextBoolean()) {
+				builder.append(random.nextBoolean() ? '-' : '+');
+			}
+			int digits = 1 + random.nextInt(20);
+			int point = random.nextInt(digits + 1);
+			for (int digit = 0; digit < digits; digit++) {
+				if (digit == point) {
+					builder.append('.');
+				}
+				builder.append((char) ('0' + random.nextInt(10)));
+			}
+			if (random.nextBoolean()) {
+				builder.append('e').append(random.nextInt(700) - 350);
+			}
+			assertSameDouble(builder.toString());
+		}
+	}
+
+	@Test
+	public void badNumbers() {
+		String[] numbers = {"", " ", ".", "+", "-", "e5", ".e5", "1e", "1e+", "1.2.3", "--1", "abc",
+			"1,2", "1 2", "0x"};
+		for (String number : numbers) {
+			byte[] bytes = number.getBytes(StandardCharsets.ISO_8859_1);
+			assertThrows(NumberFormatException.class, () -> Double.parseDouble(number), number);
+			assertThrows(NumberFormatException.class,
+					() -> CsvParticleParser.parseDouble(bytes, 0, bytes.length), number);
+		}
+	}
+
+	@Test
+	public void badLinesAreCounted() throws Exception {
+		String pathname = write("world.txt",
+				"# a comment\n"
+				+ "12.5\n"
+				+ "1,2,3,4,5,6\r\n"
+				+ "1,2,3,4,5,6,7\n"
+				+ "\n"
+				+ "1,2,3,4,5,6,7,8\n"
+				+ "1,2,x,4,5,6,7,8\n"
+				+ "1,2,3,4,5,6,7,8,9\n"
+				+ "1,2,3,4,5,6,,\n"
+				+ "just words\n"
+				+ "1,2\n"
+				+ "*\n");
+		CsvParticleParser parser = new CsvParticleParser(1);
+		ParticleStore store = parser.parse(pathname);
+		assertEquals(4, parser.getBadLines());
+		assertEquals(12.5, parser.getTime());
+		assertEquals(4, store.size());
+		assertEquals(0, store.positionZ[0]);
+		assertEquals(5, store.positionX[0]);
+		assertEquals(8, store.positionZ[1]);
+		assertEquals(8, store.positionZ[2]);
+		assertEquals(6, store.positionY[3]);
+	}
+
+	@Test
+	public void moreThanOneWorldIsRejected() throws IOException {
+		String pathname = write("universe.txt", "0\n1,2,3,4,5,6,7,8\n*\n1\n1,2,3,4,5,6,7,8\n*\n");
+		assertThrows(Exception.class, () -> new CsvParticleParser(1).parse(pathname));
+	}
+
+	@Test
+	public void parallelParseMatchesSerialParse() throws Exception {
+		Random random = new Random(3);
+		ParticleStore generated = new ParticleStore();
+		for (int i = 0; i < 40000; i++) {
+			generated.add(random.nextDouble() * 1e30, random.nextDouble(), random.nextGaussian(),
+					random.nextGaussian(), random.nextGaussian(), random.nextGaussian() * 1e11,
+					random.nextGaussian() * 1e11, random.nextGaussian() * 1e-3);
+		}
+		StringBuilder builder = new StringBuilder("3.5\n");
+		int badLines = 0;
+		for (int i = 0; i < generated.size(); i += 100) {
+			Recorder.appendParticles(builder, generated, i, i + 100);
+			builder.append("1,2,3\n");
+			badLines++;
+		}
+		builder.append("*\n");
+		String pathname = write("large.txt", builder.toString());
+		assertTrue(Files.size(Paths.get(pathname)) > 1 << 20);
+
+		CsvParticleParser serial = new CsvParticleParser(1);
+		ParticleStore expected = serial.parse(pathname);
+		CsvParticleParser parallel = new CsvParticleParser(7);
+		ParticleStore store = parallel.parse(pathname);
+
+		assertEquals(badLines, serial.getBadLines());
+		assertEquals(badLines, parallel.getBadLines());
+		assertEquals(3.5, parallel.getTime());
+		assertEquals(generated.size(), expected.size());
+		assertEquals(expected.size(), store.size());
+		for (int i = 0; i < store.size(); i++) {
+			assertEquals(expected.mass[i], store.mass[i]);
+			assertEquals(expected.radius[i], store.radius[i]);
+			assertEquals(expected.velocityX[i], store.velocityX[i]);
+			assertEquals(expected.velocityY[i], store.velocityY[i]);
+			assertEquals(expected.velocityZ[i], store.velocityZ[i]);
+			assertEquals(expected.positionX[i], store.positionX[i]);
+			assertEquals(expected.positionY[i], store.positionY[i]);
+			assertEquals(expected.positionZ[i], store.positionZ[i]);
+			//and both read back exactly what was written
+			assertEquals(generated.positionX[i], store.positionX[i]);
+			assertEquals(generated.positionZ[i], store.positionZ[i]);
+		}
+	}
+
+	private String write(String name, String text) throws IOException {
+		Path path = directory.resolve(name);
+		Files.write(path, text.getBytes(StandardCharsets.US_ASCII));
+		return path.toString();
+	}
+
+	private static void assertSameDouble(String number) {
+		byte[] bytes = ("," + number + ",").getBytes(StandardCharsets.ISO_8859_1);
+		double expected = Double.parseDouble(number);
+		double parsed = CsvParticleParser.parseDouble(bytes, 1, bytes.length - 1);
+		assertEquals(Double.doubleToRawLongBits(expected), Double.doubleToRawLongBits(parsed),
+				number + " parsed as " + parsed + " instead of " + expected);
+	}
+}
@@ -0,0 +1,114 @@
+package helper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import world.ParticleStore;
+
+/**
+ * Checks that a recording being continued keeps all of its complete frames
+ * and loses only a frame that was cut off, whatever index lies next to it
+ * @author Matthew Zane
+ *
+ */
+public class RecorderTest {
+	@TempDir
+	Path directory;
+
+	@Test
+	public void appendAfterCutOffFrame() throws IOException {
+		String pathname = directory.resolve("run" + TrajectoryFormat.EXTENSION).toString();
+		write(pathname, 4, 20);
+		cutOff(pathname);
+
+		append(pathname, 4, 20);
+		assertFrames(pathname, 5, 20);
+	}
+
+	@Test
+	public void appendWithStaleIndex() throws IOException {
+		String pathname = directory.resolve("run" + TrajectoryFormat.EXTENSION).toString();
+		write(pathname, 5, 10);
+		new MappedTrajectory(pathname).close();
+		byte[] stale = Files.readAllBytes(Paths.get(pathname + TrajectoryIndex.EXTENSION));
+
+		//a new recording of more particles, which was cut off, next to the old index
+		write(pathname, 3, 40);
+		cutOff(pathname);
+		Files.write(Paths.get(pathname + TrajectoryIndex.EXTENSION), stale);
+
+		append(pathname, 3, 40);
+		assertFrames(pathname, 4, 40);
+	}
+
+	private static void write(String pathname, int frames, int particles) throws IOException {
+		TrajectoryWriter writer = new TrajectoryWriter(pathname, false, true);
+		for (int frame = 0; frame < frames; frame++) {
+			writer.write(createStore(particles, frame), frame, frame);
+		}
+		writer.close();
+	}
+
+	/**
+	 * Adds the start of a frame that was never finished
+	 * @param pathname
+	 * @throws IOException
+	 */
+	private static void cutOff(String pathname) throws IOException {
+		FileChannel channel = FileChannel.open(Paths.get(pathname), StandardOpenOption.WRITE,
+				StandardOpenOption.APPEND);
+		try {
+			ByteBuffer frame = ByteBuffer.allocate(TrajectoryFormat.FRAME_HEADER_BYTES + 5)
+					.order(ByteOrder.LITTLE_ENDIAN);
+			frame.putLong(99).putDouble(99).putInt(10)
+					.putInt(TrajectoryFormat.getRawBytes(10, TrajectoryFormat.DEFLATE)).putInt(1000);
+			frame.rewind();
+			channel.write(frame);
+		} finally {
+			channel.close();
+		}
+	}
+
+	private static void append(String pathname, int frame, int particles) throws IOException {
+		Recorder recorder = new Recorder(pathname, true, Recorder.DEFAULT_CAPACITY,
+				Recorder.Policy.BLOCK);
+		recorder.record(createStore(particles, frame), frame, frame);
+		recorder.close();
+	}
+
+	private static void assertFrames(String pathname, int frames, int particles)
+			throws IOException {
+		MappedTrajectory trajectory = new MappedTrajectory(pathname);
+		try {
+			assertEquals(frames, trajectory.getFrameCount());
+			ParticleStore store = new ParticleStore();
+			for (int frame = 0; frame < frames; frame++) {
+				assertEquals(frame, trajectory.getTime(frame));
+				trajectory.read(frame, store);
+				assertEquals(particles, store.size());
+				assertEquals(frame, store.positionX[0]);
+			}
+		} finally {
+			trajectory.close();
+		}
+	}
+
+	private static ParticleStore createStore(int particles, int frame) {
+		ParticleStore store = new ParticleStore(particles);
+		for (int i = 0; i < particles; i++) {
+			store.add(1, 1, 0, 0, 0, frame + i, i, i);
+		}
+		return store;
+	}
+}
@@ -0,0 +1,151 @@
+package helper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import world.ParticleStore;
+
+/**
+ * Checks that recordings read back through their index, and that an index
+ * left over from an earlier recording of the same file is never trusted
+ * @author Matthew Zane
+ *
+ */
+public class TrajectoryIndexTest {
+	private static final int PARTICLES = 50;
+
+	@TempDir
+	Path directory;
+
+	@Test
+	public void roundTrip() throws IOException {
+		String pathname = getPathname();
+		write(pathname, 5, 0, true);
+
+		assertFrames(pathname, 5, 0);
+		//the second time the stored index is used
+		assertFrames(pathname, 5, 0);
+	}
+
+	@Test
+	public void appendedFramesAreIndexed() throws IOException {
+		String pathname = getPathname();
+		write(pathname, 5, 0, true);
+		assertFrames(pathname, 5, 0);
+
+		FileChannel channel = FileChannel.open(Paths.get(pathname), StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		TrajectoryWriter writer = new TrajectoryWriter(channel, false, true);
+		for (int frame = 5; frame < 8; frame++) {
+			writer.write(createStore(frame), frame, frame);
+		}
+		writer.close();
+
+		assertFrames(pathname, 8, 0);
+	}
+
+	@Test
+	public void overwriteDeletesIndex() throws IOException {
+		String pathname = getPathname();
+		write(pathname, 5, 0, true);
+		assertFrames(pathname, 5, 0);
+
+		write(pathname, 12, 100, true);
+		assertFalse(Files.exists(Paths.get(pathname + TrajectoryIndex.EXTENSION)));
+		assertFrames(pathname, 12, 100);
+	}
+
+	@Test
+	public void staleIndexOfLargerRecordingIsRebuilt() throws IOException {
+		String pathname = getPathname();
+		write(pathname, 5, 0, true);
+		assertFrames(pathname, 5, 0);
+		byte[] stale = Files.readAllBytes(Paths.get(pathname + TrajectoryIndex.EXTENSION));
+
+		write(pathname, 12, 100, true);
+		Files.write(Paths.get(pathname + TrajectoryIndex.EXTENSION), stale);
+		assertFrames(pathname, 12, 100);
+	}
+
+	@Test
+	public void staleIndexOfSameSizeRecordingIsRebuilt() throws IOException {
+		String pathname = getPathname();
+		write(pathname, 5, 0, false);
+		assertFrames(pathname, 5, 0);
+		Path recording = Paths.get(pathname);
+		FileTime modified = Files.getLastModifiedTime(recording);
+		long size = Files.size(recording);
+		byte[] stale = Files.readAllBytes(Paths.get(pathname + TrajectoryIndex.EXTENSION));
+
+		//same number of frames and particles, uncompressed, so the same size
+		write(pathname, 5, 100, false);
+		assertEquals(size, Files.size(recording));
+		Files.setLastModifiedTime(recording, modified);
+		Files.write(Paths.get(pathname + TrajectoryIndex.EXTENSION), stale);
+		assertFrames(pathname, 5, 100);
+	}
+
+	private String getPathname() {
+		return directory.resolve("run" + TrajectoryFormat.EXTENSION).toString();
+	}
+
+	/**
+	 * Overwrites the recording with frames whose times and particles start
+	 * at first
+	 * @param pathname
+	 * @param frames
+	 * @param first
+	 * @param deflate
+	 * @throws IOException
+	 */
+	private static void write(String pathname, int frames, int first, boolean deflate)
+			throws IOException {
+		TrajectoryWriter writer = new TrajectoryWriter(pathname, false, deflate);
+		for (int frame = first; frame < first + frames; frame++) {
+			writer.write(createStore(frame), frame, frame);
+		}
+		writer.close();
+	}
+
+	/**
+	 * Opens the recording and checks that it has the frames written by write
+	 * @param pathname
+	 * @param frames
+	 * @param first
+	 * @throws IOException
+	 */
+	private static void assertFrames(String pathname, int frames, int first) throws IOException {
+		MappedTrajectory trajectory = new MappedTrajectory(pathname);
+		try {
+			assertEquals(frames, trajectory.getFrameCount());
+			ParticleStore store = new ParticleStore();
+			for (int frame = 0; frame < frames; frame++) {
+				assertEquals(first + frame, trajectory.getTime(frame));
+				trajectory.read(frame, store);
+				assertEquals(PARTICLES, store.size());
+				assertEquals(first + frame, store.positionX[PARTICLES - 1] - (PARTICLES - 1));
+			}
+		} finally {
+			trajectory.close();
+		}
+	}
+
+	private static ParticleStore createStore(int frame) {
+		ParticleStore store = new ParticleStore(PARTICLES);
+		for (int i = 0; i < PARTICLES; i++) {
+			store.add(1 + i, 1, 0, 0, 0, frame + i, 2 * i, 3 * i);
+		}
+		return store;
+	}
+}
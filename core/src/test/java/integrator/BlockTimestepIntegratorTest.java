@@ -0,0 +1,82 @@
+package integrator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import solver.ForceSolver;
+import world.ParticleStore;
+
+/**
+ * Checks that block time steps reduce to the leapfrog with one level, and
+ * that particles on different levels all end a cycle at the same time
+ * @author Matthew Zane
+ *
+ */
+public class BlockTimestepIntegratorTest {
+	@Test
+	public void oneLevelIsLeapfrog() {
+		ParticleStore leapfrogStore = KeplerOrbit.create(.5);
+		ParticleStore blockStore = KeplerOrbit.create(.5);
+		Integrator leapfrog = new LeapfrogIntegrator();
+		Integrator block = new BlockTimestepIntegrator(1, BlockTimestepIntegrator.DEFAULT_ETA);
+		ForceSolver solver = KeplerOrbit.createSolver();
+		double timeStep = KeplerOrbit.getPeriod() / 100;
+		for (int step = 0; step < 200; step++) {
+			leapfrog.step(leapfrogStore, solver, timeStep);
+			block.step(blockStore, solver, timeStep);
+		}
+
+		for (int i = 0; i < 2; i++) {
+			assertEquals(leapfrogStore.positionX[i], blockStore.positionX[i], 1e-9);
+			assertEquals(leapfrogStore.positionY[i], blockStore.positionY[i], 1e-9);
+			assertEquals(leapfrogStore.velocityX[i], blockStore.velocityX[i], 1e-15);
+			assertEquals(leapfrogStore.velocityY[i], blockStore.velocityY[i], 1e-15);
+		}
+	}
+
+	@Test
+	public void particlesAreSynchronisedAfterEachCycle() {
+		double period = KeplerOrbit.getPeriod();
+		ForceSolver solver = KeplerOrbit.createSolver();
+
+		//fine steps of the fourth order scheme as the reference
+		ParticleStore reference = createMixedWorld();
+		Integrator yoshida = new YoshidaIntegrator();
+		ParticleStore store = createMixedWorld();
+		BlockTimestepIntegrator block = new BlockTimestepIntegrator();
+		for (int cycle = 0; cycle < 10; cycle++) {
+			for (int step = 0; step < 400; step++) {
+				yoshida.step(reference, solver, period / 4000);
+			}
+			block.step(store, solver, period / 10);
+
+			//a particle that stopped a tick early would be off by its speed times the tick
+			for (int i = 0; i < store.size(); i++) {
+				double tolerance = i < 2 ? .1 : 1e-3;
+				assertEquals(reference.positionX[i], store.positionX[i], tolerance,
+						"particle " + i + " after cycle " + cycle);
+				assertEquals(reference.positionY[i], store.positionY[i], tolerance,
+						"particle " + i + " after cycle " + cycle);
+			}
+		}
+		//the binary takes small steps while the far particles take whole cycles
+		assertTrue(block.getLevel(0) > 2, "level " + block.getLevel(0));
+		assertEquals(0, block.getLevel(2));
+		assertEquals(0, block.getLevel(3));
+	}
+
+	/**
+	 * The Kepler binary with two light particles far away, moving slowly
+	 * @return
+	 */
+	private static ParticleStore createMixedWorld() {
+		ParticleStore store = KeplerOrbit.create(.5);
+		store.add(1, 1, 0, .01, 0, 100 * KeplerOrbit.SEMI_MAJOR_AXIS, 0, 0);
+		store.add(1, 1, .005, 0, 0, 0, -200 * KeplerOrbit.SEMI_MAJOR_AXIS, 0);
+		store.charge[2] = 0;
+		store.charge[3] = 0;
+		return store;
+	}
+}
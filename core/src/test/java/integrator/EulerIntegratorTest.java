@@ -0,0 +1,56 @@
+package integrator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import solver.ForceSolver;
+import world.ParticleStore;
+import world.World;
+
+/**
+ * Checks that with the potential energy on, the euler integrator leaves the
+ * potential energy of the positions at the end of the step, without
+ * changing the orbit
+ * @author Matthew Zane
+ *
+ */
+public class EulerIntegratorTest {
+	@Test
+	public void potentialEnergyIsOfTheEndOfTheStep() {
+		ParticleStore store = KeplerOrbit.create(.5);
+		ForceSolver solver = KeplerOrbit.createSolver();
+		solver.setPotentialEnergyEnabled(true);
+		Integrator euler = new EulerIntegrator();
+		double timeStep = KeplerOrbit.getPeriod() / 100;
+		for (int step = 0; step < 50; step++) {
+			euler.step(store, solver, timeStep);
+			//every pair is counted for both particles
+			double potential = (store.potentialEnergy[0] + store.potentialEnergy[1]) / 2;
+			double exact = World.getTotalPotentialEnergy(store);
+			assertEquals(exact, potential, 1e-12 * Math.abs(exact), "step " + step);
+		}
+	}
+
+	@Test
+	public void potentialEnergyDoesNotChangeTheOrbit() {
+		ParticleStore store = KeplerOrbit.create(.5);
+		ParticleStore withPotential = KeplerOrbit.create(.5);
+		ForceSolver solver = KeplerOrbit.createSolver();
+		ForceSolver potentialSolver = KeplerOrbit.createSolver();
+		potentialSolver.setPotentialEnergyEnabled(true);
+		Integrator euler = new EulerIntegrator();
+		Integrator potentialEuler = new EulerIntegrator();
+		double timeStep = KeplerOrbit.getPeriod() / 100;
+		for (int step = 0; step < 200; step++) {
+			euler.step(store, solver, timeStep);
+			potentialEuler.step(withPotential, potentialSolver, timeStep);
+		}
+		for (int i = 0; i < 2; i++) {
+			assertEquals(store.positionX[i], withPotential.positionX[i]);
+			assertEquals(store.positionY[i], withPotential.positionY[i]);
+			assertEquals(store.velocityX[i], withPotential.velocityX[i]);
+			assertEquals(store.velocityY[i], withPotential.velocityY[i]);
+		}
+	}
+}
@@ -0,0 +1,158 @@
+package integrator;
+
+import solver.DirectForceSolver;
+import solver.ForceSolver;
+import world.ParticleStore;
+import world.World;
+
+/**
+ * Two bodies on an elliptic orbit around their center of mass, which is at
+ * rest at the origin. They start at apoapsis, so after whole periods they
+ * are back where they started.
+ * @author Matthew Zane
+ *
+ */
+class KeplerOrbit {
+	static final double MASS1 = 1e11;
+	static final double MASS2 = 5e10;
+
+	/**
+	 * Semi-major axis of the relative orbit, measured in meters (m)
+	 */
+	static final double SEMI_MAJOR_AXIS = 1e3;
+
+	private KeplerOrbit() {
+	}
+
+	/**
+	 * Creates the two bodies without charge, at apoapsis
+	 * @param eccentricity
+	 * @return
+	 */
+	static ParticleStore create(double eccentricity) {
+		double totalMass = MASS1 + MASS2;
+		double apoapsis = SEMI_MAJOR_AXIS * (1 + eccentricity);
+		double speed = Math.sqrt(World.GRAVITATIONAL_CONSTANT * totalMass / SEMI_MAJOR_AXIS
+				* (1 - eccentricity) / (1 + eccentricity));
+
+		ParticleStore store = new ParticleStore(2);
+		store.add(MASS1, 1, 0, -speed * MASS2 / totalMass, 0, -apoapsis * MASS2 / totalMass, 0, 0);
+		store.add(MASS2, 1, 0, speed * MASS1 / totalMass, 0, apoapsis * MASS1 / totalMass, 0, 0);
+		store.charge[0] = 0;
+		store.charge[1] = 0;
+		return store;
+	}
+
+	/**
+	 * Returns the period of the orbit, measured in seconds (s)
+	 * @return
+	 */
+	static double getPeriod() {
+		return 2 * Math.PI * Math.sqrt(Math.pow(SEMI_MAJOR_AXIS, 3)
+				/ (World.GRAVITATIONAL_CONSTANT * (MASS1 + MASS2)));
+	}
+
+	static ForceSolver createSolver() {
+		return new DirectForceSolver();
+	}
+
+	/**
+	 * Returns the kinetic and potential energy of the two bodies, measured in
+	 * joules (J)
+	 * @param store
+	 * @return
+	 */
+	static double getEnergy(ParticleStore store) {
+		double kinetic = 0;
+		for (int i = 0; i < 2; i++) {
+			kinetic += store.mass[i] / 2 * (store.velocityX[i] * store.velocityX[i]
+					+ store.velocityY[i] * store.velocityY[i]
+					+ store.velocityZ[i] * store.velocityZ[i]);
+		}
+		return kinetic - World.GRAVITATIONAL_CONSTANT * store.mass[0] * store.mass[1]
+				/ getSeparation(store);
+	}
+
+	/**
+	 * Returns the magnitude of the total momentum relative to the momentum
+	 * of one body, which is the scale it is conserved to
+	 * @param store
+	 * @return
+	 */
+	static double getRelativeMomentum(ParticleStore store) {
+		double momentumX = 0;
+		double momentumY = 0;
+		double momentumZ = 0;
+		for (int i = 0; i < 2; i++) {
+			momentumX += store.mass[i] * store.velocityX[i];
+			momentumY += store.mass[i] * store.velocityY[i];
+			momentumZ += store.mass[i] * store.velocityZ[i];
+		}
+		double scale = store.mass[1] * Math.sqrt(store.velocityX[1] * store.velocityX[1]
+				+ store.velocityY[1] * store.velocityY[1] + store.velocityZ[1] * store.velocityZ[1]);
+		return Math.sqrt(momentumX * momentumX + momentumY * momentumY
+				+ momentumZ * momentumZ) / scale;
+	}
+
+	/**
+	 * Integrates whole periods of the orbit and returns how far the second
+	 * body ended up from where it started, relative to the semi-major axis
+	 * @param integrator
+	 * @param eccentricity
+	 * @param stepsPerPeriod
+	 * @param periods
+	 * @return
+	 */
+	static double getPositionError(Integrator integrator, double eccentricity,
+			int stepsPerPeriod, int periods) {
+		ParticleStore store = create(eccentricity);
+		double startX = store.positionX[1];
+		double startY = store.positionY[1];
+		ForceSolver solver = createSolver();
+		double timeStep = getPeriod() / stepsPerPeriod;
+		for (int step = 0; step < stepsPerPeriod * periods; step++) {
+			integrator.step(store, solver, timeStep);
+		}
+		double distanceX = store.positionX[1] - startX;
+		double distanceY = store.positionY[1] - startY;
+		return Math.sqrt(distanceX * distanceX + distanceY * distanceY) / SEMI_MAJOR_AXIS;
+	}
+
+	/**
+	 * Integrates whole periods of the orbit and returns the largest relative
+	 * energy error of the first and of the last period, and the largest
+	 * relative momentum
+	 * @param integrator
+	 * @param eccentricity
+	 * @param stepsPerPeriod
+	 * @param periods
+	 * @return
+	 */
+	static double[] getConservationErrors(Integrator integrator, double eccentricity,
+			int stepsPerPeriod, int periods) {
+		ParticleStore store = create(eccentricity);
+		double startEnergy = getEnergy(store);
+		ForceSolver solver = createSolver();
+		double timeStep = getPeriod() / stepsPerPeriod;
+		double[] errors = new double[3];
+		for (int step = 0; step < stepsPerPeriod * periods; step++) {
+			integrator.step(store, solver, timeStep);
+			double energyError = Math.abs((getEnergy(store) - startEnergy) / startEnergy);
+			if (step < stepsPerPeriod) {
+				errors[0] = Math.max(errors[0], energyError);
+			}
+			if (step >= stepsPerPeriod * (periods - 1)) {
+				errors[1] = Math.max(errors[1], energyError);
+			}
+			errors[2] = Math.max(errors[2], getRelativeMomentum(store));
+		}
+		return errors;
+	}
+
+	private static double getSeparation(ParticleStore store) {
+		double distanceX = store.positionX[1] - store.positionX[0];
+		double distanceY = store.positionY[1] - store.positionY[0];
+		double distanceZ = store.positionZ[1] - store.positionZ[0];
+		return Math.sqrt(distanceX * distanceX + distanceY * distanceY + distanceZ * distanceZ);
+	}
+}
@@ -0,0 +1,39 @@
+package integrator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the leapfrog on a Kepler orbit: the energy error stays bounded,
+ * the momentum is conserved and the error falls with the square of the
+ * time step
+ * @author Matthew Zane
+ *
+ */
+public class LeapfrogIntegratorTest {
+	@Test
+	public void energyAndMomentumStayBounded() {
+		double[] errors = KeplerOrbit.getConservationErrors(new LeapfrogIntegrator(), .5, 100, 20);
+		assertTrue(errors[0] < 2e-2, "energy error " + errors[0]);
+		//symplectic, so the last period is no worse than the first
+		assertTrue(errors[1] < 1.1 * errors[0], "energy error " + errors[1] + " after " + errors[0]);
+		assertTrue(errors[2] < 1e-12, "momentum " + errors[2]);
+	}
+
+	@Test
+	public void secondOrder() {
+		for (double eccentricity : new double[] {0, .5}) {
+			double previous = KeplerOrbit.getPositionError(new LeapfrogIntegrator(), eccentricity,
+					200, 1);
+			for (int steps = 400; steps <= 1600; steps *= 2) {
+				double error = KeplerOrbit.getPositionError(new LeapfrogIntegrator(),
+						eccentricity, steps, 1);
+				assertEquals(2, Math.log(previous / error) / Math.log(2), .1,
+						"order with " + steps + " steps and eccentricity " + eccentricity);
+				previous = error;
+			}
+		}
+	}
+}
@@ -0,0 +1,39 @@
+package integrator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the Yoshida scheme on a Kepler orbit: the energy error stays
+ * bounded, the momentum is conserved and the error falls with the fourth
+ * power of the time step
+ * @author Matthew Zane
+ *
+ */
+public class YoshidaIntegratorTest {
+	@Test
+	public void energyAndMomentumStayBounded() {
+		double[] errors = KeplerOrbit.getConservationErrors(new YoshidaIntegrator(), .5, 100, 20);
+		assertTrue(errors[0] < 1e-3, "energy error " + errors[0]);
+		//symplectic, so the last period is no worse than the first
+		assertTrue(errors[1] < 1.1 * errors[0], "energy error " + errors[1] + " after " + errors[0]);
+		assertTrue(errors[2] < 1e-12, "momentum " + errors[2]);
+	}
+
+	@Test
+	public void fourthOrder() {
+		for (double eccentricity : new double[] {0, .5}) {
+			double previous = KeplerOrbit.getPositionError(new YoshidaIntegrator(), eccentricity,
+					200, 1);
+			for (int steps = 400; steps <= 1600; steps *= 2) {
+				double error = KeplerOrbit.getPositionError(new YoshidaIntegrator(),
+						eccentricity, steps, 1);
+				assertEquals(4, Math.log(previous / error) / Math.log(2), .2,
+						"order with " + steps + " steps and eccentricity " + eccentricity);
+				previous = error;
+			}
+		}
+	}
+}
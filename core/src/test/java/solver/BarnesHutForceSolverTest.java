@@ -0,0 +1,145 @@
+package solver;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import world.ParticleStore;
+
+/**
+ * Checks the forces of the active particles on a tree that is kept between
+ * the steps of the block time step integrator
+ * @author Matthew Zane
+ *
+ */
+public class BarnesHutForceSolverTest {
+	@Test
+	public void allActiveRebuildsTree() {
+		Random random = new Random(1);
+		ParticleStore store = createCluster(random, 2000, 0);
+		BarnesHutForceSolver solver = new BarnesHutForceSolver();
+		solver.calculateForces(store);
+		drift(store, random, 5);
+
+		int[] all = new int[store.size()];
+		for (int i = 0; i < all.length; i++) {
+			all[i] = i;
+		}
+		solver.calculateForces(store, all, all.length);
+		double[] activeForceX = Arrays.copyOf(store.forceX, store.size());
+
+		new BarnesHutForceSolver().calculateForces(store);
+		assertArrayEquals(Arrays.copyOf(store.forceX, store.size()), activeForceX);
+	}
+
+	@Test
+	public void keptTreeFollowsMovedParticles() {
+		Random random = new Random(2);
+		ParticleStore store = createCluster(random, 2000, 0);
+		BarnesHutForceSolver solver = new BarnesHutForceSolver();
+		solver.calculateForces(store);
+		int[] active = {0, 10, 100, 1000, 1999};
+		for (int tick = 0; tick < 8; tick++) {
+			drift(store, random, 5);
+			solver.calculateForces(store, active, active.length);
+			assertCloseToDirect(store, active, .02);
+		}
+	}
+
+	@Test
+	public void particleThatLeftItsNodeIsNotPulledByItself() {
+		Random random = new Random(3);
+		ParticleStore store = createCluster(random, 500, 0);
+		ParticleStore other = createCluster(random, 500, 4000);
+		for (int i = 0; i < other.size(); i++) {
+			store.add(other.mass[i], other.radius[i], 0, 0, 0, other.positionX[i],
+					other.positionY[i], other.positionZ[i]);
+		}
+		//a tenth of the mass of its cluster, so pulling itself would stand out
+		store.mass[0] = 50;
+		BarnesHutForceSolver solver = new BarnesHutForceSolver();
+		solver.calculateForces(store);
+
+		//far from its cluster, whose node now looks small enough to approximate
+		store.positionX[0] = -3000;
+		int[] active = {0};
+		solver.calculateForces(store, active, active.length);
+		assertCloseToDirect(store, active, .02);
+	}
+
+	@Test
+	public void otherStoreRebuildsTree() {
+		Random random = new Random(4);
+		BarnesHutForceSolver solver = new BarnesHutForceSolver();
+		solver.calculateForces(createCluster(random, 1000, 0));
+
+		ParticleStore store = createCluster(random, 1000, 10000);
+		int[] active = {0, 500, 999};
+		solver.calculateForces(store, active, active.length);
+		assertCloseToDirect(store, active, .02);
+	}
+
+	/**
+	 * Creates uncharged particles of mass 1 in a ball of radius 100
+	 * @param random
+	 * @param count
+	 * @param x center of the ball along the x-axis
+	 * @return
+	 */
+	private static ParticleStore createCluster(Random random, int count, double x) {
+		ParticleStore store = new ParticleStore(count);
+		while (store.size() < count) {
+			double offsetX = 2 * random.nextDouble() - 1;
+			double offsetY = 2 * random.nextDouble() - 1;
+			double offsetZ = 2 * random.nextDouble() - 1;
+			if (offsetX * offsetX + offsetY * offsetY + offsetZ * offsetZ > 1) {
+				continue;
+			}
+			int i = store.add(1, .01, 0, 0, 0, x + 100 * offsetX, 100 * offsetY, 100 * offsetZ);
+			store.charge[i] = 0;
+		}
+		return store;
+	}
+
+	/**
+	 * Moves every particle by up to the specified distance along each axis
+	 * @param store
+	 * @param random
+	 * @param distance
+	 */
+	private static void drift(ParticleStore store, Random random, double distance) {
+		for (int i = 0; i < store.size(); i++) {
+			store.positionX[i] += distance * (2 * random.nextDouble() - 1);
+			store.positionY[i] += distance * (2 * random.nextDouble() - 1);
+			store.positionZ[i] += distance * (2 * random.nextDouble() - 1);
+		}
+	}
+
+	/**
+	 * Checks that the forces of the active particles are within the
+	 * relative error of the exact forces
+	 * @param store
+	 * @param active
+	 * @param error
+	 */
+	private static void assertCloseToDirect(ParticleStore store, int[] active, double error) {
+		ParticleStore exact = new ParticleStore(store.size());
+		store.copyInto(exact);
+		new DirectForceSolver().calculateForces(exact);
+		for (int i : active) {
+			double differenceX = store.forceX[i] - exact.forceX[i];
+			double differenceY = store.forceY[i] - exact.forceY[i];
+			double differenceZ = store.forceZ[i] - exact.forceZ[i];
+			double difference = Math.sqrt(differenceX * differenceX + differenceY * differenceY
+					+ differenceZ * differenceZ);
+			double magnitude = Math.sqrt(exact.forceX[i] * exact.forceX[i]
+					+ exact.forceY[i] * exact.forceY[i] + exact.forceZ[i] * exact.forceZ[i]);
+			assertTrue(difference < error * magnitude,
+					"particle " + i + " is off by " + difference / magnitude);
+		}
+	}
+}
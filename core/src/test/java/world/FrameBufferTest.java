@@ -0,0 +1,119 @@
+package world;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that the reader of the triple buffer always gets whole frames and
+ * that it gets the newest one published
+ * @author Matthew Zane
+ *
+ */
+public class FrameBufferTest {
+	private static final int PARTICLES = 1000;
+	private static final int FRAMES = 20000;
+
+	@Test
+	public void latestFrameWins() {
+		FrameBuffer buffer = new FrameBuffer();
+		ParticleStore store = createStore();
+		for (long step = 1; step <= 3; step++) {
+			fill(store, step);
+			buffer.getBackFrame().set(store, step, step);
+			buffer.publish();
+		}
+		Frame frame = buffer.acquire();
+		assertEquals(3, frame.getStep());
+		assertFrameIsWhole(frame);
+
+		//nothing new was published, so the reader keeps its frame
+		assertSame(frame, buffer.acquire());
+	}
+
+	@Test
+	public void concurrentFramesAreNeverTorn() throws InterruptedException {
+		FrameBuffer buffer = new FrameBuffer();
+		AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		Thread writer = new Thread(() -> {
+			ParticleStore store = createStore();
+			for (long step = 1; step <= FRAMES; step++) {
+				fill(store, step);
+				buffer.getBackFrame().set(store, step, step);
+				buffer.publish();
+			}
+		});
+		writer.setUncaughtExceptionHandler((thread, e) -> failure.set(e));
+		writer.start();
+
+		long lastStep = 0;
+		long framesSeen = 0;
+		while (writer.isAlive()) {
+			Frame frame = buffer.acquire();
+			//the writer would change the frame while it is read if it were not the reader's
+			assertFrameIsWhole(frame);
+			assertTrue(frame.getStep() >= lastStep, "step " + frame.getStep() + " after " + lastStep);
+			if (frame.getStep() != lastStep) {
+				framesSeen++;
+			}
+			lastStep = frame.getStep();
+		}
+		writer.join();
+		assertNull(failure.get());
+		assertTrue(framesSeen > 0);
+
+		Frame frame = buffer.acquire();
+		assertEquals(FRAMES, frame.getStep());
+		assertFrameIsWhole(frame);
+	}
+
+	private static ParticleStore createStore() {
+		ParticleStore store = new ParticleStore(PARTICLES);
+		for (int i = 0; i < PARTICLES; i++) {
+			store.add(1, 1, 0, 0, 0, 0, 0, 0);
+		}
+		return store;
+	}
+
+	/**
+	 * Sets every field the frame copies to the step
+	 * @param store
+	 * @param step
+	 */
+	private static void fill(ParticleStore store, long step) {
+		for (int i = 0; i < store.size(); i++) {
+			store.positionX[i] = step;
+			store.positionY[i] = step;
+			store.positionZ[i] = step;
+			store.velocityX[i] = step;
+		}
+	}
+
+	/**
+	 * Checks that the time and every particle of the frame are of its step
+	 * @param frame
+	 */
+	private static void assertFrameIsWhole(Frame frame) {
+		long step = frame.getStep();
+		ParticleStore store = frame.getStore();
+		if (step == 0) {
+			//nothing published yet
+			assertEquals(0, store.size());
+			return;
+		}
+		assertEquals(PARTICLES, store.size());
+		assertEquals(step, frame.getTime());
+		for (int i = 0; i < store.size(); i++) {
+			assertEquals(step, store.positionX[i], "particle " + i);
+			assertEquals(step, store.positionY[i], "particle " + i);
+			assertEquals(step, store.positionZ[i], "particle " + i);
+			assertEquals(step, store.velocityX[i], "particle " + i);
+		}
+		assertEquals(step, frame.getStep());
+	}
+}
@@ -0,0 +1,24 @@
+package collision;
+
+import world.ParticleStore;
+
+/**
+ * Broad phase that passes on every pair of particles, so n(n - 1) / 2 pairs
+ * are checked exactly each step.
+ * @author Matthew Zane
+ *
+ */
+public class AllPairsBroadPhase implements BroadPhase {
+	public static final String NAME = "all-pairs";
+
+	public String getName() { return NAME; }
+
+	public void findPairs(ParticleStore store, PairHandler handler) {
+		int size = store.size();
+		for (int i = 0; i < size - 1; i++) {
+			for (int j = i + 1; j < size; j++) {
+				handler.handlePair(i, j);
+			}
+		}
+	}
+}
@@ -0,0 +1,26 @@
+package collision;
+
+import world.ParticleStore;
+
+/**
+ * First stage of collision detection. Finds the pairs of particles that 
+ * might be touching, so the World only has to check those pairs exactly.
+ * @author Matthew Zane
+ *
+ */
+public interface BroadPhase {
+	/**
+	 * Passes every pair of particles that might be touching to the handler. 
+	 * Every pair of particles whose spheres overlap must be passed exactly 
+	 * once. Other pairs may be passed as well.
+	 * @param store particles to check
+	 * @param handler receives the pairs
+	 */
+	public void findPairs(ParticleStore store, PairHandler handler);
+
+	/**
+	 * Returns a short name of the broad phase, used for reporting
+	 * @return name of the broad phase
+	 */
+	public String getName();
+}
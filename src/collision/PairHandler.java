@@ -0,0 +1,15 @@
+package collision;
+
+/**
+ * Receives the pairs of particles found by a broad phase.
+ * @author Matthew Zane
+ *
+ */
+public interface PairHandler {
+	/**
+	 * Called once for each pair of particles that might be touching
+	 * @param particle1 index of the first particle
+	 * @param particle2 index of the second particle
+	 */
+	public void handlePair(int particle1, int particle2);
+}
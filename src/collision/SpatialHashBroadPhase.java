@@ -0,0 +1,123 @@
+package collision;
+
+import java.util.Arrays;
+
+import world.ParticleStore;
+import world.World;
+
+/**
+ * Broad phase that sorts the particles into a uniform grid of cubic cells.
+ * The cells are as wide as the largest particle, so two touching particles
+ * are always in the same or in neighbouring cells and each particle only
+ * has to be paired with the particles of the 27 cells around it.
+ * The grid is unbounded; cells are mapped to the buckets of a hash table
+ * with twice as many buckets as particles, which is filled with a counting
+ * sort. For systems where the particles are about the same size and not
+ * packed tighter than their size, a step costs O(n).
+ * @author Matthew Zane
+ *
+ */
+public class SpatialHashBroadPhase implements BroadPhase {
+	public static final String NAME = "spatial-hash";
+
+	/**
+	 * Cell of each particle
+	 */
+	private long[] cellX = new long[0];
+	private long[] cellY = new long[0];
+	private long[] cellZ = new long[0];
+
+	/**
+	 * Bucket of each particle
+	 */
+	private int[] particleBucket = new int[0];
+
+	/**
+	 * Particles sorted by bucket. The particles of bucket b are stored from
+	 * bucketStart[b] up to but not including bucketStart[b + 1].
+	 */
+	private int[] bucketParticles = new int[0];
+	private int[] bucketStart = new int[0];
+
+	public String getName() { return NAME; }
+
+	public void findPairs(ParticleStore store, PairHandler handler) {
+		int size = store.size();
+		if (size < 2) {
+			return;
+		}
+
+		double cellWidth = Math.max(2 * store.getMaxRadius(), World.MIN_LENGTH);
+		int buckets = Integer.highestOneBit(Math.max(size, 8) * 2 - 1) << 1;
+		fillBuckets(store, cellWidth, buckets);
+
+		int mask = buckets - 1;
+		for (int i = 0; i < size; i++) {
+			for (long x = cellX[i] - 1; x <= cellX[i] + 1; x++) {
+				for (long y = cellY[i] - 1; y <= cellY[i] + 1; y++) {
+					for (long z = cellZ[i] - 1; z <= cellZ[i] + 1; z++) {
+						int bucket = hash(x, y, z) & mask;
+						for (int k = bucketStart[bucket]; k < bucketStart[bucket + 1]; k++) {
+							int j = bucketParticles[k];
+							//other cells can share the bucket, so check the cell itself
+							if (j > i && cellX[j] == x && cellY[j] == y && cellZ[j] == z) {
+								handler.handlePair(i, j);
+							}
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Calculates the cell and bucket of every particle and sorts the
+	 * particles by bucket
+	 * @param store
+	 * @param cellWidth
+	 * @param buckets number of buckets, a power of two
+	 */
+	private void fillBuckets(ParticleStore store, double cellWidth, int buckets) {
+		int size = store.size();
+		if (cellX.length < size) {
+			cellX = new long[size];
+			cellY = new long[size];
+			cellZ = new long[size];
+			particleBucket = new int[size];
+			bucketParticles = new int[size];
+		}
+		if (bucketStart.length < buckets + 1) {
+			bucketStart = new int[buckets + 1];
+		}
+		else {
+			Arrays.fill(bucketStart, 0, buckets + 1, 0);
+		}
+
+		int mask = buckets - 1;
+		for (int i = 0; i < size; i++) {
+			cellX[i] = (long) Math.floor(store.positionX[i] / cellWidth);
+			cellY[i] = (long) Math.floor(store.positionY[i] / cellWidth);
+			cellZ[i] = (long) Math.floor(store.positionZ[i] / cellWidth);
+			particleBucket[i] = hash(cellX[i], cellY[i], cellZ[i]) & mask;
+			bucketStart[particleBucket[i] + 1]++;
+		}
+
+		for (int bucket = 0; bucket < buckets; bucket++) {
+			bucketStart[bucket + 1] += bucketStart[bucket];
+		}
+
+		//place each particle at the next free spot of its bucket, then shift back
+		for (int i = 0; i < size; i++) {
+			bucketParticles[bucketStart[particleBucket[i]]++] = i;
+		}
+		for (int bucket = buckets; bucket > 0; bucket--) {
+			bucketStart[bucket] = bucketStart[bucket - 1];
+		}
+		bucketStart[0] = 0;
+	}
+
+	private static int hash(long x, long y, long z) {
+		long hash = x * 73856093L ^ y * 19349663L ^ z * 83492791L;
+		return (int) (hash ^ (hash >>> 32));
+	}
+}
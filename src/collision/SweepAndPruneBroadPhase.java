@@ -0,0 +1,202 @@
+package collision;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+import world.Checkpointable;
+import world.ParticleStore;
+
+/**
+ * Broad phase that keeps the particles sorted by the lower end of their
+ * bounding box along one axis. Sweeping through the sorted particles, a
+ * particle only has to be compared with the following particles that start
+ * before it ends, and a pair is passed on if the boxes also overlap on the
+ * other two axes. Unlike a grid, this does not depend on the particles being
+ * about the same size, so it suits systems that mix small and very large
+ * particles.
+ * <br>
+ * The order is kept between steps. Particles barely move in one cycle, so
+ * the order is almost sorted and an insertion sort fixes it in close to
+ * linear time. The order is rebuilt when the number of particles changes,
+ * which is also when the axis with the largest spread is chosen.
+ * @author Matthew Zane
+ *
+ */
+public class SweepAndPruneBroadPhase implements BroadPhase, Checkpointable {
+	public static final String NAME = "sweep-and-prune";
+
+	/**
+	 * Particle indices sorted by the lower end of their box
+	 */
+	private int[] order = new int[0];
+
+	/**
+	 * Lower and upper end of the box of each particle along the sweep axis
+	 */
+	private double[] lower = new double[0];
+	private double[] upper = new double[0];
+
+	private ParticleStore lastStore;
+	private int lastSize = -1;
+
+	/**
+	 * 0, 1 or 2 for the x, y or z-axis
+	 */
+	private int axis;
+
+	public String getName() { return NAME; }
+
+	/**
+	 * Writes the sweep axis and the order, if they belong to the store
+	 */
+	public void writeState(DataOutput out, ParticleStore store) throws IOException {
+		boolean current = store == lastStore && store.size() == lastSize;
+		out.writeBoolean(current);
+		if (!current) {
+			return;
+		}
+		out.writeInt(axis);
+		out.writeInt(lastSize);
+		for (int a = 0; a < lastSize; a++) {
+			out.writeInt(order[a]);
+		}
+	}
+
+	/**
+	 * Reads the sweep axis and the order written by writeState
+	 * @throws IOException if the order is not a permutation of the particles
+	 */
+	public void readState(DataInput in, ParticleStore store) throws IOException {
+		lastStore = null;
+		lastSize = -1;
+		if (!in.readBoolean()) {
+			return;
+		}
+		int axisIn = in.readInt();
+		int size = in.readInt();
+		if (size != store.size() || axisIn < 0 || axisIn > 2) {
+			throw new IOException("The sweep order does not fit the particles.");
+		}
+		if (order.length < size) {
+			order = new int[size];
+			lower = new double[size];
+			upper = new double[size];
+		}
+		//every particle has to be in the order exactly once
+		boolean[] seen = new boolean[size];
+		for (int a = 0; a < size; a++) {
+			order[a] = in.readInt();
+			if (order[a] < 0 || order[a] >= size || seen[order[a]]) {
+				throw new IOException("The sweep order does not fit the particles.");
+			}
+			seen[order[a]] = true;
+		}
+		axis = axisIn;
+		lastStore = store;
+		lastSize = size;
+	}
+
+	public void findPairs(ParticleStore store, PairHandler handler) {
+		int size = store.size();
+		if (store != lastStore || size != lastSize) {
+			rebuild(store);
+		}
+
+		double[] sweep = getAxis(store, axis);
+		double[] other1 = getAxis(store, (axis + 1) % 3);
+		double[] other2 = getAxis(store, (axis + 2) % 3);
+		for (int i = 0; i < size; i++) {
+			lower[i] = sweep[i] - store.radius[i];
+			upper[i] = sweep[i] + store.radius[i];
+		}
+		insertionSort(size);
+
+		for (int a = 0; a < size; a++) {
+			int i = order[a];
+			double end = upper[i];
+			for (int b = a + 1; b < size && lower[order[b]] <= end; b++) {
+				int j = order[b];
+				double radiiSum = store.radius[i] + store.radius[j];
+				if (Math.abs(other1[i] - other1[j]) <= radiiSum
+						&& Math.abs(other2[i] - other2[j]) <= radiiSum) {
+					handler.handlePair(Math.min(i, j), Math.max(i, j));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Sorts order by lower, moving each particle back until the one before
+	 * it starts earlier
+	 * @param size
+	 */
+	private void insertionSort(int size) {
+		for (int a = 1; a < size; a++) {
+			int particle = order[a];
+			double key = lower[particle];
+			int b = a - 1;
+			while (b >= 0 && lower[order[b]] > key) {
+				order[b + 1] = order[b];
+				b--;
+			}
+			order[b + 1] = particle;
+		}
+	}
+
+	/**
+	 * Chooses the sweep axis and sorts the particles from scratch
+	 * @param store
+	 */
+	private void rebuild(ParticleStore store) {
+		int size = store.size();
+		lastStore = store;
+		lastSize = size;
+		if (order.length < size) {
+			order = new int[size];
+			lower = new double[size];
+			upper = new double[size];
+		}
+
+		axis = 0;
+		double largestSpread = -1;
+		for (int a = 0; a < 3; a++) {
+			double[] position = getAxis(store, a);
+			double min = Double.POSITIVE_INFINITY;
+			double max = Double.NEGATIVE_INFINITY;
+			for (int i = 0; i < size; i++) {
+				min = Math.min(min, position[i]);
+				max = Math.max(max, position[i]);
+			}
+			if (max - min > largestSpread) {
+				largestSpread = max - min;
+				axis = a;
+			}
+		}
+
+		//sort by lower end once, after that insertion sort keeps it sorted
+		double[] sweep = getAxis(store, axis);
+		double[] sortedLower = new double[size];
+		for (int i = 0; i < size; i++) {
+			sortedLower[i] = sweep[i] - store.radius[i];
+		}
+		Integer[] sorted = new Integer[size];
+		for (int i = 0; i < size; i++) {
+			sorted[i] = i;
+		}
+		Arrays.sort(sorted, (particle1, particle2) ->
+				Double.compare(sortedLower[particle1], sortedLower[particle2]));
+		for (int i = 0; i < size; i++) {
+			order[i] = sorted[i];
+		}
+	}
+
+	private static double[] getAxis(ParticleStore store, int axis) {
+		switch (axis) {
+		case 0: return store.positionX;
+		case 1: return store.positionY;
+		default: return store.positionZ;
+		}
+	}
+}
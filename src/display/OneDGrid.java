@@ -1,11 +1,11 @@
-package display;
-
-/**
- * TODO display a horinzontal line with regularly spaced distance markings, possibly including an origin and numbers
- * used by Display
- * @author Matthew Zane
- *
- */
-public class OneDGrid {
-
-}
+package display;
+
+/**
+ * TODO display a horinzontal line with regularly spaced distance markings, possibly including an origin and numbers
+ * used by Display
+ * @author Matthew Zane
+ *
+ */
+public class OneDGrid {
+
+}
@@ -1,33 +1,38 @@
-package display;
-
-import java.awt.Graphics;
-
-import javax.swing.JLabel;
-
-import helper.Utility;
-import world.World;
-
-public class PotentialEnergyLabel extends JLabel {
-	private static final long serialVersionUID = 1L;
-
-	private World world;
-	
-	private double potentialEnergy;
-	
-	public double getPotentialEnergy() { return potentialEnergy; }
-	
-	public void setWorld(World worldIn) { world = worldIn; }
-
-	public PotentialEnergyLabel(World worldIn) {
-		super();
-		world = worldIn;
-		setHorizontalAlignment(JLabel.CENTER);
-	}
-
-	public void paint(Graphics g) {
-		super.paint(g);
-		potentialEnergy = world.getTotalPotentialEnergy();
-		setText("Potential Energy:   " + Utility.getEngineeringNotation(potentialEnergy, 3) + "J");
-	}
-}
-
+package display;
+
+import java.awt.Graphics;
+
+import javax.swing.JLabel;
+
+import helper.Utility;
+import world.Frame;
+
+public class PotentialEnergyLabel extends JLabel {
+	private static final long serialVersionUID = 1L;
+
+	private double potentialEnergy;
+	
+	public double getPotentialEnergy() { return potentialEnergy; }
+	
+	/**
+	 * Takes the potential energy of the frame that is displayed next, which
+	 * is NaN if the frame has no diagnostics
+	 * @param frame
+	 */
+	public void setFrame(Frame frame) { potentialEnergy = frame.getTotalPotentialEnergy(); }
+
+	public PotentialEnergyLabel() {
+		super();
+		setHorizontalAlignment(JLabel.CENTER);
+	}
+
+	public void paint(Graphics g) {
+		super.paint(g);
+		if (Double.isNaN(potentialEnergy)) {
+			setText("Potential Energy:   n/a");
+		} else {
+			setText("Potential Energy:   " + Utility.getEngineeringNotation(potentialEnergy, 3) + "J");
+		}
+	}
+}
+
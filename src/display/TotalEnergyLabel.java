@@ -1,29 +1,34 @@
-package display;
-
-import java.awt.Graphics;
-
-import javax.swing.JLabel;
-
-import helper.Utility;
-
-public class TotalEnergyLabel extends JLabel {
-	private static final long serialVersionUID = 1L;
-	
-	private KineticEnergyLabel kineticEnergyLabel;
-	private PotentialEnergyLabel potentialEnergyLabel;
-	
-	public TotalEnergyLabel(KineticEnergyLabel kineticEnergyLabelIn, 
-			PotentialEnergyLabel potentialEnergyLabelIn) {
-		super();
-		kineticEnergyLabel = kineticEnergyLabelIn;
-		potentialEnergyLabel = potentialEnergyLabelIn;
-		setHorizontalAlignment(JLabel.CENTER);
-	}
-	
-	public void paint(Graphics g) {
-		super.paint(g);
-		double totalEnergy = kineticEnergyLabel.getKineticEnergy() 
-				+ potentialEnergyLabel.getPotentialEnergy();
-		setText("Total Energy:   " + Utility.getEngineeringNotation(totalEnergy, 3) + "J");
-	}
-}
+package display;
+
+import java.awt.Graphics;
+
+import javax.swing.JLabel;
+
+import helper.Utility;
+
+public class TotalEnergyLabel extends JLabel {
+	private static final long serialVersionUID = 1L;
+	
+	private KineticEnergyLabel kineticEnergyLabel;
+	private PotentialEnergyLabel potentialEnergyLabel;
+	
+	public TotalEnergyLabel(KineticEnergyLabel kineticEnergyLabelIn, 
+			PotentialEnergyLabel potentialEnergyLabelIn) {
+		super();
+		kineticEnergyLabel = kineticEnergyLabelIn;
+		potentialEnergyLabel = potentialEnergyLabelIn;
+		setHorizontalAlignment(JLabel.CENTER);
+	}
+	
+	public void paint(Graphics g) {
+		super.paint(g);
+		double totalEnergy = kineticEnergyLabel.getKineticEnergy() 
+				+ potentialEnergyLabel.getPotentialEnergy();
+		//without the potential energy there is no total
+		if (Double.isNaN(totalEnergy)) {
+			setText("Total Energy:   n/a");
+		} else {
+			setText("Total Energy:   " + Utility.getEngineeringNotation(totalEnergy, 3) + "J");
+		}
+	}
+}
@@ -1,11 +1,11 @@
-package display;
-
-/**
- * TODO display a 2-D grid of horizontal and vertical lines
- * used by Display
- * @author Matthew Zane
- *
- */
-public class TwoDGrid {
-
-}
+package display;
+
+/**
+ * TODO display a 2-D grid of horizontal and vertical lines
+ * used by Display
+ * @author Matthew Zane
+ *
+ */
+public class TwoDGrid {
+
+}
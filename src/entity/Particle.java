@@ -1,238 +1,271 @@
-package entity;
-
-import data.XYZVector;
-import world.World;
-
-/**
- * Represents a particle of matter with a mass, velocity, position
- * @author Matthew Zane
- *
- */
-public class Particle {
-	/**
-	 * The elasticity of the particle. The percentage of 
-	 * kinetic energy in conserves in a collision. Measured from 0.0 to 1.
-	 * 1 is perfectly elastic and 0.0 is completely inelastic
-	 */
-	private double elasticity = 1;
-
-	/**
-	 * Measured in kilograms (kg)
-	 */
-	private double mass;
-	
-	/**
-	 * Measured in Coulombs (C)
-	 */
-	private double charge = 1 * 1.60217662e-19;
-
-	/**
-	 * Measured in meter (m)
-	 */
-	private double radius;
-
-	/**
-	 * Measured in meters per second (m/s)
-	 */
-	private XYZVector initialVelocity;
-
-	/**
-	 * Measured in meters per second (m/s)
-	 */
-	private XYZVector finalVelocity;
-
-	/**
-	 * Measured in meters (m)
-	 */
-	private XYZVector position;
-
-	/**
-	 * Measured in Newtons (N)
-	 */
-	private XYZVector netForce;
-
-	public double getElasticity() { return elasticity; }
-	public double getMass() { return mass; }
-	public double getRadius() { return radius; }
-	public double getCharge() { return charge; }
-
-	/**
-	 * Returns a Vector of the initial velocity. 
-	 * Always returns a non-null value.
-	 * @return initialVelocity of the Particle
-	 */
-	public XYZVector getInitialVelocity() {
-		if (initialVelocity == null) {
-			initialVelocity = new XYZVector();
-		}
-		return initialVelocity;
-	}
-
-	/**
-	 * Returns a Vector of the final velocity. 
-	 * Always returns a non-null value.
-	 * @return finalVelocity of the Particle
-	 */
-	public XYZVector getFinalVelocity() { 
-		if (finalVelocity == null) {
-			finalVelocity = new XYZVector();
-		}
-		return finalVelocity; 
-	}
-
-	/**
-	 * Returns a Vector of the current position. 
-	 * Always returns a non-null value.
-	 * @return position of the Particle
-	 */
-	public XYZVector getPosition() {
-		if (position == null) {
-			position = new XYZVector();
-		}
-		return position;
-	}
-
-	/**
-	 * Returns a Vector of the net force currently acting on the Particle.
-	 * Always returns a non-null value.
-	 * @return netForce on the Particle
-	 */
-	public XYZVector getNetForce() {
-		if (netForce == null) {
-			netForce = new XYZVector();
-		}
-		return netForce; 
-	}
-
-	/**
-	 * Sets mass of the Particle. Must be greater than zero.
-	 * Silently ignores invalid values.
-	 * @param massIn value to set mass of Particle 
-	 */
-	public void setMass(double massIn) { 
-		if (massIn > 0.0) {
-			mass = massIn; 
-		}
-	}
-
-	/**
-	 * Sets radius of the Particle. Must be greater that zero.
-	 * Silently ignores invalid values.
-	 * @param radiusIn value to set radius of Particle
-	 */
-	public void setRadius(double radiusIn) { 
-		if (radiusIn > 0.0) {
-			radius = radiusIn; 
-		}
-	}
-	
-	public void setInitialVelocity(XYZVector velocityIn) { initialVelocity = velocityIn; }
-	public void setFinalVelocity(XYZVector velocityIn) { finalVelocity = velocityIn; }
-	public void setPosition(XYZVector positionIn) { position = positionIn; }
-	public void setNetForce(XYZVector netForceIn) { netForce = netForceIn; }
-
-	/**
-	 * Constructor instantiates mass, velocityMagnitude, and velocityAngle 
-	 * with parameters
-	 * @param massIn Mass of Particle measured in kilograms (kg)
-	 * @param velocityIn Vector representing velocity measured in meter 
-	 * per seconds (m/s)
-	 * @param positionIn Vector representing position in a 3D space measured 
-	 * in meters (m)
-	 */
-	public Particle(double massIn, double radiusIn, XYZVector velocityIn, 
-			XYZVector positionIn) {
-		mass = massIn;
-		radius = radiusIn;
-		initialVelocity = velocityIn;
-		position = positionIn;
-	}
-
-	/**
-	 * Constructor instantiates mass, velocityMagnitude, and velocityAngle 
-	 * with parameters in form of base data types
-	 * @param massIn Mass of Particle measured in kilograms (kg)
-	 * @param velocityIn Vector representing velocity measured in meter 
-	 * per seconds (m/s)
-	 * @param positionIn Vector representing position in a 3D space measured 
-	 * in meters (m)
-	 */
-	public Particle(double massIn, double radiusIn, double velocityX, 
-			double velocityY, double velocityZ, double positionX, double positionY,
-			double positionZ) {
-		mass = massIn;
-		radius = radiusIn;
-		initialVelocity = new XYZVector(velocityX, velocityY, velocityZ);
-		position = new XYZVector(positionX, positionY, positionZ);
-	}
-
-	/**
-	 * Calculates final velocity using formula: Vf = (p + J) / m, 
-	 * with p = momentum, j = impulse, and m = mass. 
-	 */
-	public void calcNewVelocity() {
-		finalVelocity = XYZVector.add(getMomentum(), getImpulse());
-		finalVelocity.scale(1 / mass);
-	}
-
-	/**
-	 * Uses the average of the initial and final velocity, 
-	 * using formula: d = (Vi + Vf) / 2 * t, where t - MIN_TIME_INTERVAL
-	 * and then sets the initial velocity equal to final velocity
-	 */
-	public void moveParticle() {
-		XYZVector displacement = XYZVector.add(initialVelocity, finalVelocity);
-		displacement.scale(World.MIN_TIME_INTERVAL / 2);
-		position.add(displacement);
-		resetVelocity();
-	}
-
-	/**
-	 * Sets initialVelocity to a copy of finalVelocity
-	 */
-	public void resetVelocity() {
-		initialVelocity = finalVelocity.copy();
-	}
-
-	/**
-	 * Returns the current momentum of the Particle, using formula: p = mv.
-	 * @return momentum is calculated with the initialVelocity vector 
-	 * scaled by the mass.
-	 */
-	public XYZVector getMomentum() {
-		XYZVector v = initialVelocity.copy();
-		v.scale(mass);
-		return v;
-	}
-
-	/**
-	 * Returns the net impulse the Particle is experiencing in the current time 
-	 * interval, using formula: J = Ft.
-	 * @return impulse is calculated with the netForce vector scaled by 
-	 * MIN_TIME_INTERVAL.
-	 */
-	public XYZVector getImpulse() {
-		XYZVector v = netForce.copy();
-		v.scale(World.MIN_TIME_INTERVAL);
-		return v;
-	}
-
-	/**
-	 * Returns the kinetic energy of the Particle using the formula:
-	 * KE = 0.5 * m * v^2;
-	 * @return the kinetic energy of the Particle
-	 */
-	public double getKineticEnergy() {
-		return .5 * mass * Math.pow(initialVelocity.getMagnitude(), 2);
-	}
-	
-	public String toString() {
-		return getMass() + "," + getRadius() + "," + 
-				getInitialVelocity().getX() + "," + 
-				getInitialVelocity().getY() + "," + 
-				getInitialVelocity().getZ() + "," +
-				getPosition().getX() + "," + 
-				getPosition().getY() + "," +
-				getPosition().getZ(); 
-	}
-}
+package entity;
+
+import data.XYZVector;
+import world.ParticleStore;
+import world.World;
+
+/**
+ * Represents a particle of matter with a mass, velocity, position.
+ * The state itself lives in a {@link ParticleStore}; a Particle is only a
+ * handle onto one index of that store. A Particle created on its own gets
+ * a private store of size one until a World takes it over.
+ * @author Matthew Zane
+ *
+ */
+public class Particle {
+	/**
+	 * Store holding the state of this Particle
+	 */
+	private ParticleStore store;
+
+	/**
+	 * Index of this Particle in the store
+	 */
+	private int index;
+
+	public ParticleStore getStore() { return store; }
+	public int getIndex() { return index; }
+
+	/**
+	 * The elasticity of the particle. The percentage of 
+	 * kinetic energy in conserves in a collision. Measured from 0.0 to 1.
+	 * 1 is perfectly elastic and 0.0 is completely inelastic
+	 */
+	public double getElasticity() { return store.elasticity[index]; }
+
+	/**
+	 * Measured in kilograms (kg)
+	 */
+	public double getMass() { return store.mass[index]; }
+
+	/**
+	 * Measured in meter (m)
+	 */
+	public double getRadius() { return store.radius[index]; }
+
+	/**
+	 * Measured in Coulombs (C)
+	 */
+	public double getCharge() { return store.charge[index]; }
+
+	/**
+	 * Returns a copy of the initial velocity, measured in meters per second (m/s).
+	 * Changes to the returned Vector are not written back to the Particle.
+	 * @return initialVelocity of the Particle
+	 */
+	public XYZVector getInitialVelocity() {
+		return new XYZVector(store.velocityX[index], store.velocityY[index], 
+				store.velocityZ[index]);
+	}
+
+	/**
+	 * Returns a copy of the final velocity, measured in meters per second (m/s).
+	 * Changes to the returned Vector are not written back to the Particle.
+	 * @return finalVelocity of the Particle
+	 */
+	public XYZVector getFinalVelocity() { 
+		return new XYZVector(store.finalVelocityX[index], store.finalVelocityY[index], 
+				store.finalVelocityZ[index]);
+	}
+
+	/**
+	 * Returns a copy of the current position, measured in meters (m).
+	 * Changes to the returned Vector are not written back to the Particle.
+	 * @return position of the Particle
+	 */
+	public XYZVector getPosition() {
+		return new XYZVector(store.positionX[index], store.positionY[index], 
+				store.positionZ[index]);
+	}
+
+	/**
+	 * Returns a copy of the net force currently acting on the Particle,
+	 * measured in Newtons (N).
+	 * Changes to the returned Vector are not written back to the Particle.
+	 * @return netForce on the Particle
+	 */
+	public XYZVector getNetForce() {
+		return new XYZVector(store.forceX[index], store.forceY[index], 
+				store.forceZ[index]);
+	}
+
+	/**
+	 * Sets mass of the Particle. Must be greater than zero.
+	 * Silently ignores invalid values.
+	 * @param massIn value to set mass of Particle 
+	 */
+	public void setMass(double massIn) { 
+		if (massIn > 0.0) {
+			store.mass[index] = massIn; 
+		}
+	}
+
+	/**
+	 * Sets radius of the Particle. Must be greater that zero.
+	 * Silently ignores invalid values.
+	 * @param radiusIn value to set radius of Particle
+	 */
+	public void setRadius(double radiusIn) { 
+		if (radiusIn > 0.0) {
+			store.radius[index] = radiusIn; 
+		}
+	}
+
+	public void setCharge(double chargeIn) { store.charge[index] = chargeIn; }
+	public void setElasticity(double elasticityIn) { store.elasticity[index] = elasticityIn; }
+
+	public void setInitialVelocity(XYZVector velocityIn) {
+		store.velocityX[index] = velocityIn.getX();
+		store.velocityY[index] = velocityIn.getY();
+		store.velocityZ[index] = velocityIn.getZ();
+	}
+
+	public void setFinalVelocity(XYZVector velocityIn) {
+		store.finalVelocityX[index] = velocityIn.getX();
+		store.finalVelocityY[index] = velocityIn.getY();
+		store.finalVelocityZ[index] = velocityIn.getZ();
+	}
+
+	public void setPosition(XYZVector positionIn) {
+		store.positionX[index] = positionIn.getX();
+		store.positionY[index] = positionIn.getY();
+		store.positionZ[index] = positionIn.getZ();
+	}
+
+	public void setNetForce(XYZVector netForceIn) {
+		store.forceX[index] = netForceIn.getX();
+		store.forceY[index] = netForceIn.getY();
+		store.forceZ[index] = netForceIn.getZ();
+	}
+
+	/**
+	 * Constructor instantiates mass, velocityMagnitude, and velocityAngle 
+	 * with parameters
+	 * @param massIn Mass of Particle measured in kilograms (kg)
+	 * @param velocityIn Vector representing velocity measured in meter 
+	 * per seconds (m/s)
+	 * @param positionIn Vector representing position in a 3D space measured 
+	 * in meters (m)
+	 */
+	public Particle(double massIn, double radiusIn, XYZVector velocityIn, 
+			XYZVector positionIn) {
+		this(massIn, radiusIn, velocityIn.getX(), velocityIn.getY(), velocityIn.getZ(),
+				positionIn.getX(), positionIn.getY(), positionIn.getZ());
+	}
+
+	/**
+	 * Constructor instantiates mass, velocityMagnitude, and velocityAngle 
+	 * with parameters in form of base data types
+	 * @param massIn Mass of Particle measured in kilograms (kg)
+	 * @param velocityIn Vector representing velocity measured in meter 
+	 * per seconds (m/s)
+	 * @param positionIn Vector representing position in a 3D space measured 
+	 * in meters (m)
+	 */
+	public Particle(double massIn, double radiusIn, double velocityX, 
+			double velocityY, double velocityZ, double positionX, double positionY,
+			double positionZ) {
+		store = new ParticleStore(1);
+		index = store.add(massIn, radiusIn, velocityX, velocityY, velocityZ, 
+				positionX, positionY, positionZ);
+	}
+
+	/**
+	 * Constructor creates a view onto an existing particle of a store
+	 * @param storeIn store holding the state of the particle
+	 * @param indexIn index of the particle in the store
+	 */
+	public Particle(ParticleStore storeIn, int indexIn) {
+		bind(storeIn, indexIn);
+	}
+
+	/**
+	 * Points this Particle at the specified index of a store. The store
+	 * is expected to already hold this Particle's state.
+	 * @param storeIn
+	 * @param indexIn
+	 */
+	public void bind(ParticleStore storeIn, int indexIn) {
+		store = storeIn;
+		index = indexIn;
+	}
+
+	/**
+	 * Calculates final velocity using formula: Vf = (p + J) / m, 
+	 * with p = momentum, j = impulse, and m = mass. 
+	 */
+	public void calcNewVelocity() {
+		double mass = store.mass[index];
+		store.finalVelocityX[index] = (store.velocityX[index] * mass 
+				+ store.forceX[index] * World.MIN_TIME_INTERVAL) * (1 / mass);
+		store.finalVelocityY[index] = (store.velocityY[index] * mass 
+				+ store.forceY[index] * World.MIN_TIME_INTERVAL) * (1 / mass);
+		store.finalVelocityZ[index] = (store.velocityZ[index] * mass 
+				+ store.forceZ[index] * World.MIN_TIME_INTERVAL) * (1 / mass);
+	}
+
+	/**
+	 * Uses the average of the initial and final velocity, 
+	 * using formula: d = (Vi + Vf) / 2 * t, where t - MIN_TIME_INTERVAL
+	 * and then sets the initial velocity equal to final velocity
+	 */
+	public void moveParticle() {
+		double halfTime = World.MIN_TIME_INTERVAL / 2;
+		store.positionX[index] += (store.velocityX[index] + store.finalVelocityX[index]) * halfTime;
+		store.positionY[index] += (store.velocityY[index] + store.finalVelocityY[index]) * halfTime;
+		store.positionZ[index] += (store.velocityZ[index] + store.finalVelocityZ[index]) * halfTime;
+		resetVelocity();
+	}
+
+	/**
+	 * Sets initialVelocity to finalVelocity
+	 */
+	public void resetVelocity() {
+		store.resetVelocity(index);
+	}
+
+	/**
+	 * Returns the current momentum of the Particle, using formula: p = mv.
+	 * @return momentum is calculated with the initialVelocity vector 
+	 * scaled by the mass.
+	 */
+	public XYZVector getMomentum() {
+		XYZVector v = getInitialVelocity();
+		v.scale(getMass());
+		return v;
+	}
+
+	/**
+	 * Returns the net impulse the Particle is experiencing in the current time 
+	 * interval, using formula: J = Ft.
+	 * @return impulse is calculated with the netForce vector scaled by 
+	 * MIN_TIME_INTERVAL.
+	 */
+	public XYZVector getImpulse() {
+		XYZVector v = getNetForce();
+		v.scale(World.MIN_TIME_INTERVAL);
+		return v;
+	}
+
+	/**
+	 * Returns the kinetic energy of the Particle using the formula:
+	 * KE = 0.5 * m * v^2;
+	 * @return the kinetic energy of the Particle
+	 */
+	public double getKineticEnergy() {
+		double vx = store.velocityX[index];
+		double vy = store.velocityY[index];
+		double vz = store.velocityZ[index];
+		return .5 * getMass() * (vx * vx + vy * vy + vz * vz);
+	}
+	
+	public String toString() {
+		return getMass() + "," + getRadius() + "," + 
+				store.velocityX[index] + "," + 
+				store.velocityY[index] + "," + 
+				store.velocityZ[index] + "," +
+				store.positionX[index] + "," + 
+				store.positionY[index] + "," +
+				store.positionZ[index]; 
+	}
+}
@@ -0,0 +1,493 @@
+package helper;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.CRC32;
+
+import world.Checkpointable;
+import world.ParticleStore;
+import world.World;
+
+/**
+ * Saves the exact state of a running World, so the run can be continued
+ * after it was stopped with the same results it would have had. Unlike a
+ * recording, a checkpoint keeps every field of every particle as the bits
+ * of the double, the time and cycle count, the time step, and the state
+ * the integrator and broad phase keep between cycles (see
+ * {@link Checkpointable}).<br>
+ * <br>
+ * update is called after every cycle and saves the World every interval.
+ * The World is copied on its own thread, then a background thread writes
+ * the copy to a temporary file and renames it over the checkpoint, so the
+ * checkpoint on disk is always complete, even if the process is killed
+ * while writing. If the last checkpoint is still being written when the
+ * next one is due, the next one waits for the following cycle.<br>
+ * <br>
+ * restore loads a checkpoint into a World that is configured with the same
+ * force solver, integrator and broad phase. The results only repeat
+ * exactly with solvers that add the forces in a fixed order, which the
+ * parallel direct solver does not.<br>
+ * <br>
+ * File layout, little-endian:<br>
+ * 	magic (int "GCKP"), version (int), time (double), cycle count (long),
+ * time step (double), particle count (int)<br>
+ * 	every field of ParticleStore as a column of doubles<br>
+ * 	for the force solver, integrator and broad phase: name (short length and
+ * UTF-8 bytes), state (int length and bytes)<br>
+ * 	CRC-32 of everything before it (int)
+ * @author Matthew Zane
+ *
+ */
+public class Checkpoint implements Closeable {
+	public static final String EXTENSION = ".ckpt";
+
+	/**
+	 * Seconds between checkpoints if none is specified
+	 */
+	public static final double DEFAULT_INTERVAL = 600;
+
+	private static final int MAGIC = 0x504B4347; //"GCKP" read as a little-endian int
+	private static final int VERSION = 1;
+	private static final int HEADER_BYTES = 36;
+
+	/**
+	 * Bytes of the particle columns written at a time
+	 */
+	private static final int BUFFER_BYTES = 1 << 20;
+
+	/**
+	 * Largest part of a checkpoint mapped at once while restoring
+	 */
+	private static final long MAX_MAP_BYTES = 1L << 30;
+
+	private String pathname;
+
+	/**
+	 * Nanoseconds between checkpoints
+	 */
+	private long interval;
+
+	private long nextSave;
+
+	/**
+	 * The single snapshot, free to be filled or waiting to be written
+	 */
+	private BlockingQueue<Snapshot> freeSnapshots = new ArrayBlockingQueue<Snapshot>(1);
+	private BlockingQueue<Snapshot> queuedSnapshots = new ArrayBlockingQueue<Snapshot>(2);
+
+	/**
+	 * Queued after the last snapshot to stop the writer
+	 */
+	private Snapshot end = new Snapshot();
+
+	private Thread writer;
+
+	private volatile boolean closed;
+
+	private volatile IOException error;
+
+	private volatile long savedCount;
+
+	public String getPathname() { return pathname; }
+	public long getSavedCount() { return savedCount; }
+
+	/**
+	 * Constructor starts the writer thread. The first checkpoint is saved
+	 * one interval after the first update.
+	 * @param pathnameIn file the checkpoints are written to
+	 * @param seconds wall time between checkpoints, measured in seconds (s)
+	 */
+	public Checkpoint(String pathnameIn, double seconds) {
+		pathname = pathnameIn;
+		interval = (long) (Math.max(0, seconds) * 1e9);
+		nextSave = -1;
+		freeSnapshots.add(new Snapshot());
+
+		writer = new Thread(new Writer(), "Checkpoint");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	/**
+	 * Saves the World if the interval has passed since the last checkpoint.
+	 * Must be called from the thread that runs the World.
+	 * @param world
+	 * @throws IOException if writing an earlier checkpoint failed
+	 */
+	public void update(World world) throws IOException {
+		long now = System.nanoTime();
+		if (nextSave == -1) {
+			nextSave = now + interval;
+		}
+		else if (now - nextSave >= 0 && save(world)) {
+			nextSave = now + interval;
+		}
+	}
+
+	/**
+	 * Copies the World and queues it to be written, unless the last 
+	 * checkpoint is still being written. Must be called from the thread
+	 * that runs the World.
+	 * @param world
+	 * @return false if the last checkpoint is still being written
+	 * @throws IOException if writing an earlier checkpoint failed
+	 */
+	public boolean save(World world) throws IOException {
+		if (error != null) {
+			throw error;
+		}
+		if (closed) {
+			throw new IOException("Checkpoint is closed.");
+		}
+
+		Snapshot snapshot = freeSnapshots.poll();
+		if (snapshot == null) {
+			return false;
+		}
+		snapshot.set(world);
+		queuedSnapshots.add(snapshot);
+		return true;
+	}
+
+	/**
+	 * Saves the final state of the World, after the checkpoint that is still
+	 * being written, and closes
+	 * @param world
+	 * @throws IOException if writing a checkpoint failed
+	 */
+	public void close(World world) throws IOException {
+		if (!closed && error == null) {
+			try {
+				Snapshot snapshot = freeSnapshots.take();
+				snapshot.set(world);
+				queuedSnapshots.add(snapshot);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		close();
+	}
+
+	/**
+	 * Waits for the queued checkpoint to be written and stops the writer
+	 * @throws IOException if writing a checkpoint failed
+	 */
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		queuedSnapshots.add(end);
+		try {
+			writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (error != null) {
+			throw error;
+		}
+	}
+
+	/**
+	 * Returns whether the pathname is a checkpoint, judged by its extension
+	 * @param pathname
+	 * @return
+	 */
+	public static boolean isCheckpoint(String pathname) {
+		return pathname.toLowerCase().endsWith(EXTENSION);
+	}
+
+	/**
+	 * Replaces the particles, time, cycle count and time step of the World
+	 * with those of the checkpoint, and restores the state of its force
+	 * solver, integrator and broad phase if they are the ones the 
+	 * checkpoint was written with. The World has to be configured first.
+	 * @param pathname
+	 * @param world
+	 * @throws Exception when the file does not exist or is not a valid checkpoint
+	 */
+	public static void restore(String pathname, World world) throws Exception {
+		if (!new File(pathname).exists()) {
+			throw new Exception("Checkpoint " + pathname + " does not exist.");
+		}
+
+		FileChannel channel = FileChannel.open(Paths.get(pathname), StandardOpenOption.READ);
+		try {
+			long size = channel.size();
+			if (size < HEADER_BYTES + 4) {
+				throw new Exception(pathname + " is not a checkpoint.");
+			}
+
+			//check the whole file before anything of the World is changed
+			CRC32 crc = new CRC32();
+			for (long position = 0; position < size - 4; position += MAX_MAP_BYTES) {
+				crc.update(map(channel, position, Math.min(MAX_MAP_BYTES, size - 4 - position)));
+			}
+			if ((int) crc.getValue() != map(channel, size - 4, 4).getInt()) {
+				throw new Exception(pathname + " is corrupt.");
+			}
+
+			ByteBuffer header = map(channel, 0, HEADER_BYTES);
+			if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+				throw new Exception(pathname + " is not a checkpoint.");
+			}
+			double time = header.getDouble();
+			long stepCount = header.getLong();
+			double timeStep = header.getDouble();
+			int count = header.getInt();
+
+			ParticleStore store = new ParticleStore(count);
+			store.resize(count);
+			long position = HEADER_BYTES;
+			for (double[] column : getColumns(store)) {
+				map(channel, position, count * 8L).asDoubleBuffer().get(column, 0, count);
+				position += count * 8L;
+			}
+
+			ByteBuffer states = map(channel, position, size - 4 - position);
+			String solverName = readName(states);
+			byte[] solverState = readState(states);
+			String integratorName = readName(states);
+			byte[] integratorState = readState(states);
+			String broadPhaseName = readName(states);
+			byte[] broadPhaseState = readState(states);
+
+			world.setStore(store);
+			world.setTime(time);
+			world.setStepCount(stepCount);
+			world.setTimeStep(timeStep);
+			restoreState(world.getForceSolver(), world.getForceSolver().getName(), 
+					solverName, solverState, store);
+			restoreState(world.getIntegrator(), world.getIntegrator().getName(), 
+					integratorName, integratorState, store);
+			restoreState(world.getBroadPhase(), world.getBroadPhase().getName(), 
+					broadPhaseName, broadPhaseState, store);
+		} finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Hands the saved state to the part of the World if it is the same kind
+	 * as the one that saved it
+	 * @param part force solver, integrator or broad phase
+	 * @param name name of the part
+	 * @param savedName name of the part that saved the state
+	 * @param state
+	 * @param store restored particles
+	 */
+	private static void restoreState(Object part, String name, String savedName, byte[] state,
+			ParticleStore store) {
+		if (!name.equals(savedName)) {
+			System.out.println("The checkpoint was saved with " + savedName + " instead of "
+					+ name + ", so the run will not repeat exactly.");
+			return;
+		}
+		if (!(part instanceof Checkpointable) || state.length == 0) {
+			return;
+		}
+		try {
+			((Checkpointable) part).readState(new DataInputStream(new ByteArrayInputStream(state)),
+					store);
+		} catch (IOException e) {
+			System.out.println("The state of " + name + " was not restored: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Returns the arrays of every field of the store, in the order of the file
+	 * @param store
+	 * @return
+	 */
+	private static double[][] getColumns(ParticleStore store) {
+		return new double[][] {
+			store.positionX, store.positionY, store.positionZ,
+			store.velocityX, store.velocityY, store.velocityZ,
+			store.finalVelocityX, store.finalVelocityY, store.finalVelocityZ,
+			store.forceX, store.forceY, store.forceZ,
+			store.mass, store.radius, store.charge, store.elasticity
+		};
+	}
+
+	private static ByteBuffer map(FileChannel channel, long position, long length) 
+			throws IOException {
+		return channel.map(FileChannel.MapMode.READ_ONLY, position, length)
+				.order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	private static String readName(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.getShort()];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static byte[] readState(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.getInt()];
+		buffer.get(bytes);
+		return bytes;
+	}
+
+	/**
+	 * Copy of everything a checkpoint holds
+	 */
+	private static class Snapshot {
+		private ParticleStore store = new ParticleStore();
+		private double time;
+		private long stepCount;
+		private double timeStep;
+		private String[] names = new String[3];
+		private byte[][] states = new byte[3][];
+
+		private void set(World world) throws IOException {
+			world.getStore().copyInto(store);
+			time = world.getTime();
+			stepCount = world.getStepCount();
+			timeStep = world.getTimeStep();
+			Object[] parts = { world.getForceSolver(), world.getIntegrator(), world.getBroadPhase() };
+			names[0] = world.getForceSolver().getName();
+			names[1] = world.getIntegrator().getName();
+			names[2] = world.getBroadPhase().getName();
+			for (int i = 0; i < parts.length; i++) {
+				states[i] = new byte[0];
+				if (parts[i] instanceof Checkpointable) {
+					ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+					DataOutputStream out = new DataOutputStream(bytes);
+					((Checkpointable) parts[i]).writeState(out, world.getStore());
+					out.flush();
+					states[i] = bytes.toByteArray();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Writes each queued snapshot to a temporary file and renames it over
+	 * the checkpoint
+	 */
+	private class Writer implements Runnable {
+		private ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES)
+				.order(ByteOrder.LITTLE_ENDIAN);
+		private CRC32 crc = new CRC32();
+
+		public void run() {
+			try {
+				Snapshot snapshot;
+				while ((snapshot = queuedSnapshots.take()) != end) {
+					if (error == null) {
+						try {
+							write(snapshot);
+							savedCount++;
+						} catch (IOException e) {
+							error = e;
+						}
+					}
+					freeSnapshots.add(snapshot);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		private void write(Snapshot snapshot) throws IOException {
+			Path target = Paths.get(pathname);
+			Path temporary = Paths.get(pathname + ".tmp");
+			FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+					StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+			try {
+				crc.reset();
+				ParticleStore store = snapshot.store;
+				int count = store.size();
+				buffer.clear();
+				buffer.putInt(MAGIC).putInt(VERSION).putDouble(snapshot.time)
+						.putLong(snapshot.stepCount).putDouble(snapshot.timeStep).putInt(count);
+				for (double[] column : getColumns(store)) {
+					int i = 0;
+					while (i < count) {
+						makeRoom(channel, 8);
+						int length = Math.min(count - i, buffer.remaining() / 8);
+						buffer.asDoubleBuffer().put(column, i, length);
+						buffer.position(buffer.position() + length * 8);
+						i += length;
+					}
+				}
+				for (int i = 0; i < snapshot.names.length; i++) {
+					byte[] name = snapshot.names[i].getBytes(StandardCharsets.UTF_8);
+					makeRoom(channel, 2);
+					buffer.putShort((short) name.length);
+					put(channel, name);
+					makeRoom(channel, 4);
+					buffer.putInt(snapshot.states[i].length);
+					put(channel, snapshot.states[i]);
+				}
+				flush(channel);
+				buffer.putInt((int) crc.getValue());
+				buffer.flip();
+				while (buffer.hasRemaining()) {
+					channel.write(buffer);
+				}
+				buffer.clear();
+				channel.force(true);
+			} finally {
+				channel.close();
+			}
+
+			try {
+				Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING,
+						StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+
+		/**
+		 * Adds bytes to the buffer, flushing it whenever it is full
+		 */
+		private void put(FileChannel channel, byte[] bytes) throws IOException {
+			int i = 0;
+			while (i < bytes.length) {
+				makeRoom(channel, 1);
+				int length = Math.min(bytes.length - i, buffer.remaining());
+				buffer.put(bytes, i, length);
+				i += length;
+			}
+		}
+
+		/**
+		 * Flushes the buffer if it has less than the specified room left
+		 */
+		private void makeRoom(FileChannel channel, int bytes) throws IOException {
+			if (buffer.remaining() < bytes) {
+				flush(channel);
+			}
+		}
+
+		/**
+		 * Writes the buffer and adds it to the checksum
+		 */
+		private void flush(FileChannel channel) throws IOException {
+			buffer.flip();
+			crc.update(buffer.duplicate());
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			buffer.clear();
+		}
+	}
+}
@@ -0,0 +1,648 @@
+package helper;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import world.ParticleStore;
+
+/**
+ * Parses particle config files straight from the bytes of the memory mapped
+ * file, in the format of {@link ParticleFileParser#parseParticles(String)}.
+ * Fields are found in place and numbers are parsed without creating Strings,
+ * so the cost is reading the file, not garbage collection. Numbers are
+ * correctly rounded, and the few that are not plain decimals with up to 19
+ * digits fall back to Double.parseDouble, so the result is always the same
+ * as with the line by line parser.<br>
+ * <br>
+ * The file is split into one chunk per thread at line ends, and the chunks
+ * are parsed in parallel into their own stores, which are joined in order.
+ * Lines that can not be parsed are skipped and counted instead of printed.<br>
+ * <br>
+ * A file may hold a single world of a universe file: a line with only a
+ * number is the time of the world and "*" lines are skipped.
+ * @author Matthew Zane
+ *
+ */
+public class CsvParticleParser {
+	/**
+	 * Largest chunk, chunks are mapped on their own
+	 */
+	private static final long MAX_CHUNK_BYTES = 1L << 30;
+
+	/**
+	 * Files smaller than this are parsed by a single thread
+	 */
+	private static final long MIN_PARALLEL_BYTES = 1L << 20;
+
+	/**
+	 * Bytes copied out of the buffer at a time
+	 */
+	private static final int WINDOW_BYTES = 1 << 16;
+
+	/**
+	 * Exactly representable powers of ten
+	 */
+	private static final double[] POWERS_OF_TEN = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+		1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+
+	/**
+	 * Mantissas up to this value are exact in a double
+	 */
+	private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+	/**
+	 * Most significant digits that fit in a long
+	 */
+	private static final int MAX_DIGITS = 19;
+
+	/**
+	 * Range of decimal exponents of the table of powers of five. Numbers
+	 * outside it are zero or infinite.
+	 */
+	private static final int MIN_POWER = -342;
+	private static final int MAX_POWER = 308;
+
+	private static final long[] POWERS_OF_FIVE = createPowersOfFive();
+
+	private int threads;
+
+	private long badLines;
+
+	/**
+	 * Time read from the time line, or 0 if there was none
+	 */
+	private double time;
+
+	private int timeLines;
+
+	public long getBadLines() { return badLines; }
+	public double getTime() { return time; }
+
+	public CsvParticleParser() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Constructor
+	 * @param threadsIn number of chunks parsed in parallel
+	 */
+	public CsvParticleParser(int threadsIn) {
+		threads = Math.max(1, threadsIn);
+	}
+
+	/**
+	 * Parses every particle of the file
+	 * @param pathname
+	 * @return store of the particles in the order of the file
+	 * @throws Exception when the file does not exist, can not be read or
+	 * holds more than one world
+	 */
+	public ParticleStore parse(String pathname) throws Exception {
+		if (!new File(pathname).exists()) {
+			throw new Exception("Config file " + pathname + " does not exist.");
+		}
+
+		FileChannel channel = FileChannel.open(Paths.get(pathname), StandardOpenOption.READ);
+		try {
+			ParticleStore store = parse(channel, 0, channel.size());
+			if (timeLines > 1) {
+				throw new Exception(pathname + " holds more than one world.");
+			}
+			return store;
+		} finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Parses every particle of a part of a file, which has to start at the
+	 * start of a line
+	 * @param channel
+	 * @param start position of the first byte
+	 * @param end position after the last byte
+	 * @return store of the particles in the order of the file
+	 * @throws IOException if the file can not be read
+	 */
+	public ParticleStore parse(FileChannel channel, long start, long end) throws IOException {
+		long size = end - start;
+		int chunks = size < MIN_PARALLEL_BYTES ? 1 : threads;
+		chunks = (int) Math.max(chunks, (size + MAX_CHUNK_BYTES - 1) / MAX_CHUNK_BYTES);
+		long[] bounds = findChunkBounds(channel, start, end, chunks);
+
+		List<ChunkTask> tasks = new ArrayList<ChunkTask>();
+		for (int i = 0; i < chunks; i++) {
+			if (bounds[i + 1] > bounds[i]) {
+				tasks.add(new ChunkTask(channel, bounds[i], bounds[i + 1]));
+			}
+		}
+
+		if (tasks.size() == 1) {
+			tasks.get(0).compute();
+		}
+		else if (tasks.size() > 1) {
+			ForkJoinPool pool = new ForkJoinPool(threads);
+			try {
+				pool.invoke(new ChunksTask(tasks));
+			} finally {
+				pool.shutdown();
+			}
+		}
+
+		//join the chunks in order
+		int particles = 0;
+		badLines = 0;
+		time = 0;
+		timeLines = 0;
+		for (ChunkTask task : tasks) {
+			if (task.error != null) {
+				throw task.error;
+			}
+			particles += task.store.size();
+			badLines += task.parser.badLines;
+			if (timeLines == 0) {
+				time = task.parser.time;
+			}
+			timeLines += task.parser.timeLines;
+		}
+		if (tasks.isEmpty()) {
+			return new ParticleStore();
+		}
+		if (tasks.size() == 1) {
+			return tasks.get(0).store;
+		}
+		ParticleStore store = new ParticleStore(particles);
+		for (ChunkTask task : tasks) {
+			append(task.store, store);
+		}
+		return store;
+	}
+
+	/**
+	 * Moves each nominal chunk boundary forward to the start of the next line
+	 * @return chunks + 1 positions, from start to end
+	 */
+	private static long[] findChunkBounds(FileChannel channel, long start, long end, int chunks)
+			throws IOException {
+		long[] bounds = new long[chunks + 1];
+		bounds[0] = start;
+		bounds[chunks] = end;
+		ByteBuffer buffer = ByteBuffer.allocate(4096);
+		for (int i = 1; i < chunks; i++) {
+			long position = Math.max(bounds[i - 1], start + (end - start) / chunks * i);
+			boolean found = false;
+			while (!found && position < end) {
+				buffer.clear();
+				int read = channel.read(buffer, position);
+				if (read <= 0) {
+					break;
+				}
+				read = (int) Math.min(read, end - position);
+				for (int j = 0; j < read; j++) {
+					if (buffer.get(j) == '\n') {
+						position += j + 1;
+						found = true;
+						break;
+					}
+				}
+				if (!found) {
+					position += read;
+				}
+			}
+			bounds[i] = Math.min(position, end);
+		}
+		return bounds;
+	}
+
+	/**
+	 * Parses the lines of a buffer from start up to end on the calling thread.
+	 * The bytes are copied a window at a time into an array, which is much
+	 * faster to read than single bytes of a mapped buffer.
+	 * @param buffer
+	 * @param start
+	 * @param end
+	 * @return store of the particles
+	 */
+	public ParticleStore parse(ByteBuffer buffer, int start, int end) {
+		ParticleStore store = null;
+		badLines = 0;
+		time = 0;
+		timeLines = 0;
+		double[] values = new double[8];
+		int[] fieldBounds = new int[16];
+		byte[] window = new byte[WINDOW_BYTES];
+		int filled = 0;
+		int position = start;
+		while (true) {
+			int count = Math.min(window.length - filled, end - position);
+			buffer.get(position, window, filled, count);
+			position += count;
+			filled += count;
+			boolean last = position == end;
+			if (store == null) {
+				store = new ParticleStore(estimateLines(window, filled, end - start));
+			}
+
+			int lineStart = 0;
+			while (lineStart < filled) {
+				int lineEnd = lineStart;
+				while (lineEnd < filled && window[lineEnd] != '\n') {
+					lineEnd++;
+				}
+				if (lineEnd == filled && !last) {
+					//the rest of the line is not in the window yet
+					break;
+				}
+				int next = lineEnd + 1;
+				if (lineEnd > lineStart && window[lineEnd - 1] == '\r') {
+					lineEnd--;
+				}
+
+				if (lineEnd > lineStart && window[lineStart] != '#' && window[lineStart] != '*') {
+					int fields = parseLine(window, lineStart, lineEnd, values, fieldBounds, store);
+					if (fields == 1) {
+						if (timeLines == 0) {
+							time = values[0];
+						}
+						timeLines++;
+					}
+					else if (fields == 0) {
+						badLines++;
+					}
+				}
+				lineStart = next;
+			}
+			if (last) {
+				return store;
+			}
+
+			//move the unfinished line to the front, growing the window for long lines
+			filled -= lineStart;
+			System.arraycopy(window, lineStart, window, 0, filled);
+			if (filled == window.length) {
+				window = Arrays.copyOf(window, window.length * 2);
+			}
+		}
+	}
+
+	/**
+	 * Estimates the number of lines of the whole range from the lines of the
+	 * first window, so the store does not have to grow while parsing
+	 * @param window
+	 * @param filled bytes in the window
+	 * @param length bytes in the whole range
+	 * @return
+	 */
+	private static int estimateLines(byte[] window, int filled, long length) {
+		int lines = 1;
+		for (int i = 0; i < filled; i++) {
+			if (window[i] == '\n') {
+				lines++;
+			}
+		}
+		return (int) Math.min(length * lines / Math.max(filled, 1) + 16, Integer.MAX_VALUE - 8);
+	}
+
+	/**
+	 * Parses one line. Lines with six fields are 2D particles, lines with
+	 * eight or more use the first eight fields, and both are added to the
+	 * store. A line with one field is a time, which is left in values. Empty
+	 * fields at the end of the line are not counted, as with String.split.
+	 * @param fieldBounds start and end of the first eight fields
+	 * @return number of fields used, or 0 if the line could not be parsed
+	 */
+	static int parseLine(byte[] bytes, int start, int end, double[] values,
+			int[] fieldBounds, ParticleStore store) {
+		int fields = 0;
+		int counted = 0;
+		int fieldStart = start;
+		for (int i = start; i <= end; i++) {
+			if (i == end || bytes[i] == ',') {
+				if (fields < values.length) {
+					fieldBounds[2 * fields] = fieldStart;
+					fieldBounds[2 * fields + 1] = i;
+				}
+				fields++;
+				if (i > fieldStart) {
+					counted = fields;
+				}
+				fieldStart = i + 1;
+			}
+		}
+
+		if (counted != 1 && counted != 6 && counted < 8) {
+			return 0;
+		}
+		int used = Math.min(counted, 8);
+		try {
+			for (int field = 0; field < used; field++) {
+				values[field] = parseDouble(bytes, fieldBounds[2 * field], 
+						fieldBounds[2 * field + 1]);
+			}
+		} catch (NumberFormatException e) {
+			return 0;
+		}
+
+		if (used == 1) {
+			return used;
+		}
+		else if (used == 6) {
+			store.add(values[0], values[1], values[2], values[3], 0, values[4], values[5], 0);
+		}
+		else {
+			store.add(values[0], values[1], values[2], values[3], values[4],
+					values[5], values[6], values[7]);
+		}
+		return used;
+	}
+
+	/**
+	 * Parses a decimal number such as -12.5, 3 or 6.67408E-11 whose digits
+	 * fit in a long. Small numbers are calculated directly when the digits
+	 * fit in 53 bits and the power of ten is exact. Other numbers multiply
+	 * the digits by a 128 bit power of five and round the result, following
+	 * Lemire's "Number Parsing at a Gigabyte per Second". Both are correctly
+	 * rounded. Numbers with more than 19 digits, subnormal numbers, overflow,
+	 * words such as NaN and the rare products too close to call are handed to
+	 * Double.parseDouble.
+	 * @param bytes
+	 * @param start first byte of the field
+	 * @param end byte after the field
+	 * @return
+	 * @throws NumberFormatException if the field is not a number
+	 */
+	public static double parseDouble(byte[] bytes, int start, int end) {
+		int i = start;
+		while (i < end && isSpace(bytes[i])) {
+			i++;
+		}
+		int last = end;
+		while (last > i && isSpace(bytes[last - 1])) {
+			last--;
+		}
+
+		boolean negative = false;
+		if (i < last && (bytes[i] == '-' || bytes[i] == '+')) {
+			negative = bytes[i] == '-';
+			i++;
+		}
+
+		long mantissa = 0;
+		int digits = 0;
+		int significantDigits = 0;
+		int exponent = 0;
+		boolean simple = true;
+		while (i < last && isDigit(bytes[i])) {
+			if (significantDigits < MAX_DIGITS) {
+				mantissa = mantissa * 10 + (bytes[i] - '0');
+				if (mantissa != 0) {
+					significantDigits++;
+				}
+			}
+			else {
+				simple = false;
+			}
+			digits++;
+			i++;
+		}
+		if (i < last && bytes[i] == '.') {
+			i++;
+			while (i < last && isDigit(bytes[i])) {
+				if (significantDigits < MAX_DIGITS) {
+					mantissa = mantissa * 10 + (bytes[i] - '0');
+					if (mantissa != 0) {
+						significantDigits++;
+					}
+					exponent--;
+				}
+				else {
+					simple = false;
+				}
+				digits++;
+				i++;
+			}
+		}
+		if (digits == 0) {
+			simple = false;
+		}
+		if (simple && i < last && (bytes[i] == 'e' || bytes[i] == 'E')) {
+			i++;
+			boolean negativeExponent = false;
+			if (i < last && (bytes[i] == '-' || bytes[i] == '+')) {
+				negativeExponent = bytes[i] == '-';
+				i++;
+			}
+			int exponentDigits = 0;
+			int written = 0;
+			while (i < last && isDigit(bytes[i]) && exponentDigits < 5) {
+				written = written * 10 + (bytes[i] - '0');
+				exponentDigits++;
+				i++;
+			}
+			if (exponentDigits == 0) {
+				simple = false;
+			}
+			exponent += negativeExponent ? -written : written;
+		}
+
+		if (simple && i == last) {
+			if (mantissa == 0) {
+				return negative ? -0.0 : 0.0;
+			}
+			//19 digits can pass the sign bit, the mantissa is unsigned from here on
+			if (mantissa > 0 && mantissa <= MAX_EXACT_MANTISSA) {
+				double value = mantissa;
+				int power = exponent;
+				//move powers of ten into the mantissa while it stays exact
+				while (power > 22 && value * 10 <= MAX_EXACT_MANTISSA) {
+					value *= 10;
+					power--;
+				}
+				if (power >= 0 && power <= 22) {
+					value *= POWERS_OF_TEN[power];
+					return negative ? -value : value;
+				}
+				if (power < 0 && power >= -22) {
+					value /= POWERS_OF_TEN[-power];
+					return negative ? -value : value;
+				}
+			}
+			double value = multiplyByPowerOfTen(mantissa, exponent);
+			if (!Double.isNaN(value)) {
+				return negative ? -value : value;
+			}
+		}
+
+		return Double.parseDouble(new String(bytes, start, end - start, StandardCharsets.ISO_8859_1));
+	}
+
+	/**
+	 * Returns the double closest to digits * 10^exponent, or NaN if the
+	 * product of the 128 bit power of five is not enough to decide, or the
+	 * result is subnormal or infinite
+	 * @param digits unsigned, not zero
+	 * @param exponent
+	 * @return
+	 */
+	private static double multiplyByPowerOfTen(long digits, int exponent) {
+		if (exponent < MIN_POWER || exponent > MAX_POWER) {
+			return Double.NaN;
+		}
+		int leadingZeros = Long.numberOfLeadingZeros(digits);
+		long normalized = digits << leadingZeros;
+		int index = 2 * (exponent - MIN_POWER);
+		long high = unsignedMultiplyHigh(normalized, POWERS_OF_FIVE[index]);
+		long low = normalized * POWERS_OF_FIVE[index];
+		if ((high & 0x1FF) == 0x1FF) {
+			//the bits below the 55 kept ones might carry, so add the lower half
+			long secondHigh = unsignedMultiplyHigh(normalized, POWERS_OF_FIVE[index + 1]);
+			low += secondHigh;
+			if (Long.compareUnsigned(secondHigh, low) > 0) {
+				high++;
+			}
+		}
+		if (low == -1L && (exponent < -27 || exponent > 55)) {
+			return Double.NaN;
+		}
+
+		int upperBit = (int) (high >>> 63);
+		long significand = high >>> (upperBit + 9);
+		int binaryExponent = (((152170 + 65536) * exponent) >> 16) + 63 + upperBit
+				- leadingZeros + 1023;
+		if (binaryExponent <= 0) {
+			return Double.NaN;
+		}
+
+		//exactly halfway between two doubles, round to even
+		if (Long.compareUnsigned(low, 1) <= 0 && exponent >= -4 && exponent <= 23
+				&& (significand & 3) == 1 && (significand << (upperBit + 9)) == high) {
+			significand &= ~1L;
+		}
+		significand += significand & 1;
+		significand >>>= 1;
+		if (significand >= 1L << 53) {
+			significand = 1L << 52;
+			binaryExponent++;
+		}
+		if (binaryExponent >= 0x7FF) {
+			return Double.NaN;
+		}
+		return Double.longBitsToDouble((significand & ~(1L << 52)) | (long) binaryExponent << 52);
+	}
+
+	/**
+	 * Returns the upper 64 bits of the unsigned 128 bit product
+	 */
+	private static long unsignedMultiplyHigh(long x, long y) {
+		return Math.multiplyHigh(x, y) + ((x >> 63) & y) + ((y >> 63) & x);
+	}
+
+	/**
+	 * Calculates 5^q for every q from MIN_POWER to MAX_POWER, shifted so it
+	 * has exactly 128 bits, as pairs of the upper and lower 64 bits. Negative
+	 * powers are rounded up, positive ones are truncated.
+	 * @return
+	 */
+	private static long[] createPowersOfFive() {
+		long[] powers = new long[2 * (MAX_POWER - MIN_POWER + 1)];
+		BigInteger five = BigInteger.valueOf(5);
+		for (int q = MIN_POWER; q <= MAX_POWER; q++) {
+			BigInteger value;
+			if (q < 0) {
+				BigInteger power = five.pow(-q);
+				int bits = power.bitLength();
+				int shift = q >= -27 ? bits + 127 : 2 * bits + 128;
+				value = BigInteger.ONE.shiftLeft(shift).divide(power).add(BigInteger.ONE);
+			}
+			else {
+				value = five.pow(q);
+			}
+			int excess = value.bitLength() - 128;
+			value = excess > 0 ? value.shiftRight(excess) : value.shiftLeft(-excess);
+			powers[2 * (q - MIN_POWER)] = value.shiftRight(64).longValue();
+			powers[2 * (q - MIN_POWER) + 1] = value.longValue();
+		}
+		return powers;
+	}
+
+	private static boolean isDigit(byte character) {
+		return character >= '0' && character <= '9';
+	}
+
+	private static boolean isSpace(byte character) {
+		return character == ' ' || character == '\t' || character == '\r';
+	}
+
+	private static void append(ParticleStore source, ParticleStore destination) {
+		for (int i = 0; i < source.size(); i++) {
+			int index = destination.add(source.mass[i], source.radius[i],
+					source.velocityX[i], source.velocityY[i], source.velocityZ[i],
+					source.positionX[i], source.positionY[i], source.positionZ[i]);
+			destination.charge[index] = source.charge[i];
+			destination.elasticity[index] = source.elasticity[i];
+		}
+	}
+
+	/**
+	 * Runs every chunk
+	 */
+	private static class ChunksTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private List<ChunkTask> tasks;
+
+		private ChunksTask(List<ChunkTask> tasksIn) {
+			tasks = tasksIn;
+		}
+
+		@Override
+		protected void compute() {
+			invokeAll(tasks);
+		}
+	}
+
+	/**
+	 * Maps one chunk of the file and parses it into its own store
+	 */
+	private static class ChunkTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private FileChannel channel;
+		private long start;
+		private long end;
+
+		private CsvParticleParser parser = new CsvParticleParser(1);
+		private ParticleStore store;
+		private IOException error;
+
+		private ChunkTask(FileChannel channelIn, long startIn, long endIn) {
+			channel = channelIn;
+			start = startIn;
+			end = endIn;
+		}
+
+		@Override
+		protected void compute() {
+			try {
+				MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start,
+						end - start);
+				store = parser.parse(buffer, 0, (int) (end - start));
+			} catch (IOException e) {
+				error = e;
+			}
+		}
+	}
+}
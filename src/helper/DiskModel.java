@@ -0,0 +1,73 @@
+package helper;
+
+import java.util.SplittableRandom;
+
+import world.World;
+
+/**
+ * Thin disk rotating around a heavy central body. The particles are spread
+ * with uniform surface density between an inner and an outer radius and
+ * move on circular orbits around the central body and the disk inside of
+ * them. The disk has a small Gaussian thickness, with vertical speeds that
+ * hold it up.
+ * @author Matthew Zane
+ *
+ */
+public class DiskModel implements WorldModel {
+	public static final String NAME = "disk";
+
+	/**
+	 * Central mass relative to the mass of the disk, unless it is set
+	 */
+	public static final double DEFAULT_CENTRAL_RATIO = 100;
+
+	/**
+	 * Inner radius and thickness relative to the outer radius
+	 */
+	private static final double INNER_RATIO = .1;
+	private static final double THICKNESS_RATIO = .02;
+
+	private double mass;
+	private double centralMass;
+	private double innerRadius;
+	private double outerRadius;
+	private double thickness;
+
+	/**
+	 * Constructor
+	 * @param massIn total mass of the particles of the disk, measured in kilograms (kg)
+	 * @param centralMassIn mass of the central body, measured in kilograms (kg)
+	 * @param radiusIn outer radius of the disk, measured in meters (m)
+	 */
+	public DiskModel(double massIn, double centralMassIn, double radiusIn) {
+		mass = massIn;
+		centralMass = centralMassIn;
+		outerRadius = radiusIn;
+		innerRadius = INNER_RATIO * radiusIn;
+		thickness = THICKNESS_RATIO * radiusIn;
+	}
+
+	public double getCentralMass() { return centralMass; }
+	public String getName() { return NAME; }
+
+	public void draw(SplittableRandom random, double[] particle) {
+		double innerSquared = innerRadius * innerRadius;
+		double areaFraction = random.nextDouble();
+		double radius = Math.sqrt(innerSquared 
+				+ areaFraction * (outerRadius * outerRadius - innerSquared));
+		double angle = 2 * Math.PI * random.nextDouble();
+		double cosine = Math.cos(angle);
+		double sine = Math.sin(angle);
+
+		//circular speed around the mass inside of the radius
+		double enclosedMass = centralMass + areaFraction * mass;
+		double speed = Math.sqrt(World.GRAVITATIONAL_CONSTANT * enclosedMass / radius);
+
+		particle[0] = radius * cosine;
+		particle[1] = radius * sine;
+		particle[2] = thickness * random.nextGaussian();
+		particle[3] = -speed * sine;
+		particle[4] = speed * cosine;
+		particle[5] = thickness * speed / radius * random.nextGaussian();
+	}
+}
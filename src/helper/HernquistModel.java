@@ -0,0 +1,87 @@
+package helper;
+
+import java.util.SplittableRandom;
+
+import world.World;
+
+/**
+ * Hernquist halo, with density rho(r) = M a / (2 pi r (r + a)^3). Radii are
+ * drawn from the enclosed mass. Velocities are drawn from a Maxwellian with
+ * the isotropic velocity dispersion of the Jeans equation (Hernquist 1990),
+ * below the escape speed, which starts the halo close to equilibrium. The
+ * outermost part of the mass, which lies far from the rest, is left out.
+ * @author Matthew Zane
+ *
+ */
+public class HernquistModel implements WorldModel {
+	public static final String NAME = "hernquist";
+
+	/**
+	 * Largest fraction of the mass a particle can be inside of, about two
+	 * hundred scale radii
+	 */
+	private static final double MAX_MASS_FRACTION = .99;
+
+	/**
+	 * Velocities are redrawn until they are below this fraction of the
+	 * escape speed
+	 */
+	private static final double MAX_ESCAPE_FRACTION = .95;
+
+	/**
+	 * Velocities drawn before falling back to a scaled down one
+	 */
+	private static final int MAX_DRAWS = 100;
+
+	private double mass;
+	private double scaleRadius;
+
+	/**
+	 * Constructor
+	 * @param massIn total mass of the particles, measured in kilograms (kg)
+	 * @param scaleRadiusIn measured in meters (m)
+	 */
+	public HernquistModel(double massIn, double scaleRadiusIn) {
+		mass = massIn;
+		scaleRadius = scaleRadiusIn;
+	}
+
+	public double getCentralMass() { return 0; }
+	public String getName() { return NAME; }
+
+	public void draw(SplittableRandom random, double[] particle) {
+		//M(r) / M = r^2 / (r + a)^2, solved for r
+		double root = Math.sqrt(MAX_MASS_FRACTION * (1 - random.nextDouble()));
+		double radius = scaleRadius * root / (1 - root);
+		WorldGenerator.drawDirection(random, radius, particle, 0);
+
+		double dispersion = Math.sqrt(getDispersionSquared(radius));
+		double escapeSpeed = Math.sqrt(2 * World.GRAVITATIONAL_CONSTANT * mass 
+				/ (radius + scaleRadius));
+		double maxSpeed = MAX_ESCAPE_FRACTION * escapeSpeed;
+		for (int i = 0; i < MAX_DRAWS; i++) {
+			particle[3] = dispersion * random.nextGaussian();
+			particle[4] = dispersion * random.nextGaussian();
+			particle[5] = dispersion * random.nextGaussian();
+			double speedSquared = particle[3] * particle[3] + particle[4] * particle[4] 
+					+ particle[5] * particle[5];
+			if (speedSquared < maxSpeed * maxSpeed) {
+				return;
+			}
+		}
+		WorldGenerator.drawDirection(random, maxSpeed * random.nextDouble(), particle, 3);
+	}
+
+	/**
+	 * Isotropic one dimensional velocity dispersion at a radius
+	 * @param radius measured in meters (m)
+	 * @return measured in square meters per square second (m^2/s^2)
+	 */
+	private double getDispersionSquared(double radius) {
+		double x = radius / scaleRadius;
+		double dispersion = World.GRAVITATIONAL_CONSTANT * mass / (12 * scaleRadius)
+				* (12 * x * Math.pow(1 + x, 3) * Math.log((1 + x) / x)
+						- x / (1 + x) * (25 + 52 * x + 42 * x * x + 12 * x * x * x));
+		return Math.max(dispersion, 0);
+	}
+}
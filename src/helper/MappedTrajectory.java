@@ -0,0 +1,161 @@
+package helper;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import world.ParticleStore;
+
+/**
+ * Random access to the frames of a binary recording. The recording is
+ * memory mapped one window at a time and a frame is only decoded when it 
+ * is read, using a {@link TrajectoryIndex} to find it. Opening costs the
+ * same for any length of recording once the index exists, and memory use
+ * is bounded by the window and a single frame.<br>
+ * <br>
+ * How to use:<br>
+ * 	MappedTrajectory trajectory = new MappedTrajectory(pathname);<br>
+ * 	trajectory.read(trajectory.findFrame(time), store);
+ * @author Matthew Zane
+ *
+ */
+public class MappedTrajectory {
+	/**
+	 * Largest part of the recording mapped at once, unless a single frame
+	 * is larger
+	 */
+	private static final long WINDOW_BYTES = 64L << 20;
+
+	private FileChannel channel;
+
+	private TrajectoryIndex index;
+
+	private int flags;
+
+	/**
+	 * Mapped part of the recording and its position in the file
+	 */
+	private MappedByteBuffer window;
+	private long windowStart;
+
+	private ByteBuffer raw = ByteBuffer.allocate(0);
+
+	private Inflater inflater;
+
+	public TrajectoryIndex getIndex() { return index; }
+	public int getFrameCount() { return index.getFrameCount(); }
+	public double getTime(int frame) { return index.getTime(frame); }
+
+	/**
+	 * Constructor opens the recording and loads or builds its index
+	 * @param pathname
+	 * @throws IOException if the file is not a binary recording
+	 */
+	public MappedTrajectory(String pathname) throws IOException {
+		channel = FileChannel.open(Paths.get(pathname), StandardOpenOption.READ);
+		if (channel.size() < TrajectoryFormat.HEADER_BYTES) {
+			channel.close();
+			throw new IOException("Not a binary recording.");
+		}
+		flags = TrajectoryFormat.readHeader(map(0, TrajectoryFormat.HEADER_BYTES));
+		if ((flags & TrajectoryFormat.DEFLATE) != 0) {
+			inflater = new Inflater();
+		}
+		index = TrajectoryIndex.open(pathname);
+	}
+
+	/**
+	 * Returns the last frame at or before the specified time
+	 * @param time measured in seconds (s)
+	 * @return
+	 */
+	public int findFrame(double time) {
+		return index.findFrame(time);
+	}
+
+	/**
+	 * Decodes a frame into the store, replacing its particles
+	 * @param frame index of the frame
+	 * @param store
+	 * @throws IOException if the frame is corrupt
+	 */
+	public void read(int frame, ParticleStore store) throws IOException {
+		long offset = index.getOffset(frame);
+		ByteBuffer header = map(offset, TrajectoryFormat.FRAME_HEADER_BYTES);
+		header.getLong();
+		header.getDouble();
+		int size = header.getInt();
+		int rawBytes = header.getInt();
+		int storedBytes = header.getInt();
+		if (size < 0 || rawBytes != TrajectoryFormat.getRawBytes(size, flags)) {
+			throw new IOException("Corrupt frame " + frame);
+		}
+
+		ByteBuffer stored = map(offset + TrajectoryFormat.FRAME_HEADER_BYTES, storedBytes);
+		ByteBuffer payload = stored;
+		if (inflater != null) {
+			if (raw.capacity() < rawBytes) {
+				raw = ByteBuffer.allocate(rawBytes).order(ByteOrder.LITTLE_ENDIAN);
+			}
+			raw.clear();
+			raw.limit(rawBytes);
+			inflater.reset();
+			inflater.setInput(stored);
+			try {
+				while (raw.hasRemaining() && !inflater.finished()) {
+					if (inflater.inflate(raw) == 0 && inflater.needsInput()) {
+						break;
+					}
+				}
+			} catch (DataFormatException e) {
+				throw new IOException("Corrupt compressed frame " + frame);
+			}
+			if (raw.hasRemaining()) {
+				throw new IOException("Corrupt compressed frame " + frame);
+			}
+			raw.flip();
+			payload = raw;
+		}
+
+		TrajectoryReader.decode(payload, flags, size, store);
+	}
+
+	public void close() throws IOException {
+		if (inflater != null) {
+			inflater.end();
+		}
+		window = null;
+		channel.close();
+	}
+
+	/**
+	 * Returns a little-endian buffer of a part of the recording, mapping a
+	 * new window if the part is not inside the current one
+	 * @param position in the file
+	 * @param length in bytes
+	 * @return
+	 * @throws IOException
+	 */
+	private ByteBuffer map(long position, int length) throws IOException {
+		if (window == null || position < windowStart 
+				|| position + length > windowStart + window.capacity()) {
+			windowStart = position;
+			long windowLength = Math.min(Math.max(WINDOW_BYTES, length), 
+					channel.size() - position);
+			if (windowLength < length) {
+				throw new IOException("Recording ends within a frame.");
+			}
+			window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowLength);
+		}
+		ByteBuffer part = window.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+		part.position((int) (position - windowStart));
+		part.limit((int) (position - windowStart) + length);
+		return part.slice().order(ByteOrder.LITTLE_ENDIAN);
+	}
+}
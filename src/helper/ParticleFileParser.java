@@ -1,138 +1,382 @@
-package helper;
-
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
-import java.util.ArrayList;
-import java.util.List;
-
-import entity.Particle;
-import world.World;
-
-/**
- * Parses files of a certain format into lists of particle objects.
- * @author Matthew Zane
- *
- */
-public class ParticleFileParser {
-	
-	/**
-	 * A Universe is a list of worlds, which are just the same world in different time moments
-	 * The end of a world is marked with a "*".
-	 * @param pathname
-	 * @return
-	 * @throws Exception
-	 */
-	public static List<World> parseUniverse(String pathname) throws Exception {
-		File file = new File(pathname);
-		
-		//check for file existence
-		if (!file.exists()) {
-			throw new Exception("Config file " + pathname + " does not exist.");
-		}
-		BufferedReader br = new BufferedReader(new FileReader(file));
-		ArrayList<World> worlds = new ArrayList<World>();
-		
-		String line;
-		
-		
-		while ((line = br.readLine()) != null) {
-			//add the time variable to the world
-			String world = line + "\n";
-			//add the particles to the world
-			while ((line = br.readLine()) != null && !line.equals("*")) {
-				world += line + "\n";
-			}
-			
-			worlds.add(parseWorld(world));
-		}
-		
-		br.close();
-		
-		return worlds;
-	}
-	
-	public static World parseWorld(String line) throws Exception {
-		String[] fields = line.split("\n");
-		
-		World world = new World();
-		world.setTime(Double.parseDouble(fields[0]));
-		
-		ArrayList<Particle> particles = new ArrayList<Particle>();
-		
-		for (int i = 1; i < fields.length; i++) {
-			Particle particle = parseParticle(fields[i]);
-			
-			if (particle != null) {
-				particles.add(particle);
-			}
-		}
-		
-		world.setParticles(particles);
-		
-		return world;
-	}
-	/**
-	 * Returns a list of particles from a comma-delimited file. 
-	 * Ignores lines that start with "#". Skips any unparsable lines.
-	 * Fields are (in order): <br>
-	 * 	Mass (double)<br>
-	 * 	Radius (double)<br>
-	 * 	x-component of velocity (double)<br>
-	 * 	y-component of velocity (double)<br>
-	 * 	x-component of the particle's position (double)<br>
-	 * 	y-component of the particle's position (double)
-	 * @param pathname Full pathname of the config file.
-	 * @return list of particles
-	 * @exception Exception when file does not exist.
-	 */
-	public static List<Particle> parseParticles(String pathname) throws Exception {
-		File file = new File(pathname);
-		List<Particle> particles = new ArrayList<Particle>();
-		//check for file existence
-		if (!file.exists()) {
-			throw new Exception("Config file " + pathname + " does not exist.");
-		}
-		BufferedReader br = new BufferedReader(new FileReader(file));
-		String line;
-		while ((line = br.readLine()) != null) {
-			if (line.startsWith("#") || line.startsWith("*")) {
-				continue;
-			}
-			
-			Particle particle = parseParticle(line);
-			
-			if (particle != null) {
-				particles.add(particle);
-			}
-		}
-		br.close();
-		return particles;
-	}
-
-	/**
-	 * Returns null if particle could not be instantiated
-	 * @param particleText
-	 * @return
-	 */
-	public static Particle parseParticle(String particleText) {
-		// comma-delimited
-		String[] fields = particleText.split(",");
-		Particle particle = null;
-		try {
-			particle = new Particle(
-					Double.parseDouble(fields[0]),
-					Double.parseDouble(fields[1]),
-					Double.parseDouble(fields[2]),
-					Double.parseDouble(fields[3]),
-					Double.parseDouble(fields[4]),
-					Double.parseDouble(fields[5]),
-					Double.parseDouble(fields[6]),
-					Double.parseDouble(fields[7]));
-		} catch (Exception e) {		
-			System.out.println("Cannot instantiate Particle from " + particleText);
-		}
-		
-		return particle;
-	}
-}
+package helper;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import entity.Particle;
+import world.ParticleStore;
+import world.World;
+
+/**
+ * Parses files of a certain format into lists of particle objects.
+ * @author Matthew Zane
+ *
+ */
+public class ParticleFileParser {
+	/**
+	 * Bytes read at a time while searching a file backward
+	 */
+	private static final int TAIL_BLOCK_BYTES = 1 << 16;
+	
+	/**
+	 * A Universe is a list of worlds, which are just the same world in different time moments
+	 * The end of a world is marked with a "*".
+	 * @param pathname
+	 * @return
+	 * @throws Exception
+	 */
+	public static List<World> parseUniverse(String pathname) throws Exception {
+		ArrayList<World> worlds = new ArrayList<World>();
+		UniverseReader reader = new UniverseReader(pathname);
+		try {
+			while (reader.hasNext()) {
+				worlds.add(createWorld(reader.next(), reader.getTime()));
+			}
+		} finally {
+			reader.close();
+		}
+		return worlds;
+	}
+
+	/**
+	 * Returns only the last complete world of a universe file or binary
+	 * recording, without reading the worlds before it. A text file is
+	 * searched backward from its end for the "*" lines around the last
+	 * world, and only that world is parsed. A binary recording reads its
+	 * last frame through the frame index. A world that was only partly
+	 * written at the end of the file is skipped.
+	 * @param pathname
+	 * @return the last world, or null if there is none
+	 * @throws Exception when the file does not exist or can not be read
+	 */
+	public static World parseLastWorld(String pathname) throws Exception {
+		if (!new File(pathname).exists()) {
+			throw new Exception("Config file " + pathname + " does not exist.");
+		}
+		if (TrajectoryFormat.isBinary(pathname)) {
+			return parseLastFrame(pathname);
+		}
+
+		FileChannel channel = FileChannel.open(Paths.get(pathname), StandardOpenOption.READ);
+		try {
+			long size = channel.size();
+			long start = 0;
+			long end = size;
+			long marker = findLastMarker(channel, size);
+			if (marker >= 0) {
+				if (!isBlank(channel, marker + 1, size)) {
+					System.out.println("Skipped the unfinished last world of " + pathname + ".");
+				}
+				end = marker;
+				long previous = findLastMarker(channel, marker);
+				if (previous >= 0) {
+					start = findLineEnd(channel, previous, marker) + 1;
+				}
+			}
+			if (isBlank(channel, start, end)) {
+				return null;
+			}
+
+			CsvParticleParser parser = new CsvParticleParser();
+			ParticleStore store = parser.parse(channel, start, end);
+			if (parser.getBadLines() > 0) {
+				System.out.println("Skipped " + parser.getBadLines() + " lines of " + pathname
+						+ " that could not be parsed.");
+			}
+			World world = new World();
+			world.setTime(parser.getTime());
+			world.setStore(store);
+			return world;
+		} finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Returns the position after the last complete world of a universe file,
+	 * which is the size of the file unless the world after the last "*" was
+	 * cut off
+	 * @param channel
+	 * @return
+	 * @throws IOException
+	 */
+	static long findEndOfWorlds(FileChannel channel) throws IOException {
+		long size = channel.size();
+		long marker = findLastMarker(channel, size);
+		if (marker < 0 || isBlank(channel, marker + 1, size)) {
+			return size;
+		}
+		return findLineEnd(channel, marker, size) + 1;
+	}
+
+	/**
+	 * Returns the last frame of a binary recording as a World
+	 * @param pathname
+	 * @return the last frame, or null if there is none
+	 * @throws IOException if the recording is corrupt
+	 */
+	private static World parseLastFrame(String pathname) throws IOException {
+		MappedTrajectory trajectory = new MappedTrajectory(pathname);
+		try {
+			int last = trajectory.getFrameCount() - 1;
+			if (last < 0) {
+				return null;
+			}
+			ParticleStore store = new ParticleStore();
+			trajectory.read(last, store);
+			World world = new World();
+			world.setTime(trajectory.getTime(last));
+			world.setStore(store);
+			return world;
+		} finally {
+			trajectory.close();
+		}
+	}
+
+	/**
+	 * Searches backward from limit for the last line that is only "*"
+	 * @param channel
+	 * @param limit position after the last byte searched
+	 * @return position of the "*", or -1 if there is none
+	 * @throws IOException
+	 */
+	private static long findLastMarker(FileChannel channel, long limit) throws IOException {
+		//two extra bytes, so a line starting at the end of a block can be checked
+		ByteBuffer buffer = ByteBuffer.allocate(TAIL_BLOCK_BYTES + 2);
+		long lineEnd = limit;
+		long blockEnd = limit;
+		while (blockEnd > 0) {
+			long blockStart = Math.max(0, blockEnd - TAIL_BLOCK_BYTES);
+			read(channel, buffer, blockStart, Math.min(limit, blockEnd + 2));
+			for (long p = blockEnd - 1; p >= blockStart; p--) {
+				if (buffer.get((int) (p - blockStart)) == '\n') {
+					if (isMarker(buffer, (int) (p + 1 - blockStart), lineEnd - p - 1)) {
+						return p + 1;
+					}
+					lineEnd = p;
+				}
+			}
+			if (blockStart == 0 && isMarker(buffer, 0, lineEnd)) {
+				return 0;
+			}
+			blockEnd = blockStart;
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns whether the line at index of the buffer is "*"
+	 * @param buffer
+	 * @param index start of the line
+	 * @param length of the line without its line feed
+	 * @return
+	 */
+	private static boolean isMarker(ByteBuffer buffer, int index, long length) {
+		if (length == 1) {
+			return buffer.get(index) == '*';
+		}
+		return length == 2 && buffer.get(index) == '*' && buffer.get(index + 1) == '\r';
+	}
+
+	/**
+	 * Returns the position of the line feed ending the line at start, or
+	 * the position before limit if there is none
+	 */
+	private static long findLineEnd(FileChannel channel, long start, long limit) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(4);
+		read(channel, buffer, start, Math.min(limit, start + 4));
+		for (int i = 0; i < buffer.limit(); i++) {
+			if (buffer.get(i) == '\n') {
+				return start + i;
+			}
+		}
+		return limit - 1;
+	}
+
+	/**
+	 * Returns whether the part of the file has only white space
+	 */
+	private static boolean isBlank(FileChannel channel, long start, long end) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(TAIL_BLOCK_BYTES);
+		for (long position = start; position < end; position += TAIL_BLOCK_BYTES) {
+			read(channel, buffer, position, Math.min(end, position + TAIL_BLOCK_BYTES));
+			for (int i = 0; i < buffer.limit(); i++) {
+				if (!Character.isWhitespace(buffer.get(i))) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Reads the bytes from start up to end into the buffer, from index 0
+	 */
+	private static void read(FileChannel channel, ByteBuffer buffer, long start, long end)
+			throws IOException {
+		buffer.clear();
+		buffer.limit((int) (end - start));
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, start + buffer.position()) < 0) {
+				throw new IOException("Unexpected end of file.");
+			}
+		}
+	}
+	
+	public static World parseWorld(String line) throws Exception {
+		String[] fields = line.split("\n");
+		
+		World world = new World();
+		world.setTime(Double.parseDouble(fields[0]));
+		
+		ArrayList<Particle> particles = new ArrayList<Particle>();
+		
+		for (int i = 1; i < fields.length; i++) {
+			Particle particle = parseParticle(fields[i]);
+			
+			if (particle != null) {
+				particles.add(particle);
+			}
+		}
+		
+		world.setParticles(particles);
+		
+		return world;
+	}
+
+	/**
+	 * Creates a World holding a copy of the store
+	 * @param store
+	 * @param time
+	 * @return
+	 */
+	private static World createWorld(ParticleStore store, double time) {
+		ParticleStore copy = new ParticleStore(store.size());
+		store.copyInto(copy);
+		World world = new World();
+		world.setTime(time);
+		world.setStore(copy);
+		return world;
+	}
+
+	/**
+	 * Returns a list of particles from a comma-delimited file. 
+	 * Ignores lines that start with "#". Skips any unparsable lines.
+	 * Fields are (in order): <br>
+	 * 	Mass (double)<br>
+	 * 	Radius (double)<br>
+	 * 	x-component of velocity (double)<br>
+	 * 	y-component of velocity (double)<br>
+	 * 	x-component of the particle's position (double)<br>
+	 * 	y-component of the particle's position (double)
+	 * @param pathname Full pathname of the config file.
+	 * @return list of particles
+	 * @exception Exception when file does not exist.
+	 */
+	public static List<Particle> parseParticles(String pathname) throws Exception {
+		File file = new File(pathname);
+		List<Particle> particles = new ArrayList<Particle>();
+		//check for file existence
+		if (!file.exists()) {
+			throw new Exception("Config file " + pathname + " does not exist.");
+		}
+		BufferedReader br = new BufferedReader(new FileReader(file));
+		String line;
+		while ((line = br.readLine()) != null) {
+			if (line.startsWith("#") || line.startsWith("*")) {
+				continue;
+			}
+			
+			Particle particle = parseParticle(line);
+			
+			if (particle != null) {
+				particles.add(particle);
+			}
+		}
+		br.close();
+		return particles;
+	}
+
+	/**
+	 * Parses the particles of a config file with the parallel byte level
+	 * parser, which prints the number of lines it could not parse once
+	 * instead of printing every line. The file may hold one world of a
+	 * universe file.
+	 * @param pathname
+	 * @return
+	 * @throws Exception when the file does not exist or holds more than one world
+	 */
+	public static ParticleStore parseParticleStore(String pathname) throws Exception {
+		CsvParticleParser parser = new CsvParticleParser();
+		ParticleStore store = parser.parse(pathname);
+		if (parser.getBadLines() > 0) {
+			System.out.println("Skipped " + parser.getBadLines() + " lines of " + pathname
+					+ " that could not be parsed.");
+		}
+		return store;
+	}
+
+	/**
+	 * Parses a particle line and appends the particle to the store.
+	 * Lines with eight fields are 3D particles. Lines with six fields are
+	 * 2D particles in the older format: mass, radius, x and y-component of
+	 * velocity, x and y-component of position. They are placed at z = 0.
+	 * @param particleText
+	 * @param store
+	 * @return false if the line could not be parsed
+	 */
+	public static boolean parseParticle(String particleText, ParticleStore store) {
+		// comma-delimited
+		String[] fields = particleText.split(",");
+		try {
+			if (fields.length == 6) {
+				double mass = Double.parseDouble(fields[0]);
+				double radius = Double.parseDouble(fields[1]);
+				double velocityX = Double.parseDouble(fields[2]);
+				double velocityY = Double.parseDouble(fields[3]);
+				double positionX = Double.parseDouble(fields[4]);
+				double positionY = Double.parseDouble(fields[5]);
+				store.add(mass, radius, velocityX, velocityY, 0, positionX, positionY, 0);
+			}
+			else {
+				double mass = Double.parseDouble(fields[0]);
+				double radius = Double.parseDouble(fields[1]);
+				double velocityX = Double.parseDouble(fields[2]);
+				double velocityY = Double.parseDouble(fields[3]);
+				double velocityZ = Double.parseDouble(fields[4]);
+				double positionX = Double.parseDouble(fields[5]);
+				double positionY = Double.parseDouble(fields[6]);
+				double positionZ = Double.parseDouble(fields[7]);
+				store.add(mass, radius, velocityX, velocityY, velocityZ, 
+						positionX, positionY, positionZ);
+			}
+		} catch (Exception e) {
+			System.out.println("Cannot instantiate Particle from " + particleText);
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Parses a particle line like parseParticle(String, ParticleStore) into
+	 * a Particle of its own
+	 * @param particleText
+	 * @return the particle, or null if the line could not be parsed
+	 */
+	public static Particle parseParticle(String particleText) {
+		//a Particle of its own holds its state in a store of one anyway
+		ParticleStore store = new ParticleStore(1);
+		if (!parseParticle(particleText, store)) {
+			return null;
+		}
+		return new Particle(store, 0);
+	}
+}
@@ -1,69 +1,143 @@
-package helper;
-
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
-import java.util.List;
-
-import display.Display;
-import world.World;
-
-public class PlayBack {
-	private static final String FILENAME = "C:\\Users\\matth\\eclipse-workspace\\GravitySimulation1.4\\src\\config\\record.txt";
-	
-	private ReplayListener replayListener = new ReplayListener();
-	private boolean canReplay = false;
-	
-	public ReplayListener getReplayListener() { return replayListener; }
-	public boolean getCanReplay() { return canReplay; }
-	
-	public void setCanReplay(boolean canReplayIn) { canReplay = canReplayIn; }
-	
-	public static void main(String[] args) {
-		PlayBack playBack = new PlayBack();
-		
-		Display display = null;
-		List<World> universe = null;
-		try {
-			System.out.println("Loading");
-			universe = ParticleFileParser.parseUniverse(FILENAME);
-
-
-			display = new Display(universe.get(0));
-			display.init();
-			display.addReplayButton(playBack.getReplayListener());
-
-			//to do: make button to quit (change the boolean value in the while loop)
-			while (true) {
-				for (World moment: universe) {
-					display.setWorld(moment);
-					display.repaint();
-					Thread.sleep(100);
-				}
-				System.out.println("Recording Done!");
-				playBack.setCanReplay(false);
-				
-				//don't know if this is how you do it
-				while (!playBack.getCanReplay()) {
-					Thread.sleep(1000);
-				}
-				System.out.println("Restarting");
-			}
-
-		} catch (Exception e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
-			System.out.println("Something went wrong!");
-		}
-
-
-	}
-
-	public class ReplayListener implements ActionListener {
-		public ReplayListener() {}
-		
-		@Override
-		public void actionPerformed(ActionEvent arg0) {
-			canReplay = true;
-		}
-	}
-}
+package helper;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+
+import display.Display;
+import world.World;
+
+public class PlayBack {
+	private static final String FILENAME = "C:\\Users\\matth\\eclipse-workspace\\GravitySimulation1.4\\src\\config\\record.txt";
+	
+	private ReplayListener replayListener = new ReplayListener();
+	private volatile boolean canReplay = false;
+	
+	public ReplayListener getReplayListener() { return replayListener; }
+	public boolean getCanReplay() { return canReplay; }
+	
+	public void setCanReplay(boolean canReplayIn) { canReplay = canReplayIn; }
+	
+	/**
+	 * Plays back a recording, the pathname is the first argument. A binary
+	 * recording can start at a time given with -time.
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		PlayBack playBack = new PlayBack();
+		
+		String pathname = FILENAME;
+		double startTime = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-time") && i + 1 < args.length) {
+				startTime = Double.parseDouble(args[++i]);
+			}
+			else {
+				pathname = args[i];
+			}
+		}
+
+		if (TrajectoryFormat.isBinary(pathname)) {
+			playBack.playMapped(pathname, startTime);
+		}
+		else {
+			playBack.playText(pathname);
+		}
+	}
+
+	/**
+	 * Plays a text recording, reading one world at a time and reading the
+	 * file again for a replay
+	 * @param pathname
+	 */
+	private void playText(String pathname) {
+		try {
+			World world = new World();
+			world.setRecording(false);
+			Display display = new Display(world);
+			display.init();
+			display.addReplayButton(getReplayListener());
+
+			//to do: make button to quit (change the boolean value in the while loop)
+			while (true) {
+				UniverseReader universe = new UniverseReader(pathname);
+				while (universe.hasNext()) {
+					//the World is not running, so its store can be filled here
+					universe.next().copyInto(world.getStore());
+					world.setTime(universe.getTime());
+					display.update();
+					Thread.sleep(100);
+				}
+				universe.close();
+				waitForReplay();
+			}
+
+		} catch (Exception e) {
+			// TODO Auto-generated catch block
+			e.printStackTrace();
+			System.out.println("Something went wrong!");
+		}
+
+
+	}
+
+	/**
+	 * Plays a binary recording, decoding each frame from the mapped file 
+	 * only when it is shown
+	 * @param pathname
+	 * @param startTime time of the first frame shown, measured in seconds (s)
+	 */
+	private void playMapped(String pathname, double startTime) {
+		try {
+			MappedTrajectory trajectory = new MappedTrajectory(pathname);
+			if (trajectory.getFrameCount() == 0) {
+				throw new Exception("Recording has no frames.");
+			}
+
+			World world = new World();
+			world.setRecording(false);
+			Display display = new Display(world);
+			display.init();
+			display.addReplayButton(getReplayListener());
+
+			int first = trajectory.findFrame(startTime);
+			while (true) {
+				for (int frame = first; frame < trajectory.getFrameCount(); frame++) {
+					//the World is not running, so its store can be filled here
+					trajectory.read(frame, world.getStore());
+					world.setTime(trajectory.getTime(frame));
+					display.update();
+					Thread.sleep(100);
+				}
+				first = 0;
+				waitForReplay();
+			}
+		} catch (Exception e) {
+			e.printStackTrace();
+			System.out.println("Something went wrong!");
+		}
+	}
+
+	/**
+	 * Waits until the replay button is pressed
+	 * @throws InterruptedException
+	 */
+	private void waitForReplay() throws InterruptedException {
+		System.out.println("Recording Done!");
+		setCanReplay(false);
+		
+		//don't know if this is how you do it
+		while (!getCanReplay()) {
+			Thread.sleep(1000);
+		}
+		System.out.println("Restarting");
+	}
+
+	public class ReplayListener implements ActionListener {
+		public ReplayListener() {}
+		
+		@Override
+		public void actionPerformed(ActionEvent arg0) {
+			canReplay = true;
+		}
+	}
+}
@@ -0,0 +1,58 @@
+package helper;
+
+import java.util.SplittableRandom;
+
+import world.World;
+
+/**
+ * Plummer sphere in virial equilibrium, with density
+ * rho(r) = 3M / (4 pi a^3) (1 + r^2 / a^2)^(-5/2). Radii are drawn from the
+ * enclosed mass and speeds from the isotropic distribution function by
+ * rejection, as in Aarseth, Henon and Wielen (1974). The outermost part of
+ * the mass, which lies far from the rest, is left out.
+ * @author Matthew Zane
+ *
+ */
+public class PlummerModel implements WorldModel {
+	public static final String NAME = "plummer";
+
+	/**
+	 * Largest fraction of the mass a particle can be inside of, about 39
+	 * scale radii
+	 */
+	private static final double MAX_MASS_FRACTION = .999;
+
+	private double mass;
+	private double scaleRadius;
+
+	/**
+	 * Constructor
+	 * @param massIn total mass of the particles, measured in kilograms (kg)
+	 * @param scaleRadiusIn measured in meters (m)
+	 */
+	public PlummerModel(double massIn, double scaleRadiusIn) {
+		mass = massIn;
+		scaleRadius = scaleRadiusIn;
+	}
+
+	public double getCentralMass() { return 0; }
+	public String getName() { return NAME; }
+
+	public void draw(SplittableRandom random, double[] particle) {
+		//M(r) / M = r^3 / (r^2 + a^2)^(3/2), solved for r
+		double fraction = MAX_MASS_FRACTION * (1 - random.nextDouble());
+		double radius = scaleRadius / Math.sqrt(Math.pow(fraction, -2.0 / 3) - 1);
+		WorldGenerator.drawDirection(random, radius, particle, 0);
+
+		//q = v / v_escape has density q^2 (1 - q^2)^(7/2), which is below 0.1
+		double q;
+		double density;
+		do {
+			q = random.nextDouble();
+			density = .1 * random.nextDouble();
+		} while (density > q * q * Math.pow(1 - q * q, 3.5));
+		double escapeSpeed = Math.sqrt(2 * World.GRAVITATIONAL_CONSTANT * mass 
+				/ Math.sqrt(radius * radius + scaleRadius * scaleRadius));
+		WorldGenerator.drawDirection(random, q * escapeSpeed, particle, 3);
+	}
+}
@@ -1,43 +1,444 @@
-package helper;
-
-import java.io.BufferedWriter;
-import java.io.FileWriter;
-import java.io.IOException;
-import java.io.PrintWriter;
-
-import world.World;
-
-public class Recorder {
-	private static final String FILENAME = "C:\\Users\\matth\\eclipse-workspace\\GravitySimulation1.4\\src\\config\\record.txt";
-	
-	
-	public static void recordTurn(World world) {	
-		FileWriter fw = null;
-		try {
-			fw = new FileWriter(FILENAME, true);
-		} catch (IOException e1) {
-			// TODO Auto-generated catch block
-			e1.printStackTrace();
-		}
-		BufferedWriter bw = new BufferedWriter(fw);
-		PrintWriter out = new PrintWriter(bw);
-
-		try {
-
-			String content = world.toString();
-
-			bw.append(content);
-
-		} catch (IOException e) { System.out.println("Something went wrong"); } 
-		finally {
-			try {
-
-				if (bw != null)
-					bw.close();
-				if (fw != null)
-					fw.close();
-
-			} catch (IOException ex) {	ex.printStackTrace();	}
-		}
-	}
-}
+package helper;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import metrics.RecordingEvent;
+import world.Frame;
+import world.ParticleStore;
+import world.World;
+
+/**
+ * Writes frames of a World to a recording, each starting with the time and
+ * ending with an asterisk on separate lines.<br>
+ * <br>
+ * A Recorder object records asynchronously: record copies the World into a
+ * frame taken from a fixed pool and queues it, and a background thread
+ * formats the queued frames in batches and writes them through one file
+ * channel that stays open until close is called. Pathnames ending with
+ * {@link TrajectoryFormat#EXTENSION} are recorded in the compressed binary
+ * format instead of text. When every pooled frame is
+ * still waiting to be written, the policy decides what record does:<br>
+ * 	BLOCK waits for the writer<br>
+ * 	DROP skips the new frame<br>
+ * 	COALESCE reuses the oldest waiting frame, so the newest frames are kept<br>
+ * <br>
+ * The static recordTurn appends a single frame synchronously.
+ * @author Matthew Zane
+ *
+ */
+public class Recorder implements Closeable {
+	private static final String FILENAME = "C:\\Users\\matth\\eclipse-workspace\\GravitySimulation1.4\\src\\config\\record.txt";
+
+	/**
+	 * Number of pooled frames used if none is specified
+	 */
+	public static final int DEFAULT_CAPACITY = 8;
+
+	/**
+	 * Formatted frames are written once the batch is this many bytes
+	 */
+	private static final int BATCH_BYTES = 1 << 20;
+
+	/**
+	 * What record does when no pooled frame is free
+	 */
+	public enum Policy { BLOCK, DROP, COALESCE }
+
+	/**
+	 * Pathname of the file the static recordTurn appends to
+	 */
+	private static String filename = FILENAME;
+
+	public static String getFilename() { return filename; }
+
+	public static void setFilename(String filenameIn) { filename = filenameIn; }
+
+	private Policy policy;
+
+	private FileChannel channel;
+
+	/**
+	 * Writes the frames of binary recordings, null for text
+	 */
+	private TrajectoryWriter trajectoryWriter;
+
+	/**
+	 * Frames that can be filled, and frames waiting to be written
+	 */
+	private BlockingQueue<Frame> freeFrames;
+	private BlockingQueue<Frame> queuedFrames;
+
+	/**
+	 * Queued after the last frame to stop the writer
+	 */
+	private Frame end = new Frame();
+
+	private Thread writer;
+
+	private volatile boolean closed;
+
+	private volatile IOException error;
+
+	private long recordedCount;
+	private long droppedCount;
+
+	/**
+	 * Number of cycles run at the last frame queued, or -1 before the first
+	 */
+	private long lastStep = -1;
+
+	/**
+	 * Name of the force solver of the recorded World, for the flight recorder
+	 */
+	private volatile String solverName;
+
+	public Policy getPolicy() { return policy; }
+	public long getRecordedCount() { return recordedCount; }
+	public long getDroppedCount() { return droppedCount; }
+	public long getLastStep() { return lastStep; }
+
+	/**
+	 * Returns the number of frames waiting to be written
+	 * @return
+	 */
+	public int getQueueDepth() { return queuedFrames.size(); }
+
+	/**
+	 * Constructor opens the file and starts the writer thread
+	 * @param pathname file to record to
+	 * @param append whether to keep the current contents of the file, 
+	 * without a frame that was cut off at its end
+	 * @param capacity number of frames that can wait to be written
+	 * @param policyIn what to do when capacity frames are waiting
+	 * @throws IOException if the file can not be opened
+	 */
+	public Recorder(String pathname, boolean append, int capacity, Policy policyIn)
+			throws IOException {
+		policy = policyIn;
+		capacity = Math.max(1, capacity);
+
+		if (append) {
+			//read as well, to find where the last complete frame ends
+			channel = FileChannel.open(Paths.get(pathname), StandardOpenOption.CREATE,
+					StandardOpenOption.READ, StandardOpenOption.WRITE);
+		}
+		else {
+			//the index of an overwritten recording is about the old frames
+			TrajectoryIndex.delete(pathname);
+			channel = FileChannel.open(Paths.get(pathname), StandardOpenOption.CREATE,
+					StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		}
+
+		long existing = channel.size();
+		long complete = existing;
+		if (TrajectoryFormat.isBinary(pathname)) {
+			trajectoryWriter = new TrajectoryWriter(channel, false, true);
+			if (existing > TrajectoryFormat.HEADER_BYTES) {
+				//the index is rebuilt if it is of another recording, so its end is a frame boundary
+				complete = TrajectoryIndex.open(pathname).getEnd();
+			}
+		}
+		else if (existing > 0) {
+			complete = ParticleFileParser.findEndOfWorlds(channel);
+		}
+		if (complete < existing) {
+			//a frame cut off when the last run stopped would corrupt the frames after it
+			System.out.println("Removed an unfinished frame at the end of " + pathname + ".");
+			channel.truncate(complete);
+		}
+		channel.position(channel.size());
+
+		freeFrames = new ArrayBlockingQueue<Frame>(capacity);
+		queuedFrames = new ArrayBlockingQueue<Frame>(capacity + 1);
+		for (int i = 0; i < capacity; i++) {
+			freeFrames.add(new Frame());
+		}
+
+		writer = new Thread(new Writer(), "Recorder");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	public Recorder(String pathname) throws IOException {
+		this(pathname, true, DEFAULT_CAPACITY, Policy.BLOCK);
+	}
+
+	/**
+	 * Copies the state of the World into a pooled frame and queues it for
+	 * writing. Must only be called from one thread.
+	 * @param world
+	 * @throws IOException if writing an earlier frame failed
+	 */
+	public void record(World world) throws IOException {
+		solverName = world.getForceSolver().getName();
+		record(world.getStore(), world.getTime(), world.getStepCount());
+	}
+
+	/**
+	 * Copies the state into a pooled frame and queues it for writing.
+	 * Must only be called from one thread.
+	 * @param store
+	 * @param time measured in seconds (s)
+	 * @param step number of cycles run
+	 * @throws IOException if writing an earlier frame failed
+	 */
+	public void record(ParticleStore store, double time, long step) throws IOException {
+		if (error != null) {
+			throw error;
+		}
+		if (closed) {
+			throw new IOException("Recorder is closed.");
+		}
+
+		Frame frame = takeFreeFrame();
+		if (frame == null) {
+			return;
+		}
+		frame.set(store, time, step);
+		synchronized (this) {
+			//close may have run since the check above, and the writer is gone then
+			if (closed) {
+				freeFrames.add(frame);
+				droppedCount++;
+				throw new IOException("Recorder is closed.");
+			}
+			queuedFrames.add(frame);
+		}
+		recordedCount++;
+		lastStep = step;
+	}
+
+	/**
+	 * Returns a frame to fill, following the policy if none is free
+	 * @return the frame, or null if the new frame is dropped
+	 */
+	private Frame takeFreeFrame() {
+		Frame frame = freeFrames.poll();
+		if (frame != null) {
+			return frame;
+		}
+		if (policy == Policy.DROP) {
+			droppedCount++;
+			return null;
+		}
+		if (policy == Policy.COALESCE) {
+			synchronized (this) {
+				//never take the end frame queued by close
+				if (!closed) {
+					frame = queuedFrames.poll();
+				}
+			}
+			if (frame != null) {
+				droppedCount++;
+				return frame;
+			}
+			//the writer just took the last one, so wait for it
+		}
+		try {
+			return freeFrames.take();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			droppedCount++;
+			return null;
+		}
+	}
+
+	/**
+	 * Writes the queued frames, stops the writer thread and closes the file
+	 * @throws IOException if writing a frame or closing the file failed
+	 */
+	public void close() throws IOException {
+		synchronized (this) {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			queuedFrames.add(end);
+		}
+		try {
+			writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (trajectoryWriter != null) {
+			trajectoryWriter.close();
+		}
+		else {
+			channel.close();
+		}
+		if (error != null) {
+			throw error;
+		}
+	}
+
+	/**
+	 * Appends a frame in the text format of the recording
+	 * @param builder
+	 * @param store
+	 * @param time measured in seconds (s)
+	 */
+	public static void appendFrame(StringBuilder builder, ParticleStore store, double time) {
+		builder.append(time).append('\n');
+		appendParticles(builder, store, 0, store.size());
+		builder.append("*\n");
+	}
+
+	/**
+	 * Appends the lines of some of the particles of a frame in the text format
+	 * @param builder
+	 * @param store
+	 * @param start index of the first particle
+	 * @param end index after the last particle
+	 */
+	public static void appendParticles(StringBuilder builder, ParticleStore store, int start, int end) {
+		for (int i = start; i < end; i++) {
+			builder.append(store.mass[i]).append(',')
+					.append(store.radius[i]).append(',')
+					.append(store.velocityX[i]).append(',')
+					.append(store.velocityY[i]).append(',')
+					.append(store.velocityZ[i]).append(',')
+					.append(store.positionX[i]).append(',')
+					.append(store.positionY[i]).append(',')
+					.append(store.positionZ[i]).append('\n');
+		}
+	}
+
+	public static void recordTurn(World world) {
+		RecordingEvent event = new RecordingEvent();
+		event.begin();
+		FileWriter fw = null;
+		try {
+			fw = new FileWriter(filename, true);
+		} catch (IOException e1) {
+			// TODO Auto-generated catch block
+			e1.printStackTrace();
+		}
+		BufferedWriter bw = new BufferedWriter(fw);
+
+		try {
+
+			String content = world.toString();
+
+			bw.append(content);
+
+		} catch (IOException e) { System.out.println("Something went wrong"); }
+		finally {
+			try {
+
+				if (bw != null)
+					bw.close();
+				if (fw != null)
+					fw.close();
+
+			} catch (IOException ex) {	ex.printStackTrace();	}
+		}
+		event.end();
+		if (event.shouldCommit()) {
+			event.frames = 1;
+			event.particles = world.getStore().size();
+			event.step = world.getStepCount();
+			event.solver = world.getForceSolver().getName();
+			event.commit();
+		}
+	}
+
+	/**
+	 * Takes the queued frames, formats as many as are waiting into one batch
+	 * and writes it
+	 */
+	private class Writer implements Runnable {
+		private StringBuilder builder = new StringBuilder();
+		private ByteBuffer buffer = ByteBuffer.allocateDirect(BATCH_BYTES);
+
+		public void run() {
+			try {
+				boolean done = false;
+				while (!done) {
+					Frame frame = queuedFrames.take();
+					RecordingEvent event = new RecordingEvent();
+					event.begin();
+					while (frame != null) {
+						if (frame == end) {
+							done = true;
+							break;
+						}
+						event.frames++;
+						event.particles = frame.getStore().size();
+						event.step = frame.getStep();
+						try {
+							if (trajectoryWriter != null) {
+								trajectoryWriter.write(frame.getStore(), frame.getTime(), 
+										frame.getStep());
+							}
+							else {
+								appendFrame(builder, frame.getStore(), frame.getTime());
+							}
+						} finally {
+							//also when writing failed, or a pool of one would be empty for good
+							freeFrames.add(frame);
+						}
+						if (builder.length() >= BATCH_BYTES) {
+							write();
+						}
+						frame = queuedFrames.poll();
+					}
+					write();
+					event.end();
+					if (event.frames > 0 && event.shouldCommit()) {
+						event.solver = solverName;
+						event.commit();
+					}
+				}
+			} catch (IOException e) {
+				error = e;
+				//keep freeing frames so record does not wait forever
+				drain();
+			} catch (RuntimeException e) {
+				error = new IOException("Writing the recording failed.", e);
+				drain();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		/**
+		 * Writes the formatted frames, which are plain ASCII
+		 * @throws IOException
+		 */
+		private void write() throws IOException {
+			int length = builder.length();
+			for (int start = 0; start < length; start += buffer.capacity()) {
+				int stop = Math.min(start + buffer.capacity(), length);
+				buffer.clear();
+				for (int i = start; i < stop; i++) {
+					buffer.put((byte) builder.charAt(i));
+				}
+				buffer.flip();
+				while (buffer.hasRemaining()) {
+					channel.write(buffer);
+				}
+			}
+			builder.setLength(0);
+		}
+
+		private void drain() {
+			try {
+				Frame frame;
+				while ((frame = queuedFrames.take()) != end) {
+					freeFrames.add(frame);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
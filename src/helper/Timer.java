@@ -1,13 +1,13 @@
-package helper;
-
-/**
- * Helper class that provides time based utilities.
- * @author Matthew Zane
- *
- */
-public class Timer {
-	public static double getTime() {
-		return (double) System.nanoTime() / (double) 1000000000L;
-	}
-	
+package helper;
+
+/**
+ * Helper class that provides time based utilities.
+ * @author Matthew Zane
+ *
+ */
+public class Timer {
+	public static double getTime() {
+		return (double) System.nanoTime() / (double) 1000000000L;
+	}
+	
 }
\ No newline at end of file
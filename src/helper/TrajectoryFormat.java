@@ -0,0 +1,98 @@
+package helper;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Layout of the binary recording format. All numbers are little-endian.<br>
+ * <br>
+ * The file starts with a header of HEADER_BYTES:<br>
+ * 	magic (4 bytes "GTRJ"), version (int), flags (int)<br>
+ * followed by frames, each starting with a frame header of FRAME_HEADER_BYTES:<br>
+ * 	step (long), time (double), particle count (int), 
+ * 	raw payload bytes (int), stored payload bytes (int)<br>
+ * and then the stored payload. The raw payload holds the FIELDS columns one
+ * after another (all masses, then all radii, ...), each value a double, or a
+ * float if FLOATS is set. If DEFLATE is set, the stored payload is the raw
+ * payload compressed with Deflate. Columns of similar values compress far
+ * better than particles stored one by one.
+ * @author Matthew Zane
+ *
+ */
+public class TrajectoryFormat {
+	/**
+	 * Extension of binary recordings
+	 */
+	public static final String EXTENSION = ".traj";
+
+	public static final int MAGIC = 0x4A525447; //"GTRJ" read as a little-endian int
+	public static final int VERSION = 1;
+
+	/**
+	 * Values are stored as floats instead of doubles
+	 */
+	public static final int FLOATS = 1;
+
+	/**
+	 * Payloads are compressed with Deflate
+	 */
+	public static final int DEFLATE = 2;
+
+	public static final int HEADER_BYTES = 12;
+	public static final int FRAME_HEADER_BYTES = 28;
+
+	/**
+	 * Number of values stored per particle: mass, radius, velocity x, y, z,
+	 * position x, y, z, charge and elasticity
+	 */
+	public static final int FIELDS = 10;
+
+	/**
+	 * Returns whether the pathname has the extension of binary recordings
+	 * @param pathname
+	 * @return
+	 */
+	public static boolean isBinary(String pathname) {
+		return pathname.endsWith(EXTENSION);
+	}
+
+	/**
+	 * Returns the number of raw payload bytes of a frame
+	 * @param particles
+	 * @param flags
+	 * @return
+	 */
+	public static int getRawBytes(int particles, int flags) {
+		return particles * FIELDS * ((flags & FLOATS) != 0 ? 4 : 8);
+	}
+
+	/**
+	 * Returns a little-endian buffer of the header
+	 * @param flags
+	 * @return
+	 */
+	public static ByteBuffer createHeader(int flags) {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+		header.putInt(MAGIC).putInt(VERSION).putInt(flags);
+		header.flip();
+		return header;
+	}
+
+	/**
+	 * Checks the header and returns its flags
+	 * @param header little-endian buffer positioned at the header
+	 * @return
+	 * @throws IOException if it is not a header of a supported version
+	 */
+	public static int readHeader(ByteBuffer header) throws IOException {
+		if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC) {
+			throw new IOException("Not a binary recording.");
+		}
+		int version = header.getInt();
+		if (version != VERSION) {
+			throw new IOException("Unsupported recording version " + version);
+		}
+		return header.getInt();
+	}
+}
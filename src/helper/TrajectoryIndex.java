@@ -0,0 +1,337 @@
+package helper;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Offset and time of every frame of a binary recording. Building it only
+ * reads the frame headers. It is stored next to the recording with the
+ * extension EXTENSION. A stored index is only trusted while the header of
+ * the recording and the header of its last indexed frame are unchanged.
+ * When the recording has grown with them unchanged, only the appended
+ * frames are added, otherwise the recording was replaced and the index is
+ * rebuilt.<br>
+ * <br>
+ * Index file layout, little-endian:<br>
+ * 	magic (int "GIDX"), version (int), recording bytes (long), last
+ * modified time of the recording in milliseconds (long), end of the last
+ * frame (long), frame count (int), header of the recording (HEADER_BYTES of
+ * TrajectoryFormat), header of the last frame (FRAME_HEADER_BYTES)<br>
+ * 	then for every frame its offset (long) and time (double)
+ * @author Matthew Zane
+ *
+ */
+public class TrajectoryIndex {
+	public static final String EXTENSION = ".idx";
+
+	private static final int MAGIC = 0x58444947; //"GIDX" read as a little-endian int
+	private static final int VERSION = 3;
+	private static final int HEADER_BYTES = 36 + TrajectoryFormat.HEADER_BYTES 
+			+ TrajectoryFormat.FRAME_HEADER_BYTES;
+
+	private int frameCount;
+
+	/**
+	 * Position of the frame header of each frame in the recording
+	 */
+	private long[] offsets = new long[16];
+	private double[] times = new double[16];
+
+	/**
+	 * Size of the recording the index was built from
+	 */
+	private long recordingBytes;
+
+	/**
+	 * Last modified time of the recording the index was built from, in
+	 * milliseconds
+	 */
+	private long modifiedTime;
+
+	/**
+	 * Header of the recording and of its last indexed frame, which must
+	 * still be the same for the index to be used
+	 */
+	private byte[] recordingHeader = new byte[TrajectoryFormat.HEADER_BYTES];
+	private byte[] lastFrameHeader = new byte[TrajectoryFormat.FRAME_HEADER_BYTES];
+
+	/**
+	 * Position after the last complete frame, where a frame that was cut
+	 * off starts
+	 */
+	private long end = TrajectoryFormat.HEADER_BYTES;
+
+	public int getFrameCount() { return frameCount; }
+	public long getRecordingBytes() { return recordingBytes; }
+	public long getEnd() { return end; }
+
+	public long getOffset(int frame) { return offsets[frame]; }
+	public double getTime(int frame) { return times[frame]; }
+
+	/**
+	 * Loads the index stored next to the recording, or builds and stores
+	 * it if it is missing or out of date
+	 * @param pathname of the recording
+	 * @return
+	 * @throws IOException
+	 */
+	public static TrajectoryIndex open(String pathname) throws IOException {
+		Path indexPath = Paths.get(pathname + EXTENSION);
+		long size = Files.size(Paths.get(pathname));
+		long modified = Files.getLastModifiedTime(Paths.get(pathname)).toMillis();
+		TrajectoryIndex index = null;
+		if (Files.exists(indexPath)) {
+			index = load(indexPath);
+			if (index != null && !index.matches(pathname)) {
+				//the recording was replaced since the index was built
+				index = null;
+			}
+			if (index != null && index.recordingBytes == size && index.modifiedTime == modified) {
+				return index;
+			}
+		}
+
+		if (index != null && index.recordingBytes < size) {
+			//frames were appended, so only they have to be read
+			index.extend(pathname);
+		}
+		else {
+			index = build(pathname);
+		}
+		try {
+			index.save(indexPath);
+		} catch (IOException e) {
+			//the index still works, it is just rebuilt next time
+			System.out.println("Could not store index: " + e.getMessage());
+		}
+		return index;
+	}
+
+	/**
+	 * Deletes the index stored next to a recording, to be called when the
+	 * recording is overwritten
+	 * @param pathname of the recording
+	 * @throws IOException
+	 */
+	public static void delete(String pathname) throws IOException {
+		Files.deleteIfExists(Paths.get(pathname + EXTENSION));
+	}
+
+	/**
+	 * Builds the index by jumping from frame header to frame header
+	 * @param pathname of the recording
+	 * @return
+	 * @throws IOException if the recording is corrupt
+	 */
+	public static TrajectoryIndex build(String pathname) throws IOException {
+		TrajectoryIndex index = new TrajectoryIndex();
+		index.scan(pathname, TrajectoryFormat.HEADER_BYTES);
+		return index;
+	}
+
+	/**
+	 * Adds the frames that were appended to the recording since the index
+	 * was built
+	 * @param pathname of the recording
+	 * @throws IOException
+	 */
+	private void extend(String pathname) throws IOException {
+		scan(pathname, end);
+	}
+
+	/**
+	 * Returns whether the recording still starts with the header the index
+	 * was built from and still has the last indexed frame header where the
+	 * index has it, just before end
+	 * @param pathname of the recording
+	 * @return
+	 * @throws IOException
+	 */
+	private boolean matches(String pathname) throws IOException {
+		FileChannel channel = FileChannel.open(Paths.get(pathname), StandardOpenOption.READ);
+		try {
+			if (!Arrays.equals(read(channel, 0, TrajectoryFormat.HEADER_BYTES), recordingHeader)) {
+				return false;
+			}
+			if (frameCount == 0) {
+				return end == TrajectoryFormat.HEADER_BYTES;
+			}
+			long offset = offsets[frameCount - 1];
+			byte[] frameHeader = read(channel, offset, TrajectoryFormat.FRAME_HEADER_BYTES);
+			if (!Arrays.equals(frameHeader, lastFrameHeader)) {
+				return false;
+			}
+			int storedBytes = ByteBuffer.wrap(frameHeader).order(ByteOrder.LITTLE_ENDIAN)
+					.getInt(TrajectoryFormat.FRAME_HEADER_BYTES - 4);
+			return offset + TrajectoryFormat.FRAME_HEADER_BYTES + storedBytes == end;
+		} finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Reads bytes of a channel
+	 * @param channel
+	 * @param offset
+	 * @param length
+	 * @return the bytes, or an empty array if the channel ends before them
+	 * @throws IOException
+	 */
+	private static byte[] read(FileChannel channel, long offset, int length) throws IOException {
+		if (offset < 0 || offset + length > channel.size()) {
+			return new byte[0];
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, offset + buffer.position()) < 0) {
+				return new byte[0];
+			}
+		}
+		return buffer.array();
+	}
+
+	/**
+	 * Adds every complete frame from the frame header at offset to the end
+	 * of the recording
+	 * @param pathname of the recording
+	 * @param offset
+	 * @throws IOException
+	 */
+	private void scan(String pathname, long offset) throws IOException {
+		FileChannel channel = FileChannel.open(Paths.get(pathname), StandardOpenOption.READ);
+		try {
+			ByteBuffer header = ByteBuffer.allocate(TrajectoryFormat.FRAME_HEADER_BYTES)
+					.order(ByteOrder.LITTLE_ENDIAN);
+			long size = channel.size();
+			long modified = Files.getLastModifiedTime(Paths.get(pathname)).toMillis();
+			byte[] fileHeader = read(channel, 0, TrajectoryFormat.HEADER_BYTES);
+			if (fileHeader.length == TrajectoryFormat.HEADER_BYTES) {
+				recordingHeader = fileHeader;
+			}
+			while (offset + TrajectoryFormat.FRAME_HEADER_BYTES <= size) {
+				header.clear();
+				while (header.hasRemaining()) {
+					channel.read(header, offset + header.position());
+				}
+				header.flip();
+				header.getLong();
+				double time = header.getDouble();
+				header.getInt();
+				header.getInt();
+				int storedBytes = header.getInt();
+				long next = offset + TrajectoryFormat.FRAME_HEADER_BYTES + storedBytes;
+				if (storedBytes < 0 || next > size) {
+					//a frame that was only partly written
+					break;
+				}
+				add(offset, time);
+				System.arraycopy(header.array(), 0, lastFrameHeader, 0, lastFrameHeader.length);
+				offset = next;
+			}
+			end = offset;
+			recordingBytes = size;
+			modifiedTime = modified;
+		} finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Returns the last frame at or before the specified time, or the first
+	 * frame if the time is before all of them. Frames are usually recorded at
+	 * a fixed interval, so the frame is guessed from the times of the first
+	 * and last frames and only corrected if the guess is off.
+	 * @param time measured in seconds (s)
+	 * @return index of the frame, or -1 if there are no frames
+	 */
+	public int findFrame(double time) {
+		if (frameCount == 0) {
+			return -1;
+		}
+		if (time <= times[0]) {
+			return 0;
+		}
+		if (time >= times[frameCount - 1]) {
+			return frameCount - 1;
+		}
+
+		double interval = (times[frameCount - 1] - times[0]) / (frameCount - 1);
+		int guess = (int) Math.max(0, Math.min(frameCount - 1, (time - times[0]) / interval));
+		if (times[guess] <= time && (guess + 1 == frameCount || times[guess + 1] > time)) {
+			return guess;
+		}
+
+		int found = Arrays.binarySearch(times, 0, frameCount, time);
+		return found >= 0 ? found : -found - 2;
+	}
+
+	private void add(long offset, double time) {
+		if (frameCount == offsets.length) {
+			offsets = Arrays.copyOf(offsets, frameCount * 2);
+			times = Arrays.copyOf(times, frameCount * 2);
+		}
+		offsets[frameCount] = offset;
+		times[frameCount] = time;
+		frameCount++;
+	}
+
+	private void save(Path indexPath) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + frameCount * 16)
+				.order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putInt(MAGIC).putInt(VERSION).putLong(recordingBytes).putLong(modifiedTime)
+				.putLong(end).putInt(frameCount).put(recordingHeader).put(lastFrameHeader);
+		for (int i = 0; i < frameCount; i++) {
+			buffer.putLong(offsets[i]).putDouble(times[i]);
+		}
+		buffer.flip();
+		FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		try {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		} finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Reads a stored index
+	 * @param indexPath
+	 * @return the index, or null if the file is not a valid index
+	 * @throws IOException
+	 */
+	private static TrajectoryIndex load(Path indexPath) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(indexPath))
+				.order(ByteOrder.LITTLE_ENDIAN);
+		if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC 
+				|| buffer.getInt() != VERSION) {
+			return null;
+		}
+		TrajectoryIndex index = new TrajectoryIndex();
+		index.recordingBytes = buffer.getLong();
+		index.modifiedTime = buffer.getLong();
+		index.end = buffer.getLong();
+		int frames = buffer.getInt();
+		buffer.get(index.recordingHeader);
+		buffer.get(index.lastFrameHeader);
+		if (frames < 0 || buffer.remaining() != frames * 16L) {
+			return null;
+		}
+		index.offsets = new long[Math.max(frames, 1)];
+		index.times = new double[Math.max(frames, 1)];
+		for (int i = 0; i < frames; i++) {
+			index.offsets[i] = buffer.getLong();
+			index.times[i] = buffer.getDouble();
+		}
+		index.frameCount = frames;
+		return index;
+	}
+}
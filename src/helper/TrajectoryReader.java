@@ -0,0 +1,183 @@
+package helper;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import world.ParticleStore;
+
+/**
+ * Reads the frames of a binary recording one after another, see 
+ * {@link TrajectoryFormat}. The buffers and the decompressor are reused.<br>
+ * <br>
+ * How to use:<br>
+ * 	TrajectoryReader reader = new TrajectoryReader(pathname);<br>
+ * 	while (reader.next(store)) { reader.getTime(); ... }<br>
+ * 	reader.close();
+ * @author Matthew Zane
+ *
+ */
+public class TrajectoryReader {
+	private FileChannel channel;
+
+	private int flags;
+
+	private ByteBuffer frameHeader = ByteBuffer.allocate(TrajectoryFormat.FRAME_HEADER_BYTES)
+			.order(ByteOrder.LITTLE_ENDIAN);
+	private ByteBuffer raw = ByteBuffer.allocate(0);
+	private ByteBuffer stored = ByteBuffer.allocate(0);
+
+	private Inflater inflater;
+
+	/**
+	 * Step and time of the last frame read
+	 */
+	private long step;
+	private double time;
+
+	public int getFlags() { return flags; }
+	public long getStep() { return step; }
+	public double getTime() { return time; }
+
+	/**
+	 * Constructor opens the file and reads its header
+	 * @param pathname
+	 * @throws IOException if the file is not a binary recording
+	 */
+	public TrajectoryReader(String pathname) throws IOException {
+		channel = FileChannel.open(Paths.get(pathname), StandardOpenOption.READ);
+		ByteBuffer header = ByteBuffer.allocate(TrajectoryFormat.HEADER_BYTES)
+				.order(ByteOrder.LITTLE_ENDIAN);
+		readFully(header);
+		header.flip();
+		flags = TrajectoryFormat.readHeader(header);
+		if ((flags & TrajectoryFormat.DEFLATE) != 0) {
+			inflater = new Inflater();
+		}
+	}
+
+	/**
+	 * Reads the next frame into the store, replacing its particles
+	 * @param store
+	 * @return false if there are no more frames
+	 * @throws IOException if the file ends within a frame or is corrupt
+	 */
+	public boolean next(ParticleStore store) throws IOException {
+		frameHeader.clear();
+		if (channel.read(frameHeader) <= 0) {
+			return false;
+		}
+		readFully(frameHeader);
+		frameHeader.flip();
+		step = frameHeader.getLong();
+		time = frameHeader.getDouble();
+		int size = frameHeader.getInt();
+		int rawBytes = frameHeader.getInt();
+		int storedBytes = frameHeader.getInt();
+		if (size < 0 || rawBytes != TrajectoryFormat.getRawBytes(size, flags) || storedBytes < 0) {
+			throw new IOException("Corrupt frame header at step " + step);
+		}
+
+		if (raw.capacity() < rawBytes) {
+			raw = ByteBuffer.allocate(rawBytes).order(ByteOrder.LITTLE_ENDIAN);
+		}
+		raw.clear();
+		if (inflater == null) {
+			raw.limit(rawBytes);
+			readFully(raw);
+		}
+		else {
+			if (stored.capacity() < storedBytes) {
+				stored = ByteBuffer.allocate(storedBytes);
+			}
+			stored.clear();
+			stored.limit(storedBytes);
+			readFully(stored);
+			inflate(stored.array(), storedBytes, raw.array(), rawBytes);
+		}
+		raw.position(0);
+		raw.limit(rawBytes);
+
+		decode(raw, flags, size, store);
+		return true;
+	}
+
+	/**
+	 * Fills the store from a raw payload
+	 * @param raw little-endian buffer positioned at the payload
+	 * @param flags flags of the recording
+	 * @param size number of particles
+	 * @param store
+	 */
+	public static void decode(ByteBuffer raw, int flags, int size, ParticleStore store) {
+		store.resize(size);
+		boolean floats = (flags & TrajectoryFormat.FLOATS) != 0;
+		getColumn(raw, floats, store.mass, size);
+		getColumn(raw, floats, store.radius, size);
+		getColumn(raw, floats, store.velocityX, size);
+		getColumn(raw, floats, store.velocityY, size);
+		getColumn(raw, floats, store.velocityZ, size);
+		getColumn(raw, floats, store.positionX, size);
+		getColumn(raw, floats, store.positionY, size);
+		getColumn(raw, floats, store.positionZ, size);
+		getColumn(raw, floats, store.charge, size);
+		getColumn(raw, floats, store.elasticity, size);
+		store.clearForces();
+		store.clearFinalVelocities();
+	}
+
+	public void close() throws IOException {
+		if (inflater != null) {
+			inflater.end();
+		}
+		channel.close();
+	}
+
+	private void inflate(byte[] input, int inputBytes, byte[] output, int outputBytes) 
+			throws IOException {
+		inflater.reset();
+		inflater.setInput(input, 0, inputBytes);
+		try {
+			int inflated = 0;
+			while (inflated < outputBytes && !inflater.finished()) {
+				int count = inflater.inflate(output, inflated, outputBytes - inflated);
+				if (count == 0 && inflater.needsInput()) {
+					break;
+				}
+				inflated += count;
+			}
+			if (inflated != outputBytes) {
+				throw new IOException("Corrupt compressed frame at step " + step);
+			}
+		} catch (DataFormatException e) {
+			throw new IOException("Corrupt compressed frame at step " + step);
+		}
+	}
+
+	private static void getColumn(ByteBuffer raw, boolean floats, double[] values, int size) {
+		if (floats) {
+			for (int i = 0; i < size; i++) {
+				values[i] = raw.getFloat();
+			}
+		}
+		else {
+			for (int i = 0; i < size; i++) {
+				values[i] = raw.getDouble();
+			}
+		}
+	}
+
+	private void readFully(ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer) < 0) {
+				throw new EOFException("Recording ends within a frame.");
+			}
+		}
+	}
+}
@@ -0,0 +1,169 @@
+package helper;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+import world.ParticleStore;
+
+/**
+ * Appends frames to a binary recording, see {@link TrajectoryFormat}.
+ * The buffers and the compressor are reused between frames.<br>
+ * <br>
+ * How to use:<br>
+ * 	TrajectoryWriter writer = new TrajectoryWriter(pathname, false, true);<br>
+ * 	writer.write(store, time, step);<br>
+ * 	writer.close();
+ * @author Matthew Zane
+ *
+ */
+public class TrajectoryWriter {
+	private FileChannel channel;
+
+	private int flags;
+
+	private ByteBuffer frameHeader = ByteBuffer.allocate(TrajectoryFormat.FRAME_HEADER_BYTES)
+			.order(ByteOrder.LITTLE_ENDIAN);
+	private ByteBuffer raw = ByteBuffer.allocate(0);
+	private byte[] compressed = new byte[0];
+
+	private Deflater deflater;
+
+	public int getFlags() { return flags; }
+
+	/**
+	 * Constructor creates or overwrites the file
+	 * @param pathname
+	 * @param floats whether to store floats instead of doubles
+	 * @param deflate whether to compress the frames
+	 * @throws IOException
+	 */
+	public TrajectoryWriter(String pathname, boolean floats, boolean deflate) throws IOException {
+		this(create(pathname), floats, deflate);
+	}
+
+	/**
+	 * Opens a recording for writing from the start, and deletes its index,
+	 * which is about the frames being overwritten
+	 * @param pathname
+	 * @return
+	 * @throws IOException
+	 */
+	private static FileChannel create(String pathname) throws IOException {
+		TrajectoryIndex.delete(pathname);
+		return FileChannel.open(Paths.get(pathname), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+	}
+
+	/**
+	 * Constructor writes to an open channel. If the channel already holds a
+	 * recording, its flags are used and frames are appended to its end.
+	 * @param channelIn
+	 * @param floats whether to store floats instead of doubles
+	 * @param deflate whether to compress the frames
+	 * @throws IOException if the channel holds something other than a recording
+	 */
+	public TrajectoryWriter(FileChannel channelIn, boolean floats, boolean deflate) 
+			throws IOException {
+		channel = channelIn;
+		if (channel.size() > 0) {
+			ByteBuffer header = ByteBuffer.allocate(TrajectoryFormat.HEADER_BYTES)
+					.order(ByteOrder.LITTLE_ENDIAN);
+			channel.read(header, 0);
+			header.flip();
+			flags = TrajectoryFormat.readHeader(header);
+			channel.position(channel.size());
+		}
+		else {
+			flags = (floats ? TrajectoryFormat.FLOATS : 0) 
+					| (deflate ? TrajectoryFormat.DEFLATE : 0);
+			writeFully(TrajectoryFormat.createHeader(flags));
+		}
+
+		if ((flags & TrajectoryFormat.DEFLATE) != 0) {
+			deflater = new Deflater(Deflater.BEST_SPEED);
+		}
+	}
+
+	/**
+	 * Appends a frame
+	 * @param store
+	 * @param time measured in seconds (s)
+	 * @param step number of cycles run
+	 * @throws IOException
+	 */
+	public void write(ParticleStore store, double time, long step) throws IOException {
+		int size = store.size();
+		int rawBytes = TrajectoryFormat.getRawBytes(size, flags);
+		if (raw.capacity() < rawBytes) {
+			raw = ByteBuffer.allocate(rawBytes).order(ByteOrder.LITTLE_ENDIAN);
+		}
+		raw.clear();
+		putColumn(store.mass, size);
+		putColumn(store.radius, size);
+		putColumn(store.velocityX, size);
+		putColumn(store.velocityY, size);
+		putColumn(store.velocityZ, size);
+		putColumn(store.positionX, size);
+		putColumn(store.positionY, size);
+		putColumn(store.positionZ, size);
+		putColumn(store.charge, size);
+		putColumn(store.elasticity, size);
+		raw.flip();
+
+		ByteBuffer payload = raw;
+		if (deflater != null) {
+			deflater.reset();
+			deflater.setInput(raw.array(), 0, rawBytes);
+			deflater.finish();
+			int storedBytes = 0;
+			while (!deflater.finished()) {
+				if (storedBytes == compressed.length) {
+					compressed = Arrays.copyOf(compressed, 
+							Math.max(1024, compressed.length * 2));
+				}
+				storedBytes += deflater.deflate(compressed, storedBytes, 
+						compressed.length - storedBytes);
+			}
+			payload = ByteBuffer.wrap(compressed, 0, storedBytes);
+		}
+
+		frameHeader.clear();
+		frameHeader.putLong(step).putDouble(time).putInt(size).putInt(rawBytes)
+				.putInt(payload.remaining());
+		frameHeader.flip();
+		writeFully(frameHeader);
+		writeFully(payload);
+	}
+
+	public void close() throws IOException {
+		if (deflater != null) {
+			deflater.end();
+		}
+		channel.close();
+	}
+
+	private void putColumn(double[] values, int size) {
+		if ((flags & TrajectoryFormat.FLOATS) != 0) {
+			for (int i = 0; i < size; i++) {
+				raw.putFloat((float) values[i]);
+			}
+		}
+		else {
+			for (int i = 0; i < size; i++) {
+				raw.putDouble(values[i]);
+			}
+		}
+	}
+
+	private void writeFully(ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+}
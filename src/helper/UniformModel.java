@@ -0,0 +1,34 @@
+package helper;
+
+import java.util.SplittableRandom;
+
+/**
+ * Particles at rest, spread uniformly over a ball. The world is far from
+ * equilibrium and collapses.
+ * @author Matthew Zane
+ *
+ */
+public class UniformModel implements WorldModel {
+	public static final String NAME = "uniform";
+
+	private double radius;
+
+	/**
+	 * Constructor
+	 * @param radiusIn radius of the ball, measured in meters (m)
+	 */
+	public UniformModel(double radiusIn) {
+		radius = radiusIn;
+	}
+
+	public double getCentralMass() { return 0; }
+	public String getName() { return NAME; }
+
+	public void draw(SplittableRandom random, double[] particle) {
+		//the radius grows with the cube root of the enclosed volume
+		WorldGenerator.drawDirection(random, radius * Math.cbrt(random.nextDouble()), particle, 0);
+		particle[3] = 0;
+		particle[4] = 0;
+		particle[5] = 0;
+	}
+}
@@ -0,0 +1,198 @@
+package helper;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import world.ParticleStore;
+
+/**
+ * Reads the worlds of a universe file one at a time, so only a single world
+ * is ever held in memory. Each world starts with its time on one line,
+ * followed by a line per particle, and ends with a "*".<br>
+ * <br>
+ * The file is read a window of bytes at a time and each line is parsed in
+ * place with the tokenizer of {@link CsvParticleParser}, so no Strings are
+ * created. The window and the store are reused for every world: next
+ * returns the same store every time, refilled with the next world, so a
+ * world has to be copied if it is needed after the next call. Lines that
+ * can not be parsed are skipped and counted, and close prints how many
+ * there were.<br>
+ * <br>
+ * How to use:<br>
+ * 	UniverseReader reader = new UniverseReader(pathname);<br>
+ * 	while (reader.hasNext()) { ParticleStore store = reader.next(); reader.getTime(); ... }<br>
+ * 	reader.close();
+ * @author Matthew Zane
+ *
+ */
+public class UniverseReader implements Iterator<ParticleStore>, Closeable {
+	/**
+	 * Bytes read from the file at a time
+	 */
+	private static final int WINDOW_BYTES = 1 << 16;
+
+	private String pathname;
+
+	private FileChannel channel;
+
+	private ParticleStore store = new ParticleStore();
+
+	/**
+	 * Bytes of the file, of which those from position up to filled are not
+	 * read yet. The window grows for lines longer than it.
+	 */
+	private byte[] window = new byte[WINDOW_BYTES];
+	private int position;
+	private int filled;
+	private boolean endOfFile;
+
+	/**
+	 * Bounds of the last line read, without its line end
+	 */
+	private int lineStart;
+	private int lineEnd;
+
+	/**
+	 * Whether the last line read is the time line of the next world
+	 */
+	private boolean timeLineRead;
+
+	private boolean done;
+
+	private double[] values = new double[8];
+	private int[] fieldBounds = new int[16];
+
+	/**
+	 * Time of the last world returned, measured in seconds (s)
+	 */
+	private double time;
+
+	private long count;
+
+	private long badLines;
+
+	public double getTime() { return time; }
+
+	/**
+	 * Returns the number of worlds returned so far
+	 * @return
+	 */
+	public long getCount() { return count; }
+
+	/**
+	 * Returns the number of particle lines skipped so far
+	 * @return
+	 */
+	public long getBadLines() { return badLines; }
+
+	/**
+	 * Constructor opens the file
+	 * @param pathnameIn
+	 * @throws Exception when the file does not exist
+	 */
+	public UniverseReader(String pathnameIn) throws Exception {
+		pathname = pathnameIn;
+		if (!new File(pathname).exists()) {
+			throw new Exception("Config file " + pathname + " does not exist.");
+		}
+		channel = FileChannel.open(Paths.get(pathname), StandardOpenOption.READ);
+	}
+
+	public boolean hasNext() {
+		if (!timeLineRead && !done) {
+			try {
+				timeLineRead = readLine();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			done = !timeLineRead;
+		}
+		return !done;
+	}
+
+	/**
+	 * Parses the next world into the reused store
+	 * @throws NumberFormatException if the time of the world can not be parsed
+	 */
+	public ParticleStore next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		time = CsvParticleParser.parseDouble(window, lineStart, lineEnd);
+		timeLineRead = false;
+
+		store.clear();
+		try {
+			while (readLine() && !(lineEnd - lineStart == 1 && window[lineStart] == '*')) {
+				//a line with a single number is no particle either
+				if (CsvParticleParser.parseLine(window, lineStart, lineEnd, values, 
+						fieldBounds, store) < 6) {
+					badLines++;
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		count++;
+		return store;
+	}
+
+	/**
+	 * Finds the next line in the window, reading more of the file when the
+	 * rest of the line is not in it yet
+	 * @return false at the end of the file
+	 * @throws IOException
+	 */
+	private boolean readLine() throws IOException {
+		while (true) {
+			int end = position;
+			while (end < filled && window[end] != '\n') {
+				end++;
+			}
+			if (end < filled || (endOfFile && end > position)) {
+				lineStart = position;
+				lineEnd = end;
+				position = Math.min(end + 1, filled);
+				if (lineEnd > lineStart && window[lineEnd - 1] == '\r') {
+					lineEnd--;
+				}
+				return true;
+			}
+			if (endOfFile) {
+				return false;
+			}
+
+			//move the unfinished line to the front, growing the window for long lines
+			filled -= position;
+			System.arraycopy(window, position, window, 0, filled);
+			position = 0;
+			if (filled == window.length) {
+				window = Arrays.copyOf(window, window.length * 2);
+			}
+			int read = channel.read(ByteBuffer.wrap(window, filled, window.length - filled));
+			if (read < 0) {
+				endOfFile = true;
+			}
+			else {
+				filled += read;
+			}
+		}
+	}
+
+	public void close() throws IOException {
+		channel.close();
+		if (badLines > 0) {
+			System.out.println("Skipped " + badLines + " lines of " + pathname
+					+ " that could not be parsed.");
+		}
+	}
+}
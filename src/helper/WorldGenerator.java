@@ -1,129 +1,647 @@
-package helper;
-
-import java.io.BufferedWriter;
-import java.io.FileWriter;
-import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Random;
-
-import data.XYVector;
-import data.XYZVector;
-import entity.Particle;
-
-public class WorldGenerator {
-	private static final String FILENAME = "C:\\Users\\matth\\eclipse-workspace\\GravitySimulation1.3\\src\\config\\record.txt";
-	private static final int NUM_PARTICLES = 100;
-	private static final int bounds = 200;
-	private static final Random rand = new Random();
-
-	/**
-	 * Writes to a specified text file in the proper format.
-	 * Uses method generateWorld to populate world with entities.
-	 */
-	public static void main(String [] args) {
-		BufferedWriter bw = null;
-		FileWriter fw = null;
-
-		try {
-
-			String content = "0.0\n" + convertToString() + "*\n";
-
-			fw = new FileWriter(FILENAME);
-			bw = new BufferedWriter(fw);
-			bw.write(content);
-			
-		} catch (IOException e) { e.printStackTrace(); } 
-		finally {
-			try {
-
-				if (bw != null)
-					bw.close();
-				if (fw != null)
-					fw.close();
-
-			} catch (IOException ex) {	ex.printStackTrace();	}
-		}
-		System.out.print("World Generator Done!");
-	}
-
-	/**
-	 * Converts a list of Particles to the proper text format for a 
-	 * config file.
-	 * @return
-	 */
-	public static String convertToString() {
-		ArrayList<Particle> particles = (ArrayList<Particle>) generateWorld();
-		String text = "";
-
-		for (Particle temp : particles) {
-			text += temp.toString() + "\n"; 
-		}
-
-		return text;
-	}
-
-	/**
-	 * Generates an ArrayList of Particles to populate a world using an algorithm.
-	 * @return List of Particles
-	 */
-	public static List<Particle> generateWorld() {
-		ArrayList<Particle> particles = new ArrayList<Particle>();
-		for (int i = 0; i < NUM_PARTICLES; i++) {
-			Particle particle;
-			double mass = getRandomDouble(.1, 1);
-
-			do {
-				double radius = getRandomDouble(1, 10);
-
-				XYZVector center;
-				double angleX = getRandomDouble(0, 2 * Math.PI);
-				double angleY = getRandomDouble(0, 2 * Math.PI);
-				double distance = getRandomDouble(0, bounds);
-				double x = distance * Math.sin(angleX) * Math.cos(angleY);
-				double y = distance * Math.sin(angleX) * Math.sin(angleY);
-				double z = distance * Math.cos(angleX);
-
-				center = new XYZVector(x, y, z);
-
-				particle = new Particle(mass, radius, 0, 0, 0, center.getX(), center.getY(), center.getZ() + 300);
-			} while (isOverlapping(particle, particles));
-			//uniform distribution
-			/*
-
-		do {
-			center = new XYVector(getRandomDouble(-bounds, bounds),
-								  getRandomDouble(-bounds, bounds);
-		} while (center.getMagnitude() > bounds);
-			 */
-			particles.add(particle);
-		}
-
-
-		return particles;
-	}
-
-	public static double getRandomDouble(double min, double max) {
-		return min + (max - min) * rand.nextDouble();
-	}
-
-	public static boolean isOverlapping(Particle particle, ArrayList<Particle> particles) {
-		for (int i = 0; i < particles.size(); i++) {
-			Particle otherParticle = particles.get(i);
-			if (getOverlapDistance(particle, otherParticle) >= 0) {
-				return true;
-			}
-		}
-		return false;
-	}
-
-	private static double getOverlapDistance(Particle particle1, Particle particle2) {
-		double centerDistance = getDistance(particle1, particle2).getMagnitude();
-		double radiiSum = particle1.getRadius() + particle2.getRadius();
-		return radiiSum - centerDistance;
-	}
-
-	private static XYZVector getDistance(Particle particle1, Particle particle2) {
-		return XYZVector.subtract(particle2.getPosition(), particle1.getPosition());
-	}
-}
+package helper;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import world.ParticleStore;
+
+/**
+ * Generates random starting configurations of particles that do not
+ * overlap. The positions and velocities are drawn from a {@link WorldModel}:
+ * a uniform ball at rest, a Plummer sphere, a Hernquist halo or a disk
+ * around a central body. The masses follow a power law between a smallest
+ * and a largest mass. The world is moved so that its center of mass is at
+ * rest at the center.<br>
+ * <br>
+ * Large worlds are generated in parallel. The particles are split into
+ * chunks of {@link #CHUNK_SIZE}, and each chunk draws from its own random
+ * stream, split in order from the seed. In each round every chunk draws
+ * candidates for its missing particles in parallel and keeps those that do
+ * not overlap the placed particles, then the kept candidates are placed one
+ * chunk after the other, dropping the ones that overlap a candidate placed
+ * before them. Overlaps are found with a hash grid, so placing a particle
+ * costs O(1) instead of O(n), and the same seed gives the same world with
+ * any number of threads.<br>
+ * <br>
+ * The world is written straight from the particle arrays, in the text format
+ * or, for a pathname ending with {@link TrajectoryFormat#EXTENSION}, as a
+ * binary frame.
+ * @author Matthew Zane
+ *
+ */
+public class WorldGenerator {
+	private static final String FILENAME = "C:\\Users\\matth\\eclipse-workspace\\GravitySimulation1.3\\src\\config\\record.txt";
+	private static final int NUM_PARTICLES = 100;
+	private static final int bounds = 200;
+
+	/**
+	 * Default range of the masses (kg) and range of the radii (m) of the particles
+	 */
+	private static final double MIN_MASS = .1;
+	private static final double MAX_MASS = 1;
+	private static final double MIN_RADIUS = 1;
+	private static final double MAX_RADIUS = 10;
+
+	/**
+	 * The worlds are centered this far along the z axis, in front of the camera
+	 */
+	private static final double CENTER_Z = 300;
+
+	/**
+	 * Particles per random stream
+	 */
+	public static final int CHUNK_SIZE = 4096;
+
+	/**
+	 * Candidates drawn per particle before giving up on a world that is too full
+	 */
+	private static final int MAX_ATTEMPTS = 100;
+
+	/**
+	 * Particles formatted at a time when writing the text format
+	 */
+	private static final int WRITE_PARTICLES = 1 << 14;
+
+	private int count = NUM_PARTICLES;
+	private long seed = new SplittableRandom().nextLong();
+	private int threads = Runtime.getRuntime().availableProcessors();
+	private double worldRadius;
+	private String modelName = UniformModel.NAME;
+	private double minMass = MIN_MASS;
+	private double maxMass = MAX_MASS;
+	private double massSlope;
+	private double centralMass;
+
+	public int getCount() { return count; }
+	public long getSeed() { return seed; }
+	public int getThreads() { return threads; }
+	public String getModelName() { return modelName; }
+	public double getMinMass() { return minMass; }
+	public double getMaxMass() { return maxMass; }
+	public double getMassSlope() { return massSlope; }
+
+	public void setCount(int countIn) { count = countIn; }
+	public void setSeed(long seedIn) { seed = seedIn; }
+	public void setThreads(int threadsIn) { threads = Math.max(1, threadsIn); }
+	public void setWorldRadius(double worldRadiusIn) { worldRadius = worldRadiusIn; }
+	public void setModelName(String modelNameIn) { modelName = modelNameIn; }
+	public void setMinMass(double minMassIn) { minMass = minMassIn; }
+	public void setMaxMass(double maxMassIn) { maxMass = maxMassIn; }
+	public void setMassSlope(double massSlopeIn) { massSlope = massSlopeIn; }
+	public void setCentralMass(double centralMassIn) { centralMass = centralMassIn; }
+
+	/**
+	 * Radius of the ball the particles are spread over, the scale radius of
+	 * the Plummer and Hernquist models or the outer radius of the disk.
+	 * Unless it is set, it grows with the cube root of the count so every
+	 * world is as dense as the default one at its center.
+	 * @return measured in meters (m)
+	 */
+	public double getWorldRadius() {
+		if (worldRadius > 0) {
+			return worldRadius;
+		}
+		return bounds * Math.cbrt((double) count / NUM_PARTICLES);
+	}
+
+	/**
+	 * Mass of the central body of the disk. Unless it is set, it is
+	 * {@link DiskModel#DEFAULT_CENTRAL_RATIO} times the mass of the particles.
+	 * @return measured in kilograms (kg)
+	 */
+	public double getCentralMass() {
+		if (centralMass > 0) {
+			return centralMass;
+		}
+		return DiskModel.DEFAULT_CENTRAL_RATIO * count * getMeanMass();
+	}
+
+	/**
+	 * Mean mass of the power law dN/dm ~ m^-slope between the smallest and
+	 * the largest mass
+	 * @return measured in kilograms (kg)
+	 */
+	public double getMeanMass() {
+		if (maxMass <= minMass) {
+			return minMass;
+		}
+		return integratePower(1 - massSlope) / integratePower(-massSlope);
+	}
+
+	/**
+	 * Integral of m^exponent from the smallest to the largest mass
+	 */
+	private double integratePower(double exponent) {
+		if (exponent == -1) {
+			return Math.log(maxMass / minMass);
+		}
+		return (Math.pow(maxMass, exponent + 1) - Math.pow(minMass, exponent + 1)) / (exponent + 1);
+	}
+
+	/**
+	 * Draws a mass from the power law by inverting its cumulative distribution
+	 * @param random
+	 * @return measured in kilograms (kg)
+	 */
+	private double drawMass(SplittableRandom random) {
+		double fraction = random.nextDouble();
+		if (maxMass <= minMass) {
+			return minMass;
+		}
+		if (massSlope == 1) {
+			return minMass * Math.pow(maxMass / minMass, fraction);
+		}
+		double exponent = 1 - massSlope;
+		double low = Math.pow(minMass, exponent);
+		return Math.pow(low + fraction * (Math.pow(maxMass, exponent) - low), 1 / exponent);
+	}
+
+	/**
+	 * Creates the model chosen by name, for the expected mass of the particles
+	 * @return
+	 * @throws Exception if there is no model with that name
+	 */
+	public WorldModel createModel() throws Exception {
+		double mass = count * getMeanMass();
+		switch (modelName) {
+		case UniformModel.NAME:
+			return new UniformModel(getWorldRadius());
+		case PlummerModel.NAME:
+			return new PlummerModel(mass, getWorldRadius());
+		case HernquistModel.NAME:
+			return new HernquistModel(mass, getWorldRadius());
+		case DiskModel.NAME:
+			return new DiskModel(mass, getCentralMass(), getWorldRadius());
+		default:
+			throw new Exception("Unknown model " + modelName);
+		}
+	}
+
+	/**
+	 * Sets a vector of the specified length pointing in a uniformly random
+	 * direction
+	 * @param random
+	 * @param length
+	 * @param vector array holding the x, y and z components
+	 * @param offset index of the x component
+	 */
+	static void drawDirection(SplittableRandom random, double length, double[] vector, int offset) {
+		double cosine = 2 * random.nextDouble() - 1;
+		double sine = Math.sqrt(1 - cosine * cosine);
+		double angle = 2 * Math.PI * random.nextDouble();
+		vector[offset] = length * sine * Math.cos(angle);
+		vector[offset + 1] = length * sine * Math.sin(angle);
+		vector[offset + 2] = length * cosine;
+	}
+
+	/**
+	 * Writes a random world to the file given as the first argument, or to
+	 * the default file if there is none.
+	 * Options:<br>
+	 * 	-count number of particles (default 100)<br>
+	 * 	-seed seed of the random streams (default random)<br>
+	 * 	-threads number of threads (default all processors)<br>
+	 * 	-model uniform|plummer|hernquist|disk (default uniform)<br>
+	 * 	-radius radius in meters of the ball, scale radius of the plummer and
+	 * 	hernquist models or outer radius of the disk
+	 * 	(default as dense as 100 particles in 200 m)<br>
+	 * 	-minmass -maxmass range of the masses in kilograms (default 0.1 to 1)<br>
+	 * 	-slope exponent of the mass spectrum dN/dm ~ m^-slope, 2.35 for Salpeter
+	 * 	(default 0, uniform)<br>
+	 * 	-centralmass mass of the central body of the disk in kilograms
+	 * 	(default 100 times the disk)
+	 */
+	public static void main(String [] args) {
+		WorldGenerator generator = new WorldGenerator();
+		String pathname = FILENAME;
+
+		try {
+			for (int i = 0; i < args.length; i++) {
+				String arg = args[i];
+				if (!arg.startsWith("-")) {
+					pathname = arg;
+					continue;
+				}
+				if (i + 1 >= args.length) {
+					throw new Exception("Option " + arg + " is missing its value.");
+				}
+				String value = args[++i];
+				switch (arg) {
+				case "-count":
+					generator.setCount(Integer.parseInt(value));
+					break;
+				case "-seed":
+					generator.setSeed(Long.parseLong(value));
+					break;
+				case "-threads":
+					generator.setThreads(Integer.parseInt(value));
+					break;
+				case "-radius":
+					generator.setWorldRadius(Double.parseDouble(value));
+					break;
+				case "-model":
+					generator.setModelName(value);
+					break;
+				case "-minmass":
+					generator.setMinMass(Double.parseDouble(value));
+					break;
+				case "-maxmass":
+					generator.setMaxMass(Double.parseDouble(value));
+					break;
+				case "-slope":
+					generator.setMassSlope(Double.parseDouble(value));
+					break;
+				case "-centralmass":
+					generator.setCentralMass(Double.parseDouble(value));
+					break;
+				default:
+					throw new Exception("Unknown option " + arg);
+				}
+			}
+
+			long start = System.nanoTime();
+			ParticleStore store = generator.generate();
+			long generated = System.nanoTime();
+			write(store, pathname, generator.getThreads());
+			long written = System.nanoTime();
+
+			System.out.println("Model: " + generator.getModelName() + ", particles: " + store.size() 
+					+ ", seed: " + generator.getSeed());
+			System.out.println("Generated in " + (generated - start) / 1000000 
+					+ " ms, written in " + (written - generated) / 1000000 + " ms");
+		} catch (Exception e) {
+			System.out.println(e.getMessage());
+			return;
+		}
+		System.out.print("World Generator Done!");
+	}
+
+	/**
+	 * Generates a world of non overlapping particles drawn from the model,
+	 * plus the central body of the model if it has one
+	 * @return the particles
+	 * @throws Exception if the model is unknown or too small to fit the particles
+	 */
+	public ParticleStore generate() throws Exception {
+		WorldModel model = createModel();
+		ParticleStore store = new ParticleStore(Math.max(count + 1, 1));
+		Grid grid = new Grid(store, 2 * MAX_RADIUS, count + 1);
+
+		if (model.getCentralMass() > 0) {
+			grid.add(store.add(model.getCentralMass(), MAX_RADIUS, 0, 0, 0, 0, 0, CENTER_Z));
+		}
+		int total = store.size() + count;
+
+		//split the streams in order so the world does not depend on the threads
+		SplittableRandom root = new SplittableRandom(seed);
+		int chunkCount = (count + CHUNK_SIZE - 1) / CHUNK_SIZE;
+		Chunk[] chunks = new Chunk[chunkCount];
+		for (int i = 0; i < chunkCount; i++) {
+			chunks[i] = new Chunk(root.split(), Math.min(CHUNK_SIZE, count - i * CHUNK_SIZE),
+					grid, model);
+		}
+
+		ForkJoinPool pool = threads > 1 && chunkCount > 1 ? new ForkJoinPool(threads) : null;
+		try {
+			long attempts = 0;
+			while (store.size() < total) {
+				if (pool != null) {
+					for (Chunk chunk : chunks) {
+						chunk.reinitialize();
+					}
+					pool.invoke(new ChunksTask(chunks));
+				}
+				else {
+					for (Chunk chunk : chunks) {
+						chunk.compute();
+					}
+				}
+
+				for (Chunk chunk : chunks) {
+					attempts += chunk.attempts;
+					chunk.place(store, grid);
+				}
+				if (attempts > (long) count * MAX_ATTEMPTS) {
+					throw new Exception("Could only fit " + store.size() + " of " + total 
+							+ " particles in a radius of " + getWorldRadius() + " m.");
+				}
+			}
+		} finally {
+			if (pool != null) {
+				pool.shutdown();
+			}
+		}
+
+		centerOfMass(store);
+		return store;
+	}
+
+	/**
+	 * Moves the particles so their center of mass is at rest at the center
+	 * of the world. Distances between the particles do not change.
+	 * @param store
+	 */
+	private static void centerOfMass(ParticleStore store) {
+		double totalMass = 0;
+		double positionX = 0;
+		double positionY = 0;
+		double positionZ = 0;
+		double velocityX = 0;
+		double velocityY = 0;
+		double velocityZ = 0;
+		for (int i = 0; i < store.size(); i++) {
+			double mass = store.mass[i];
+			totalMass += mass;
+			positionX += mass * store.positionX[i];
+			positionY += mass * store.positionY[i];
+			positionZ += mass * store.positionZ[i];
+			velocityX += mass * store.velocityX[i];
+			velocityY += mass * store.velocityY[i];
+			velocityZ += mass * store.velocityZ[i];
+		}
+		if (totalMass == 0) {
+			return;
+		}
+
+		positionX /= totalMass;
+		positionY /= totalMass;
+		positionZ = positionZ / totalMass - CENTER_Z;
+		velocityX /= totalMass;
+		velocityY /= totalMass;
+		velocityZ /= totalMass;
+		for (int i = 0; i < store.size(); i++) {
+			store.positionX[i] -= positionX;
+			store.positionY[i] -= positionY;
+			store.positionZ[i] -= positionZ;
+			store.velocityX[i] -= velocityX;
+			store.velocityY[i] -= velocityY;
+			store.velocityZ[i] -= velocityZ;
+		}
+	}
+
+	/**
+	 * Writes the particles as the first world of a config file, at time 0
+	 * @param store
+	 * @param pathname file to overwrite
+	 * @param threads number of threads formatting the text format
+	 * @throws IOException
+	 */
+	public static void write(ParticleStore store, String pathname, int threads) throws IOException {
+		if (TrajectoryFormat.isBinary(pathname)) {
+			TrajectoryWriter writer = new TrajectoryWriter(pathname, false, false);
+			try {
+				writer.write(store, 0, 0);
+			} finally {
+				writer.close();
+			}
+			return;
+		}
+
+		FileChannel channel = FileChannel.open(Paths.get(pathname), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		ForkJoinPool pool = threads > 1 ? new ForkJoinPool(threads) : null;
+		try {
+			writeFully(channel, "0.0\n".getBytes(StandardCharsets.ISO_8859_1));
+
+			//format a few slices in parallel, then write them in order
+			int size = store.size();
+			int batch = WRITE_PARTICLES * Math.max(1, threads);
+			for (int start = 0; start < size; start += batch) {
+				List<FormatTask> tasks = new ArrayList<FormatTask>();
+				for (int from = start; from < Math.min(start + batch, size); from += WRITE_PARTICLES) {
+					tasks.add(new FormatTask(store, from, Math.min(from + WRITE_PARTICLES, size)));
+				}
+				if (pool != null && tasks.size() > 1) {
+					pool.invoke(new FormatAllTask(tasks));
+				}
+				else {
+					for (FormatTask task : tasks) {
+						task.compute();
+					}
+				}
+				for (FormatTask task : tasks) {
+					writeFully(channel, task.bytes);
+				}
+			}
+
+			writeFully(channel, "*\n".getBytes(StandardCharsets.ISO_8859_1));
+		} finally {
+			if (pool != null) {
+				pool.shutdown();
+			}
+			channel.close();
+		}
+	}
+
+	private static void writeFully(FileChannel channel, byte[] bytes) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	/**
+	 * Particles of one random stream, and the candidates it drew this round
+	 */
+	private class Chunk extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private SplittableRandom random;
+		private int target;
+		private int placed;
+		private Grid grid;
+		private WorldModel model;
+
+		private int proposals;
+		private long attempts;
+		private double[] mass;
+		private double[] radius;
+		private double[] position;
+		private double[] velocity;
+		private double[] particle = new double[6];
+
+		private Chunk(SplittableRandom randomIn, int targetIn, Grid gridIn, WorldModel modelIn) {
+			random = randomIn;
+			target = targetIn;
+			grid = gridIn;
+			model = modelIn;
+			mass = new double[target];
+			radius = new double[target];
+			position = new double[3 * target];
+			velocity = new double[3 * target];
+		}
+
+		/**
+		 * Draws a candidate for each missing particle and keeps the ones that
+		 * do not overlap a placed particle. Only reads the grid.
+		 */
+		@Override
+		protected void compute() {
+			proposals = 0;
+			attempts = 0;
+			for (int i = placed; i < target; i++) {
+				attempts++;
+				double particleMass = drawMass(random);
+				double particleRadius = MIN_RADIUS + (MAX_RADIUS - MIN_RADIUS) * random.nextDouble();
+				model.draw(random, particle);
+				particle[2] += CENTER_Z;
+
+				if (!grid.overlaps(particle[0], particle[1], particle[2], particleRadius)) {
+					mass[proposals] = particleMass;
+					radius[proposals] = particleRadius;
+					System.arraycopy(particle, 0, position, 3 * proposals, 3);
+					System.arraycopy(particle, 3, velocity, 3 * proposals, 3);
+					proposals++;
+				}
+			}
+		}
+
+		/**
+		 * Places the candidates that do not overlap a particle placed since
+		 * they were drawn
+		 */
+		private void place(ParticleStore store, Grid grid) {
+			for (int i = 0; i < proposals; i++) {
+				int k = 3 * i;
+				if (!grid.overlaps(position[k], position[k + 1], position[k + 2], radius[i])) {
+					grid.add(store.add(mass[i], radius[i], 
+							velocity[k], velocity[k + 1], velocity[k + 2],
+							position[k], position[k + 1], position[k + 2]));
+					placed++;
+				}
+			}
+			proposals = 0;
+		}
+	}
+
+	private static class ChunksTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private Chunk[] chunks;
+
+		private ChunksTask(Chunk[] chunksIn) {
+			chunks = chunksIn;
+		}
+
+		@Override
+		protected void compute() {
+			invokeAll(chunks);
+		}
+	}
+
+	/**
+	 * Hash grid of the placed particles. Cells are as wide as the largest
+	 * particle, so a particle can only overlap particles in the 27 cells
+	 * around it. Each bucket holds a linked list of its particles, so
+	 * particles can be added one at a time.
+	 */
+	private static class Grid {
+		private ParticleStore store;
+		private double cellWidth;
+		private int mask;
+
+		/**
+		 * First particle of each bucket and the next particle of each
+		 * particle, -1 at the end of a list
+		 */
+		private int[] head;
+		private int[] next;
+
+		private Grid(ParticleStore storeIn, double cellWidthIn, int capacity) {
+			store = storeIn;
+			cellWidth = cellWidthIn;
+			int buckets = Integer.highestOneBit(Math.max(capacity, 8) * 2 - 1) << 1;
+			mask = buckets - 1;
+			head = new int[buckets];
+			Arrays.fill(head, -1);
+			next = new int[Math.max(capacity, 1)];
+		}
+
+		private boolean overlaps(double x, double y, double z, double radius) {
+			long cellX = (long) Math.floor(x / cellWidth);
+			long cellY = (long) Math.floor(y / cellWidth);
+			long cellZ = (long) Math.floor(z / cellWidth);
+			for (long i = cellX - 1; i <= cellX + 1; i++) {
+				for (long j = cellY - 1; j <= cellY + 1; j++) {
+					for (long k = cellZ - 1; k <= cellZ + 1; k++) {
+						//other cells can share the bucket, the distance check covers them
+						for (int p = head[hash(i, j, k) & mask]; p >= 0; p = next[p]) {
+							double distanceX = store.positionX[p] - x;
+							double distanceY = store.positionY[p] - y;
+							double distanceZ = store.positionZ[p] - z;
+							double radiiSum = store.radius[p] + radius;
+							if (distanceX * distanceX + distanceY * distanceY + distanceZ * distanceZ
+									<= radiiSum * radiiSum) {
+								return true;
+							}
+						}
+					}
+				}
+			}
+			return false;
+		}
+
+		private void add(int index) {
+			int bucket = hash((long) Math.floor(store.positionX[index] / cellWidth),
+					(long) Math.floor(store.positionY[index] / cellWidth),
+					(long) Math.floor(store.positionZ[index] / cellWidth)) & mask;
+			next[index] = head[bucket];
+			head[bucket] = index;
+		}
+
+		private static int hash(long x, long y, long z) {
+			long hash = x * 73856093L ^ y * 19349663L ^ z * 83492791L;
+			return (int) (hash ^ (hash >>> 32));
+		}
+	}
+
+	/**
+	 * Formats some of the particles in the text format
+	 */
+	private static class FormatTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private ParticleStore store;
+		private int start;
+		private int end;
+		private byte[] bytes;
+
+		private FormatTask(ParticleStore storeIn, int startIn, int endIn) {
+			store = storeIn;
+			start = startIn;
+			end = endIn;
+		}
+
+		@Override
+		protected void compute() {
+			StringBuilder builder = new StringBuilder((end - start) * 160);
+			Recorder.appendParticles(builder, store, start, end);
+			bytes = builder.toString().getBytes(StandardCharsets.ISO_8859_1);
+		}
+	}
+
+	private static class FormatAllTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private List<FormatTask> tasks;
+
+		private FormatAllTask(List<FormatTask> tasksIn) {
+			tasks = tasksIn;
+		}
+
+		@Override
+		protected void compute() {
+			invokeAll(tasks);
+		}
+	}
+}
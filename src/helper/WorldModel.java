@@ -0,0 +1,34 @@
+package helper;
+
+import java.util.SplittableRandom;
+
+/**
+ * Distribution the particles of a generated world are drawn from. Models
+ * give the position and velocity of a particle relative to the center of
+ * the world, so that a world drawn from them starts in or near equilibrium.
+ * Draws may be made from several threads at once, each with its own stream.
+ * @author Matthew Zane
+ *
+ */
+public interface WorldModel {
+	/**
+	 * Draws the position and velocity of a particle
+	 * @param random stream to draw from
+	 * @param particle filled with the x, y and z components of the position
+	 * in meters (m), followed by those of the velocity in meters per second (m/s)
+	 */
+	public void draw(SplittableRandom random, double[] particle);
+
+	/**
+	 * Returns the mass of a body at rest at the center, which the drawn
+	 * particles move around
+	 * @return measured in kilograms (kg), 0 if there is none
+	 */
+	public double getCentralMass();
+
+	/**
+	 * Returns a short name of the model, used for reporting
+	 * @return name of the model
+	 */
+	public String getName();
+}
@@ -0,0 +1,302 @@
+package integrator;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import solver.ForceSolver;
+import world.Checkpointable;
+import world.ParticleStore;
+
+/**
+ * Kick-drift-kick leapfrog where every particle gets its own time step.
+ * The cycle is split into 2^(levels - 1) ticks and a particle on level k
+ * takes steps of cycle / 2^k, so the steps of all particles line up at the
+ * end of the cycle. At each tick only the particles whose step ends there
+ * are active: every particle is drifted to the tick, and the forces of the
+ * active particles are recalculated from all particles, while the others
+ * keep their last forces. Particles in close encounters take small steps
+ * without forcing everyone else to, which saves most force calculations
+ * in systems that mix tight and wide orbits.
+ * <br>
+ * A particle's step follows the criterion dt = eta * |a| / |da/dt|. The
+ * change of its acceleration over its last step estimates da/dt. A particle
+ * moves to a smaller step whenever the criterion asks for it, and to the
+ * next larger step only when that step lines up with the current tick.
+ * @author Matthew Zane
+ *
+ */
+public class BlockTimestepIntegrator implements Integrator, Checkpointable {
+	public static final String NAME = "block";
+
+	public static final int DEFAULT_LEVELS = 10;
+	public static final double DEFAULT_ETA = 0.02;
+
+	/**
+	 * Number of time step levels, level 0 takes the whole cycle
+	 */
+	private int levels;
+
+	/**
+	 * Accuracy parameter of the time step criterion
+	 */
+	private double eta;
+
+	/**
+	 * Time step level of each particle
+	 */
+	private int[] level = new int[0];
+
+	/**
+	 * Rate of change of the acceleration of each particle, measured in
+	 * meters per second cubed (m/s^3)
+	 */
+	private double[] jerkX = new double[0];
+	private double[] jerkY = new double[0];
+	private double[] jerkZ = new double[0];
+
+	/**
+	 * Indices of the particles that are active at the current tick
+	 */
+	private int[] active = new int[0];
+
+	/**
+	 * Store whose forces and levels are up to date, or null
+	 */
+	private ParticleStore forcesStore;
+	private int forcesSize;
+
+	/**
+	 * Number of single particle force calculations so far
+	 */
+	private long forceEvaluations;
+
+	public int getLevels() { return levels; }
+	public double getEta() { return eta; }
+	public long getForceEvaluations() { return forceEvaluations; }
+	public String getName() { return NAME; }
+
+	public BlockTimestepIntegrator() {
+		this(DEFAULT_LEVELS, DEFAULT_ETA);
+	}
+
+	/**
+	 * Constructor
+	 * @param levelsIn number of time step levels, from 1 to 31
+	 * @param etaIn accuracy parameter, smaller values take smaller steps
+	 */
+	public BlockTimestepIntegrator(int levelsIn, double etaIn) {
+		levels = Math.max(1, Math.min(levelsIn, 31));
+		eta = etaIn > 0 ? etaIn : DEFAULT_ETA;
+	}
+
+	public void reset() {
+		forcesStore = null;
+	}
+
+	/**
+	 * Writes the level and jerk of every particle, if they belong to the store
+	 */
+	public void writeState(DataOutput out, ParticleStore store) throws IOException {
+		boolean current = store == forcesStore && store.size() == forcesSize;
+		out.writeBoolean(current);
+		out.writeLong(forceEvaluations);
+		if (!current) {
+			return;
+		}
+		out.writeInt(levels);
+		out.writeInt(forcesSize);
+		for (int i = 0; i < forcesSize; i++) {
+			out.writeInt(level[i]);
+			out.writeDouble(jerkX[i]);
+			out.writeDouble(jerkY[i]);
+			out.writeDouble(jerkZ[i]);
+		}
+	}
+
+	public void readState(DataInput in, ParticleStore store) throws IOException {
+		reset();
+		boolean current = in.readBoolean();
+		forceEvaluations = in.readLong();
+		if (!current) {
+			return;
+		}
+		int levelsIn = in.readInt();
+		int size = in.readInt();
+		if (levelsIn != levels) {
+			throw new IOException("The checkpoint has " + levelsIn + " time step levels, not " 
+					+ levels + ".");
+		}
+		if (size != store.size()) {
+			throw new IOException("The checkpoint has state for " + size + " particles, not " 
+					+ store.size() + ".");
+		}
+		if (level.length < size) {
+			level = new int[size];
+			jerkX = new double[size];
+			jerkY = new double[size];
+			jerkZ = new double[size];
+			active = new int[size];
+		}
+		for (int i = 0; i < size; i++) {
+			level[i] = in.readInt();
+			jerkX[i] = in.readDouble();
+			jerkY[i] = in.readDouble();
+			jerkZ[i] = in.readDouble();
+		}
+		forcesStore = store;
+		forcesSize = size;
+	}
+
+	/**
+	 * Returns the time step level of the particle
+	 * @param index
+	 * @return
+	 */
+	public int getLevel(int index) {
+		return level[index];
+	}
+
+	public void step(ParticleStore store, ForceSolver solver, double timeStep) {
+		int size = store.size();
+		int ticks = 1 << (levels - 1);
+		double tick = timeStep / ticks;
+		if (store != forcesStore || size != forcesSize) {
+			start(store, solver, tick);
+			forcesStore = store;
+			forcesSize = size;
+		}
+
+		for (int i = 0; i < size; i++) {
+			level[i] = getDesiredLevel(store, i, timeStep);
+			kick(store, i, getStep(i, timeStep) / 2);
+		}
+
+		int drifted = 0;
+		for (int t = 1; t <= ticks; t++) {
+			int activeCount = 0;
+			for (int i = 0; i < size; i++) {
+				if (t % getPeriod(i) == 0) {
+					active[activeCount++] = i;
+				}
+			}
+			if (activeCount == 0) {
+				continue;
+			}
+
+			LeapfrogIntegrator.drift(store, (t - drifted) * tick);
+			drifted = t;
+
+			//keep the old accelerations in the jerk arrays until the new ones are known
+			for (int a = 0; a < activeCount; a++) {
+				int i = active[a];
+				jerkX[i] = store.forceX[i] / store.mass[i];
+				jerkY[i] = store.forceY[i] / store.mass[i];
+				jerkZ[i] = store.forceZ[i] / store.mass[i];
+			}
+			solver.calculateForces(store, active, activeCount);
+			forceEvaluations += activeCount;
+
+			for (int a = 0; a < activeCount; a++) {
+				int i = active[a];
+				double step = getStep(i, timeStep);
+				kick(store, i, step / 2);
+				jerkX[i] = (store.forceX[i] / store.mass[i] - jerkX[i]) / step;
+				jerkY[i] = (store.forceY[i] / store.mass[i] - jerkY[i]) / step;
+				jerkZ[i] = (store.forceZ[i] / store.mass[i] - jerkZ[i]) / step;
+
+				if (t < ticks) {
+					int desired = getDesiredLevel(store, i, timeStep);
+					if (desired > level[i]) {
+						level[i] = desired;
+					}
+					else if (desired < level[i] && t % (getPeriod(i) * 2) == 0) {
+						level[i]--;
+					}
+					kick(store, i, getStep(i, timeStep) / 2);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Calculates the forces of all particles and estimates their jerk by
+	 * calculating the forces again after moving the particles for one tick
+	 * @param store
+	 * @param solver
+	 * @param tick shortest time step, measured in seconds (s)
+	 */
+	private void start(ParticleStore store, ForceSolver solver, double tick) {
+		int size = store.size();
+		if (level.length < size) {
+			level = new int[size];
+			jerkX = new double[size];
+			jerkY = new double[size];
+			jerkZ = new double[size];
+			active = new int[size];
+		}
+
+		ParticleStore moved = new ParticleStore(size);
+		store.copyInto(moved);
+		LeapfrogIntegrator.drift(moved, tick);
+		solver.calculateForces(moved);
+		solver.calculateForces(store);
+		forceEvaluations += 2L * size;
+
+		for (int i = 0; i < size; i++) {
+			jerkX[i] = (moved.forceX[i] - store.forceX[i]) / store.mass[i] / tick;
+			jerkY[i] = (moved.forceY[i] - store.forceY[i]) / store.mass[i] / tick;
+			jerkZ[i] = (moved.forceZ[i] - store.forceZ[i]) / store.mass[i] / tick;
+		}
+	}
+
+	/**
+	 * Returns the level whose step is the largest that is not longer than
+	 * the step the criterion asks for
+	 * @param store
+	 * @param index
+	 * @param timeStep length of the cycle, measured in seconds (s)
+	 * @return
+	 */
+	private int getDesiredLevel(ParticleStore store, int index, double timeStep) {
+		double acceleration = Math.sqrt(store.forceX[index] * store.forceX[index]
+				+ store.forceY[index] * store.forceY[index]
+				+ store.forceZ[index] * store.forceZ[index]) / store.mass[index];
+		double jerk = Math.sqrt(jerkX[index] * jerkX[index] + jerkY[index] * jerkY[index]
+				+ jerkZ[index] * jerkZ[index]);
+		if (jerk == 0 || acceleration == 0) {
+			return 0;
+		}
+
+		double criterion = eta * acceleration / jerk;
+		int desired = (int) Math.ceil(Math.log(timeStep / criterion) / Math.log(2));
+		return Math.max(0, Math.min(desired, levels - 1));
+	}
+
+	/**
+	 * Returns the step of the particle in ticks
+	 */
+	private int getPeriod(int index) {
+		return 1 << (levels - 1 - level[index]);
+	}
+
+	/**
+	 * Returns the step of the particle, measured in seconds (s)
+	 */
+	private double getStep(int index, double timeStep) {
+		return timeStep / (1 << level[index]);
+	}
+
+	/**
+	 * Changes the velocity of the particle by F / m * t
+	 * @param store
+	 * @param index
+	 * @param time measured in seconds (s)
+	 */
+	private static void kick(ParticleStore store, int index, double time) {
+		double scale = time / store.mass[index];
+		store.velocityX[index] += store.forceX[index] * scale;
+		store.velocityY[index] += store.forceY[index] * scale;
+		store.velocityZ[index] += store.forceZ[index] * scale;
+	}
+}
@@ -0,0 +1,72 @@
+package integrator;
+
+import solver.ForceSolver;
+import world.ParticleStore;
+
+/**
+ * First order scheme the World has always used. Calculates the forces at
+ * the start of the step, the final velocity with Vf = (p + J) / m and then
+ * moves each particle by the average of its initial and final velocity,
+ * d = (Vi + Vf) / 2 * t. Needs one force calculation per step, but the
+ * energy drifts unless the step is very small.<br>
+ * When the force solver also calculates the potential energy, the forces
+ * are calculated at the end of the step instead and kept for the start of
+ * the next one, so the potential energy is of the same positions as the
+ * final velocities, still with one force calculation per step.
+ * @author Matthew Zane
+ *
+ */
+public class EulerIntegrator implements Integrator {
+	public static final String NAME = "euler";
+
+	/**
+	 * Store whose forces are from its current positions, or null
+	 */
+	private ParticleStore forcesStore;
+	private int forcesSize;
+
+	public String getName() { return NAME; }
+
+	public void reset() {
+		forcesStore = null;
+	}
+
+	public void step(ParticleStore store, ForceSolver solver, double timeStep) {
+		if (store != forcesStore || store.size() != forcesSize) {
+			solver.calculateForces(store);
+		}
+
+		double halfTime = timeStep / 2;
+		int size = store.size();
+		double[] positionX = store.positionX;
+		double[] positionY = store.positionY;
+		double[] positionZ = store.positionZ;
+		double[] velocityX = store.velocityX;
+		double[] velocityY = store.velocityY;
+		double[] velocityZ = store.velocityZ;
+
+		for (int i = 0; i < size; i++) {
+			double mass = store.mass[i];
+			double finalVelocityX = (velocityX[i] * mass + store.forceX[i] * timeStep) * (1 / mass);
+			double finalVelocityY = (velocityY[i] * mass + store.forceY[i] * timeStep) * (1 / mass);
+			double finalVelocityZ = (velocityZ[i] * mass + store.forceZ[i] * timeStep) * (1 / mass);
+
+			positionX[i] += (velocityX[i] + finalVelocityX) * halfTime;
+			positionY[i] += (velocityY[i] + finalVelocityY) * halfTime;
+			positionZ[i] += (velocityZ[i] + finalVelocityZ) * halfTime;
+
+			velocityX[i] = finalVelocityX;
+			velocityY[i] = finalVelocityY;
+			velocityZ[i] = finalVelocityZ;
+		}
+
+		if (solver.isPotentialEnergyEnabled()) {
+			solver.calculateForces(store);
+			forcesStore = store;
+			forcesSize = store.size();
+		}
+		else {
+			forcesStore = null;
+		}
+	}
+}
@@ -0,0 +1,33 @@
+package integrator;
+
+import solver.ForceSolver;
+import world.ParticleStore;
+
+/**
+ * Advances the positions and velocities of all particles of a store by one
+ * time step, using a force solver to calculate the forces whenever the 
+ * scheme needs them.
+ * @author Matthew Zane
+ *
+ */
+public interface Integrator {
+	/**
+	 * Advances every particle of the store by the time step
+	 * @param store particles to move
+	 * @param solver calculates the net forces of the store
+	 * @param timeStep measured in seconds (s)
+	 */
+	public void step(ParticleStore store, ForceSolver solver, double timeStep);
+
+	/**
+	 * Forgets any forces kept from an earlier step. Must be called when 
+	 * the positions of the particles were changed outside of the integrator.
+	 */
+	public void reset();
+
+	/**
+	 * Returns a short name of the integrator, used for reporting
+	 * @return name of the integrator
+	 */
+	public String getName();
+}
@@ -0,0 +1,93 @@
+package integrator;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import solver.ForceSolver;
+import world.Checkpointable;
+import world.ParticleStore;
+
+/**
+ * Second order symplectic kick-drift-kick leapfrog. Each step kicks the
+ * velocities for half a step with the current forces, drifts the positions
+ * for a whole step, calculates the forces at the new positions and kicks
+ * the velocities for the other half. The forces at the end of a step are
+ * kept for the start of the next one, so a step needs one force calculation.
+ * Being symplectic, the energy error stays bounded instead of drifting.
+ * @author Matthew Zane
+ *
+ */
+public class LeapfrogIntegrator implements Integrator, Checkpointable {
+	public static final String NAME = "leapfrog";
+
+	/**
+	 * Store whose forces are from its current positions, or null
+	 */
+	private ParticleStore forcesStore;
+	private int forcesSize;
+
+	public String getName() { return NAME; }
+
+	public void reset() {
+		forcesStore = null;
+	}
+
+	/**
+	 * Writes whether the forces of the store are from its current positions
+	 */
+	public void writeState(DataOutput out, ParticleStore store) throws IOException {
+		out.writeBoolean(store == forcesStore && store.size() == forcesSize);
+	}
+
+	public void readState(DataInput in, ParticleStore store) throws IOException {
+		reset();
+		if (in.readBoolean()) {
+			forcesStore = store;
+			forcesSize = store.size();
+		}
+	}
+
+	public void step(ParticleStore store, ForceSolver solver, double timeStep) {
+		if (store != forcesStore || store.size() != forcesSize) {
+			solver.calculateForces(store);
+		}
+
+		kick(store, timeStep / 2);
+		drift(store, timeStep);
+		solver.calculateForces(store);
+		kick(store, timeStep / 2);
+
+		forcesStore = store;
+		forcesSize = store.size();
+	}
+
+	/**
+	 * Changes the velocity of every particle by F / m * t
+	 * @param store
+	 * @param time measured in seconds (s)
+	 */
+	static void kick(ParticleStore store, double time) {
+		int size = store.size();
+		for (int i = 0; i < size; i++) {
+			double scale = time / store.mass[i];
+			store.velocityX[i] += store.forceX[i] * scale;
+			store.velocityY[i] += store.forceY[i] * scale;
+			store.velocityZ[i] += store.forceZ[i] * scale;
+		}
+	}
+
+	/**
+	 * Moves every particle by v * t
+	 * @param store
+	 * @param time measured in seconds (s)
+	 */
+	static void drift(ParticleStore store, double time) {
+		int size = store.size();
+		for (int i = 0; i < size; i++) {
+			store.positionX[i] += store.velocityX[i] * time;
+			store.positionY[i] += store.velocityY[i] * time;
+			store.positionZ[i] += store.velocityZ[i] * time;
+		}
+	}
+}
@@ -0,0 +1,80 @@
+package integrator;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import solver.ForceSolver;
+import world.Checkpointable;
+import world.ParticleStore;
+
+/**
+ * Fourth order symplectic scheme of Yoshida (1990). A step is three 
+ * leapfrog steps of w1 * t, w0 * t and w1 * t, where w0 is negative, which 
+ * cancels the third order error of the leapfrog. The forces at the end of 
+ * each leapfrog step are reused by the next, so a step needs three force 
+ * calculations, but it can be many times longer than a leapfrog step for 
+ * the same energy error.
+ * @author Matthew Zane
+ *
+ */
+public class YoshidaIntegrator implements Integrator, Checkpointable {
+	public static final String NAME = "yoshida";
+
+	private static final double CUBE_ROOT_OF_TWO = Math.cbrt(2);
+	private static final double W1 = 1 / (2 - CUBE_ROOT_OF_TWO);
+	private static final double W0 = -CUBE_ROOT_OF_TWO * W1;
+
+	/**
+	 * Store whose forces are from its current positions, or null
+	 */
+	private ParticleStore forcesStore;
+	private int forcesSize;
+
+	public String getName() { return NAME; }
+
+	public void reset() {
+		forcesStore = null;
+	}
+
+	/**
+	 * Writes whether the forces of the store are from its current positions
+	 */
+	public void writeState(DataOutput out, ParticleStore store) throws IOException {
+		out.writeBoolean(store == forcesStore && store.size() == forcesSize);
+	}
+
+	public void readState(DataInput in, ParticleStore store) throws IOException {
+		reset();
+		if (in.readBoolean()) {
+			forcesStore = store;
+			forcesSize = store.size();
+		}
+	}
+
+	public void step(ParticleStore store, ForceSolver solver, double timeStep) {
+		if (store != forcesStore || store.size() != forcesSize) {
+			solver.calculateForces(store);
+		}
+
+		leapfrog(store, solver, W1 * timeStep);
+		leapfrog(store, solver, W0 * timeStep);
+		leapfrog(store, solver, W1 * timeStep);
+
+		forcesStore = store;
+		forcesSize = store.size();
+	}
+
+	/**
+	 * Kick-drift-kick step, expects the forces of the current positions
+	 * @param store
+	 * @param solver
+	 * @param time
+	 */
+	private void leapfrog(ParticleStore store, ForceSolver solver, double time) {
+		LeapfrogIntegrator.kick(store, time / 2);
+		LeapfrogIntegrator.drift(store, time);
+		solver.calculateForces(store);
+		LeapfrogIntegrator.kick(store, time / 2);
+	}
+}
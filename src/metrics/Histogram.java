@@ -0,0 +1,110 @@
+package metrics;
+
+/**
+ * Histogram of durations in nanoseconds with a fixed number of buckets.
+ * Durations below 16 ns have a bucket each, longer ones are split into
+ * powers of two and each power of two into 8 buckets, so a percentile is
+ * within 12.5% of the true value. Recording costs a few instructions and
+ * never allocates. One thread records, any thread may read.
+ * @author Matthew Zane
+ *
+ */
+public class Histogram implements HistogramMBean {
+	/**
+	 * Durations below this have a bucket each
+	 */
+	private static final int LINEAR_BUCKETS = 16;
+
+	/**
+	 * Each power of two is split into 2^SUB_BITS buckets
+	 */
+	private static final int SUB_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+	/**
+	 * Highest power of two of a long
+	 */
+	private static final int MAX_EXPONENT = 62;
+
+	private static final int BUCKETS = LINEAR_BUCKETS 
+			+ (MAX_EXPONENT - 4 + 1) * SUB_BUCKETS;
+
+	private String name;
+
+	private long[] counts = new long[BUCKETS];
+	private long count;
+	private long total;
+	private long max;
+
+	public Histogram(String nameIn) {
+		name = nameIn;
+	}
+
+	public String getName() { return name; }
+	public synchronized long getCount() { return count; }
+	public synchronized double getTotalSeconds() { return total / 1e9; }
+
+	public synchronized double getMeanMicros() {
+		return count == 0 ? 0 : total / 1e3 / count;
+	}
+
+	public double getP50Micros() { return getPercentile(.5) / 1e3; }
+	public double getP90Micros() { return getPercentile(.9) / 1e3; }
+	public double getP99Micros() { return getPercentile(.99) / 1e3; }
+	public synchronized double getMaxMicros() { return max / 1e3; }
+
+	/**
+	 * Adds a duration
+	 * @param nanos measured in nanoseconds (ns), negative durations count as 0
+	 */
+	public synchronized void record(long nanos) {
+		nanos = Math.max(nanos, 0);
+		counts[getBucket(nanos)]++;
+		count++;
+		total += nanos;
+		if (nanos > max) {
+			max = nanos;
+		}
+	}
+
+	/**
+	 * Returns the duration that the specified fraction of the durations is
+	 * not longer than, the middle of its bucket
+	 * @param fraction from 0 to 1
+	 * @return measured in nanoseconds (ns), 0 if there are none
+	 */
+	public synchronized double getPercentile(double fraction) {
+		if (count == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(fraction * count));
+		long seen = 0;
+		for (int bucket = 0; bucket < BUCKETS; bucket++) {
+			seen += counts[bucket];
+			if (seen >= rank) {
+				long lower = getLowerBound(bucket);
+				long width = getLowerBound(bucket + 1) - lower;
+				return Math.min(lower + (width - 1) / 2.0, max);
+			}
+		}
+		return max;
+	}
+
+	private static int getBucket(long nanos) {
+		if (nanos < LINEAR_BUCKETS) {
+			return (int) nanos;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+		int sub = (int) (nanos >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+		return LINEAR_BUCKETS + (exponent - 4) * SUB_BUCKETS + sub;
+	}
+
+	private static long getLowerBound(int bucket) {
+		if (bucket < LINEAR_BUCKETS) {
+			return bucket;
+		}
+		int exponent = (bucket - LINEAR_BUCKETS) / SUB_BUCKETS + 4;
+		int sub = (bucket - LINEAR_BUCKETS) % SUB_BUCKETS;
+		return (long) (SUB_BUCKETS + sub) << (exponent - SUB_BITS);
+	}
+}
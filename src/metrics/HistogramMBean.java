@@ -0,0 +1,17 @@
+package metrics;
+
+/**
+ * Management interface of a {@link Histogram}
+ * @author Matthew Zane
+ *
+ */
+public interface HistogramMBean {
+	public String getName();
+	public long getCount();
+	public double getTotalSeconds();
+	public double getMeanMicros();
+	public double getP50Micros();
+	public double getP90Micros();
+	public double getP99Micros();
+	public double getMaxMicros();
+}
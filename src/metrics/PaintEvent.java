@@ -0,0 +1,28 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event of one frame painted by the display
+ * @author Matthew Zane
+ *
+ */
+@Name("gravity.Paint")
+@Label("Paint Frame")
+@Category("Gravity Simulation")
+@Description("One frame of the World painted by the display")
+public class PaintEvent extends Event {
+	@Label("Particles")
+	public int particles;
+
+	@Label("Step")
+	@Description("Number of cycles run at the painted frame")
+	public long step;
+
+	@Label("Solver")
+	public String solver;
+}
@@ -0,0 +1,56 @@
+package metrics;
+
+/**
+ * Parts of a cycle of a World that are timed by {@link StepMetrics}
+ * @author Matthew Zane
+ *
+ */
+public enum Phase {
+	/**
+	 * Force calculations of the force solver, summed over the cycle
+	 */
+	FORCES("forces"),
+
+	/**
+	 * The rest of the integrator, moving the particles
+	 */
+	INTEGRATION("integration"),
+
+	/**
+	 * Broad and narrow phase of the collisions
+	 */
+	COLLISIONS("collisions"),
+
+	/**
+	 * Handing a frame to the recorder, only in cycles that are recorded
+	 */
+	RECORDING("recording"),
+
+	/**
+	 * Energy, momentum and center of mass, only with diagnostics enabled
+	 */
+	DIAGNOSTICS("diagnostics"),
+
+	/**
+	 * Checking and saving the checkpoint, only with a checkpoint
+	 */
+	CHECKPOINT("checkpoint"),
+
+	/**
+	 * Copying the state into a frame for the display
+	 */
+	FRAME("frame"),
+
+	/**
+	 * The whole cycle
+	 */
+	STEP("step");
+
+	private String name;
+
+	private Phase(String nameIn) {
+		name = nameIn;
+	}
+
+	public String getName() { return name; }
+}
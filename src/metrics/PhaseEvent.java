@@ -0,0 +1,33 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event of one phase of a cycle of the World, so the phases
+ * can be lined up with garbage collections and safepoints in a recording.
+ * Costs next to nothing when the flight recorder is off.
+ * @author Matthew Zane
+ *
+ */
+@Name("gravity.Phase")
+@Label("Simulation Phase")
+@Category("Gravity Simulation")
+@Description("One phase of a cycle of the World")
+public class PhaseEvent extends Event {
+	@Label("Phase")
+	public String phase;
+
+	@Label("Particles")
+	public int particles;
+
+	@Label("Step")
+	@Description("Number of the cycle the phase belongs to")
+	public long step;
+
+	@Label("Solver")
+	public String solver;
+}
@@ -0,0 +1,33 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event of frames being written to a recording, either one
+ * batch of the recorder's writer thread or one synchronous recorded turn
+ * @author Matthew Zane
+ *
+ */
+@Name("gravity.Recording")
+@Label("Recording Flush")
+@Category("Gravity Simulation")
+@Description("Frames written to the recording in one go")
+public class RecordingEvent extends Event {
+	@Label("Frames")
+	public int frames;
+
+	@Label("Particles")
+	@Description("Number of particles of the last frame written")
+	public int particles;
+
+	@Label("Step")
+	@Description("Number of cycles run at the last frame written")
+	public long step;
+
+	@Label("Solver")
+	public String solver;
+}
@@ -0,0 +1,245 @@
+package metrics;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Map;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Measures where the time of the cycles of a World goes: a histogram of the
+ * wall time of each {@link Phase}, steps per second, force interactions per
+ * second, collision pairs tested and resolved, the depth of the recorder
+ * queue and the allocation rate of the simulation thread.<br>
+ * <br>
+ * The World records into it from its own thread. The metrics can be
+ * registered as MBeans, under gravity:type=StepMetrics and
+ * gravity:type=Phase,name=(phase), so any JMX client can watch a running
+ * simulation, and are written to a CSV file of name,value lines when closed.
+ * @author Matthew Zane
+ *
+ */
+public class StepMetrics implements StepMetricsMBean, Closeable {
+	public static final String DOMAIN = "gravity";
+
+	/**
+	 * Rates are measured over windows at least this long
+	 */
+	private static final long WINDOW_NANOS = 1000000000L;
+
+	private Map<Phase, Histogram> histograms = new EnumMap<Phase, Histogram>(Phase.class);
+
+	/**
+	 * File the metrics are written to when closed, or null
+	 */
+	private String pathname;
+
+	private MBeanServer server;
+
+	private com.sun.management.ThreadMXBean threadBean;
+
+	private long startNanos = System.nanoTime();
+	private long startAllocated = -1;
+
+	private volatile long steps;
+	private volatile long interactions;
+	private volatile long pairsTested;
+	private volatile long pairsResolved;
+	private volatile int recorderQueueDepth;
+	private volatile int maxRecorderQueueDepth;
+	private volatile long droppedFrames;
+	private volatile long allocatedBytes;
+
+	/**
+	 * Totals at the start of the current window, and the rates of the last one
+	 */
+	private long windowNanos = startNanos;
+	private long windowSteps;
+	private long windowInteractions;
+	private long windowAllocated;
+	private volatile double stepsPerSecond;
+	private volatile double interactionsPerSecond;
+	private volatile double allocatedBytesPerSecond;
+
+	/**
+	 * Constructor
+	 * @param pathnameIn CSV file the metrics are written to when closed, or null
+	 */
+	public StepMetrics(String pathnameIn) {
+		pathname = pathnameIn;
+		for (Phase phase : Phase.values()) {
+			histograms.put(phase, new Histogram(phase.getName()));
+		}
+
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			threadBean = (com.sun.management.ThreadMXBean) bean;
+			if (!threadBean.isThreadAllocatedMemorySupported() 
+					|| !threadBean.isThreadAllocatedMemoryEnabled()) {
+				threadBean = null;
+			}
+		}
+	}
+
+	public String getPathname() { return pathname; }
+	public long getSteps() { return steps; }
+	public double getStepsPerSecond() { return stepsPerSecond; }
+	public long getInteractions() { return interactions; }
+	public double getInteractionsPerSecond() { return interactionsPerSecond; }
+	public long getPairsTested() { return pairsTested; }
+	public long getPairsResolved() { return pairsResolved; }
+	public int getRecorderQueueDepth() { return recorderQueueDepth; }
+	public int getMaxRecorderQueueDepth() { return maxRecorderQueueDepth; }
+	public long getDroppedFrames() { return droppedFrames; }
+	public long getAllocatedBytes() { return allocatedBytes; }
+	public double getAllocatedBytesPerSecond() { return allocatedBytesPerSecond; }
+
+	public Histogram getHistogram(Phase phase) {
+		return histograms.get(phase);
+	}
+
+	/**
+	 * Adds the duration of a phase of the current cycle
+	 * @param phase
+	 * @param nanos measured in nanoseconds (ns)
+	 */
+	public void record(Phase phase, long nanos) {
+		histograms.get(phase).record(nanos);
+	}
+
+	/**
+	 * Ends a cycle. Must be called from the thread that runs the World, whose
+	 * allocations are measured.
+	 * @param nanos duration of the whole cycle, measured in nanoseconds (ns)
+	 * @param interactionsIn interactions of the force solver so far, as counted by
+	 * {@link solver.ForceSolver#getInteractionCount()}
+	 * @param pairsTestedIn pairs the broad phase found so far
+	 * @param pairsResolvedIn pairs that were colliding so far
+	 */
+	public void endStep(long nanos, long interactionsIn, long pairsTestedIn, long pairsResolvedIn) {
+		histograms.get(Phase.STEP).record(nanos);
+		steps++;
+		interactions = interactionsIn;
+		pairsTested = pairsTestedIn;
+		pairsResolved = pairsResolvedIn;
+		if (threadBean != null) {
+			long allocated = threadBean.getCurrentThreadAllocatedBytes();
+			if (startAllocated < 0) {
+				startAllocated = allocated;
+				windowAllocated = allocated;
+			}
+			allocatedBytes = allocated - startAllocated;
+		}
+
+		long now = System.nanoTime();
+		long elapsed = now - windowNanos;
+		if (elapsed >= WINDOW_NANOS) {
+			double seconds = elapsed / 1e9;
+			stepsPerSecond = (steps - windowSteps) / seconds;
+			interactionsPerSecond = (interactions - windowInteractions) / seconds;
+			allocatedBytesPerSecond = (allocatedBytes + startAllocated - windowAllocated) / seconds;
+			windowNanos = now;
+			windowSteps = steps;
+			windowInteractions = interactions;
+			windowAllocated = allocatedBytes + startAllocated;
+		}
+	}
+
+	/**
+	 * Sets the state of the recorder queue after a frame was handed to it
+	 * @param depth number of frames waiting to be written
+	 * @param dropped number of frames dropped so far
+	 */
+	public void setRecorder(int depth, long dropped) {
+		recorderQueueDepth = depth;
+		if (depth > maxRecorderQueueDepth) {
+			maxRecorderQueueDepth = depth;
+		}
+		droppedFrames = dropped;
+	}
+
+	/**
+	 * Registers the metrics and the histogram of every phase with the
+	 * platform MBean server
+	 * @throws JMException if they can not be registered, for example because
+	 * other metrics already are
+	 */
+	public void register() throws JMException {
+		MBeanServer platform = ManagementFactory.getPlatformMBeanServer();
+		platform.registerMBean(this, new ObjectName(DOMAIN + ":type=StepMetrics"));
+		server = platform;
+		for (Phase phase : Phase.values()) {
+			platform.registerMBean(histograms.get(phase), getObjectName(phase));
+		}
+	}
+
+	/**
+	 * Writes every metric as a name,value line
+	 * @param out
+	 */
+	public void writeCsv(PrintWriter out) {
+		double seconds = (System.nanoTime() - startNanos) / 1e9;
+		out.println("name,value");
+		out.println("steps," + steps);
+		out.println("seconds," + seconds);
+		out.println("steps_per_second," + (seconds > 0 ? steps / seconds : 0));
+		out.println("interactions," + interactions);
+		out.println("interactions_per_second," + (seconds > 0 ? interactions / seconds : 0));
+		out.println("pairs_tested," + pairsTested);
+		out.println("pairs_resolved," + pairsResolved);
+		out.println("max_recorder_queue_depth," + maxRecorderQueueDepth);
+		out.println("dropped_frames," + droppedFrames);
+		out.println("allocated_bytes," + allocatedBytes);
+		out.println("allocated_bytes_per_second," + (seconds > 0 ? allocatedBytes / seconds : 0));
+		for (Phase phase : Phase.values()) {
+			Histogram histogram = histograms.get(phase);
+			String name = phase.getName();
+			out.println(name + ".count," + histogram.getCount());
+			out.println(name + ".total_seconds," + histogram.getTotalSeconds());
+			out.println(name + ".mean_us," + histogram.getMeanMicros());
+			out.println(name + ".p50_us," + histogram.getP50Micros());
+			out.println(name + ".p90_us," + histogram.getP90Micros());
+			out.println(name + ".p99_us," + histogram.getP99Micros());
+			out.println(name + ".max_us," + histogram.getMaxMicros());
+		}
+	}
+
+	/**
+	 * Writes the CSV file, if there is one, and unregisters the MBeans
+	 * @throws IOException if the file can not be written
+	 */
+	public void close() throws IOException {
+		if (server != null) {
+			try {
+				server.unregisterMBean(new ObjectName(DOMAIN + ":type=StepMetrics"));
+				for (Phase phase : Phase.values()) {
+					server.unregisterMBean(getObjectName(phase));
+				}
+			} catch (JMException e) {
+				System.out.println("Metrics not unregistered: " + e.getMessage());
+			}
+			server = null;
+		}
+		if (pathname == null) {
+			return;
+		}
+		PrintWriter out = new PrintWriter(pathname, "US-ASCII");
+		try {
+			writeCsv(out);
+		} finally {
+			out.close();
+		}
+		if (out.checkError()) {
+			throw new IOException("Could not write " + pathname);
+		}
+	}
+
+	private static ObjectName getObjectName(Phase phase) throws JMException {
+		return new ObjectName(DOMAIN + ":type=Phase,name=" + phase.getName());
+	}
+}
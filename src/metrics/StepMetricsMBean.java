@@ -0,0 +1,21 @@
+package metrics;
+
+/**
+ * Management interface of {@link StepMetrics}. Rates are measured over the
+ * last full window of about a second.
+ * @author Matthew Zane
+ *
+ */
+public interface StepMetricsMBean {
+	public long getSteps();
+	public double getStepsPerSecond();
+	public long getInteractions();
+	public double getInteractionsPerSecond();
+	public long getPairsTested();
+	public long getPairsResolved();
+	public int getRecorderQueueDepth();
+	public int getMaxRecorderQueueDepth();
+	public long getDroppedFrames();
+	public long getAllocatedBytes();
+	public double getAllocatedBytesPerSecond();
+}
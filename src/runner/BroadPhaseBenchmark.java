@@ -0,0 +1,129 @@
+package runner;
+
+import java.io.File;
+import java.util.Arrays;
+
+import collision.AllPairsBroadPhase;
+import collision.BroadPhase;
+import collision.PairHandler;
+import collision.SpatialHashBroadPhase;
+import collision.SweepAndPruneBroadPhase;
+import helper.ParticleFileParser;
+import world.ParticleStore;
+import world.World;
+
+/**
+ * Runs every config file of a directory with each collision broad phase
+ * and prints the time spent in the broad phase and the number of pairs it 
+ * passed on to be checked exactly. Only a pass whose pairs are counted is
+ * timed, so the exact checks of the pairs are not part of the time.<br>
+ * <br>
+ * How to use:<br>
+ * 	BroadPhaseBenchmark [directory] [-steps number of cycles, default 1000]<br>
+ * The directory defaults to configFiles. Nothing is recorded.
+ * @author Matthew Zane
+ *
+ */
+public class BroadPhaseBenchmark {
+	private static final String DEFAULT_DIRECTORY = "configFiles";
+	private static final int DEFAULT_STEPS = 1000;
+
+	public static void main(String[] args) {
+		try {
+			String directory = DEFAULT_DIRECTORY;
+			int steps = DEFAULT_STEPS;
+			for (int i = 0; i < args.length; i++) {
+				if (args[i].equals("-steps") && i + 1 < args.length) {
+					steps = Integer.parseInt(args[++i]);
+				}
+				else {
+					directory = args[i];
+				}
+			}
+
+			File[] files = new File(directory).listFiles();
+			if (files == null) {
+				throw new Exception("Directory " + directory + " does not exist.");
+			}
+			Arrays.sort(files);
+
+			System.out.println(String.format("%-28s %9s %-16s %12s %14s", "file", "particles",
+					"broad phase", "time (ms)", "pairs / step"));
+			for (File file : files) {
+				if (!file.getName().endsWith(".txt")) {
+					continue;
+				}
+				ParticleStore initial = ParticleFileParser.parseParticleStore(file.getPath());
+				if (initial.size() == 0) {
+					continue;
+				}
+
+				BroadPhase[] broadPhases = {new AllPairsBroadPhase(), 
+						new SpatialHashBroadPhase(), new SweepAndPruneBroadPhase()};
+				for (BroadPhase broadPhase : broadPhases) {
+					TimedBroadPhase timed = run(initial, broadPhase, steps);
+					System.out.println(String.format("%-28s %9d %-16s %12.3f %14.1f", 
+							file.getName(), initial.size(), broadPhase.getName(), 
+							timed.nanos / 1e6, (double) timed.pairs / steps));
+				}
+			}
+		} catch (Exception e) {
+			System.out.println("There was an error: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Runs a copy of the particles for the specified number of cycles
+	 * @param initial
+	 * @param broadPhase
+	 * @param steps
+	 * @return the broad phase with its measurements
+	 */
+	private static TimedBroadPhase run(ParticleStore initial, BroadPhase broadPhase, 
+			int steps) {
+		ParticleStore store = new ParticleStore(initial.size());
+		initial.copyInto(store);
+
+		World world = new World();
+		world.setRecording(false);
+		world.setStore(store);
+		TimedBroadPhase timed = new TimedBroadPhase(broadPhase);
+		world.setBroadPhase(timed);
+
+		for (int i = 0; i < steps; i++) {
+			world.step();
+		}
+		return timed;
+	}
+
+	/**
+	 * Measures the time spent in another broad phase and counts its pairs.
+	 * Each cycle the broad phase runs twice: once timed, with pairs that are
+	 * only counted, then again untimed, with pairs that are passed on to the
+	 * World so the collisions still happen. The second pass sees the same
+	 * positions, so it finds the same pairs.
+	 */
+	private static class TimedBroadPhase implements BroadPhase, PairHandler {
+		private BroadPhase broadPhase;
+		private long nanos;
+		private long pairs;
+
+		private TimedBroadPhase(BroadPhase broadPhaseIn) {
+			broadPhase = broadPhaseIn;
+		}
+
+		public String getName() { return broadPhase.getName(); }
+
+		public void findPairs(ParticleStore store, PairHandler handler) {
+			long start = System.nanoTime();
+			broadPhase.findPairs(store, this);
+			nanos += System.nanoTime() - start;
+
+			broadPhase.findPairs(store, handler);
+		}
+
+		public void handlePair(int particle1, int particle2) {
+			pairs++;
+		}
+	}
+}
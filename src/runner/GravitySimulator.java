@@ -1,84 +1,145 @@
-package runner;
-
-import java.util.List;
-
-import display.Display;
-import helper.ParticleFileParser;
-import helper.Timer;
-import world.World;
-
-public class GravitySimulator {
-	private String pathname;
-
-	public String getPathname() { return pathname; }
-
-	public void setPathname(String pathnameIn) { pathname = pathnameIn; }
-
-	public static void main(String [] args) {
-		//parse command line arguments
-		//for now just accept one parameter: config file
-
-		//instantiate gravity simulator
-		GravitySimulator gs = new GravitySimulator();
-		gs.setPathname(args[0]);
-
-		//configure gravity simulator
-
-		//call run()
-		gs.run();
-	}
-
-	/**
-	 * Requires pathname to be set.
-	 */
-	public void run() {
-		try {
-			
-			List<World> worlds = ParticleFileParser.parseUniverse(pathname);
-			Display display = new Display(worlds.get(worlds.size() - 1));
-			display.init();
-			display.getWorld().start();
-
-			worlds.clear();
-			
-			boolean isDone = false;
-
-			double frameCap = 1.0 / 1.0;
-
-			double frameTime = 0;
-			int frames = 0;
-
-			double time = Timer.getTime();
-			double unprocessed = 0;
-			while (!isDone) {
-				boolean canRender = false;
-
-				double time2 = Timer.getTime();
-				double passed = time2 - time;
-				unprocessed += passed;
-				frameTime += passed;
-
-				time = time2;
-
-				while (unprocessed >= frameCap) {
-					unprocessed -= frameCap;
-					canRender = true;
-
-
-					if (frameTime >= 1.0) {
-						frameTime = 0;
-						//System.out.println("FPS: " + frames);
-						frames = 0;
-					}
-				}
-				if (canRender) {
-					display.repaint();
-					frames++;
-				}
-
-			}
-		} catch(Exception e) {
-			System.out.println("There was an error: " + e.getMessage());
-		}
-	}
-}
+package runner;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import javax.management.JMException;
+
+import display.Display;
+import helper.Checkpoint;
+import helper.Recorder;
+import helper.Timer;
+import metrics.StepMetrics;
+import world.World;
+
+public class GravitySimulator {
+	private String pathname;
+
+	private SimulationOptions options = new SimulationOptions();
+
+	public String getPathname() { return pathname; }
+	public SimulationOptions getOptions() { return options; }
+
+	public void setPathname(String pathnameIn) { pathname = pathnameIn; }
+	public void setOptions(SimulationOptions optionsIn) { options = optionsIn; }
+
+	public static void main(String [] args) {
+		//parse command line arguments
+		//config file followed by options, see SimulationOptions
+		SimulationOptions options;
+		try {
+			options = SimulationOptions.parse(args);
+		} catch (Exception e) {
+			System.out.println("There was an error: " + e.getMessage());
+			return;
+		}
+
+		//instantiate gravity simulator
+		GravitySimulator gs = new GravitySimulator();
+		gs.setPathname(options.getPathname());
+
+		//configure gravity simulator
+		gs.setOptions(options);
+
+		//call run()
+		gs.run();
+	}
+
+	/**
+	 * Requires pathname to be set.
+	 */
+	public void run() {
+		try {
+			
+			World world = options.loadWorld(pathname);
+			if (world == null) {
+				throw new Exception("There is no configuration in " + pathname);
+			}
+			world.setDiagnosticsEnabled(true);
+			Display display = new Display(world);
+			if (options.getDestination() != null) {
+				Recorder recorder = options.createRecorder(options.getDestination(), true);
+				display.getWorld().setRecorder(recorder);
+				Runtime.getRuntime().addShutdownHook(new Thread(new Closer(recorder)));
+			}
+			Checkpoint checkpoint = options.createCheckpoint();
+			if (checkpoint != null) {
+				display.getWorld().setCheckpoint(checkpoint);
+				Runtime.getRuntime().addShutdownHook(new Thread(new Closer(checkpoint)));
+			}
+			StepMetrics metrics = options.createMetrics();
+			if (metrics != null) {
+				try {
+					metrics.register();
+				} catch (JMException e) {
+					System.out.println("Metrics not registered: " + e.getMessage());
+				}
+				display.getWorld().setMetrics(metrics);
+				Runtime.getRuntime().addShutdownHook(new Thread(new Closer(metrics)));
+			}
+			System.out.println("Force solver: " + display.getWorld().getForceSolver().getName());
+			display.init();
+			display.getWorld().start();
+
+			
+			boolean isDone = false;
+
+			double frameCap = 1.0 / 1.0;
+
+			double frameTime = 0;
+			int frames = 0;
+
+			double time = Timer.getTime();
+			double unprocessed = 0;
+			while (!isDone) {
+				boolean canRender = false;
+
+				double time2 = Timer.getTime();
+				double passed = time2 - time;
+				unprocessed += passed;
+				frameTime += passed;
+
+				time = time2;
+
+				while (unprocessed >= frameCap) {
+					unprocessed -= frameCap;
+					canRender = true;
+
+
+					if (frameTime >= 1.0) {
+						frameTime = 0;
+						//System.out.println("FPS: " + frames);
+						frames = 0;
+					}
+				}
+				if (canRender) {
+					display.update();
+					frames++;
+				}
+
+			}
+		} catch(Exception e) {
+			System.out.println("There was an error: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Writes the frames still waiting in the recorder, the checkpoint
+	 * being saved or the metrics when the program exits
+	 */
+	private static class Closer implements Runnable {
+		private Closeable closeable;
+
+		private Closer(Closeable closeableIn) {
+			closeable = closeableIn;
+		}
+
+		public void run() {
+			try {
+				closeable.close();
+			} catch (IOException e) {
+				System.out.println("There was an error: " + e.getMessage());
+			}
+		}
+	}
+}
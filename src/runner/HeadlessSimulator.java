@@ -0,0 +1,132 @@
+package runner;
+
+import javax.management.JMException;
+
+import helper.Checkpoint;
+import helper.Recorder;
+import metrics.StepMetrics;
+import world.World;
+
+/**
+ * Runs a simulation without a display, as fast as possible, for a number
+ * of cycles or an amount of simulated time, then prints how fast it ran.
+ * Meant for machines that cannot open a window.<br>
+ * <br>
+ * How to use:<br>
+ * 	HeadlessSimulator source [destination] (-steps number of cycles | -time seconds) [options]<br>
+ * The latest configuration of the source is loaded. If a destination is
+ * given, it is overwritten with the recording, which also ends with the
+ * final state of the World. With -checkpoint, a checkpoint is also saved
+ * when the run ends. With -metrics, the time of each phase of the cycles
+ * is written to a CSV file when the run ends, and can be watched over JMX
+ * while it runs. The other options are those of
+ * {@link SimulationOptions}.
+ * @author Matthew Zane
+ *
+ */
+public class HeadlessSimulator {
+	private SimulationOptions options;
+
+	public SimulationOptions getOptions() { return options; }
+
+	public void setOptions(SimulationOptions optionsIn) { options = optionsIn; }
+
+	public static void main(String[] args) {
+		try {
+			HeadlessSimulator simulator = new HeadlessSimulator();
+			simulator.setOptions(SimulationOptions.parse(args));
+			simulator.run();
+		} catch (Exception e) {
+			System.out.println("There was an error: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Requires options with a pathname and either steps or a duration.
+	 * @throws Exception if the options are incomplete or the source can not be read
+	 */
+	public void run() throws Exception {
+		if (options.getPathname() == null) {
+			throw new Exception("No source file was given.");
+		}
+		if (options.getSteps() < 0 && options.getDuration() < 0) {
+			throw new Exception("Either -steps or -time has to be given.");
+		}
+
+		World world = options.loadWorld(options.getPathname());
+		if (world == null) {
+			throw new Exception("There is no configuration in " + options.getPathname());
+		}
+
+		String destination = options.getDestination();
+		Recorder recorder = null;
+		if (destination != null) {
+			recorder = options.createRecorder(destination, false);
+			world.setRecorder(recorder);
+		}
+		world.setRecording(recorder != null);
+		Checkpoint checkpoint = options.createCheckpoint();
+		world.setCheckpoint(checkpoint);
+		StepMetrics metrics = options.createMetrics();
+		if (metrics != null) {
+			try {
+				metrics.register();
+			} catch (JMException e) {
+				System.out.println("Metrics not registered: " + e.getMessage());
+			}
+		}
+		world.setMetrics(metrics);
+
+		long steps = options.getSteps();
+		if (steps < 0) {
+			steps = (long) Math.ceil(options.getDuration() / world.getTimeStep());
+		}
+
+		System.out.println("Particles: " + world.getStore().size());
+		System.out.println("Force solver: " + world.getForceSolver().getName());
+		System.out.println("Integrator: " + world.getIntegrator().getName());
+		System.out.println("Broad phase: " + world.getBroadPhase().getName());
+		System.out.println("Cycles: " + steps + " of " + world.getTimeStep() + " s");
+
+		double startTime = world.getTime();
+		long startInteractions = world.getForceSolver().getInteractionCount();
+		long start = System.nanoTime();
+		for (long i = 0; i < steps; i++) {
+			world.step();
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		long interactions = world.getForceSolver().getInteractionCount() - startInteractions;
+
+		if (recorder != null) {
+			//the last cycle may already have recorded the final state
+			if (recorder.getLastStep() != world.getStepCount()) {
+				recorder.record(world);
+			}
+			recorder.close();
+		}
+		if (checkpoint != null) {
+			checkpoint.close(world);
+		}
+		if (metrics != null) {
+			metrics.close();
+		}
+
+		System.out.println("Simulated time: " + (world.getTime() - startTime) + " s");
+		System.out.println(String.format("Wall time: %.3f s", seconds));
+		System.out.println(String.format("Steps per second: %.1f", steps / seconds));
+		System.out.println(String.format("Force interactions per second: %.4g",
+				interactions / seconds));
+		if (recorder != null) {
+			System.out.println("Recorded frames: " + recorder.getRecordedCount() 
+					+ ", dropped: " + recorder.getDroppedCount());
+		}
+		if (checkpoint != null) {
+			System.out.println("Checkpoints saved: " + checkpoint.getSavedCount());
+		}
+		if (metrics != null) {
+			System.out.println("Collision pairs tested: " + metrics.getPairsTested() 
+					+ ", resolved: " + metrics.getPairsResolved());
+			System.out.println("Metrics written to " + metrics.getPathname());
+		}
+	}
+}
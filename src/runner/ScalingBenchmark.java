@@ -0,0 +1,436 @@
+package runner;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import helper.WorldGenerator;
+import integrator.BlockTimestepIntegrator;
+import integrator.EulerIntegrator;
+import integrator.LeapfrogIntegrator;
+import integrator.YoshidaIntegrator;
+import solver.BarnesHutForceSolver;
+import solver.DirectForceSolver;
+import solver.ForceSolver;
+import solver.ParallelDirectForceSolver;
+import world.Diagnostics;
+import world.ParticleStore;
+import world.World;
+
+/**
+ * Runs whole cycles of generated worlds of growing size with every
+ * combination of force solver, integrator and number of threads, and writes
+ * how fast and how accurately each of them ran to a JSON file: steps per
+ * second, time per step, peak heap and the relative drift of the energy and
+ * momentum over a fixed simulated interval. A run that is cut short has no
+ * drifts, written as null, since they would cover a shorter interval than
+ * those of the other runs. The kinetic and potential energy of the drift
+ * are both those of the end of a cycle, with every integrator.<br>
+ * <br>
+ * How to use:<br>
+ * 	ScalingBenchmark [destination, default scaling.json] [options]<br>
+ * Options:<br>
+ * 	-counts comma separated numbers of particles (default 1000,10000,100000,1000000)<br>
+ * 	-solvers comma separated force solvers (default direct,parallel-direct,barnes-hut)<br>
+ * 	-integrators comma separated integrators (default euler,leapfrog,yoshida,block)<br>
+ * 	-threads comma separated numbers of threads of parallel-direct (default 1 and all processors)<br>
+ * 	-model model of the generated worlds (default plummer)<br>
+ * 	-seed seed of the generated worlds (default 1)<br>
+ * 	-dt length of a cycle in seconds (default 10000)<br>
+ * 	-time simulated interval of every run in seconds (default 1000000)<br>
+ * 	-maxseconds wall time after which a run is cut short, without drifts (default 60)<br>
+ * 	-maxdirect largest world the exact solvers run on (default 100000)<br>
+ * The destination is rewritten after every run, so a long sweep that is
+ * stopped keeps the runs it finished.
+ * @author Matthew Zane
+ *
+ */
+public class ScalingBenchmark {
+	private static final String DEFAULT_DESTINATION = "scaling.json";
+
+	private String destination = DEFAULT_DESTINATION;
+	private int[] counts = {1000, 10000, 100000, 1000000};
+	private String[] solverNames = {DirectForceSolver.NAME, ParallelDirectForceSolver.NAME,
+			BarnesHutForceSolver.NAME};
+	private String[] integratorNames = {EulerIntegrator.NAME, LeapfrogIntegrator.NAME,
+			YoshidaIntegrator.NAME, BlockTimestepIntegrator.NAME};
+	private int[] threads = createDefaultThreads();
+	private String modelName = "plummer";
+	private long seed = 1;
+	private double timeStep = 10000;
+	private double interval = 1000000;
+	private double maxSeconds = 60;
+	private int maxDirect = 100000;
+
+	/**
+	 * Finished runs
+	 */
+	private List<Run> runs = new ArrayList<Run>();
+
+	public static void main(String[] args) {
+		try {
+			ScalingBenchmark benchmark = parse(args);
+			benchmark.run();
+		} catch (Exception e) {
+			System.out.println("There was an error: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Parses the specified command line arguments
+	 * @param args
+	 * @return the benchmark
+	 * @throws Exception if an option is unknown or is missing its value
+	 */
+	public static ScalingBenchmark parse(String[] args) throws Exception {
+		ScalingBenchmark benchmark = new ScalingBenchmark();
+
+		for (int i = 0; i < args.length; i++) {
+			String arg = args[i];
+			if (!arg.startsWith("-")) {
+				benchmark.destination = arg;
+				continue;
+			}
+			if (i + 1 >= args.length) {
+				throw new Exception("Option " + arg + " is missing its value.");
+			}
+			String value = args[++i];
+			switch (arg) {
+			case "-counts":
+				benchmark.counts = parseInts(value);
+				break;
+			case "-solvers":
+				benchmark.solverNames = value.split(",");
+				break;
+			case "-integrators":
+				benchmark.integratorNames = value.split(",");
+				break;
+			case "-threads":
+				benchmark.threads = parseInts(value);
+				break;
+			case "-model":
+				benchmark.modelName = value;
+				break;
+			case "-seed":
+				benchmark.seed = Long.parseLong(value);
+				break;
+			case "-dt":
+				benchmark.timeStep = Double.parseDouble(value);
+				break;
+			case "-time":
+				benchmark.interval = Double.parseDouble(value);
+				break;
+			case "-maxseconds":
+				benchmark.maxSeconds = Double.parseDouble(value);
+				break;
+			case "-maxdirect":
+				benchmark.maxDirect = Integer.parseInt(value);
+				break;
+			default:
+				throw new Exception("Unknown option " + arg);
+			}
+		}
+
+		return benchmark;
+	}
+
+	/**
+	 * Runs every combination and writes the results after each run
+	 * @throws Exception if a solver or integrator is unknown, a world can not
+	 * be generated or the destination can not be written
+	 */
+	public void run() throws Exception {
+		System.out.println(String.format("%9s %-16s %-10s %7s %7s %12s %12s %12s %12s",
+				"particles", "solver", "integrator", "threads", "steps", "steps/s",
+				"peak heap MB", "energy drift", "mom. drift"));
+
+		for (int count : counts) {
+			WorldGenerator generator = new WorldGenerator();
+			generator.setCount(count);
+			generator.setSeed(seed);
+			generator.setModelName(modelName);
+			ParticleStore initial = generator.generate();
+
+			for (String solverName : solverNames) {
+				boolean exact = !solverName.equals(BarnesHutForceSolver.NAME);
+				if (exact && count > maxDirect) {
+					System.out.println("Skipped " + solverName + " with " + count
+							+ " particles, more than -maxdirect");
+					continue;
+				}
+				//only the parallel solver uses more than one thread
+				int[] solverThreads = solverName.equals(ParallelDirectForceSolver.NAME)
+						? threads : new int[] {1};
+				for (String integratorName : integratorNames) {
+					for (int threadCount : solverThreads) {
+						SimulationOptions options = new SimulationOptions();
+						options.setSolverName(solverName);
+						options.setIntegratorName(integratorName);
+						options.setThreads(threadCount);
+						options.setTimeStep(timeStep);
+
+						Run run = measure(initial, options);
+						runs.add(run);
+						System.out.println(String.format("%9d %-16s %-10s %7d %7d %12.3f %12.1f %12.3e %12.3e",
+								run.particles, run.solver, run.integrator, run.threads, run.steps,
+								run.stepsPerSecond, run.peakHeapBytes / 1e6, run.energyDrift,
+								run.momentumDrift));
+						write();
+					}
+				}
+			}
+		}
+		System.out.println("Results written to " + destination);
+	}
+
+	/**
+	 * Runs a copy of the initial world with the options for the simulated
+	 * interval, or until it took maxSeconds
+	 * @param initial
+	 * @param options
+	 * @return
+	 * @throws Exception if the options name an unknown component
+	 */
+	private Run measure(ParticleStore initial, SimulationOptions options) throws Exception {
+		ParticleStore store = new ParticleStore(initial.size());
+		initial.copyInto(store);
+		World world = new World();
+		world.setRecording(false);
+		options.configure(world);
+		world.setDiagnosticsEnabled(true);
+		world.setStore(store);
+
+		Diagnostics start = calculateDiagnostics(store, options.createForceSolver());
+		double momentumScale = getMomentumScale(start);
+
+		long steps = (long) Math.ceil(interval / timeStep);
+		long maxNanos = (long) (maxSeconds * 1e9);
+		System.gc();
+		List<MemoryPoolMXBean> pools = getHeapPools();
+		for (MemoryPoolMXBean pool : pools) {
+			pool.resetPeakUsage();
+		}
+
+		long startNanos = System.nanoTime();
+		long step = 0;
+		//always run one step, so there are diagnostics to compare with
+		while (step < steps && (step == 0 || System.nanoTime() - startNanos < maxNanos)) {
+			world.step();
+			step++;
+		}
+		long nanos = System.nanoTime() - startNanos;
+		shutdown(world.getForceSolver());
+
+		long peakHeap = 0;
+		for (MemoryPoolMXBean pool : pools) {
+			peakHeap += pool.getPeakUsage().getUsed();
+		}
+
+		Diagnostics end = world.getDiagnostics();
+		Run run = new Run();
+		run.particles = store.size();
+		run.solver = options.getSolverName();
+		run.integrator = options.getIntegratorName();
+		run.threads = options.getThreads();
+		run.steps = step;
+		run.completed = step == steps;
+		run.simulatedTime = world.getTime();
+		run.wallSeconds = nanos / 1e9;
+		run.stepsPerSecond = step / run.wallSeconds;
+		run.secondsPerStep = step > 0 ? run.wallSeconds / step : Double.NaN;
+		run.peakHeapBytes = peakHeap;
+		if (!run.completed) {
+			run.energyDrift = Double.NaN;
+			run.momentumDrift = Double.NaN;
+			return run;
+		}
+		run.energyDrift = Math.abs((end.getTotalEnergy() - start.getTotalEnergy())
+				/ start.getTotalEnergy());
+		double momentumX = end.getTotalMomentum().getX() - start.getTotalMomentum().getX();
+		double momentumY = end.getTotalMomentum().getY() - start.getTotalMomentum().getY();
+		double momentumZ = end.getTotalMomentum().getZ() - start.getTotalMomentum().getZ();
+		run.momentumDrift = Math.sqrt(momentumX * momentumX + momentumY * momentumY
+				+ momentumZ * momentumZ) / momentumScale;
+		return run;
+	}
+
+	/**
+	 * Calculates the diagnostics of the initial state on a copy of the store,
+	 * with the potential energy of the specified solver
+	 * @param store
+	 * @param solver
+	 * @return
+	 */
+	private static Diagnostics calculateDiagnostics(ParticleStore store, ForceSolver solver) {
+		ParticleStore copy = new ParticleStore(store.size());
+		store.copyInto(copy);
+		solver.setPotentialEnergyEnabled(true);
+		solver.calculateForces(copy);
+		shutdown(solver);
+		Diagnostics diagnostics = new Diagnostics();
+		diagnostics.calculate(copy, 0, 0);
+		return diagnostics;
+	}
+
+	/**
+	 * Stops the threads of a parallel solver once its run is done
+	 * @param solver
+	 */
+	private static void shutdown(ForceSolver solver) {
+		if (solver instanceof ParallelDirectForceSolver) {
+			((ParallelDirectForceSolver) solver).shutdown();
+		}
+	}
+
+	/**
+	 * Returns the momentum the drift of the total momentum is measured
+	 * against, since the total itself is about zero for a world centered on
+	 * its center of mass: the total mass moving at the speed that has the 
+	 * magnitude of the total energy as kinetic energy, sqrt(2 * |E| * M)
+	 * @param diagnostics of the initial state
+	 * @return
+	 */
+	private static double getMomentumScale(Diagnostics diagnostics) {
+		return Math.sqrt(2 * Math.abs(diagnostics.getTotalEnergy()) * diagnostics.getTotalMass());
+	}
+
+	private static List<MemoryPoolMXBean> getHeapPools() {
+		List<MemoryPoolMXBean> pools = new ArrayList<MemoryPoolMXBean>();
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP) {
+				pools.add(pool);
+			}
+		}
+		return pools;
+	}
+
+	/**
+	 * Writes the settings and every finished run to the destination
+	 * @throws IOException if the destination can not be written
+	 */
+	private void write() throws IOException {
+		StringBuilder builder = new StringBuilder();
+		builder.append("{\n");
+		appendField(builder, "  ", "date", Instant.now().toString(), true);
+		appendField(builder, "  ", "java", System.getProperty("java.version"), true);
+		appendField(builder, "  ", "processors", Runtime.getRuntime().availableProcessors(), true);
+		appendField(builder, "  ", "maxHeapBytes", Runtime.getRuntime().maxMemory(), true);
+		appendField(builder, "  ", "model", modelName, true);
+		appendField(builder, "  ", "seed", seed, true);
+		appendField(builder, "  ", "timeStep", timeStep, true);
+		appendField(builder, "  ", "interval", interval, true);
+		appendField(builder, "  ", "maxSeconds", maxSeconds, true);
+		builder.append("  \"runs\": [\n");
+		for (int i = 0; i < runs.size(); i++) {
+			runs.get(i).append(builder);
+			builder.append(i + 1 < runs.size() ? ",\n" : "\n");
+		}
+		builder.append("  ]\n");
+		builder.append("}\n");
+
+		PrintWriter out = new PrintWriter(destination, "UTF-8");
+		try {
+			out.print(builder);
+		} finally {
+			out.close();
+		}
+		if (out.checkError()) {
+			throw new IOException("Could not write " + destination);
+		}
+	}
+
+	/**
+	 * Appends a JSON member on a line of its own
+	 * @param builder
+	 * @param indent
+	 * @param name
+	 * @param value a String, a Number or a Boolean. Numbers that are not
+	 * finite are written as null, which is the closest JSON has.
+	 * @param more whether another member follows
+	 */
+	private static void appendField(StringBuilder builder, String indent, String name,
+			Object value, boolean more) {
+		builder.append(indent).append('"').append(name).append("\": ");
+		if (value instanceof String) {
+			builder.append('"');
+			String text = (String) value;
+			for (int i = 0; i < text.length(); i++) {
+				char c = text.charAt(i);
+				if (c == '"' || c == '\\') {
+					builder.append('\\').append(c);
+				}
+				else if (c < ' ') {
+					builder.append(String.format("\\u%04x", (int) c));
+				}
+				else {
+					builder.append(c);
+				}
+			}
+			builder.append('"');
+		}
+		else if (value instanceof Double && !Double.isFinite((Double) value)) {
+			builder.append("null");
+		}
+		else {
+			builder.append(value);
+		}
+		builder.append(more ? ",\n" : "\n");
+	}
+
+	private static int[] parseInts(String value) {
+		String[] fields = value.split(",");
+		int[] ints = new int[fields.length];
+		for (int i = 0; i < fields.length; i++) {
+			ints[i] = Integer.parseInt(fields[i].trim());
+		}
+		return ints;
+	}
+
+	private static int[] createDefaultThreads() {
+		int processors = Runtime.getRuntime().availableProcessors();
+		return processors > 1 ? new int[] {1, processors} : new int[] {1};
+	}
+
+	/**
+	 * Results of one combination
+	 */
+	private static class Run {
+		private int particles;
+		private String solver;
+		private String integrator;
+		private int threads;
+		private long steps;
+		private boolean completed;
+		private double simulatedTime;
+		private double wallSeconds;
+		private double stepsPerSecond;
+		private double secondsPerStep;
+		private long peakHeapBytes;
+		private double energyDrift;
+		private double momentumDrift;
+
+		private void append(StringBuilder builder) {
+			String indent = "      ";
+			builder.append("    {\n");
+			appendField(builder, indent, "particles", particles, true);
+			appendField(builder, indent, "solver", solver, true);
+			appendField(builder, indent, "integrator", integrator, true);
+			appendField(builder, indent, "threads", threads, true);
+			appendField(builder, indent, "steps", steps, true);
+			appendField(builder, indent, "completed", completed, true);
+			appendField(builder, indent, "simulatedTime", simulatedTime, true);
+			appendField(builder, indent, "wallSeconds", wallSeconds, true);
+			appendField(builder, indent, "stepsPerSecond", stepsPerSecond, true);
+			appendField(builder, indent, "secondsPerStep", secondsPerStep, true);
+			appendField(builder, indent, "peakHeapBytes", peakHeapBytes, true);
+			appendField(builder, indent, "energyDrift", energyDrift, true);
+			appendField(builder, indent, "momentumDrift", momentumDrift, false);
+			builder.append("    }");
+		}
+	}
+}
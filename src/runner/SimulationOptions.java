@@ -0,0 +1,340 @@
+package runner;
+
+import collision.AllPairsBroadPhase;
+import collision.BroadPhase;
+import collision.SpatialHashBroadPhase;
+import collision.SweepAndPruneBroadPhase;
+import helper.Checkpoint;
+import helper.ParticleFileParser;
+import helper.Recorder;
+import integrator.BlockTimestepIntegrator;
+import integrator.EulerIntegrator;
+import integrator.Integrator;
+import integrator.LeapfrogIntegrator;
+import integrator.YoshidaIntegrator;
+import metrics.StepMetrics;
+import solver.BarnesHutForceSolver;
+import solver.CartesianForceKernel;
+import solver.DirectForceSolver;
+import solver.ForceKernel;
+import solver.ForceKernels;
+import solver.ForceSolver;
+import solver.ParallelDirectForceSolver;
+import solver.SphericalForceKernel;
+import world.World;
+
+/**
+ * Parses the command line arguments shared by the simulation programs.
+ * The first argument that is not an option is the pathname of the config file,
+ * the second one is the pathname of the recording. A config file ending with
+ * {@link Checkpoint#EXTENSION} continues the run that saved the checkpoint.
+ * Options:<br>
+ * 	-solver direct|parallel-direct|barnes-hut (default direct)<br>
+ * 	-kernel cartesian|spherical|vector pair force kernel of the direct solvers (default cartesian),
+ * 	vector falls back to cartesian if the Vector API module is not enabled<br>
+ * 	-theta opening angle of the barnes-hut solver (default 0.5)<br>
+ * 	-broadphase spatial-hash|sweep-and-prune|all-pairs collision broad phase (default spatial-hash)<br>
+ * 	-integrator euler|leapfrog|yoshida|block (default euler)<br>
+ * 	-levels number of time step levels of the block integrator (default 10)<br>
+ * 	-eta accuracy of the time step criterion of the block integrator (default 0.02)<br>
+ * 	-dt length of a cycle in seconds (default 100)<br>
+ * 	-threads number of threads of the parallel solvers (default all processors)<br>
+ * 	-recordqueue number of recorded frames that can wait to be written (default 8)<br>
+ * 	-recordpolicy block|drop|coalesce what to do when the recording queue is full (default block)<br>
+ * 	-steps number of cycles the headless simulator runs<br>
+ * 	-time simulated time in seconds the headless simulator runs<br>
+ * 	-checkpoint pathname the exact state is saved to now and then<br>
+ * 	-checkpointinterval wall time in seconds between checkpoints (default 600)<br>
+ * 	-metrics pathname of a CSV file the time of each phase of the cycles is written to at exit
+ * @author Matthew Zane
+ *
+ */
+public class SimulationOptions {
+	private String pathname;
+	private String destination;
+	private String solverName = DirectForceSolver.NAME;
+	private String kernelName = CartesianForceKernel.NAME;
+	private double openingAngle = BarnesHutForceSolver.DEFAULT_OPENING_ANGLE;
+	private String broadPhaseName = SpatialHashBroadPhase.NAME;
+	private String integratorName = EulerIntegrator.NAME;
+	private double timeStep = World.MIN_TIME_INTERVAL;
+	private int levels = BlockTimestepIntegrator.DEFAULT_LEVELS;
+	private double eta = BlockTimestepIntegrator.DEFAULT_ETA;
+	private int threads = Runtime.getRuntime().availableProcessors();
+	private int recordQueue = Recorder.DEFAULT_CAPACITY;
+	private Recorder.Policy recordPolicy = Recorder.Policy.BLOCK;
+	private long steps = -1;
+	private double duration = -1;
+	private String checkpointPathname;
+	private double checkpointInterval = Checkpoint.DEFAULT_INTERVAL;
+	private String metricsPathname;
+
+	public String getPathname() { return pathname; }
+	public String getDestination() { return destination; }
+	public String getSolverName() { return solverName; }
+	public String getKernelName() { return kernelName; }
+	public double getOpeningAngle() { return openingAngle; }
+	public String getBroadPhaseName() { return broadPhaseName; }
+	public String getIntegratorName() { return integratorName; }
+	public double getTimeStep() { return timeStep; }
+	public int getLevels() { return levels; }
+	public double getEta() { return eta; }
+	public int getThreads() { return threads; }
+	public int getRecordQueue() { return recordQueue; }
+	public Recorder.Policy getRecordPolicy() { return recordPolicy; }
+	public long getSteps() { return steps; }
+	public double getDuration() { return duration; }
+	public String getCheckpointPathname() { return checkpointPathname; }
+	public double getCheckpointInterval() { return checkpointInterval; }
+	public String getMetricsPathname() { return metricsPathname; }
+
+	public void setPathname(String pathnameIn) { pathname = pathnameIn; }
+	public void setDestination(String destinationIn) { destination = destinationIn; }
+	public void setSolverName(String solverNameIn) { solverName = solverNameIn; }
+	public void setKernelName(String kernelNameIn) { kernelName = kernelNameIn; }
+	public void setOpeningAngle(double openingAngleIn) { openingAngle = openingAngleIn; }
+	public void setBroadPhaseName(String broadPhaseNameIn) { broadPhaseName = broadPhaseNameIn; }
+	public void setIntegratorName(String integratorNameIn) { integratorName = integratorNameIn; }
+	public void setTimeStep(double timeStepIn) { timeStep = timeStepIn; }
+	public void setLevels(int levelsIn) { levels = levelsIn; }
+	public void setEta(double etaIn) { eta = etaIn; }
+	public void setThreads(int threadsIn) { threads = threadsIn; }
+	public void setRecordQueue(int recordQueueIn) { recordQueue = recordQueueIn; }
+	public void setRecordPolicy(Recorder.Policy recordPolicyIn) { recordPolicy = recordPolicyIn; }
+	public void setSteps(long stepsIn) { steps = stepsIn; }
+	public void setDuration(double durationIn) { duration = durationIn; }
+	public void setCheckpointPathname(String checkpointPathnameIn) { 
+		checkpointPathname = checkpointPathnameIn; 
+	}
+	public void setCheckpointInterval(double checkpointIntervalIn) { 
+		checkpointInterval = checkpointIntervalIn; 
+	}
+	public void setMetricsPathname(String metricsPathnameIn) { metricsPathname = metricsPathnameIn; }
+
+	/**
+	 * Parses the specified command line arguments
+	 * @param args
+	 * @return the parsed options
+	 * @throws Exception if an option is unknown or is missing its value
+	 */
+	public static SimulationOptions parse(String[] args) throws Exception {
+		SimulationOptions options = new SimulationOptions();
+
+		for (int i = 0; i < args.length; i++) {
+			String arg = args[i];
+			if (!arg.startsWith("-")) {
+				if (options.pathname == null) {
+					options.pathname = arg;
+				}
+				else if (options.destination == null) {
+					options.destination = arg;
+				}
+				continue;
+			}
+			if (i + 1 >= args.length) {
+				throw new Exception("Option " + arg + " is missing its value.");
+			}
+			String value = args[++i];
+			switch (arg) {
+			case "-solver":
+				options.solverName = value;
+				break;
+			case "-kernel":
+				options.kernelName = value;
+				break;
+			case "-theta":
+				options.openingAngle = Double.parseDouble(value);
+				break;
+			case "-broadphase":
+				options.broadPhaseName = value;
+				break;
+			case "-integrator":
+				options.integratorName = value;
+				break;
+			case "-dt":
+				options.timeStep = Double.parseDouble(value);
+				break;
+			case "-levels":
+				options.levels = Integer.parseInt(value);
+				break;
+			case "-eta":
+				options.eta = Double.parseDouble(value);
+				break;
+			case "-threads":
+				options.threads = Integer.parseInt(value);
+				break;
+			case "-recordqueue":
+				options.recordQueue = Integer.parseInt(value);
+				break;
+			case "-recordpolicy":
+				try {
+					options.recordPolicy = Recorder.Policy.valueOf(value.toUpperCase());
+				} catch (IllegalArgumentException e) {
+					throw new Exception("Unknown record policy " + value);
+				}
+				break;
+			case "-steps":
+				options.steps = Long.parseLong(value);
+				break;
+			case "-time":
+				options.duration = Double.parseDouble(value);
+				break;
+			case "-checkpoint":
+				options.checkpointPathname = value;
+				break;
+			case "-checkpointinterval":
+				options.checkpointInterval = Double.parseDouble(value);
+				break;
+			case "-metrics":
+				options.metricsPathname = value;
+				break;
+			default:
+				throw new Exception("Unknown option " + arg);
+			}
+		}
+
+		return options;
+	}
+
+	/**
+	 * Creates the force solver chosen with -solver
+	 * @return
+	 * @throws Exception if there is no solver with that name
+	 */
+	public ForceSolver createForceSolver() throws Exception {
+		switch (solverName) {
+		case DirectForceSolver.NAME:
+			return new DirectForceSolver(createForceKernel());
+		case ParallelDirectForceSolver.NAME:
+			return new ParallelDirectForceSolver(createForceKernel(), threads);
+		case BarnesHutForceSolver.NAME:
+			return new BarnesHutForceSolver(openingAngle);
+		default:
+			throw new Exception("Unknown solver " + solverName);
+		}
+	}
+
+	/**
+	 * Creates the pair force kernel chosen with -kernel
+	 * @return
+	 * @throws Exception if there is no kernel with that name
+	 */
+	public ForceKernel createForceKernel() throws Exception {
+		switch (kernelName) {
+		case CartesianForceKernel.NAME:
+			return new CartesianForceKernel();
+		case SphericalForceKernel.NAME:
+			return new SphericalForceKernel();
+		case "vector":
+			return ForceKernels.createVectorKernel();
+		default:
+			throw new Exception("Unknown kernel " + kernelName);
+		}
+	}
+
+	/**
+	 * Creates the collision broad phase chosen with -broadphase
+	 * @return
+	 * @throws Exception if there is no broad phase with that name
+	 */
+	public BroadPhase createBroadPhase() throws Exception {
+		switch (broadPhaseName) {
+		case SpatialHashBroadPhase.NAME:
+			return new SpatialHashBroadPhase();
+		case SweepAndPruneBroadPhase.NAME:
+			return new SweepAndPruneBroadPhase();
+		case AllPairsBroadPhase.NAME:
+			return new AllPairsBroadPhase();
+		default:
+			throw new Exception("Unknown broad phase " + broadPhaseName);
+		}
+	}
+
+	/**
+	 * Creates the integrator chosen with -integrator
+	 * @return
+	 * @throws Exception if there is no integrator with that name
+	 */
+	public Integrator createIntegrator() throws Exception {
+		switch (integratorName) {
+		case EulerIntegrator.NAME:
+			return new EulerIntegrator();
+		case LeapfrogIntegrator.NAME:
+			return new LeapfrogIntegrator();
+		case YoshidaIntegrator.NAME:
+			return new YoshidaIntegrator();
+		case BlockTimestepIntegrator.NAME:
+			return new BlockTimestepIntegrator(levels, eta);
+		default:
+			throw new Exception("Unknown integrator " + integratorName);
+		}
+	}
+
+	/**
+	 * Creates an asynchronous recorder with the queue size and policy of the
+	 * options
+	 * @param pathname file to record to
+	 * @param append whether to keep the current contents of the file
+	 * @return
+	 * @throws Exception if the file can not be opened
+	 */
+	public Recorder createRecorder(String pathname, boolean append) throws Exception {
+		return new Recorder(pathname, append, recordQueue, recordPolicy);
+	}
+
+	/**
+	 * Creates the checkpoint chosen with -checkpoint
+	 * @return the checkpoint, or null if none was chosen
+	 */
+	public Checkpoint createCheckpoint() {
+		if (checkpointPathname == null) {
+			return null;
+		}
+		return new Checkpoint(checkpointPathname, checkpointInterval);
+	}
+
+	/**
+	 * Creates the metrics chosen with -metrics
+	 * @return the metrics, or null if none were chosen
+	 */
+	public StepMetrics createMetrics() {
+		if (metricsPathname == null) {
+			return null;
+		}
+		return new StepMetrics(metricsPathname);
+	}
+
+	/**
+	 * Loads the World to run from a config file and applies the options to
+	 * it. A checkpoint restores the exact state of the run that saved it,
+	 * including its time step, anything else loads its last world.
+	 * @param pathname of the config file
+	 * @return the World, or null if the config file holds no world
+	 * @throws Exception if the config file can not be read
+	 */
+	public World loadWorld(String pathname) throws Exception {
+		if (Checkpoint.isCheckpoint(pathname)) {
+			World world = new World();
+			configure(world);
+			Checkpoint.restore(pathname, world);
+			return world;
+		}
+		World world = ParticleFileParser.parseLastWorld(pathname);
+		if (world != null) {
+			configure(world);
+		}
+		return world;
+	}
+
+	/**
+	 * Applies the options to the specified World
+	 * @param world
+	 * @throws Exception
+	 */
+	public void configure(World world) throws Exception {
+		world.setForceSolver(createForceSolver());
+		world.setBroadPhase(createBroadPhase());
+		world.setIntegrator(createIntegrator());
+		world.setTimeStep(timeStep);
+	}
+}
@@ -0,0 +1,101 @@
+package runner;
+
+import java.io.File;
+import java.util.Arrays;
+
+import helper.ParticleFileParser;
+import solver.BarnesHutForceSolver;
+import solver.DirectForceSolver;
+import solver.ForceSolver;
+import world.ParticleStore;
+
+/**
+ * Cross checks a force solver against the exact direct sum on every config 
+ * file of a directory and prints the relative error of the force on the 
+ * particles of each file.<br>
+ * <br>
+ * How to use:<br>
+ * 	SolverComparison [directory] [-solver name] [-theta value]<br>
+ * The directory defaults to configFiles and the solver to barnes-hut.
+ * @author Matthew Zane
+ *
+ */
+public class SolverComparison {
+	private static final String DEFAULT_DIRECTORY = "configFiles";
+
+	public static void main(String[] args) {
+		try {
+			SimulationOptions options = SimulationOptions.parse(args);
+			if (options.getPathname() == null) {
+				options.setPathname(DEFAULT_DIRECTORY);
+			}
+			if (!Arrays.asList(args).contains("-solver")) {
+				options.setSolverName(BarnesHutForceSolver.NAME);
+			}
+
+			File[] files = new File(options.getPathname()).listFiles();
+			if (files == null) {
+				throw new Exception("Directory " + options.getPathname() + " does not exist.");
+			}
+			Arrays.sort(files);
+
+			System.out.println(String.format("%-28s %8s %14s %14s", "file", "particles",
+					"max error", "rms error"));
+			for (File file : files) {
+				if (!file.getName().endsWith(".txt")) {
+					continue;
+				}
+				ParticleStore particles = ParticleFileParser.parseParticleStore(file.getPath());
+				if (particles.size() < 2) {
+					System.out.println(String.format("%-28s %8d %14s %14s", file.getName(),
+							particles.size(), "skipped", ""));
+					continue;
+				}
+
+				double[] errors = compare(particles,
+						new DirectForceSolver(), options.createForceSolver());
+				System.out.println(String.format("%-28s %8d %14.3e %14.3e", file.getName(),
+						particles.size(), errors[0], errors[1]));
+			}
+		} catch (Exception e) {
+			System.out.println("There was an error: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Calculates the forces of the store with both solvers and compares them
+	 * @param store
+	 * @param reference solver assumed to be exact
+	 * @param solver solver to check
+	 * @return the maximum and the root mean square of the relative error
+	 * of the force on each particle
+	 */
+	public static double[] compare(ParticleStore store, ForceSolver reference, 
+			ForceSolver solver) {
+		ParticleStore expected = new ParticleStore(store.size());
+		ParticleStore actual = new ParticleStore(store.size());
+		store.copyInto(expected);
+		store.copyInto(actual);
+		reference.calculateForces(expected);
+		solver.calculateForces(actual);
+
+		double maxError = 0;
+		double squaredErrorSum = 0;
+		for (int i = 0; i < store.size(); i++) {
+			double errorX = actual.forceX[i] - expected.forceX[i];
+			double errorY = actual.forceY[i] - expected.forceY[i];
+			double errorZ = actual.forceZ[i] - expected.forceZ[i];
+			double magnitude = Math.sqrt(expected.forceX[i] * expected.forceX[i]
+					+ expected.forceY[i] * expected.forceY[i]
+					+ expected.forceZ[i] * expected.forceZ[i]);
+			double error = Math.sqrt(errorX * errorX + errorY * errorY + errorZ * errorZ);
+			if (magnitude > 0) {
+				error /= magnitude;
+			}
+			maxError = Math.max(maxError, error);
+			squaredErrorSum += error * error;
+		}
+
+		return new double[] {maxError, Math.sqrt(squaredErrorSum / store.size())};
+	}
+}
@@ -0,0 +1,78 @@
+package runner;
+
+import java.io.File;
+
+import helper.TrajectoryFormat;
+import helper.TrajectoryReader;
+import helper.TrajectoryWriter;
+import helper.UniverseReader;
+import world.ParticleStore;
+
+/**
+ * Converts a text recording into the binary recording format, one world at
+ * a time, and reports the size of both and how long reading each took.<br>
+ * <br>
+ * How to use:<br>
+ * 	TrajectoryConverter source destination [-float] [-uncompressed]<br>
+ * -float stores floats instead of doubles, -uncompressed skips Deflate.
+ * The destination should end with {@link TrajectoryFormat#EXTENSION}.
+ * @author Matthew Zane
+ *
+ */
+public class TrajectoryConverter {
+	public static void main(String[] args) {
+		try {
+			String source = null;
+			String destination = null;
+			boolean floats = false;
+			boolean deflate = true;
+			for (String arg : args) {
+				if (arg.equals("-float")) {
+					floats = true;
+				}
+				else if (arg.equals("-uncompressed")) {
+					deflate = false;
+				}
+				else if (source == null) {
+					source = arg;
+				}
+				else {
+					destination = arg;
+				}
+			}
+			if (source == null || destination == null) {
+				throw new Exception("A source and a destination have to be given.");
+			}
+
+			//convert one world at a time
+			long start = System.nanoTime();
+			UniverseReader universe = new UniverseReader(source);
+			TrajectoryWriter writer = new TrajectoryWriter(destination, floats, deflate);
+			while (universe.hasNext()) {
+				ParticleStore world = universe.next();
+				writer.write(world, universe.getTime(), universe.getCount() - 1);
+			}
+			writer.close();
+			universe.close();
+			double convertSeconds = (System.nanoTime() - start) / 1e9;
+
+			start = System.nanoTime();
+			TrajectoryReader reader = new TrajectoryReader(destination);
+			ParticleStore store = new ParticleStore();
+			int frames = 0;
+			while (reader.next(store)) {
+				frames++;
+			}
+			reader.close();
+			double binarySeconds = (System.nanoTime() - start) / 1e9;
+
+			System.out.println("Frames: " + frames);
+			System.out.println(String.format("Text:   %,d bytes, converted in %.3f s", 
+					new File(source).length(), convertSeconds));
+			System.out.println(String.format("Binary: %,d bytes, loaded in %.3f s", 
+					new File(destination).length(), binarySeconds));
+		} catch (Exception e) {
+			System.out.println("There was an error: " + e.getMessage());
+		}
+	}
+}
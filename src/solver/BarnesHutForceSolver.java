@@ -0,0 +1,537 @@
+package solver;
+
+import java.util.Arrays;
+
+import world.ParticleStore;
+import world.World;
+
+/**
+ * Approximate solver that groups distant particles using an octree.
+ * Every node of the tree keeps the total mass and center of mass as well
+ * as the total charge and center of charge of the particles inside of it.
+ * A node that appears smaller than the opening angle, measured as
+ * node width / distance, is treated as a single particle. Otherwise the node
+ * is opened and its children are visited. Leaves are summed exactly.
+ * A step costs about n log n force calculations instead of n^2.
+ * <br>
+ * The tree is stored as parallel arrays which are reused between steps.
+ * When only some particles are active, as between the steps of the block
+ * time step integrator, the tree of the last full build is kept and only
+ * the masses, charges and their centers of its nodes are recalculated from
+ * the moved particles. The tree is built again whenever every particle is
+ * active, so it is never older than one cycle.
+ * @author Matthew Zane
+ *
+ */
+public class BarnesHutForceSolver implements ForceSolver {
+	public static final String NAME = "barnes-hut";
+
+	/**
+	 * Opening angle used if none is specified. 0.5 keeps the relative error
+	 * of the force on a particle below about 1%.
+	 */
+	public static final double DEFAULT_OPENING_ANGLE = 0.5;
+
+	/**
+	 * Maximum number of particles a leaf holds before being split
+	 */
+	private static final int LEAF_CAPACITY = 8;
+
+	/**
+	 * Leaves this deep are never split, so particles at the same position
+	 * do not split the tree forever
+	 */
+	private static final int MAX_DEPTH = 48;
+
+	private double openingAngle;
+
+	private int nodeCount;
+
+	/**
+	 * Index of the first of the eight consecutive children of a node,
+	 * or -1 if the node is a leaf
+	 */
+	private int[] firstChild = new int[0];
+
+	/**
+	 * Index of the first particle of a leaf, or -1 if it is empty.
+	 * The rest are found through nextParticle.
+	 */
+	private int[] firstParticle = new int[0];
+	private int[] particleCount = new int[0];
+	private int[] depth = new int[0];
+
+	/**
+	 * Parent of each node, or -1 for the root
+	 */
+	private int[] parent = new int[0];
+
+	/**
+	 * Whether the node contains the particle whose forces are calculated.
+	 * A kept tree is not rebuilt after the particles move, so a particle can
+	 * be outside of the cube of a node it is in.
+	 */
+	private boolean[] onPath = new boolean[0];
+
+	/**
+	 * Center and half of the width of the cube of each node
+	 */
+	private double[] centerX = new double[0];
+	private double[] centerY = new double[0];
+	private double[] centerZ = new double[0];
+	private double[] halfWidth = new double[0];
+
+	private double[] nodeMass = new double[0];
+	private double[] massCenterX = new double[0];
+	private double[] massCenterY = new double[0];
+	private double[] massCenterZ = new double[0];
+
+	private double[] nodeCharge = new double[0];
+	private double[] chargeCenterX = new double[0];
+	private double[] chargeCenterY = new double[0];
+	private double[] chargeCenterZ = new double[0];
+
+	/**
+	 * Average radius of the particles of each node, used for the surface
+	 * distance of the electric force
+	 */
+	private double[] averageRadius = new double[0];
+
+	/**
+	 * Next particle in the same leaf, or -1
+	 */
+	private int[] nextParticle = new int[0];
+
+	/**
+	 * Leaf of each particle
+	 */
+	private int[] leaf = new int[0];
+
+	/**
+	 * Store the tree was last built for, and its size then
+	 */
+	private ParticleStore treeStore;
+	private int treeSize;
+
+	private int[] stack = new int[64];
+
+	private long interactionCount;
+
+	private boolean potentialEnergyEnabled;
+
+	public double getOpeningAngle() { return openingAngle; }
+	public long getInteractionCount() { return interactionCount; }
+	public boolean isPotentialEnergyEnabled() { return potentialEnergyEnabled; }
+	public String getName() { return NAME; }
+
+	public void setPotentialEnergyEnabled(boolean enabled) { potentialEnergyEnabled = enabled; }
+
+	/**
+	 * Sets the opening angle. Must be greater than or equal to zero, zero
+	 * opens every node and gives the exact result.
+	 * Silently ignores invalid values.
+	 * @param openingAngleIn
+	 */
+	public void setOpeningAngle(double openingAngleIn) {
+		if (openingAngleIn >= 0.0) {
+			openingAngle = openingAngleIn;
+		}
+	}
+
+	public BarnesHutForceSolver() {
+		this(DEFAULT_OPENING_ANGLE);
+	}
+
+	public BarnesHutForceSolver(double openingAngleIn) {
+		openingAngle = DEFAULT_OPENING_ANGLE;
+		setOpeningAngle(openingAngleIn);
+	}
+
+	public void calculateForces(ParticleStore store) {
+		store.clearForces();
+		if (store.size() == 0) {
+			return;
+		}
+
+		buildTree(store);
+		calculateAggregates(store);
+
+		for (int i = 0; i < store.size(); i++) {
+			addForces(store, i);
+		}
+	}
+
+	/**
+	 * Walks the tree only for the active particles. The tree is built again
+	 * if every particle is active or it belongs to another store, otherwise
+	 * the tree of the last build is refitted to the current positions.
+	 */
+	public void calculateForces(ParticleStore store, int[] active, int activeCount) {
+		if (activeCount == 0) {
+			return;
+		}
+
+		if (activeCount == store.size() || store != treeStore || store.size() != treeSize) {
+			buildTree(store);
+		}
+		calculateAggregates(store);
+
+		for (int a = 0; a < activeCount; a++) {
+			addForces(store, active[a]);
+		}
+	}
+
+	/**
+	 * Builds the octree of all particles of the store, starting with a root
+	 * cube that contains every particle
+	 * @param store
+	 */
+	private void buildTree(ParticleStore store) {
+		int size = store.size();
+		if (nextParticle.length < size) {
+			nextParticle = new int[size];
+			leaf = new int[size];
+		}
+		treeStore = store;
+		treeSize = size;
+
+		double minX = Double.POSITIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY;
+		double minZ = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+		double maxZ = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < size; i++) {
+			minX = Math.min(minX, store.positionX[i]);
+			minY = Math.min(minY, store.positionY[i]);
+			minZ = Math.min(minZ, store.positionZ[i]);
+			maxX = Math.max(maxX, store.positionX[i]);
+			maxY = Math.max(maxY, store.positionY[i]);
+			maxZ = Math.max(maxZ, store.positionZ[i]);
+		}
+		double width = Math.max(maxX - minX, Math.max(maxY - minY, maxZ - minZ));
+
+		nodeCount = 0;
+		int root = createNode((minX + maxX) / 2, (minY + maxY) / 2, (minZ + maxZ) / 2,
+				width / 2 + World.MIN_LENGTH, -1);
+
+		for (int i = 0; i < size; i++) {
+			insert(store, root, i);
+		}
+	}
+
+	/**
+	 * Adds a particle to the leaf below the specified node that contains it,
+	 * splitting the leaf if it becomes too full
+	 * @param store
+	 * @param node node to start descending from
+	 * @param particle index of the particle
+	 */
+	private void insert(ParticleStore store, int node, int particle) {
+		while (firstChild[node] != -1) {
+			node = firstChild[node] + getOctant(store, node, particle);
+		}
+
+		nextParticle[particle] = firstParticle[node];
+		firstParticle[node] = particle;
+		particleCount[node]++;
+		leaf[particle] = node;
+
+		if (particleCount[node] > LEAF_CAPACITY && depth[node] < MAX_DEPTH) {
+			split(store, node);
+		}
+	}
+
+	/**
+	 * Turns a leaf into a node with eight children and moves its particles
+	 * into the children
+	 * @param store
+	 * @param node
+	 */
+	private void split(ParticleStore store, int node) {
+		double quarterWidth = halfWidth[node] / 2;
+		int first = -1;
+		for (int octant = 0; octant < 8; octant++) {
+			int child = createNode(
+					centerX[node] + ((octant & 1) != 0 ? quarterWidth : -quarterWidth),
+					centerY[node] + ((octant & 2) != 0 ? quarterWidth : -quarterWidth),
+					centerZ[node] + ((octant & 4) != 0 ? quarterWidth : -quarterWidth),
+					quarterWidth, node);
+			if (octant == 0) {
+				first = child;
+			}
+		}
+
+		int particle = firstParticle[node];
+		firstChild[node] = first;
+		firstParticle[node] = -1;
+		particleCount[node] = 0;
+
+		while (particle != -1) {
+			int next = nextParticle[particle];
+			insert(store, node, particle);
+			particle = next;
+		}
+	}
+
+	private int getOctant(ParticleStore store, int node, int particle) {
+		int octant = 0;
+		if (store.positionX[particle] >= centerX[node]) {
+			octant |= 1;
+		}
+		if (store.positionY[particle] >= centerY[node]) {
+			octant |= 2;
+		}
+		if (store.positionZ[particle] >= centerZ[node]) {
+			octant |= 4;
+		}
+		return octant;
+	}
+
+	/**
+	 * Calculates the mass, charge and their centers of every node. Children
+	 * are always created after their parent, so visiting the nodes backwards
+	 * visits the children first.
+	 * @param store
+	 */
+	private void calculateAggregates(ParticleStore store) {
+		for (int node = nodeCount - 1; node >= 0; node--) {
+			double mass = 0;
+			double massX = 0;
+			double massY = 0;
+			double massZ = 0;
+			double charge = 0;
+			double chargeWeight = 0;
+			double chargeX = 0;
+			double chargeY = 0;
+			double chargeZ = 0;
+			double radiusSum = 0;
+			int count = 0;
+
+			if (firstChild[node] == -1) {
+				for (int i = firstParticle[node]; i != -1; i = nextParticle[i]) {
+					double absoluteCharge = Math.abs(store.charge[i]);
+					mass += store.mass[i];
+					massX += store.mass[i] * store.positionX[i];
+					massY += store.mass[i] * store.positionY[i];
+					massZ += store.mass[i] * store.positionZ[i];
+					charge += store.charge[i];
+					chargeWeight += absoluteCharge;
+					chargeX += absoluteCharge * store.positionX[i];
+					chargeY += absoluteCharge * store.positionY[i];
+					chargeZ += absoluteCharge * store.positionZ[i];
+					radiusSum += store.radius[i];
+					count++;
+				}
+			}
+			else {
+				for (int child = firstChild[node]; child < firstChild[node] + 8; child++) {
+					int childCount = particleCount[child];
+					if (childCount == 0) {
+						continue;
+					}
+					double absoluteCharge = Math.abs(nodeCharge[child]);
+					mass += nodeMass[child];
+					massX += nodeMass[child] * massCenterX[child];
+					massY += nodeMass[child] * massCenterY[child];
+					massZ += nodeMass[child] * massCenterZ[child];
+					charge += nodeCharge[child];
+					chargeWeight += absoluteCharge;
+					chargeX += absoluteCharge * chargeCenterX[child];
+					chargeY += absoluteCharge * chargeCenterY[child];
+					chargeZ += absoluteCharge * chargeCenterZ[child];
+					radiusSum += averageRadius[child] * childCount;
+					count += childCount;
+				}
+			}
+
+			particleCount[node] = count;
+			nodeMass[node] = mass;
+			nodeCharge[node] = charge;
+			averageRadius[node] = count > 0 ? radiusSum / count : 0;
+			if (mass > 0) {
+				massCenterX[node] = massX / mass;
+				massCenterY[node] = massY / mass;
+				massCenterZ[node] = massZ / mass;
+			}
+			else {
+				massCenterX[node] = centerX[node];
+				massCenterY[node] = centerY[node];
+				massCenterZ[node] = centerZ[node];
+			}
+			if (chargeWeight > 0) {
+				chargeCenterX[node] = chargeX / chargeWeight;
+				chargeCenterY[node] = chargeY / chargeWeight;
+				chargeCenterZ[node] = chargeZ / chargeWeight;
+			}
+			else {
+				chargeCenterX[node] = massCenterX[node];
+				chargeCenterY[node] = massCenterY[node];
+				chargeCenterZ[node] = massCenterZ[node];
+			}
+		}
+	}
+
+	/**
+	 * Walks the tree and adds the forces of all other particles to the
+	 * specified particle. Distant nodes contribute the potential energy of
+	 * their center of mass.
+	 * @param store
+	 * @param particle index of the particle
+	 */
+	private void addForces(ParticleStore store, int particle) {
+		double x = store.positionX[particle];
+		double y = store.positionY[particle];
+		double z = store.positionZ[particle];
+		double openingAngleSquared = openingAngle * openingAngle;
+		double forceX = 0;
+		double forceY = 0;
+		double forceZ = 0;
+		double potential = 0;
+		long interactions = 0;
+
+		//the nodes the particle is in are never approximated, wherever it moved to
+		for (int node = leaf[particle]; node != -1; node = parent[node]) {
+			onPath[node] = true;
+		}
+
+		int top = 0;
+		stack[top++] = 0;
+		while (top > 0) {
+			int node = stack[--top];
+			if (particleCount[node] == 0) {
+				continue;
+			}
+
+			if (firstChild[node] == -1) {
+				for (int j = firstParticle[node]; j != -1; j = nextParticle[j]) {
+					if (j == particle) {
+						continue;
+					}
+					double distanceX = store.positionX[j] - x;
+					double distanceY = store.positionY[j] - y;
+					double distanceZ = store.positionZ[j] - z;
+					double distance = Math.sqrt(distanceX * distanceX
+							+ distanceY * distanceY + distanceZ * distanceZ);
+					double surfaceDistance = distance - store.radius[particle] - store.radius[j];
+					double totalForceMagnitude = World.GRAVITATIONAL_CONSTANT
+							* store.mass[particle] * store.mass[j] / (distance * distance)
+							- World.COULOMBS_LAW_CONSTANT * store.charge[particle] * store.charge[j]
+							/ (surfaceDistance * surfaceDistance);
+					double scale = totalForceMagnitude / distance;
+					forceX += scale * distanceX;
+					forceY += scale * distanceY;
+					forceZ += scale * distanceZ;
+					potential -= World.GRAVITATIONAL_CONSTANT * store.mass[particle] * store.mass[j]
+							/ distance;
+					interactions++;
+				}
+				continue;
+			}
+
+			double distanceX = massCenterX[node] - x;
+			double distanceY = massCenterY[node] - y;
+			double distanceZ = massCenterZ[node] - z;
+			double distanceSquared = distanceX * distanceX + distanceY * distanceY
+					+ distanceZ * distanceZ;
+			double width = 2 * halfWidth[node];
+
+			if (width * width < openingAngleSquared * distanceSquared && !onPath[node]
+					&& !contains(node, x, y, z)) {
+				//gravity towards the center of mass
+				double distance = Math.sqrt(distanceSquared);
+				double gravityScale = World.GRAVITATIONAL_CONSTANT * store.mass[particle]
+						* nodeMass[node] / (distanceSquared * distance);
+				forceX += gravityScale * distanceX;
+				forceY += gravityScale * distanceY;
+				forceZ += gravityScale * distanceZ;
+				potential -= gravityScale * distanceSquared;
+
+				//electric force from the center of charge
+				double chargeDistanceX = chargeCenterX[node] - x;
+				double chargeDistanceY = chargeCenterY[node] - y;
+				double chargeDistanceZ = chargeCenterZ[node] - z;
+				double chargeDistance = Math.sqrt(chargeDistanceX * chargeDistanceX
+						+ chargeDistanceY * chargeDistanceY + chargeDistanceZ * chargeDistanceZ);
+				double surfaceDistance = chargeDistance - store.radius[particle] - averageRadius[node];
+				double electricScale = World.COULOMBS_LAW_CONSTANT * store.charge[particle]
+						* nodeCharge[node] / (surfaceDistance * surfaceDistance * chargeDistance);
+				forceX -= electricScale * chargeDistanceX;
+				forceY -= electricScale * chargeDistanceY;
+				forceZ -= electricScale * chargeDistanceZ;
+				interactions++;
+			}
+			else {
+				if (top + 8 > stack.length) {
+					stack = Arrays.copyOf(stack, stack.length * 2);
+				}
+				for (int child = firstChild[node]; child < firstChild[node] + 8; child++) {
+					stack[top++] = child;
+				}
+			}
+		}
+
+		for (int node = leaf[particle]; node != -1; node = parent[node]) {
+			onPath[node] = false;
+		}
+
+		store.forceX[particle] = forceX;
+		store.forceY[particle] = forceY;
+		store.forceZ[particle] = forceZ;
+		if (potentialEnergyEnabled) {
+			store.potentialEnergy[particle] = potential;
+		}
+		interactionCount += interactions;
+	}
+
+	private boolean contains(int node, double x, double y, double z) {
+		return Math.abs(x - centerX[node]) <= halfWidth[node]
+				&& Math.abs(y - centerY[node]) <= halfWidth[node]
+				&& Math.abs(z - centerZ[node]) <= halfWidth[node];
+	}
+
+	/**
+	 * Adds an empty leaf to the tree, growing the arrays if needed
+	 * @param parentIn parent node, or -1 for the root
+	 * @return index of the new node
+	 */
+	private int createNode(double x, double y, double z, double halfWidthIn, int parentIn) {
+		if (nodeCount == firstChild.length) {
+			growNodes(Math.max(64, nodeCount * 2));
+		}
+		int node = nodeCount++;
+		firstChild[node] = -1;
+		firstParticle[node] = -1;
+		particleCount[node] = 0;
+		parent[node] = parentIn;
+		depth[node] = parentIn == -1 ? 0 : depth[parentIn] + 1;
+		onPath[node] = false;
+		centerX[node] = x;
+		centerY[node] = y;
+		centerZ[node] = z;
+		halfWidth[node] = halfWidthIn;
+		return node;
+	}
+
+	private void growNodes(int capacity) {
+		firstChild = Arrays.copyOf(firstChild, capacity);
+		firstParticle = Arrays.copyOf(firstParticle, capacity);
+		particleCount = Arrays.copyOf(particleCount, capacity);
+		depth = Arrays.copyOf(depth, capacity);
+		parent = Arrays.copyOf(parent, capacity);
+		onPath = Arrays.copyOf(onPath, capacity);
+		centerX = Arrays.copyOf(centerX, capacity);
+		centerY = Arrays.copyOf(centerY, capacity);
+		centerZ = Arrays.copyOf(centerZ, capacity);
+		halfWidth = Arrays.copyOf(halfWidth, capacity);
+		nodeMass = Arrays.copyOf(nodeMass, capacity);
+		massCenterX = Arrays.copyOf(massCenterX, capacity);
+		massCenterY = Arrays.copyOf(massCenterY, capacity);
+		massCenterZ = Arrays.copyOf(massCenterZ, capacity);
+		nodeCharge = Arrays.copyOf(nodeCharge, capacity);
+		chargeCenterX = Arrays.copyOf(chargeCenterX, capacity);
+		chargeCenterY = Arrays.copyOf(chargeCenterY, capacity);
+		chargeCenterZ = Arrays.copyOf(chargeCenterZ, capacity);
+		averageRadius = Arrays.copyOf(averageRadius, capacity);
+	}
+}
@@ -0,0 +1,150 @@
+package solver;
+
+import world.ParticleStore;
+import world.World;
+
+/**
+ * Kernel that works directly on the components of the distance between the
+ * particles. The force vector is the distance vector scaled by F / r, so a
+ * pair costs one square root and one division instead of the trigonometric
+ * functions of the spherical kernel. Gives the same forces as the spherical
+ * kernel up to rounding.
+ * @author Matthew Zane
+ *
+ */
+public class CartesianForceKernel implements ForceKernel {
+	public static final String NAME = "cartesian";
+
+	/**
+	 * Forces larger than this are reported, same as the spherical kernel
+	 */
+	static final double LARGE_FORCE = Integer.MAX_VALUE / 1000;
+
+	public String getName() { return NAME; }
+
+	public void addRow(ParticleStore store, int i, int jStart, int jEnd,
+			double[] forceX, double[] forceY, double[] forceZ, double[] potentialEnergy) {
+		double[] positionX = store.positionX;
+		double[] positionY = store.positionY;
+		double[] positionZ = store.positionZ;
+		double[] mass = store.mass;
+		double[] radius = store.radius;
+		double[] charge = store.charge;
+
+		double x = positionX[i];
+		double y = positionY[i];
+		double z = positionZ[i];
+		double gravityFactor = World.GRAVITATIONAL_CONSTANT * mass[i];
+		double electricFactor = World.COULOMBS_LAW_CONSTANT * charge[i];
+		double radiusI = radius[i];
+
+		double sumX = 0;
+		double sumY = 0;
+		double sumZ = 0;
+		double potentialSum = 0;
+
+		for (int j = jStart; j < jEnd; j++) {
+			double distanceX = positionX[j] - x;
+			double distanceY = positionY[j] - y;
+			double distanceZ = positionZ[j] - z;
+			double distanceSquared = distanceX * distanceX + distanceY * distanceY 
+					+ distanceZ * distanceZ;
+			double inverseDistance = 1 / Math.sqrt(distanceSquared);
+			double surfaceDistance = distanceSquared * inverseDistance - radiusI - radius[j];
+
+			//U = -GMm / r, F = GMm / r^2 - kQq / (r - R1 - R2)^2
+			double gravityPotential = gravityFactor * mass[j] * inverseDistance;
+			double totalForceMagnitude = gravityPotential * inverseDistance
+					- electricFactor * charge[j] / (surfaceDistance * surfaceDistance);
+
+			if (Math.abs(totalForceMagnitude) > LARGE_FORCE) {
+				reportLargeForce(totalForceMagnitude);
+			}
+
+			double scale = totalForceMagnitude * inverseDistance;
+			double pairForceX = scale * distanceX;
+			double pairForceY = scale * distanceY;
+			double pairForceZ = scale * distanceZ;
+
+			sumX += pairForceX;
+			sumY += pairForceY;
+			sumZ += pairForceZ;
+			forceX[j] -= pairForceX;
+			forceY[j] -= pairForceY;
+			forceZ[j] -= pairForceZ;
+			if (potentialEnergy != null) {
+				potentialSum -= gravityPotential;
+				potentialEnergy[j] -= gravityPotential;
+			}
+		}
+
+		forceX[i] += sumX;
+		forceY[i] += sumY;
+		forceZ[i] += sumZ;
+		if (potentialEnergy != null) {
+			potentialEnergy[i] += potentialSum;
+		}
+	}
+
+	public void addOneSided(ParticleStore store, int i, int jStart, int jEnd,
+			double[] forceX, double[] forceY, double[] forceZ, double[] potentialEnergy) {
+		double[] positionX = store.positionX;
+		double[] positionY = store.positionY;
+		double[] positionZ = store.positionZ;
+		double[] mass = store.mass;
+		double[] radius = store.radius;
+		double[] charge = store.charge;
+
+		double x = positionX[i];
+		double y = positionY[i];
+		double z = positionZ[i];
+		double gravityFactor = World.GRAVITATIONAL_CONSTANT * mass[i];
+		double electricFactor = World.COULOMBS_LAW_CONSTANT * charge[i];
+		double radiusI = radius[i];
+
+		double sumX = 0;
+		double sumY = 0;
+		double sumZ = 0;
+		double potentialSum = 0;
+
+		for (int j = jStart; j < jEnd; j++) {
+			double distanceX = positionX[j] - x;
+			double distanceY = positionY[j] - y;
+			double distanceZ = positionZ[j] - z;
+			double distanceSquared = distanceX * distanceX + distanceY * distanceY 
+					+ distanceZ * distanceZ;
+			double inverseDistance = 1 / Math.sqrt(distanceSquared);
+			double surfaceDistance = distanceSquared * inverseDistance - radiusI - radius[j];
+
+			//U = -GMm / r, F = GMm / r^2 - kQq / (r - R1 - R2)^2
+			double gravityPotential = gravityFactor * mass[j] * inverseDistance;
+			double totalForceMagnitude = gravityPotential * inverseDistance
+					- electricFactor * charge[j] / (surfaceDistance * surfaceDistance);
+
+			if (Math.abs(totalForceMagnitude) > LARGE_FORCE) {
+				reportLargeForce(totalForceMagnitude);
+			}
+
+			double scale = totalForceMagnitude * inverseDistance;
+			sumX += scale * distanceX;
+			sumY += scale * distanceY;
+			sumZ += scale * distanceZ;
+			potentialSum -= gravityPotential;
+		}
+
+		forceX[i] += sumX;
+		forceY[i] += sumY;
+		forceZ[i] += sumZ;
+		if (potentialEnergy != null) {
+			potentialEnergy[i] += potentialSum;
+		}
+	}
+
+	/**
+	 * Reports a force larger than LARGE_FORCE
+	 * @param magnitude measured in newtons (N)
+	 */
+	static void reportLargeForce(double magnitude) {
+		System.out.println("particle had a force of: " + magnitude + " N");
+	}
+}
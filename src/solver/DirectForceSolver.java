@@ -0,0 +1,77 @@
+package solver;
+
+import world.ParticleStore;
+
+/**
+ * Exact solver that sums the forces between every pair of particles.
+ * Each pair is calculated once and applied to both particles with opposite
+ * signs, so a step costs n(n - 1) / 2 pair calculations.
+ * @author Matthew Zane
+ *
+ */
+public class DirectForceSolver implements ForceSolver {
+	public static final String NAME = "direct";
+
+	private ForceKernel kernel;
+
+	private long interactionCount;
+
+	private boolean potentialEnergyEnabled;
+
+	public ForceKernel getKernel() { return kernel; }
+	public long getInteractionCount() { return interactionCount; }
+	public boolean isPotentialEnergyEnabled() { return potentialEnergyEnabled; }
+	public String getName() { return NAME; }
+
+	public void setKernel(ForceKernel kernelIn) { kernel = kernelIn; }
+	public void setPotentialEnergyEnabled(boolean enabled) { potentialEnergyEnabled = enabled; }
+
+	public DirectForceSolver() {
+		this(new CartesianForceKernel());
+	}
+
+	public DirectForceSolver(ForceKernel kernelIn) {
+		kernel = kernelIn;
+	}
+
+	/**
+	 * Calculates the net forces on each particle
+	 */
+	public void calculateForces(ParticleStore store) {
+		//reset all net forces
+		store.clearForces();
+		double[] potentialEnergy = null;
+		if (potentialEnergyEnabled) {
+			store.clearPotentialEnergy();
+			potentialEnergy = store.potentialEnergy;
+		}
+
+		int size = store.size();
+		for (int i = 0; i < size - 1; i++) {
+			kernel.addRow(store, i, i + 1, size, store.forceX, store.forceY, store.forceZ,
+					potentialEnergy);
+		}
+		interactionCount += (long) size * (size - 1);
+	}
+
+	/**
+	 * Calculates the net forces on the active particles. Pairs of two 
+	 * active particles are calculated twice, once for each particle.
+	 */
+	public void calculateForces(ParticleStore store, int[] active, int activeCount) {
+		int size = store.size();
+		double[] potentialEnergy = potentialEnergyEnabled ? store.potentialEnergy : null;
+		for (int a = 0; a < activeCount; a++) {
+			int i = active[a];
+			store.forceX[i] = 0;
+			store.forceY[i] = 0;
+			store.forceZ[i] = 0;
+			store.potentialEnergy[i] = 0;
+			kernel.addOneSided(store, i, 0, i, store.forceX, store.forceY, store.forceZ,
+					potentialEnergy);
+			kernel.addOneSided(store, i, i + 1, size, store.forceX, store.forceY, store.forceZ,
+					potentialEnergy);
+		}
+		interactionCount += (long) activeCount * (size - 1);
+	}
+}
@@ -0,0 +1,53 @@
+package solver;
+
+import world.ParticleStore;
+
+/**
+ * Calculates the forces between one particle and a range of other 
+ * particles, and optionally their potential energy of gravity. Kernels hold
+ * no state, so one kernel can be shared by several threads as long as each
+ * thread adds into its own arrays.
+ * @author Matthew Zane
+ *
+ */
+public interface ForceKernel {
+	/**
+	 * Calculates the force between particle i and every particle j from 
+	 * jStart up to but not including jEnd, adds it to the force of i and 
+	 * adds the opposite force to the force of j. The potential energy of each
+	 * pair is added to both particles.
+	 * @param store particles to read positions, masses, radii and charges from
+	 * @param i index of the particle
+	 * @param jStart first index of the other particles
+	 * @param jEnd index after the last of the other particles
+	 * @param forceX force arrays to add to, indexed like the store
+	 * @param forceY
+	 * @param forceZ
+	 * @param potentialEnergy potential energy array to add to, indexed like 
+	 * the store, or null to skip the potential energy
+	 */
+	public void addRow(ParticleStore store, int i, int jStart, int jEnd,
+			double[] forceX, double[] forceY, double[] forceZ, double[] potentialEnergy);
+
+	/**
+	 * Same as addRow, but only adds the forces and potential energy to 
+	 * particle i. Particle i must not be in the range of other particles.
+	 * @param store particles to read positions, masses, radii and charges from
+	 * @param i index of the particle
+	 * @param jStart first index of the other particles
+	 * @param jEnd index after the last of the other particles
+	 * @param forceX force arrays to add to, indexed like the store
+	 * @param forceY
+	 * @param forceZ
+	 * @param potentialEnergy potential energy array to add to, indexed like 
+	 * the store, or null to skip the potential energy
+	 */
+	public void addOneSided(ParticleStore store, int i, int jStart, int jEnd,
+			double[] forceX, double[] forceY, double[] forceZ, double[] potentialEnergy);
+
+	/**
+	 * Returns a short name of the kernel, used for reporting
+	 * @return name of the kernel
+	 */
+	public String getName();
+}
@@ -0,0 +1,45 @@
+package solver;
+
+/**
+ * Creates force kernels that depend on optional parts of the JDK.
+ * @author Matthew Zane
+ *
+ */
+public class ForceKernels {
+	private static final String VECTOR_MODULE = "jdk.incubator.vector";
+	private static final String VECTOR_KERNEL_CLASS = "solver.VectorForceKernel";
+
+	/**
+	 * Returns true if the JVM was started with the Vector API module
+	 * @return
+	 */
+	public static boolean isVectorApiAvailable() {
+		return ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent();
+	}
+
+	/**
+	 * Creates the vector kernel if the Vector API is available, otherwise
+	 * the scalar cartesian kernel. The vector kernel is loaded by name so
+	 * this class can be used without the module.
+	 * Reports which kernel is used.
+	 * @return
+	 */
+	public static ForceKernel createVectorKernel() {
+		if (isVectorApiAvailable()) {
+			try {
+				ForceKernel kernel = (ForceKernel) Class.forName(VECTOR_KERNEL_CLASS)
+						.getDeclaredConstructor().newInstance();
+				System.out.println("Force kernel: " + kernel);
+				return kernel;
+			} catch (Exception | LinkageError e) {
+				System.out.println("Could not load the vector kernel: " + e);
+			}
+		}
+		else {
+			System.out.println("Module " + VECTOR_MODULE + " is not enabled, start with "
+					+ "--add-modules " + VECTOR_MODULE + " to use the vector kernel.");
+		}
+		System.out.println("Force kernel: " + CartesianForceKernel.NAME + " (scalar fallback)");
+		return new CartesianForceKernel();
+	}
+}
@@ -0,0 +1,55 @@
+package solver;
+
+import world.ParticleStore;
+
+/**
+ * Calculates the net force of gravity and electromagnetism acting on every
+ * particle of a store. The World calls the solver once per cycle.
+ * @author Matthew Zane
+ *
+ */
+public interface ForceSolver {
+	/**
+	 * Sets the net force of every particle in the store to the sum of the
+	 * forces all other particles exert on it
+	 * @param store particles to calculate forces for
+	 */
+	public void calculateForces(ParticleStore store);
+
+	/**
+	 * Sets the net force of only the specified particles to the sum of the
+	 * forces all other particles exert on them. The forces of the other 
+	 * particles are left unchanged.
+	 * @param store particles to calculate forces for
+	 * @param active indices of the particles whose forces are calculated
+	 * @param activeCount number of indices used in active
+	 */
+	public void calculateForces(ParticleStore store, int[] active, int activeCount);
+
+	/**
+	 * Sets whether the solver also calculates the potential energy of gravity
+	 * of every particle whose force it calculates, into
+	 * {@link ParticleStore#potentialEnergy}. It is a by-product of the pair
+	 * calculations, so it costs little next to the forces.
+	 * @param enabled
+	 */
+	public void setPotentialEnergyEnabled(boolean enabled);
+
+	public boolean isPotentialEnergyEnabled();
+
+	/**
+	 * Returns the number of interactions calculated since the solver was
+	 * created. An interaction is the force on one particle from one other
+	 * particle or, for approximate solvers, from one group of particles, so
+	 * a pair calculated once for both of its particles counts twice and a
+	 * full pass of the direct solvers counts n(n - 1).
+	 * @return
+	 */
+	public long getInteractionCount();
+
+	/**
+	 * Returns a short name of the solver, used for reporting
+	 * @return name of the solver
+	 */
+	public String getName();
+}
@@ -0,0 +1,293 @@
+package solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import world.ParticleStore;
+
+/**
+ * Exact solver that spreads the pairs of the direct sum over several threads.
+ * The particles are split into blocks of TILE_SIZE and the triangle of pairs
+ * i < j is cut into tiles of one block of i against one block of j. The
+ * tiles are calculated in a ForkJoinPool. Every pair is still calculated once
+ * and applied to both particles, but each worker thread adds into its own
+ * force arrays, which are summed into the store once all tiles are done.
+ * The result equals the direct solver up to the order the forces are added in.
+ * @author Matthew Zane
+ *
+ */
+public class ParallelDirectForceSolver implements ForceSolver {
+	public static final String NAME = "parallel-direct";
+
+	/**
+	 * Number of particles in a block. A tile of two blocks fits the
+	 * positions, masses, radii and charges of both blocks in the L2 cache.
+	 */
+	public static final int TILE_SIZE = 256;
+
+	/**
+	 * Tasks with fewer tiles than this are not split any further
+	 */
+	private static final int TILES_PER_TASK = 4;
+
+	private ForceKernel kernel;
+
+	private ForkJoinPool pool;
+
+	/**
+	 * Force arrays of each worker thread, reused between steps
+	 */
+	private ThreadLocal<WorkerForces> workerForces = new ThreadLocal<WorkerForces>();
+
+	/**
+	 * Force arrays that were used in the current step
+	 */
+	private List<WorkerForces> usedForces = new ArrayList<WorkerForces>();
+
+	/**
+	 * Incremented every step, so a worker knows when to clear its arrays
+	 */
+	private int generation;
+
+	private long interactionCount;
+
+	private boolean potentialEnergyEnabled;
+
+	public ForceKernel getKernel() { return kernel; }
+	public int getThreads() { return pool.getParallelism(); }
+	public long getInteractionCount() { return interactionCount; }
+	public boolean isPotentialEnergyEnabled() { return potentialEnergyEnabled; }
+	public String getName() { return NAME; }
+
+	public void setPotentialEnergyEnabled(boolean enabled) { potentialEnergyEnabled = enabled; }
+
+	public ParallelDirectForceSolver() {
+		this(new CartesianForceKernel(), Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Constructor creates a pool with the specified number of threads
+	 * @param kernelIn kernel used for the pairs of each tile
+	 * @param threads number of worker threads
+	 */
+	public ParallelDirectForceSolver(ForceKernel kernelIn, int threads) {
+		kernel = kernelIn;
+		pool = new ForkJoinPool(Math.max(1, threads));
+	}
+
+	public void calculateForces(ParticleStore store) {
+		store.clearForces();
+		if (potentialEnergyEnabled) {
+			store.clearPotentialEnergy();
+		}
+		int size = store.size();
+		if (size < 2) {
+			return;
+		}
+		interactionCount += (long) size * (size - 1);
+
+		generation++;
+		usedForces.clear();
+
+		int blocks = (size + TILE_SIZE - 1) / TILE_SIZE;
+		int tiles = blocks * (blocks + 1) / 2;
+		pool.invoke(new TileTask(store, blocks, 0, tiles));
+
+		//reduce the forces of every worker into the store
+		for (WorkerForces forces : usedForces) {
+			for (int i = 0; i < size; i++) {
+				store.forceX[i] += forces.forceX[i];
+				store.forceY[i] += forces.forceY[i];
+				store.forceZ[i] += forces.forceZ[i];
+			}
+			if (potentialEnergyEnabled) {
+				for (int i = 0; i < size; i++) {
+					store.potentialEnergy[i] += forces.potentialEnergy[i];
+				}
+			}
+		}
+	}
+
+	/**
+	 * Calculates the net forces on the active particles, splitting the active
+	 * particles between the threads. Each thread writes the forces of its own
+	 * particles straight into the store.
+	 */
+	public void calculateForces(ParticleStore store, int[] active, int activeCount) {
+		pool.invoke(new ActiveTask(store, active, 0, activeCount));
+		interactionCount += (long) activeCount * (store.size() - 1);
+	}
+
+	/**
+	 * Stops the worker threads
+	 */
+	public void shutdown() {
+		pool.shutdown();
+	}
+
+	/**
+	 * Returns the cleared force arrays of the current thread for this step
+	 * @param size number of particles
+	 * @return
+	 */
+	private WorkerForces getWorkerForces(int size) {
+		WorkerForces forces = workerForces.get();
+		if (forces == null) {
+			forces = new WorkerForces();
+			workerForces.set(forces);
+		}
+		if (forces.generation != generation) {
+			forces.clear(size, potentialEnergyEnabled);
+			forces.generation = generation;
+			synchronized (usedForces) {
+				usedForces.add(forces);
+			}
+		}
+		return forces;
+	}
+
+	/**
+	 * Force and potential energy arrays of a single worker thread
+	 */
+	private static class WorkerForces {
+		private double[] forceX = new double[0];
+		private double[] forceY = new double[0];
+		private double[] forceZ = new double[0];
+		private double[] potentialEnergy = new double[0];
+		private int generation = -1;
+
+		/**
+		 * Clears the force arrays, and the potential energy if it is used
+		 * @param size
+		 * @param potential
+		 */
+		private void clear(int size, boolean potential) {
+			if (forceX.length < size) {
+				forceX = new double[size];
+				forceY = new double[size];
+				forceZ = new double[size];
+			}
+			else {
+				Arrays.fill(forceX, 0, size, 0);
+				Arrays.fill(forceY, 0, size, 0);
+				Arrays.fill(forceZ, 0, size, 0);
+			}
+			if (!potential) {
+				return;
+			}
+			if (potentialEnergy.length < size) {
+				potentialEnergy = new double[size];
+			}
+			else {
+				Arrays.fill(potentialEnergy, 0, size, 0);
+			}
+		}
+	}
+
+	/**
+	 * Calculates a range of tiles, numbered row by row through the upper
+	 * triangle of blocks, splitting the range in half until it is small
+	 */
+	private class TileTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private ParticleStore store;
+		private int blocks;
+		private int firstTile;
+		private int lastTile;
+
+		private TileTask(ParticleStore storeIn, int blocksIn, int firstTileIn, int lastTileIn) {
+			store = storeIn;
+			blocks = blocksIn;
+			firstTile = firstTileIn;
+			lastTile = lastTileIn;
+		}
+
+		@Override
+		protected void compute() {
+			if (lastTile - firstTile > TILES_PER_TASK) {
+				int middle = (firstTile + lastTile) >>> 1;
+				invokeAll(new TileTask(store, blocks, firstTile, middle),
+						new TileTask(store, blocks, middle, lastTile));
+				return;
+			}
+
+			int size = store.size();
+			WorkerForces forces = getWorkerForces(size);
+			double[] potentialEnergy = potentialEnergyEnabled ? forces.potentialEnergy : null;
+
+			//find the block row and column of the first tile
+			int blockI = 0;
+			int tile = firstTile;
+			while (tile >= blocks - blockI) {
+				tile -= blocks - blockI;
+				blockI++;
+			}
+			int blockJ = blockI + tile;
+
+			for (int t = firstTile; t < lastTile; t++) {
+				int iStart = blockI * TILE_SIZE;
+				int iEnd = Math.min(iStart + TILE_SIZE, size);
+				int jEnd = Math.min((blockJ + 1) * TILE_SIZE, size);
+				for (int i = iStart; i < iEnd; i++) {
+					int jStart = blockI == blockJ ? i + 1 : blockJ * TILE_SIZE;
+					kernel.addRow(store, i, jStart, jEnd, forces.forceX, forces.forceY,
+							forces.forceZ, potentialEnergy);
+				}
+
+				blockJ++;
+				if (blockJ == blocks) {
+					blockI++;
+					blockJ = blockI;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Calculates the forces of a range of the active particles, splitting 
+	 * the range in half until it is small
+	 */
+	private class ActiveTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private ParticleStore store;
+		private int[] active;
+		private int first;
+		private int last;
+
+		private ActiveTask(ParticleStore storeIn, int[] activeIn, int firstIn, int lastIn) {
+			store = storeIn;
+			active = activeIn;
+			first = firstIn;
+			last = lastIn;
+		}
+
+		@Override
+		protected void compute() {
+			int size = store.size();
+			if ((long) (last - first) * size > (long) TILE_SIZE * TILE_SIZE * TILES_PER_TASK) {
+				int middle = (first + last) >>> 1;
+				invokeAll(new ActiveTask(store, active, first, middle),
+						new ActiveTask(store, active, middle, last));
+				return;
+			}
+
+			double[] potentialEnergy = potentialEnergyEnabled ? store.potentialEnergy : null;
+			for (int a = first; a < last; a++) {
+				int i = active[a];
+				store.forceX[i] = 0;
+				store.forceY[i] = 0;
+				store.forceZ[i] = 0;
+				store.potentialEnergy[i] = 0;
+				kernel.addOneSided(store, i, 0, i, store.forceX, store.forceY, store.forceZ,
+						potentialEnergy);
+				kernel.addOneSided(store, i, i + 1, size, store.forceX, store.forceY, store.forceZ,
+						potentialEnergy);
+			}
+		}
+	}
+}
@@ -0,0 +1,122 @@
+package solver;
+
+import data.XYVector;
+import data.XYZVector;
+import world.ParticleStore;
+import world.World;
+
+/**
+ * Kernel that calculates the magnitude of the force and then splits it into
+ * components using the spherical angles of the distance between the particles.
+ * @author Matthew Zane
+ *
+ */
+public class SphericalForceKernel implements ForceKernel {
+	public static final String NAME = "spherical";
+
+	public String getName() { return NAME; }
+
+	public void addRow(ParticleStore store, int i, int jStart, int jEnd,
+			double[] forceX, double[] forceY, double[] forceZ, double[] potentialEnergy) {
+		for (int j = jStart; j < jEnd; j++) {
+			addForces(store, i, j, forceX, forceY, forceZ, potentialEnergy, true);
+		}
+	}
+
+	public void addOneSided(ParticleStore store, int i, int jStart, int jEnd,
+			double[] forceX, double[] forceY, double[] forceZ, double[] potentialEnergy) {
+		for (int j = jStart; j < jEnd; j++) {
+			addForces(store, i, j, forceX, forceY, forceZ, potentialEnergy, false);
+		}
+	}
+
+	/**
+	 * Calculates the force of gravity and electromagnetism between the two specified particles and 
+	 * then adds the force vector to the particle1 and then scales it to the 
+	 * negative before adding it to particle2
+	 * @param store store holding both particles
+	 * @param particle1 Index of the particle in which the force vector will be 
+	 * calculated in reference to
+	 * @param particle2 Index of the other particle to calculate force
+	 * @param potentialEnergy potential energy array to add to, or null
+	 * @param bothParticles false to only add the force to particle1
+	 */
+	private void addForces(ParticleStore store, int particle1, int particle2,
+			double[] netForceX, double[] netForceY, double[] netForceZ, 
+			double[] potentialEnergy, boolean bothParticles) {
+		XYZVector distance = new XYZVector(
+				store.positionX[particle2] - store.positionX[particle1],
+				store.positionY[particle2] - store.positionY[particle1],
+				store.positionZ[particle2] - store.positionZ[particle1]);
+
+		//calculate gravity magnitude
+		double centerDistanceMagnitude = distance.getMagnitude();
+		double gravityForceMagnitude = calcGravityForceMagnitude(store.mass[particle1],	
+				store.mass[particle2], centerDistanceMagnitude);
+		
+		//calculate electric force
+		double surfaceDistanceMagnitude = centerDistanceMagnitude - 
+				store.radius[particle1] - store.radius[particle2];
+		double electromagneticForceMagnitude = calcElectricForceMagnitude(store.charge[particle1],
+				store.charge[particle2], surfaceDistanceMagnitude);
+		
+		double totalForceMagnitude = gravityForceMagnitude - electromagneticForceMagnitude;
+
+		if (Math.abs(totalForceMagnitude) > Integer.MAX_VALUE / 1000) {
+			System.out.println("particle had a force of: " + totalForceMagnitude + " N");
+		}
+		
+		XYVector vectorAngle = distance.getAngle();
+
+		double forceX = totalForceMagnitude * Math.sin(vectorAngle.getX())
+				* Math.cos(vectorAngle.getY());
+		double forceY = totalForceMagnitude * Math.sin(vectorAngle.getX())
+				* Math.sin(vectorAngle.getY());
+		double forceZ = totalForceMagnitude * Math.cos(vectorAngle.getX()) ;
+
+		netForceX[particle1] += forceX;
+		netForceY[particle1] += forceY;
+		netForceZ[particle1] += forceZ;
+		if (bothParticles) {
+			netForceX[particle2] -= forceX;
+			netForceY[particle2] -= forceY;
+			netForceZ[particle2] -= forceZ;
+		}
+
+		if (potentialEnergy != null) {
+			//U = -GMm / r
+			double gravityPotential = World.GRAVITATIONAL_CONSTANT * store.mass[particle1] 
+					* store.mass[particle2] / centerDistanceMagnitude;
+			potentialEnergy[particle1] -= gravityPotential;
+			if (bothParticles) {
+				potentialEnergy[particle2] -= gravityPotential;
+			}
+		}
+	}
+
+	/**
+	 * Calculates the force magnitude using the formula: F = GMm / r^2
+	 * @param mass1
+	 * @param mass2
+	 * @param distanceMagnitude
+	 * @return
+	 */
+	private double calcGravityForceMagnitude(double mass1, double mass2, 
+			double centerDistanceMagnitude) {
+		return World.GRAVITATIONAL_CONSTANT * mass1 * mass2 / 
+				Math.pow(centerDistanceMagnitude, 2);
+	}
+
+	/**
+	 * Calculates the force magnitude using the formula: F = kQq / r^2
+	 * @param charge1
+	 * @param charge2
+	 * @param surfaceDistanceMagnitude
+	 * @return
+	 */
+	private double calcElectricForceMagnitude(double charge1, double charge2,
+			double surfaceDistanceMagnitude) {
+		return World.COULOMBS_LAW_CONSTANT * charge1 * charge2 /
+				Math.pow(surfaceDistanceMagnitude, 2);
+	}
+}
@@ -0,0 +1,197 @@
+package solver;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+import world.ParticleStore;
+import world.World;
+
+/**
+ * Same calculation as the cartesian kernel, but evaluates a whole vector 
+ * register of j particles against particle i at once using the incubating
+ * Vector API, e.g. four pairs per instruction with AVX2 and eight with
+ * AVX-512. The particles left over at the end of a row are calculated one
+ * by one by the cartesian kernel. Large forces are reported the same way.
+ * <br>
+ * Needs the jdk.incubator.vector module, so the JVM has to be started with
+ * --add-modules jdk.incubator.vector. Use {@link ForceKernels#createVectorKernel()}
+ * to fall back to the cartesian kernel when the module is missing.
+ * @author Matthew Zane
+ *
+ */
+public class VectorForceKernel implements ForceKernel {
+	public static final String NAME = "vector";
+
+	private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+	/**
+	 * Calculates the particles left over at the end of a row
+	 */
+	private static final CartesianForceKernel TAIL = new CartesianForceKernel();
+
+	public String getName() { return NAME; }
+
+	/**
+	 * Returns the number of pairs calculated per vector operation
+	 * @return
+	 */
+	public int getLanes() { return SPECIES.length(); }
+
+	public String toString() {
+		return NAME + " (" + SPECIES.length() + " lanes of " + SPECIES.vectorBitSize() + " bits)";
+	}
+
+	public void addRow(ParticleStore store, int i, int jStart, int jEnd,
+			double[] forceX, double[] forceY, double[] forceZ, double[] potentialEnergy) {
+		double[] positionX = store.positionX;
+		double[] positionY = store.positionY;
+		double[] positionZ = store.positionZ;
+		double[] mass = store.mass;
+		double[] radius = store.radius;
+		double[] charge = store.charge;
+
+		double x = positionX[i];
+		double y = positionY[i];
+		double z = positionZ[i];
+		double gravityFactor = World.GRAVITATIONAL_CONSTANT * mass[i];
+		double electricFactor = World.COULOMBS_LAW_CONSTANT * charge[i];
+		double radiusI = radius[i];
+
+		DoubleVector one = DoubleVector.broadcast(SPECIES, 1);
+		DoubleVector sumX = DoubleVector.zero(SPECIES);
+		DoubleVector sumY = DoubleVector.zero(SPECIES);
+		DoubleVector sumZ = DoubleVector.zero(SPECIES);
+		DoubleVector potentialSum = DoubleVector.zero(SPECIES);
+
+		int j = jStart;
+		int upperBound = jStart + SPECIES.loopBound(jEnd - jStart);
+		for (; j < upperBound; j += SPECIES.length()) {
+			DoubleVector distanceX = DoubleVector.fromArray(SPECIES, positionX, j).sub(x);
+			DoubleVector distanceY = DoubleVector.fromArray(SPECIES, positionY, j).sub(y);
+			DoubleVector distanceZ = DoubleVector.fromArray(SPECIES, positionZ, j).sub(z);
+			DoubleVector distanceSquared = distanceX.mul(distanceX)
+					.add(distanceY.mul(distanceY))
+					.add(distanceZ.mul(distanceZ));
+			DoubleVector inverseDistance = one.div(distanceSquared.sqrt());
+			DoubleVector surfaceDistance = distanceSquared.mul(inverseDistance).sub(radiusI)
+					.sub(DoubleVector.fromArray(SPECIES, radius, j));
+
+			//U = -GMm / r, F = GMm / r^2 - kQq / (r - R1 - R2)^2
+			DoubleVector gravityPotential = DoubleVector.fromArray(SPECIES, mass, j)
+					.mul(gravityFactor).mul(inverseDistance);
+			DoubleVector gravity = gravityPotential.mul(inverseDistance);
+			DoubleVector electric = DoubleVector.fromArray(SPECIES, charge, j).mul(electricFactor)
+					.div(surfaceDistance.mul(surfaceDistance));
+			DoubleVector magnitude = gravity.sub(electric);
+			VectorMask<Double> large = magnitude.abs()
+					.compare(VectorOperators.GT, CartesianForceKernel.LARGE_FORCE);
+			if (large.anyTrue()) {
+				reportLargeForces(magnitude, large);
+			}
+			DoubleVector scale = magnitude.mul(inverseDistance);
+
+			DoubleVector pairForceX = scale.mul(distanceX);
+			DoubleVector pairForceY = scale.mul(distanceY);
+			DoubleVector pairForceZ = scale.mul(distanceZ);
+
+			sumX = sumX.add(pairForceX);
+			sumY = sumY.add(pairForceY);
+			sumZ = sumZ.add(pairForceZ);
+			DoubleVector.fromArray(SPECIES, forceX, j).sub(pairForceX).intoArray(forceX, j);
+			DoubleVector.fromArray(SPECIES, forceY, j).sub(pairForceY).intoArray(forceY, j);
+			DoubleVector.fromArray(SPECIES, forceZ, j).sub(pairForceZ).intoArray(forceZ, j);
+			if (potentialEnergy != null) {
+				potentialSum = potentialSum.sub(gravityPotential);
+				DoubleVector.fromArray(SPECIES, potentialEnergy, j).sub(gravityPotential)
+						.intoArray(potentialEnergy, j);
+			}
+		}
+
+		forceX[i] += sumX.reduceLanes(VectorOperators.ADD);
+		forceY[i] += sumY.reduceLanes(VectorOperators.ADD);
+		forceZ[i] += sumZ.reduceLanes(VectorOperators.ADD);
+		if (potentialEnergy != null) {
+			potentialEnergy[i] += potentialSum.reduceLanes(VectorOperators.ADD);
+		}
+		TAIL.addRow(store, i, j, jEnd, forceX, forceY, forceZ, potentialEnergy);
+	}
+
+	public void addOneSided(ParticleStore store, int i, int jStart, int jEnd,
+			double[] forceX, double[] forceY, double[] forceZ, double[] potentialEnergy) {
+		double[] positionX = store.positionX;
+		double[] positionY = store.positionY;
+		double[] positionZ = store.positionZ;
+		double[] mass = store.mass;
+		double[] radius = store.radius;
+		double[] charge = store.charge;
+
+		double x = positionX[i];
+		double y = positionY[i];
+		double z = positionZ[i];
+		double gravityFactor = World.GRAVITATIONAL_CONSTANT * mass[i];
+		double electricFactor = World.COULOMBS_LAW_CONSTANT * charge[i];
+		double radiusI = radius[i];
+
+		DoubleVector one = DoubleVector.broadcast(SPECIES, 1);
+		DoubleVector sumX = DoubleVector.zero(SPECIES);
+		DoubleVector sumY = DoubleVector.zero(SPECIES);
+		DoubleVector sumZ = DoubleVector.zero(SPECIES);
+		DoubleVector potentialSum = DoubleVector.zero(SPECIES);
+
+		int j = jStart;
+		int upperBound = jStart + SPECIES.loopBound(jEnd - jStart);
+		for (; j < upperBound; j += SPECIES.length()) {
+			DoubleVector distanceX = DoubleVector.fromArray(SPECIES, positionX, j).sub(x);
+			DoubleVector distanceY = DoubleVector.fromArray(SPECIES, positionY, j).sub(y);
+			DoubleVector distanceZ = DoubleVector.fromArray(SPECIES, positionZ, j).sub(z);
+			DoubleVector distanceSquared = distanceX.mul(distanceX)
+					.add(distanceY.mul(distanceY))
+					.add(distanceZ.mul(distanceZ));
+			DoubleVector inverseDistance = one.div(distanceSquared.sqrt());
+			DoubleVector surfaceDistance = distanceSquared.mul(inverseDistance).sub(radiusI)
+					.sub(DoubleVector.fromArray(SPECIES, radius, j));
+
+			//U = -GMm / r, F = GMm / r^2 - kQq / (r - R1 - R2)^2
+			DoubleVector gravityPotential = DoubleVector.fromArray(SPECIES, mass, j)
+					.mul(gravityFactor).mul(inverseDistance);
+			DoubleVector gravity = gravityPotential.mul(inverseDistance);
+			DoubleVector electric = DoubleVector.fromArray(SPECIES, charge, j).mul(electricFactor)
+					.div(surfaceDistance.mul(surfaceDistance));
+			DoubleVector magnitude = gravity.sub(electric);
+			VectorMask<Double> large = magnitude.abs()
+					.compare(VectorOperators.GT, CartesianForceKernel.LARGE_FORCE);
+			if (large.anyTrue()) {
+				reportLargeForces(magnitude, large);
+			}
+			DoubleVector scale = magnitude.mul(inverseDistance);
+
+			sumX = sumX.add(scale.mul(distanceX));
+			sumY = sumY.add(scale.mul(distanceY));
+			sumZ = sumZ.add(scale.mul(distanceZ));
+			potentialSum = potentialSum.sub(gravityPotential);
+		}
+
+		forceX[i] += sumX.reduceLanes(VectorOperators.ADD);
+		forceY[i] += sumY.reduceLanes(VectorOperators.ADD);
+		forceZ[i] += sumZ.reduceLanes(VectorOperators.ADD);
+		if (potentialEnergy != null) {
+			potentialEnergy[i] += potentialSum.reduceLanes(VectorOperators.ADD);
+		}
+		TAIL.addOneSided(store, i, j, jEnd, forceX, forceY, forceZ, potentialEnergy);
+	}
+
+	/**
+	 * Reports the lanes whose force is larger than the cartesian kernel's
+	 * LARGE_FORCE
+	 * @param magnitude force of each lane, measured in newtons (N)
+	 * @param large lanes to report
+	 */
+	private static void reportLargeForces(DoubleVector magnitude, VectorMask<Double> large) {
+		for (int lane = 0; lane < SPECIES.length(); lane++) {
+			if (large.laneIsSet(lane)) {
+				CartesianForceKernel.reportLargeForce(magnitude.lane(lane));
+			}
+		}
+	}
+}
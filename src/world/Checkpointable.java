@@ -0,0 +1,32 @@
+package world;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Implemented by parts of a World that keep state from one cycle to the
+ * next, such as forces that are reused or a sort order that is only
+ * updated. A checkpoint saves this state, so a restart continues exactly
+ * like the original run instead of rebuilding it, which could change the
+ * results in the last bits.
+ * @author Matthew Zane
+ *
+ */
+public interface Checkpointable {
+	/**
+	 * Writes the state kept between cycles
+	 * @param out
+	 * @param store particles the state belongs to
+	 * @throws IOException
+	 */
+	public void writeState(DataOutput out, ParticleStore store) throws IOException;
+
+	/**
+	 * Replaces the state with one written by writeState
+	 * @param in
+	 * @param store particles the state belongs to, already restored
+	 * @throws IOException if the state can not be read or does not fit
+	 */
+	public void readState(DataInput in, ParticleStore store) throws IOException;
+}
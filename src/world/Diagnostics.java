@@ -0,0 +1,148 @@
+package world;
+
+import data.XYZVector;
+
+/**
+ * Energy, momentum and center of mass of a World after a cycle. The World
+ * calculates them after every cycle when diagnostics are enabled. Kinetic
+ * energy, momentum and center of mass take a single pass over the particles,
+ * and the potential energy of gravity is summed from the potential energy
+ * its force solver calculated along with the forces, so no extra pair loop
+ * is needed. The potential energy is that of the positions of the last force
+ * calculation of the cycle, which every integrator makes at the end of the
+ * cycle, so it is of the same time as the kinetic energy.
+ * @author Matthew Zane
+ *
+ */
+public class Diagnostics {
+	/**
+	 * Number of cycles the World had run
+	 */
+	private long step;
+
+	/**
+	 * Time of the World measured in seconds (s)
+	 */
+	private double time;
+
+	/**
+	 * Measured in Joules (J)
+	 */
+	private double kineticEnergy;
+	private double potentialEnergy;
+
+	/**
+	 * Total momentum measured in Newton seconds (Ns)
+	 */
+	private double momentumX;
+	private double momentumY;
+	private double momentumZ;
+
+	/**
+	 * Center of mass measured in meters (m)
+	 */
+	private double centerMassX;
+	private double centerMassY;
+	private double centerMassZ;
+
+	/**
+	 * Measured in kilograms (kg)
+	 */
+	private double totalMass;
+
+	public long getStep() { return step; }
+	public double getTime() { return time; }
+	public double getKineticEnergy() { return kineticEnergy; }
+	public double getPotentialEnergy() { return potentialEnergy; }
+	public double getTotalEnergy() { return kineticEnergy + potentialEnergy; }
+	public double getTotalMass() { return totalMass; }
+
+	public XYZVector getTotalMomentum() {
+		return new XYZVector(momentumX, momentumY, momentumZ);
+	}
+
+	/**
+	 * Returns the center of mass, or null if there is no mass
+	 * @return
+	 */
+	public XYZVector getCenterMass() {
+		if (totalMass == 0) {
+			return null;
+		}
+		return new XYZVector(centerMassX, centerMassY, centerMassZ);
+	}
+
+	/**
+	 * Calculates the diagnostics of a store whose potential energy was
+	 * calculated by the force solver
+	 * @param store
+	 * @param timeIn measured in seconds (s)
+	 * @param stepIn number of cycles run
+	 */
+	public void calculate(ParticleStore store, double timeIn, long stepIn) {
+		step = stepIn;
+		time = timeIn;
+
+		double kinetic = 0;
+		double potential = 0;
+		double mass = 0;
+		double momentumXSum = 0;
+		double momentumYSum = 0;
+		double momentumZSum = 0;
+		double massX = 0;
+		double massY = 0;
+		double massZ = 0;
+		for (int i = 0; i < store.size(); i++) {
+			double m = store.mass[i];
+			double vx = store.velocityX[i];
+			double vy = store.velocityY[i];
+			double vz = store.velocityZ[i];
+			kinetic += .5 * m * (vx * vx + vy * vy + vz * vz);
+			potential += store.potentialEnergy[i];
+			mass += m;
+			momentumXSum += m * vx;
+			momentumYSum += m * vy;
+			momentumZSum += m * vz;
+			massX += m * store.positionX[i];
+			massY += m * store.positionY[i];
+			massZ += m * store.positionZ[i];
+		}
+
+		kineticEnergy = kinetic;
+		//every pair is counted for both particles
+		potentialEnergy = potential / 2;
+		totalMass = mass;
+		momentumX = momentumXSum;
+		momentumY = momentumYSum;
+		momentumZ = momentumZSum;
+		if (mass != 0) {
+			centerMassX = massX / mass;
+			centerMassY = massY / mass;
+			centerMassZ = massZ / mass;
+		}
+	}
+
+	/**
+	 * Copies these diagnostics into the specified ones
+	 * @param other
+	 */
+	public void copyInto(Diagnostics other) {
+		other.step = step;
+		other.time = time;
+		other.kineticEnergy = kineticEnergy;
+		other.potentialEnergy = potentialEnergy;
+		other.momentumX = momentumX;
+		other.momentumY = momentumY;
+		other.momentumZ = momentumZ;
+		other.centerMassX = centerMassX;
+		other.centerMassY = centerMassY;
+		other.centerMassZ = centerMassZ;
+		other.totalMass = totalMass;
+	}
+
+	public String toString() {
+		return "step " + step + ", time " + time + " s, kinetic energy " + kineticEnergy 
+				+ " J, potential energy " + potentialEnergy + " J, momentum (" + momentumX 
+				+ ", " + momentumY + ", " + momentumZ + ") Ns";
+	}
+}
@@ -0,0 +1,107 @@
+package world;
+
+import data.XYZVector;
+
+/**
+ * Copy of the state of a World at the end of a cycle, handed from the
+ * simulation thread to the threads that display it. Once a frame has been
+ * published through a {@link FrameBuffer}, its store must only be read.
+ * Frames of a World with diagnostics enabled carry its {@link Diagnostics},
+ * otherwise kinetic energy, momentum and center of mass are calculated from
+ * the store when asked for. The potential energy is not, as summing it over
+ * every pair on the thread that displays the frame would stall it.
+ * @author Matthew Zane
+ *
+ */
+public class Frame {
+	private ParticleStore store = new ParticleStore();
+
+	/**
+	 * Time of the World measured in seconds (s)
+	 */
+	private double time;
+
+	/**
+	 * Number of cycles the World had run
+	 */
+	private long step;
+
+	private Diagnostics diagnostics = new Diagnostics();
+
+	/**
+	 * Whether diagnostics holds those of this frame
+	 */
+	private boolean hasDiagnostics;
+
+	public ParticleStore getStore() { return store; }
+	public double getTime() { return time; }
+	public long getStep() { return step; }
+
+	/**
+	 * Returns the diagnostics of the frame
+	 * @return the diagnostics, or null if the World did not calculate them
+	 */
+	public Diagnostics getDiagnostics() {
+		return hasDiagnostics ? diagnostics : null;
+	}
+
+	/**
+	 * Copies the specified state into this frame, reusing its arrays. Only
+	 * the particles are copied, not the columns a cycle works in.
+	 * @param storeIn
+	 * @param timeIn
+	 * @param stepIn
+	 */
+	public void set(ParticleStore storeIn, double timeIn, long stepIn) {
+		set(storeIn, timeIn, stepIn, null);
+	}
+
+	/**
+	 * Copies the specified state and its diagnostics into this frame
+	 * @param storeIn
+	 * @param timeIn
+	 * @param stepIn
+	 * @param diagnosticsIn diagnostics of the state, or null if there are none
+	 */
+	public void set(ParticleStore storeIn, double timeIn, long stepIn, Diagnostics diagnosticsIn) {
+		storeIn.copyParticlesInto(store);
+		time = timeIn;
+		step = stepIn;
+		hasDiagnostics = diagnosticsIn != null;
+		if (hasDiagnostics) {
+			diagnosticsIn.copyInto(diagnostics);
+		}
+	}
+
+	public double getKineticEnergy() {
+		if (hasDiagnostics) {
+			return diagnostics.getKineticEnergy();
+		}
+		return World.getKineticEnergy(store);
+	}
+
+	/**
+	 * Returns the potential energy of the diagnostics of the frame
+	 * @return measured in Joules (J), or NaN if the frame has no diagnostics
+	 */
+	public double getTotalPotentialEnergy() {
+		if (hasDiagnostics) {
+			return diagnostics.getPotentialEnergy();
+		}
+		return Double.NaN;
+	}
+
+	public XYZVector getTotalMomentum() {
+		if (hasDiagnostics) {
+			return diagnostics.getTotalMomentum();
+		}
+		return World.getTotalMomentum(store);
+	}
+
+	public XYZVector getCenterMass() {
+		if (hasDiagnostics) {
+			return diagnostics.getCenterMass();
+		}
+		return World.getCenterMass(store);
+	}
+}
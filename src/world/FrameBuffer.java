@@ -0,0 +1,69 @@
+package world;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Triple buffer of frames between one writing and one reading thread.
+ * The writer fills the back frame and publishes it, which swaps it with the
+ * middle frame. The reader swaps the middle frame with its front frame when
+ * a newer one was published. Both swaps are a single atomic exchange, so 
+ * neither thread ever waits for the other. The reader keeps a complete frame
+ * until it acquires the next one, and the writer never touches it.
+ * <br>
+ * How to use:<br>
+ * 	writer: buffer.getBackFrame().set(...); buffer.publish();<br>
+ * 	reader: Frame frame = buffer.acquire();
+ * @author Matthew Zane
+ *
+ */
+public class FrameBuffer {
+	/**
+	 * Set in middle when the middle frame has not been acquired yet
+	 */
+	private static final int FRESH = 4;
+	private static final int INDEX = 3;
+
+	private Frame[] frames = {new Frame(), new Frame(), new Frame()};
+
+	/**
+	 * Index of the frame only the writer uses
+	 */
+	private int back = 0;
+
+	/**
+	 * Index of the frame only the reader uses
+	 */
+	private int front = 1;
+
+	/**
+	 * Index of the frame being handed over, with the FRESH bit
+	 */
+	private AtomicInteger middle = new AtomicInteger(2);
+
+	/**
+	 * Returns the frame the writer may fill. Writer thread only.
+	 * @return
+	 */
+	public Frame getBackFrame() {
+		return frames[back];
+	}
+
+	/**
+	 * Makes the back frame the newest frame. Writer thread only.
+	 */
+	public void publish() {
+		back = middle.getAndSet(back | FRESH) & INDEX;
+	}
+
+	/**
+	 * Returns the newest published frame, which stays valid until the next
+	 * call. Reader thread only.
+	 * @return
+	 */
+	public Frame acquire() {
+		if ((middle.get() & FRESH) != 0) {
+			front = middle.getAndSet(front) & INDEX;
+		}
+		return frames[front];
+	}
+}
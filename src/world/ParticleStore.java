@@ -0,0 +1,322 @@
+package world;
+
+import java.util.Arrays;
+import java.util.List;
+
+import entity.Particle;
+
+/**
+ * Stores the state of every particle in the world as parallel arrays of
+ * primitives (structure of arrays) so the force and collision loops sweep
+ * contiguous memory instead of chasing one heap object per vector.
+ * A particle is identified by its index into the arrays.
+ * {@link Particle} objects are only views onto a single index.
+ * @author Matthew Zane
+ *
+ */
+public class ParticleStore {
+	/**
+	 * Charge every particle starts with, one elementary charge, measured in Coulombs (C)
+	 */
+	public static final double DEFAULT_CHARGE = 1 * 1.60217662e-19;
+
+	/**
+	 * Perfectly elastic by default
+	 */
+	public static final double DEFAULT_ELASTICITY = 1;
+
+	private int size;
+
+	/**
+	 * Position measured in meters (m)
+	 */
+	public double[] positionX;
+	public double[] positionY;
+	public double[] positionZ;
+
+	/**
+	 * Initial velocity measured in meters per second (m/s)
+	 */
+	public double[] velocityX;
+	public double[] velocityY;
+	public double[] velocityZ;
+
+	/**
+	 * Final velocity measured in meters per second (m/s)
+	 */
+	public double[] finalVelocityX;
+	public double[] finalVelocityY;
+	public double[] finalVelocityZ;
+
+	/**
+	 * Net force measured in Newtons (N)
+	 */
+	public double[] forceX;
+	public double[] forceY;
+	public double[] forceZ;
+
+	/**
+	 * Potential energy of gravity between each particle and all other
+	 * particles, measured in Joules (J). Only calculated by force solvers
+	 * that have it enabled. Each pair is counted for both of its particles,
+	 * so the potential energy of the store is half of the sum.
+	 */
+	public double[] potentialEnergy;
+
+	/**
+	 * Measured in kilograms (kg)
+	 */
+	public double[] mass;
+
+	/**
+	 * Measured in meters (m)
+	 */
+	public double[] radius;
+
+	/**
+	 * Measured in Coulombs (C)
+	 */
+	public double[] charge;
+
+	/**
+	 * Percentage of kinetic energy conserved in a collision, from 0.0 to 1.0
+	 */
+	public double[] elasticity;
+
+	public int size() { return size; }
+	public int capacity() { return mass.length; }
+
+	/**
+	 * Constructor allocates room for the specified number of particles
+	 * @param capacityIn initial capacity of the arrays
+	 */
+	public ParticleStore(int capacityIn) {
+		allocate(Math.max(capacityIn, 1));
+	}
+
+	public ParticleStore() {
+		this(16);
+	}
+
+	/**
+	 * Creates a store holding copies of the state of the specified particles
+	 * @param particles
+	 * @return
+	 */
+	public static ParticleStore fromParticles(List<Particle> particles) {
+		ParticleStore store = new ParticleStore(particles.size());
+		for (Particle particle : particles) {
+			int index = store.add(particle.getMass(), particle.getRadius(),
+					particle.getInitialVelocity().getX(),
+					particle.getInitialVelocity().getY(),
+					particle.getInitialVelocity().getZ(),
+					particle.getPosition().getX(),
+					particle.getPosition().getY(),
+					particle.getPosition().getZ());
+			store.charge[index] = particle.getCharge();
+			store.elasticity[index] = particle.getElasticity();
+		}
+		return store;
+	}
+
+	/**
+	 * Appends a particle with the default charge and elasticity
+	 * @return index of the new particle
+	 */
+	public int add(double massIn, double radiusIn, double velocityXIn,
+			double velocityYIn, double velocityZIn, double positionXIn,
+			double positionYIn, double positionZIn) {
+		if (size == mass.length) {
+			grow(size * 2);
+		}
+		int index = size++;
+		mass[index] = massIn;
+		radius[index] = radiusIn;
+		velocityX[index] = velocityXIn;
+		velocityY[index] = velocityYIn;
+		velocityZ[index] = velocityZIn;
+		positionX[index] = positionXIn;
+		positionY[index] = positionYIn;
+		positionZ[index] = positionZIn;
+		finalVelocityX[index] = 0;
+		finalVelocityY[index] = 0;
+		finalVelocityZ[index] = 0;
+		forceX[index] = 0;
+		forceY[index] = 0;
+		forceZ[index] = 0;
+		charge[index] = DEFAULT_CHARGE;
+		elasticity[index] = DEFAULT_ELASTICITY;
+		return index;
+	}
+
+	/**
+	 * Sets the number of particles, growing the arrays if needed. The state
+	 * of added particles is undefined until it is written.
+	 * @param sizeIn
+	 */
+	public void resize(int sizeIn) {
+		if (sizeIn > mass.length) {
+			grow(Math.max(sizeIn, mass.length * 2));
+		}
+		size = sizeIn;
+	}
+
+	/**
+	 * Removes all particles, keeping the allocated arrays
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * Sets the net force of every particle to zero
+	 */
+	public void clearForces() {
+		Arrays.fill(forceX, 0, size, 0);
+		Arrays.fill(forceY, 0, size, 0);
+		Arrays.fill(forceZ, 0, size, 0);
+	}
+
+	/**
+	 * Sets the potential energy of every particle to zero
+	 */
+	public void clearPotentialEnergy() {
+		Arrays.fill(potentialEnergy, 0, size, 0);
+	}
+
+
+	/**
+	 * Sets the final velocity of every particle to zero
+	 */
+	public void clearFinalVelocities() {
+		Arrays.fill(finalVelocityX, 0, size, 0);
+		Arrays.fill(finalVelocityY, 0, size, 0);
+		Arrays.fill(finalVelocityZ, 0, size, 0);
+	}
+
+	/**
+	 * Sets the initial velocity of the particle to its final velocity
+	 * @param index
+	 */
+	public void resetVelocity(int index) {
+		velocityX[index] = finalVelocityX[index];
+		velocityY[index] = finalVelocityY[index];
+		velocityZ[index] = finalVelocityZ[index];
+	}
+
+	/**
+	 * Copies only the particles themselves into the specified store: their
+	 * positions, velocities, masses, radii, charges and elasticities. The 
+	 * columns a cycle works in, forces, final velocities and potential 
+	 * energy, are left out.
+	 * @param other destination store
+	 */
+	public void copyParticlesInto(ParticleStore other) {
+		if (other.capacity() < size) {
+			other.allocate(size);
+		}
+		System.arraycopy(positionX, 0, other.positionX, 0, size);
+		System.arraycopy(positionY, 0, other.positionY, 0, size);
+		System.arraycopy(positionZ, 0, other.positionZ, 0, size);
+		System.arraycopy(velocityX, 0, other.velocityX, 0, size);
+		System.arraycopy(velocityY, 0, other.velocityY, 0, size);
+		System.arraycopy(velocityZ, 0, other.velocityZ, 0, size);
+		System.arraycopy(mass, 0, other.mass, 0, size);
+		System.arraycopy(radius, 0, other.radius, 0, size);
+		System.arraycopy(charge, 0, other.charge, 0, size);
+		System.arraycopy(elasticity, 0, other.elasticity, 0, size);
+		other.size = size;
+	}
+
+	/**
+	 * Copies the whole state of this store into the specified store,
+	 * growing it if needed
+	 * @param other destination store
+	 */
+	public void copyInto(ParticleStore other) {
+		if (other.capacity() < size) {
+			other.allocate(size);
+		}
+		System.arraycopy(positionX, 0, other.positionX, 0, size);
+		System.arraycopy(positionY, 0, other.positionY, 0, size);
+		System.arraycopy(positionZ, 0, other.positionZ, 0, size);
+		System.arraycopy(velocityX, 0, other.velocityX, 0, size);
+		System.arraycopy(velocityY, 0, other.velocityY, 0, size);
+		System.arraycopy(velocityZ, 0, other.velocityZ, 0, size);
+		System.arraycopy(finalVelocityX, 0, other.finalVelocityX, 0, size);
+		System.arraycopy(finalVelocityY, 0, other.finalVelocityY, 0, size);
+		System.arraycopy(finalVelocityZ, 0, other.finalVelocityZ, 0, size);
+		System.arraycopy(forceX, 0, other.forceX, 0, size);
+		System.arraycopy(forceY, 0, other.forceY, 0, size);
+		System.arraycopy(forceZ, 0, other.forceZ, 0, size);
+		System.arraycopy(potentialEnergy, 0, other.potentialEnergy, 0, size);
+		System.arraycopy(mass, 0, other.mass, 0, size);
+		System.arraycopy(radius, 0, other.radius, 0, size);
+		System.arraycopy(charge, 0, other.charge, 0, size);
+		System.arraycopy(elasticity, 0, other.elasticity, 0, size);
+		other.size = size;
+	}
+
+	/**
+	 * Returns the largest radius of all particles, or 0 if there are none
+	 * @return
+	 */
+	public double getMaxRadius() {
+		double max = 0;
+		for (int i = 0; i < size; i++) {
+			if (radius[i] > max) {
+				max = radius[i];
+			}
+		}
+		return max;
+	}
+
+	/**
+	 * Grows every array to the specified capacity, keeping the current contents
+	 * @param capacityIn
+	 */
+	private void grow(int capacityIn) {
+		positionX = Arrays.copyOf(positionX, capacityIn);
+		positionY = Arrays.copyOf(positionY, capacityIn);
+		positionZ = Arrays.copyOf(positionZ, capacityIn);
+		velocityX = Arrays.copyOf(velocityX, capacityIn);
+		velocityY = Arrays.copyOf(velocityY, capacityIn);
+		velocityZ = Arrays.copyOf(velocityZ, capacityIn);
+		finalVelocityX = Arrays.copyOf(finalVelocityX, capacityIn);
+		finalVelocityY = Arrays.copyOf(finalVelocityY, capacityIn);
+		finalVelocityZ = Arrays.copyOf(finalVelocityZ, capacityIn);
+		forceX = Arrays.copyOf(forceX, capacityIn);
+		forceY = Arrays.copyOf(forceY, capacityIn);
+		forceZ = Arrays.copyOf(forceZ, capacityIn);
+		potentialEnergy = Arrays.copyOf(potentialEnergy, capacityIn);
+		mass = Arrays.copyOf(mass, capacityIn);
+		radius = Arrays.copyOf(radius, capacityIn);
+		charge = Arrays.copyOf(charge, capacityIn);
+		elasticity = Arrays.copyOf(elasticity, capacityIn);
+	}
+
+	/**
+	 * Replaces every array with an empty one of the specified capacity
+	 * @param capacityIn
+	 */
+	private void allocate(int capacityIn) {
+		positionX = new double[capacityIn];
+		positionY = new double[capacityIn];
+		positionZ = new double[capacityIn];
+		velocityX = new double[capacityIn];
+		velocityY = new double[capacityIn];
+		velocityZ = new double[capacityIn];
+		finalVelocityX = new double[capacityIn];
+		finalVelocityY = new double[capacityIn];
+		finalVelocityZ = new double[capacityIn];
+		forceX = new double[capacityIn];
+		forceY = new double[capacityIn];
+		forceZ = new double[capacityIn];
+		potentialEnergy = new double[capacityIn];
+		mass = new double[capacityIn];
+		radius = new double[capacityIn];
+		charge = new double[capacityIn];
+		elasticity = new double[capacityIn];
+		size = 0;
+	}
+}
@@ -1,385 +1,754 @@
-package world;
-
-import java.awt.Rectangle;
-import java.awt.event.ActionListener;
-import java.util.ArrayList;
-import java.util.List;
-
-import data.XYVector;
-import data.XYZVector;
-import entity.Particle;
-import helper.Recorder;
-
-public class World extends Thread {
-	/**
-	 * Gravitational Constant = 6.67408 x 10^-11 m^3 kg^-1 s^-2
-	 */
-	public static final double GRAVITATIONAL_CONSTANT = 6.67408e-11;
-
-	/**
-	 * Coulomb's Law Constant = 8.9875517873681764 x 10^9 N m^2 C^-2
-	 */
-	public static final double COULOMBS_LAW_CONSTANT = 8.9875517873681764e9;
-	
-	/**
-	 * Smallest possible length in the world in meters (m)
-	 */
-	public static final double MIN_LENGTH = 1;
-
-	/**
-	 * Shortest possible time length in the world in seconds (s)
-	 */
-	public static final double MIN_TIME_INTERVAL = 100;
-
-	/**
-	 * List of all particles in the world
-	 */
-	private List<Particle> particles = new ArrayList<Particle>();
-
-	private double time = 0;
-
-	public List<Particle> getParticles() { return particles; }
-	public double getTime() { return time; }
-
-	public void setParticles(List<Particle> particlesIn) { particles = particlesIn; }
-	
-	public void setTime(double timeIn) { time = timeIn; }
-
-	public void run() {
-		while(true) {
-			runSingleCycle();
-			time += MIN_TIME_INTERVAL;
-		}
-	}
-
-	/**
-	 * One cycle includes calculating net force in the moment, then calculate 
-	 * acceleration, then calculate velocity, then move each particle based on 
-	 * velocity, and then checks for and handles collisions.
-	 */
-	private void runSingleCycle() {
-		calculateForces();
-		calculateDisplacement();
-		calculateCollisions(); 
-
-		if (time % (10000 * MIN_TIME_INTERVAL) == 0) {
-			Recorder.recordTurn(this);
-		}
-	}
-
-	/**
-	 * Calculates the net forces on each particle
-	 */
-	private void calculateForces() {
-		//reset all net forces
-		for (Particle tempParticle : particles) {
-			tempParticle.setNetForce(new XYZVector());
-		}
-
-		for (int i = 0; i < particles.size() - 1; i++) {
-			for (int j = i + 1; j < particles.size(); j++) {
-				addForces(particles.get(i), particles.get(j));
-			}
-		}
-	}
-
-	/**
-	 * Calculates the force of gravity and electromagnetism between the two specified particles and 
-	 * then adds the force vector to the particle1 and then scales it to the 
-	 * negative before adding it to particle2
-	 * @param particle1 Particle in which the force vector will be calculated in 
-	 * reference to
-	 * @param particle2 Other particle to calculate  force
-	 */
-	private void addForces(Particle particle1, Particle particle2) {
-		XYZVector distance = getDistance(particle1, particle2);
-
-		//calculate gravity magnitude
-		double centerDistanceMagnitude = distance.getMagnitude();
-		double gravityForceMagnitude = calcGravityForceMagnitude(particle1.getMass(),	
-				particle2.getMass(), centerDistanceMagnitude);
-		
-		//calculate electric force
-		double surfaceDistanceMagnitude = centerDistanceMagnitude - 
-				particle1.getRadius() - particle2.getRadius();
-		double electromagneticForceMagnitude = calcElectricForceMagnitude(particle1.getCharge(),
-				particle2.getCharge(), surfaceDistanceMagnitude);
-		
-		double totalForceMagnitude = gravityForceMagnitude - electromagneticForceMagnitude;
-
-		if (Math.abs(totalForceMagnitude) > Integer.MAX_VALUE / 1000) {
-			System.out.println("particle had a force of: " + totalForceMagnitude + " N");
-		}
-		
-		XYVector vectorAngle = distance.getAngle();
-
-		double forceX = totalForceMagnitude * Math.sin(vectorAngle.getX())
-				* Math.cos(vectorAngle.getY());
-		double forceY = totalForceMagnitude * Math.sin(vectorAngle.getX())
-				* Math.sin(vectorAngle.getY());
-		double forceZ = totalForceMagnitude * Math.cos(vectorAngle.getX()) ;
-
-		XYZVector force = new XYZVector(forceX, forceY, forceZ);
-		XYZVector oppositeForce = force.copy();
-		oppositeForce.scale(-1);
-
-		particle1.getNetForce().add(force);
-		particle2.getNetForce().add(oppositeForce);
-	}
-
-	/**
-	 * Calculates the distance vector between two objects centers
-	 * @param particle1
-	 * @param particle2
-	 * @return The vector of the distance between the two objects are the 
-	 * direction needed
-	 * to get from particle1 to particle2
-	 */
-	private XYZVector getDistance(Particle particle1, Particle particle2) {
-		return XYZVector.subtract(particle2.getPosition(), particle1.getPosition());
-	}
-
-	/**
-	 * Calculates the force magnitude using the formula: F = GMm / r^2
-	 * @param mass1
-	 * @param mass2
-	 * @param distanceMagnitude
-	 * @return
-	 */
-	private double calcGravityForceMagnitude(double mass1, double mass2, 
-			double centerDistanceMagnitude) {
-		return World.GRAVITATIONAL_CONSTANT * mass1 * mass2 / 
-				Math.pow(centerDistanceMagnitude, 2);
-	}
-
-	/**
-	 * Calculates the force magnitude using the formula: F = kQq / r^2
-	 * @param charge1
-	 * @param charge2
-	 * @param surfaceDistanceMagnitude
-	 * @return
-	 */
-	private double calcElectricForceMagnitude(double charge1, double charge2,
-			double surfaceDistanceMagnitude) {
-		return World.COULOMBS_LAW_CONSTANT * charge1 * charge2 /
-				Math.pow(surfaceDistanceMagnitude, 2);
-	}
-	/**
-	 * Calculates acceleration due to net force, then calculates velocity, 
-	 * and then calculates movement all for the SHORTEST_TIME
-	 */
-	private void calculateDisplacement() {
-		for (Particle tempParticle : particles) {
-			tempParticle.calcNewVelocity();
-			tempParticle.moveParticle();
-		}
-	}
-
-
-	/**
-	 * TODO correct overlap in collision
-	 */
-	private void calculateCollisions() {
-		for (Particle particle : particles) {
-			particle.setFinalVelocity(new XYZVector());
-		}
-		boolean[] particlesInCollision = new boolean[particles.size()];
-
-		for (int i = 0; i < particles.size() - 1; i++) {
-			Particle tempParticle = particles.get(i);
-			for (int j = i + 1; j < particles.size(); j++) {
-				Particle otherParticle = particles.get(j);
-				if (tempParticle != otherParticle && getOverlapDistance(tempParticle, otherParticle) >= 0) {
-					particlesInCollision[i] = true;
-					particlesInCollision[j] = true;
-					XYZVector[] velocityChanges = handleCollision(tempParticle, otherParticle);
-					tempParticle.getFinalVelocity().add(velocityChanges[0]);
-					otherParticle.getFinalVelocity().add(velocityChanges[1]);
-
-				}
-			}
-		}
-
-		for (int i = 0; i < particles.size(); i++) {
-			if (particlesInCollision[i]) {
-				particles.get(i).resetVelocity();
-			}
-		}
-	}
-
-	private double getOverlapDistance(Particle particle1, Particle particle2) {
-		double centerDistance = getDistance(particle1, particle2).getMagnitude();
-		double radiiSum = particle1.getRadius() + particle2.getRadius();
-		return radiiSum - centerDistance;
-	}
-
-
-
-	/**
-	 * 
-	 * @param particle1
-	 * @param particle2
-	 */
-	private XYZVector[] handleCollision(Particle particle1, Particle particle2) {
-		//normalize everything relative to particle2
-		//particle2 vectors are zero
-		//calculate relative velocities
-		XYZVector collisionVelocity = particle2.getInitialVelocity().copy();
-		XYZVector particle1relativeVelocity = XYZVector.subtract(particle1.getInitialVelocity(), 
-				particle2.getInitialVelocity());
-
-		//calculate incident directions
-		XYZVector incident1 = particle1relativeVelocity;
-		XYZVector incident2 = incident1.copy();
-		incident2.scale(-1);
-
-		//calculate final velocities magnitudes
-		XYZVector particle1FinalVelocity = getParticle1FinalVelocity(particle1, particle2, 
-				particle1relativeVelocity);
-		XYZVector particle2FinalVelocity = getParticle2FinalVelocity(particle1, particle2, 
-				particle1relativeVelocity);
-
-		particle1FinalVelocity.add(collisionVelocity);
-		particle2FinalVelocity.add(collisionVelocity);
-
-		//for non perfect elastic collisions
-		//don't know if this is how the physics works
-		particle1FinalVelocity.scale(particle1.getElasticity());
-		particle1FinalVelocity.scale(particle2.getElasticity());
-
-		return new XYZVector[]{particle1FinalVelocity, particle2FinalVelocity};
-	}
-
-	private XYZVector getParticle1FinalVelocity(Particle particle1, Particle particle2, XYZVector particle1relativeVelocity) {
-		return getParticleFinalVelocity(particle1.getMass(), particle2.getMass(), particle1relativeVelocity,
-				new XYZVector(), particle1.getPosition(), particle2.getPosition());
-	}
-
-	private XYZVector getParticle2FinalVelocity(Particle particle1, Particle particle2, XYZVector particle1relativeVelocity) {
-		return getParticleFinalVelocity(particle2.getMass(), particle1.getMass(), new XYZVector(),
-				particle1relativeVelocity, particle2.getPosition(), particle1.getPosition());
-	}
-
-	/**
-	 * Calculates and returns the resulting velocity of the first mass using the
-	 * formula for 2D collisions with two moving objects:<br>
-	 * Vf = V1 - 2 * M2 / (M1 + M2) <V1 - V2, X1 - X2> / ||X1 - X2||^2 * (X1 - X2)
-	 * @param mass1
-	 * @param mass2
-	 * @param velocity1
-	 * @param velocity2
-	 * @return
-	 */
-	private XYZVector getParticleFinalVelocity(double mass1, double mass2, XYZVector velocity1, 
-			XYZVector velocity2, XYZVector position1, XYZVector position2) {
-		XYZVector posDif = XYZVector.subtract(position1, position2);
-		double c = XYZVector.subtract(velocity1, velocity2).dotProduct(posDif) / Math.pow(posDif.getMagnitude(), 2) *
-				2 * mass2 / (mass1 + mass2);
-		posDif.scale(c);
-		return XYZVector.subtract(velocity1, posDif);
-	}
-
-	/**
-	 * Calculate and returns the position of the Center of Mass of the
-	 * World using the formula: X = (M1X1 + M2X2 + ...) / (M1 + M2 ...) and
-	 * Y = (M1Y1 + M2Y2 + ...) / (M1 + M2 ...). (For graphical uses)
-	 * @return the position of the center of mass
-	 */
-	public static XYZVector getCenterMass(List<Particle> particles) {
-		double xDividend = 0;
-		double yDividend = 0;
-		double zDividend = 0;
-		double divisor = 0;
-
-		for (Particle temp : particles) {
-			double mass = temp.getMass();
-			double xPos = temp.getPosition().getX();
-			double yPos = temp.getPosition().getY();
-			double zPos = temp.getPosition().getZ();
-			xDividend += mass * xPos;
-			yDividend += mass * yPos;
-			zDividend += mass * zPos;
-			divisor += mass;
-		}
-
-		double x;
-		double y;
-		double z;
-
-		try {
-			x = xDividend / divisor;
-			y = yDividend / divisor;
-			z = zDividend / divisor;
-		} catch (Exception e) { return null; }
-
-		return new XYZVector(x, y, z);
-	}
-
-	/**
-	 * Calculates and returns the kinetic energy of the whole system
-	 * @return value of the kinetic energy
-	 */
-	public double getKineticEnergy() {
-		double energy = 0;
-
-		for (Particle temp : particles) {
-			energy += temp.getKineticEnergy();
-		}
-
-		return energy;
-	}
-
-	/**
-	 * Adds the potential energy between every possible pairs of particles
-	 * @return
-	 */
-	public double getTotalPotentialEnergy() {
-		double energy = 0;
-
-		for (int i = 0; i < particles.size(); i++) {
-			for (int j = i + 1; j < particles.size(); j++) {
-				energy += getPotentialEnergy(particles.get(i), particles.get(j));
-			}
-		}
-
-		return energy;
-	}
-
-	public double getPotentialEnergy(Particle particle1, Particle particle2) {
-		return -GRAVITATIONAL_CONSTANT * particle1.getMass() * particle2.getMass()
-				/ getDistance(particle1, particle2).getMagnitude();
-	}
-
-
-	public XYZVector getTotalMomentum() {
-		XYZVector momentum = new XYZVector();
-
-		for (int i = 0; i < particles.size(); i++) {
-			momentum.add(particles.get(i).getMomentum());
-		}
-		return momentum;
-	}
-	/**
-	 * Just something to get starting camera view. Need to improve with algorithm that
-	 * centers around starting objects.
-	 * @return
-	 */
-	public Rectangle getBounds() {
-		return new Rectangle((int)(-3000),
-				(int) (-3000),
-				(int) (6000),
-				(int) (6000));
-	}
-
-	public String toString() {
-		String string = time + "\n";
-
-		for (Particle temp : particles) {
-			string += temp.toString() + "\n";
-		}
-
-		string += "*\n";
-		
-		return string;
-	}
-}
+package world;
+
+import java.awt.Rectangle;
+import java.awt.event.ActionListener;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import collision.BroadPhase;
+import collision.PairHandler;
+import collision.SpatialHashBroadPhase;
+import data.XYZVector;
+import entity.Particle;
+import helper.Checkpoint;
+import helper.Recorder;
+import integrator.EulerIntegrator;
+import integrator.Integrator;
+import metrics.Phase;
+import metrics.PhaseEvent;
+import metrics.StepMetrics;
+import solver.DirectForceSolver;
+import solver.ForceSolver;
+
+public class World extends Thread {
+	/**
+	 * Gravitational Constant = 6.67408 x 10^-11 m^3 kg^-1 s^-2
+	 */
+	public static final double GRAVITATIONAL_CONSTANT = 6.67408e-11;
+
+	/**
+	 * Coulomb's Law Constant = 8.9875517873681764 x 10^9 N m^2 C^-2
+	 */
+	public static final double COULOMBS_LAW_CONSTANT = 8.9875517873681764e9;
+	
+	/**
+	 * Smallest possible length in the world in meters (m)
+	 */
+	public static final double MIN_LENGTH = 1;
+
+	/**
+	 * Shortest possible time length in the world in seconds (s)
+	 */
+	public static final double MIN_TIME_INTERVAL = 100;
+
+	/**
+	 * Simulated time between two recorded frames in seconds (s)
+	 */
+	public static final double RECORD_INTERVAL = 10000 * MIN_TIME_INTERVAL;
+
+	/**
+	 * State of all particles in the world
+	 */
+	private ParticleStore store = new ParticleStore();
+
+	/**
+	 * List of views onto the particles in the store
+	 */
+	private List<Particle> particles = new ArrayList<Particle>();
+
+	private double time = 0;
+
+	/**
+	 * Number of cycles run
+	 */
+	private long stepCount = 0;
+
+	/**
+	 * Hands a copy of the World to the display after every cycle
+	 */
+	private FrameBuffer frameBuffer = new FrameBuffer();
+
+	/**
+	 * Whether frames are handed to the display, only true if there is one
+	 */
+	private boolean framePublishing;
+
+	/**
+	 * Whether the World is written to the recording every 10000 cycles
+	 */
+	private boolean recording = true;
+
+	/**
+	 * Writes the recorded frames in the background, if null they are
+	 * appended synchronously with Recorder.recordTurn
+	 */
+	private Recorder recorder;
+
+	/**
+	 * Saves the exact state of the World now and then, if not null
+	 */
+	private Checkpoint checkpoint;
+
+	/**
+	 * Energy, momentum and center of mass of the last cycle, calculated
+	 * every cycle if diagnosticsEnabled
+	 */
+	private Diagnostics diagnostics = new Diagnostics();
+	private boolean diagnosticsEnabled;
+
+	/**
+	 * Whether the diagnostics are of the current state, which is not the
+	 * case once the state was set from outside
+	 */
+	private boolean diagnosticsCurrent;
+
+	/**
+	 * Calculates the net forces on each particle every cycle
+	 */
+	private ForceSolver forceSolver = new DirectForceSolver();
+
+	/**
+	 * Moves the particles every cycle
+	 */
+	private Integrator integrator = new EulerIntegrator();
+
+	/**
+	 * Length of a cycle in seconds (s)
+	 */
+	private double timeStep = MIN_TIME_INTERVAL;
+
+	/**
+	 * Finds the pairs of particles that might be colliding every cycle
+	 */
+	private BroadPhase broadPhase = new SpatialHashBroadPhase();
+
+	/**
+	 * Checks the pairs found by the broad phase exactly
+	 */
+	private NarrowPhase narrowPhase = new NarrowPhase();
+
+	private boolean[] particlesInCollision = new boolean[0];
+
+	/**
+	 * Pairs found by the broad phase and pairs that were colliding, since
+	 * the World was created
+	 */
+	private long pairsTested;
+	private long pairsResolved;
+
+	/**
+	 * Measures the phases of every cycle, if not null
+	 */
+	private StepMetrics metrics;
+
+	/**
+	 * Times the force solver for the metrics and the flight recorder
+	 */
+	private TimedForceSolver timedForceSolver = new TimedForceSolver();
+
+	/**
+	 * Start of the current phase of the cycle in nanoseconds (ns)
+	 */
+	private long phaseStart;
+
+	public List<Particle> getParticles() { return particles; }
+	public ForceSolver getForceSolver() { return forceSolver; }
+	public Integrator getIntegrator() { return integrator; }
+	public double getTimeStep() { return timeStep; }
+	public BroadPhase getBroadPhase() { return broadPhase; }
+	public ParticleStore getStore() { return store; }
+	public double getTime() { return time; }
+	public long getStepCount() { return stepCount; }
+	public boolean isRecording() { return recording; }
+	public Recorder getRecorder() { return recorder; }
+	public Checkpoint getCheckpoint() { return checkpoint; }
+	public boolean isDiagnosticsEnabled() { return diagnosticsEnabled; }
+	public boolean isFramePublishing() { return framePublishing; }
+	public StepMetrics getMetrics() { return metrics; }
+	public long getPairsTested() { return pairsTested; }
+	public long getPairsResolved() { return pairsResolved; }
+
+	/**
+	 * Returns the diagnostics of the last cycle. Must only be called from
+	 * the thread that runs the World, other threads get them with the frames.
+	 * @return the diagnostics, or null if they are not enabled
+	 */
+	public Diagnostics getDiagnostics() {
+		return diagnosticsEnabled ? diagnostics : null;
+	}
+
+	/**
+	 * Copies the state of the specified particles into the store of the World
+	 * and then binds each particle to its index in the store, so the list 
+	 * keeps referring to the World's particles.
+	 * @param particlesIn
+	 */
+	public void setParticles(List<Particle> particlesIn) {
+		store = ParticleStore.fromParticles(particlesIn);
+		for (int i = 0; i < particlesIn.size(); i++) {
+			particlesIn.get(i).bind(store, i);
+		}
+		particles = particlesIn;
+		integrator.reset();
+		diagnosticsCurrent = false;
+		publishFrame();
+	}
+
+	/**
+	 * Replaces the store of the World and creates a view for each of its 
+	 * particles
+	 * @param storeIn
+	 */
+	public void setStore(ParticleStore storeIn) {
+		store = storeIn;
+		particles = new ArrayList<Particle>(store.size());
+		for (int i = 0; i < store.size(); i++) {
+			particles.add(new Particle(store, i));
+		}
+		integrator.reset();
+		diagnosticsCurrent = false;
+		publishFrame();
+	}
+	
+	public void setTime(double timeIn) { 
+		time = timeIn; 
+		diagnosticsCurrent = false;
+		publishFrame();
+	}
+	public void setRecording(boolean recordingIn) { recording = recordingIn; }
+
+	/**
+	 * Sets whether a copy of the World is handed to the display after every
+	 * cycle. Off by default, so a World without a display does not copy its
+	 * particles every cycle. Must be set before the World is started.
+	 * @param framePublishingIn
+	 */
+	public void setFramePublishing(boolean framePublishingIn) {
+		framePublishing = framePublishingIn;
+		publishFrame();
+	}
+	public void setRecorder(Recorder recorderIn) { recorder = recorderIn; }
+	public void setCheckpoint(Checkpoint checkpointIn) { checkpoint = checkpointIn; }
+
+	/**
+	 * Sets the metrics the phases of every cycle are measured into, or null
+	 * to stop measuring. Must be set before the World is started.
+	 * @param metricsIn
+	 */
+	public void setMetrics(StepMetrics metricsIn) { metrics = metricsIn; }
+
+	/**
+	 * Sets the number of cycles run, used when a run is continued
+	 * @param stepCountIn
+	 */
+	public void setStepCount(long stepCountIn) {
+		stepCount = stepCountIn;
+		diagnosticsCurrent = false;
+		publishFrame();
+	}
+	public void setForceSolver(ForceSolver forceSolverIn) { 
+		forceSolver = forceSolverIn; 
+		forceSolver.setPotentialEnergyEnabled(diagnosticsEnabled);
+		integrator.reset();
+	}
+
+	/**
+	 * Sets whether the energy, momentum and center of mass are calculated
+	 * after every cycle and handed to the display with the frames. The force
+	 * solver then also calculates the potential energy, and the forces are
+	 * calculated again in the next cycle so every particle has it.
+	 * @param diagnosticsEnabledIn
+	 */
+	public void setDiagnosticsEnabled(boolean diagnosticsEnabledIn) {
+		diagnosticsEnabled = diagnosticsEnabledIn;
+		forceSolver.setPotentialEnergyEnabled(diagnosticsEnabled);
+		integrator.reset();
+	}
+
+	public void setIntegrator(Integrator integratorIn) { integrator = integratorIn; }
+
+	/**
+	 * Sets the length of a cycle. Must be greater than zero.
+	 * Silently ignores invalid values.
+	 * @param timeStepIn measured in seconds (s)
+	 */
+	public void setTimeStep(double timeStepIn) {
+		if (timeStepIn > 0.0) {
+			timeStep = timeStepIn;
+		}
+	}
+	public void setBroadPhase(BroadPhase broadPhaseIn) { broadPhase = broadPhaseIn; }
+
+	public void run() {
+		while(true) {
+			step();
+		}
+	}
+
+	/**
+	 * Runs a single cycle and advances the time of the World
+	 */
+	public void step() {
+		long start = System.nanoTime();
+		runSingleCycle();
+		time += timeStep;
+		stepCount++;
+		if (diagnosticsEnabled) {
+			PhaseEvent event = beginPhase();
+			diagnostics.calculate(store, time, stepCount);
+			diagnosticsCurrent = true;
+			endPhase(event, Phase.DIAGNOSTICS, stepCount, 0);
+		}
+		if (checkpoint != null) {
+			PhaseEvent event = beginPhase();
+			saveCheckpoint();
+			endPhase(event, Phase.CHECKPOINT, stepCount, 0);
+		}
+		PhaseEvent event = beginPhase();
+		publishFrame();
+		endPhase(event, Phase.FRAME, stepCount, 0);
+		if (metrics != null) {
+			metrics.endStep(System.nanoTime() - start, forceSolver.getInteractionCount(), 
+					pairsTested, pairsResolved);
+		}
+	}
+
+	/**
+	 * Starts a phase of the cycle
+	 * @return the flight recorder event of the phase
+	 */
+	private PhaseEvent beginPhase() {
+		PhaseEvent event = new PhaseEvent();
+		event.begin();
+		phaseStart = System.nanoTime();
+		return event;
+	}
+
+	/**
+	 * Ends a phase of the cycle, adds its time to the metrics and commits 
+	 * its event if the flight recorder is on
+	 * @param event returned by beginPhase
+	 * @param phase
+	 * @param step number of the cycle
+	 * @param excludedNanos time of nested phases that is not part of this one
+	 */
+	private void endPhase(PhaseEvent event, Phase phase, long step, long excludedNanos) {
+		if (metrics != null) {
+			metrics.record(phase, System.nanoTime() - phaseStart - excludedNanos);
+		}
+		commitPhase(event, phase, step);
+	}
+
+	private void commitPhase(PhaseEvent event, Phase phase, long step) {
+		event.end();
+		if (event.shouldCommit()) {
+			event.phase = phase.getName();
+			event.particles = store.size();
+			event.step = step;
+			event.solver = forceSolver.getName();
+			event.commit();
+		}
+	}
+
+	/**
+	 * Hands the World to the checkpoint, which saves it if it is due. Stops
+	 * saving checkpoints if writing one failed.
+	 */
+	private void saveCheckpoint() {
+		try {
+			checkpoint.update(this);
+		} catch (IOException e) {
+			System.out.println("Checkpoints stopped: " + e.getMessage());
+			checkpoint = null;
+		}
+	}
+
+	/**
+	 * Returns the newest frame of the World. Must only be called from one
+	 * thread, the display's event dispatch thread.
+	 * Frames are only published while frame publishing is on.
+	 * @return
+	 */
+	public Frame getFrame() {
+		return frameBuffer.acquire();
+	}
+
+	/**
+	 * Copies the current state into a frame for the display, with the
+	 * diagnostics if they are of this state. Must be called from the thread
+	 * that runs the World.
+	 */
+	private void publishFrame() {
+		if (!framePublishing) {
+			return;
+		}
+		boolean current = diagnosticsEnabled && diagnosticsCurrent;
+		frameBuffer.getBackFrame().set(store, time, stepCount, current ? diagnostics : null);
+		frameBuffer.publish();
+	}
+
+	/**
+	 * One cycle includes moving every particle with the integrator, which 
+	 * calculates the net forces as often as its scheme needs, and then 
+	 * checks for and handles collisions. The forces are timed inside the
+	 * integrator, so the integration phase is the time of the integrator 
+	 * without them.
+	 */
+	private void runSingleCycle() {
+		long step = stepCount + 1;
+		PhaseEvent event = beginPhase();
+		timedForceSolver.nanos = 0;
+		integrator.step(store, timedForceSolver, timeStep);
+		if (metrics != null) {
+			metrics.record(Phase.FORCES, timedForceSolver.nanos);
+		}
+		endPhase(event, Phase.INTEGRATION, step, timedForceSolver.nanos);
+
+		event = beginPhase();
+		calculateCollisions(); 
+		endPhase(event, Phase.COLLISIONS, step, 0);
+
+		if (recording && isRecordingCycle()) {
+			event = beginPhase();
+			record();
+			endPhase(event, Phase.RECORDING, step, 0);
+			if (metrics != null && recorder != null) {
+				metrics.setRecorder(recorder.getQueueDepth(), recorder.getDroppedCount());
+			}
+		}
+	}
+
+	/**
+	 * Hands the World to the recorder. Stops recording if the recorder
+	 * failed to write.
+	 */
+	private void record() {
+		if (recorder == null) {
+			Recorder.recordTurn(this);
+			return;
+		}
+		try {
+			recorder.record(this);
+		} catch (IOException e) {
+			System.out.println("Recording stopped: " + e.getMessage());
+			recording = false;
+		}
+	}
+
+	/**
+	 * Returns true if a multiple of RECORD_INTERVAL falls within this cycle
+	 * @return
+	 */
+	private boolean isRecordingCycle() {
+		return Math.ceil(time / RECORD_INTERVAL) * RECORD_INTERVAL < time + timeStep;
+	}
+
+	/**
+	 * Calculates the distance between the centers of two particles
+	 * @param particle1 index of the first particle
+	 * @param particle2 index of the second particle
+	 * @return magnitude of the distance
+	 */
+	private double getDistanceMagnitude(int particle1, int particle2) {
+		double dx = store.positionX[particle2] - store.positionX[particle1];
+		double dy = store.positionY[particle2] - store.positionY[particle1];
+		double dz = store.positionZ[particle2] - store.positionZ[particle1];
+		return Math.sqrt(dx * dx + dy * dy + dz * dz);
+	}
+
+	/**
+	 * Finds the pairs that might be touching with the broad phase, then 
+	 * checks each of them exactly and handles the collisions.
+	 * TODO correct overlap in collision
+	 */
+	private void calculateCollisions() {
+		store.clearFinalVelocities();
+		int size = store.size();
+		if (particlesInCollision.length < size) {
+			particlesInCollision = new boolean[size];
+		}
+		else {
+			Arrays.fill(particlesInCollision, 0, size, false);
+		}
+
+		broadPhase.findPairs(store, narrowPhase);
+
+		for (int i = 0; i < size; i++) {
+			if (particlesInCollision[i]) {
+				store.resetVelocity(i);
+			}
+		}
+	}
+
+	private double getOverlapDistance(int particle1, int particle2) {
+		double centerDistance = getDistanceMagnitude(particle1, particle2);
+		double radiiSum = store.radius[particle1] + store.radius[particle2];
+		return radiiSum - centerDistance;
+	}
+
+
+
+	/**
+	 * Adds the velocity changes of a collision between the two particles to
+	 * their final velocities
+	 * @param particle1 index of the first particle
+	 * @param particle2 index of the second particle
+	 */
+	private void handleCollision(int particle1, int particle2) {
+		//normalize everything relative to particle2
+		//particle2 vectors are zero
+		//calculate relative velocities
+		double relativeVelocityX = store.velocityX[particle1] - store.velocityX[particle2];
+		double relativeVelocityY = store.velocityY[particle1] - store.velocityY[particle2];
+		double relativeVelocityZ = store.velocityZ[particle1] - store.velocityZ[particle2];
+
+		double positionDifferenceX = store.positionX[particle1] - store.positionX[particle2];
+		double positionDifferenceY = store.positionY[particle1] - store.positionY[particle2];
+		double positionDifferenceZ = store.positionZ[particle1] - store.positionZ[particle2];
+
+		double mass1 = store.mass[particle1];
+		double mass2 = store.mass[particle2];
+
+		//calculate final velocities magnitudes
+		//Vf = V1 - 2 * M2 / (M1 + M2) <V1 - V2, X1 - X2> / ||X1 - X2||^2 * (X1 - X2)
+		double distanceSquared = positionDifferenceX * positionDifferenceX 
+				+ positionDifferenceY * positionDifferenceY 
+				+ positionDifferenceZ * positionDifferenceZ;
+		double projection = (relativeVelocityX * positionDifferenceX 
+				+ relativeVelocityY * positionDifferenceY 
+				+ relativeVelocityZ * positionDifferenceZ) / distanceSquared;
+		double c1 = projection * 2 * mass2 / (mass1 + mass2);
+		double c2 = projection * 2 * mass1 / (mass1 + mass2);
+
+		//for non perfect elastic collisions
+		//don't know if this is how the physics works
+		double elasticity = store.elasticity[particle1] * store.elasticity[particle2];
+
+		store.finalVelocityX[particle1] += (relativeVelocityX - c1 * positionDifferenceX 
+				+ store.velocityX[particle2]) * elasticity;
+		store.finalVelocityY[particle1] += (relativeVelocityY - c1 * positionDifferenceY 
+				+ store.velocityY[particle2]) * elasticity;
+		store.finalVelocityZ[particle1] += (relativeVelocityZ - c1 * positionDifferenceZ 
+				+ store.velocityZ[particle2]) * elasticity;
+
+		store.finalVelocityX[particle2] += c2 * positionDifferenceX + store.velocityX[particle2];
+		store.finalVelocityY[particle2] += c2 * positionDifferenceY + store.velocityY[particle2];
+		store.finalVelocityZ[particle2] += c2 * positionDifferenceZ + store.velocityZ[particle2];
+	}
+
+	/**
+	 * Calculate and returns the position of the Center of Mass of the
+	 * World using the formula: X = (M1X1 + M2X2 + ...) / (M1 + M2 ...) and
+	 * Y = (M1Y1 + M2Y2 + ...) / (M1 + M2 ...). (For graphical uses)
+	 * @return the position of the center of mass
+	 */
+	public static XYZVector getCenterMass(List<Particle> particles) {
+		double xDividend = 0;
+		double yDividend = 0;
+		double zDividend = 0;
+		double divisor = 0;
+
+		for (Particle temp : particles) {
+			double mass = temp.getMass();
+			double xPos = temp.getPosition().getX();
+			double yPos = temp.getPosition().getY();
+			double zPos = temp.getPosition().getZ();
+			xDividend += mass * xPos;
+			yDividend += mass * yPos;
+			zDividend += mass * zPos;
+			divisor += mass;
+		}
+
+		double x;
+		double y;
+		double z;
+
+		try {
+			x = xDividend / divisor;
+			y = yDividend / divisor;
+			z = zDividend / divisor;
+		} catch (Exception e) { return null; }
+
+		return new XYZVector(x, y, z);
+	}
+
+	/**
+	 * Same as getCenterMass(List), but reads the positions straight from the 
+	 * arrays of a store
+	 * @param store
+	 * @return the position of the center of mass
+	 */
+	public static XYZVector getCenterMass(ParticleStore store) {
+		double xDividend = 0;
+		double yDividend = 0;
+		double zDividend = 0;
+		double divisor = 0;
+
+		for (int i = 0; i < store.size(); i++) {
+			double mass = store.mass[i];
+			xDividend += mass * store.positionX[i];
+			yDividend += mass * store.positionY[i];
+			zDividend += mass * store.positionZ[i];
+			divisor += mass;
+		}
+
+		if (divisor == 0) {
+			return null;
+		}
+
+		return new XYZVector(xDividend / divisor, yDividend / divisor, zDividend / divisor);
+	}
+
+	/**
+	 * Calculates and returns the kinetic energy of the whole system
+	 * @return value of the kinetic energy
+	 */
+	public double getKineticEnergy() {
+		return getKineticEnergy(store);
+	}
+
+	/**
+	 * Calculates the kinetic energy of all particles of a store
+	 * @param store
+	 * @return
+	 */
+	public static double getKineticEnergy(ParticleStore store) {
+		double energy = 0;
+
+		for (int i = 0; i < store.size(); i++) {
+			double vx = store.velocityX[i];
+			double vy = store.velocityY[i];
+			double vz = store.velocityZ[i];
+			energy += .5 * store.mass[i] * (vx * vx + vy * vy + vz * vz);
+		}
+
+		return energy;
+	}
+
+	/**
+	 * Adds the potential energy between every possible pairs of particles
+	 * @return
+	 */
+	public double getTotalPotentialEnergy() {
+		return getTotalPotentialEnergy(store);
+	}
+
+	/**
+	 * Adds the potential energy between every possible pairs of particles
+	 * of a store
+	 * @param store
+	 * @return
+	 */
+	public static double getTotalPotentialEnergy(ParticleStore store) {
+		double energy = 0;
+
+		for (int i = 0; i < store.size(); i++) {
+			for (int j = i + 1; j < store.size(); j++) {
+				double dx = store.positionX[j] - store.positionX[i];
+				double dy = store.positionY[j] - store.positionY[i];
+				double dz = store.positionZ[j] - store.positionZ[i];
+				energy -= GRAVITATIONAL_CONSTANT * store.mass[i] * store.mass[j]
+						/ Math.sqrt(dx * dx + dy * dy + dz * dz);
+			}
+		}
+
+		return energy;
+	}
+
+	public double getPotentialEnergy(Particle particle1, Particle particle2) {
+		return -GRAVITATIONAL_CONSTANT * particle1.getMass() * particle2.getMass()
+				/ XYZVector.subtract(particle2.getPosition(), particle1.getPosition()).getMagnitude();
+	}
+
+
+	public XYZVector getTotalMomentum() {
+		return getTotalMomentum(store);
+	}
+
+	/**
+	 * Adds the momentum of all particles of a store
+	 * @param store
+	 * @return
+	 */
+	public static XYZVector getTotalMomentum(ParticleStore store) {
+		double momentumX = 0;
+		double momentumY = 0;
+		double momentumZ = 0;
+
+		for (int i = 0; i < store.size(); i++) {
+			momentumX += store.mass[i] * store.velocityX[i];
+			momentumY += store.mass[i] * store.velocityY[i];
+			momentumZ += store.mass[i] * store.velocityZ[i];
+		}
+		return new XYZVector(momentumX, momentumY, momentumZ);
+	}
+	/**
+	 * Just something to get starting camera view. Need to improve with algorithm that
+	 * centers around starting objects.
+	 * @return
+	 */
+	public Rectangle getBounds() {
+		return new Rectangle((int)(-3000),
+				(int) (-3000),
+				(int) (6000),
+				(int) (6000));
+	}
+
+	/**
+	 * Handles the collision of each pair found by the broad phase whose
+	 * particles are actually touching
+	 */
+	private class NarrowPhase implements PairHandler {
+		public void handlePair(int particle1, int particle2) {
+			pairsTested++;
+			if (getOverlapDistance(particle1, particle2) >= 0) {
+				pairsResolved++;
+				particlesInCollision[particle1] = true;
+				particlesInCollision[particle2] = true;
+				handleCollision(particle1, particle2);
+			}
+		}
+	}
+
+	/**
+	 * Hands the calculations to the force solver of the World, adds up how
+	 * long they take and commits a forces event for each of them
+	 */
+	private class TimedForceSolver implements ForceSolver {
+		private long nanos;
+
+		public void calculateForces(ParticleStore store) {
+			PhaseEvent event = new PhaseEvent();
+			event.begin();
+			long start = System.nanoTime();
+			forceSolver.calculateForces(store);
+			nanos += System.nanoTime() - start;
+			commitPhase(event, Phase.FORCES, stepCount + 1);
+		}
+
+		public void calculateForces(ParticleStore store, int[] active, int activeCount) {
+			PhaseEvent event = new PhaseEvent();
+			event.begin();
+			long start = System.nanoTime();
+			forceSolver.calculateForces(store, active, activeCount);
+			nanos += System.nanoTime() - start;
+			commitPhase(event, Phase.FORCES, stepCount + 1);
+		}
+
+		public void setPotentialEnergyEnabled(boolean enabled) {
+			forceSolver.setPotentialEnergyEnabled(enabled);
+		}
+
+		public boolean isPotentialEnergyEnabled() { return forceSolver.isPotentialEnergyEnabled(); }
+		public long getInteractionCount() { return forceSolver.getInteractionCount(); }
+		public String getName() { return forceSolver.getName(); }
+	}
+
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		Recorder.appendFrame(builder, store, time);
+		return builder.toString();
+	}
+}